@@ -0,0 +1,438 @@
+package com.jsontools;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ *
+ * <p>
+ * The <code>AbstractJsonParser</code> class holds the tree construction
+ * logic shared by every input source understood by <code>JsonParser</code>.
+ * Subclasses provide the token-level primitives (skipping whitespace,
+ * reading keys, strings and literals) over their own buffer, and this
+ * class assembles those tokens into <code>JsonObject</code> and
+ * <code>JsonArray</code> instances in a single forward pass.
+ * </p>
+ * <p>
+ * Nesting is tracked on an explicit stack of primitive container kinds
+ * rather than by recursion, so the depth of a document is limited only
+ * by available heap. Parser instances are not thread-safe.
+ * </p>
+ *
+ */
+abstract class AbstractJsonParser {
+
+	private static final int OBJECT = 1;
+	private static final int ARRAY = 2;
+
+	// whether numbers are kept as their text instead of being converted
+	boolean rawNumbers;
+	// the table keys and String values are canonicalized through, if any
+	StringTable strings;
+	// the kind of storage of the objects this parser builds
+	JsonStorage storage = JsonStorage.CONCURRENT;
+	// whether arrays of objects of one shape are held as columns
+	boolean columnar;
+
+	private int[] kinds = new int[16];
+	private Object[] containers = new Object[16];
+	private String[] keys = new String[16];
+	private int depth;
+
+	/**
+	 * Consumes and returns the next character which is not whitespace
+	 * (' ', '\t', '\n', '\r'), or -1 if the input is exhausted.
+	 */
+	abstract int nextToken() throws IOException;
+
+	/**
+	 * Reads the remainder of a key whose opening quote has already been
+	 * consumed, including its closing quote. Keys may not contain the
+	 * period ( ' . ' ) character.
+	 */
+	abstract String readKey() throws JSONFormatException, IOException;
+
+	/**
+	 * Reads the remainder of a String value whose opening quote has
+	 * already been consumed, including its closing quote. Escape
+	 * sequences are preserved as they appear in the input.
+	 */
+	abstract String readString() throws JSONFormatException, IOException;
+
+	/**
+	 * Skips the remainder of a String value whose opening quote has
+	 * already been consumed, including its closing quote.
+	 */
+	abstract void skipString() throws JSONFormatException, IOException;
+
+	/**
+	 * Reads a boolean or numeric literal whose first character has
+	 * already been consumed. The character following the literal is
+	 * left unconsumed.
+	 */
+	abstract Object readLiteral(int first) throws JSONFormatException, IOException;
+
+	/**
+	 * Returns the offset of the next unread character, for use in
+	 * error messages.
+	 */
+	abstract long position();
+
+	/**
+	 * Releases the underlying input, if any.
+	 */
+	void close() throws IOException {
+	}
+
+	/**
+	 * Empties the stack of open containers, which a parse that failed
+	 * leaves behind, so that the parser can be used for another document
+	 * without holding on to the partial tree.
+	 */
+	final void reset() {
+		while (depth > 0) {
+			depth--;
+			containers[depth] = null;
+			keys[depth] = null;
+		}
+	}
+
+	/**
+	 * Parses the input as a single JSON object followed by nothing but
+	 * whitespace.
+	 */
+	final JsonObject parseObject() throws JSONFormatException, IOException {
+		int c = nextToken();
+		if (c != '{') {
+			throw new JSONFormatException("json object does not begin with '{'");
+		}
+		JsonObject jobj = (JsonObject) readValue(c);
+		expectEnd();
+		return jobj;
+	}
+
+	/**
+	 * Parses the input as a single JSON array followed by nothing but
+	 * whitespace.
+	 */
+	final JsonArray parseArray() throws JSONFormatException, IOException {
+		int c = nextToken();
+		if (c != '[') {
+			throw new JSONFormatException("json list does not begin with '['");
+		}
+		JsonArray jlist = (JsonArray) readValue(c);
+		expectEnd();
+		return jlist;
+	}
+
+	/**
+	 * Parses the input as a single JSON object or array followed by
+	 * nothing but whitespace.
+	 */
+	final Object parseDocument() throws JSONFormatException, IOException {
+		int c = nextToken();
+		if (c != '{' && c != '[') {
+			throw new JSONFormatException("json data does not begin with '{' or '['");
+		}
+		Object value = readValue(c);
+		expectEnd();
+		return value;
+	}
+
+	/**
+	 * Parses the input as the comma-separated elements of a JSON array,
+	 * without the enclosing brackets, adding them to the given array.
+	 */
+	final void readElements(JsonArray target) throws JSONFormatException, IOException {
+		int c = nextToken();
+		while (true) {
+			target.add(readValue(c));
+			c = nextToken();
+			if (c == -1) {
+				return;
+			}
+			if (c != ',') {
+				throw unexpected(c);
+			}
+			c = nextToken();
+		}
+	}
+
+	/**
+	 * Parses the input as the comma-separated key-value pairs of a JSON
+	 * object, without the enclosing braces, adding them to the given
+	 * object.
+	 */
+	final void readMembers(JsonObject target) throws JSONFormatException, IOException {
+		int c = nextToken();
+		while (true) {
+			if (c != '"') {
+				throw unexpected(c);
+			}
+			String key = readKey();
+			if ((c = nextToken()) != ':') {
+				throw unexpected(c);
+			}
+			target.put(key, readValue(nextToken()));
+			c = nextToken();
+			if (c == -1) {
+				return;
+			}
+			if (c != ',') {
+				throw unexpected(c);
+			}
+			c = nextToken();
+		}
+	}
+
+	final void expectEnd() throws JSONFormatException, IOException {
+		int c = nextToken();
+		if (c != -1) {
+			throw unexpected(c);
+		}
+	}
+
+	/**
+	 * Reads the complete value whose first character <code>c</code> has
+	 * already been consumed. Objects and arrays are built iteratively;
+	 * the method returns once the matching closing bracket is consumed.
+	 */
+	final Object readValue(int c) throws JSONFormatException, IOException {
+		if (c != '{' && c != '[') {
+			return readScalar(c);
+		}
+		final int base = depth;
+		push(c);
+		boolean first = true;
+		while (true) {
+			c = nextToken();
+			int top = depth - 1;
+			Object value;
+			if (first && c == closer(kinds[top])) {
+				// empty container
+				value = pop();
+			} else {
+				if (kinds[top] == OBJECT) {
+					if (c != '"') {
+						throw unexpected(c);
+					}
+					keys[top] = readKey();
+					if ((c = nextToken()) != ':') {
+						throw unexpected(c);
+					}
+					c = nextToken();
+				}
+				if (c == '{' || c == '[') {
+					push(c);
+					first = true;
+					continue;
+				}
+				value = readScalar(c);
+			}
+			// attach the completed value to its parent, closing
+			// every container which ends immediately after it
+			while (depth > base) {
+				top = depth - 1;
+				if (kinds[top] == OBJECT) {
+					((JsonObject) containers[top]).put(keys[top], value);
+				} else {
+					appendElement(top, value);
+				}
+				c = nextToken();
+				if (c == ',') {
+					break;
+				}
+				if (c != closer(kinds[top])) {
+					throw unexpected(c);
+				}
+				value = pop();
+			}
+			if (depth == base) {
+				return value;
+			}
+			first = false;
+		}
+	}
+
+	/**
+	 * Skips the complete value whose first character <code>c</code> has
+	 * already been consumed, without building it. Only the nesting of
+	 * brackets is tracked, so a mismatched closing bracket inside the
+	 * skipped value is not reported.
+	 */
+	final void skipValue(int c) throws JSONFormatException, IOException {
+		int nesting = 0;
+		while (true) {
+			if (c == '{' || c == '[') {
+				nesting++;
+			} else if (c == '}' || c == ']') {
+				if (nesting == 0) {
+					throw unexpected(c);
+				}
+				nesting--;
+			} else if (c == '"') {
+				skipString();
+			} else if (c == ',' || c == ':') {
+				if (nesting == 0) {
+					throw unexpected(c);
+				}
+			} else if (c == -1) {
+				throw unexpected(c);
+			} else {
+				readLiteral(c);
+			}
+			if (nesting == 0) {
+				return;
+			}
+			c = nextToken();
+		}
+	}
+
+	private Object readScalar(int c) throws JSONFormatException, IOException {
+		if (c == '"') {
+			return readString();
+		}
+		if (c == -1 || c == ',' || c == ':' || c == '}' || c == ']') {
+			throw unexpected(c);
+		}
+		return readLiteral(c);
+	}
+
+	private void push(int c) {
+		if (depth == kinds.length) {
+			int capacity = depth << 1;
+			kinds = Arrays.copyOf(kinds, capacity);
+			containers = Arrays.copyOf(containers, capacity);
+			keys = Arrays.copyOf(keys, capacity);
+		}
+		if (c == '{') {
+			kinds[depth] = OBJECT;
+			containers[depth] = storage.newObject();
+		} else {
+			kinds[depth] = ARRAY;
+			// held as primitives unless an element is not a number
+			containers[depth] = new NumericJsonArray();
+		}
+		depth++;
+	}
+
+	private void appendElement(int top, Object value) {
+		containers[top] = append((JsonArray) containers[top], value, columnar, storage);
+	}
+
+	private Object pop() {
+		depth--;
+		Object container = complete(containers[depth]);
+		containers[depth] = null;
+		keys[depth] = null;
+		return container;
+	}
+
+	/**
+	 * Adds a value to an array being built and returns the array, which
+	 * replaces a numeric array with a plain one once it would have to box
+	 * its elements, or with a columnar one if its first element is an
+	 * object and columns are enabled. A columnar array is replaced with a
+	 * plain one once an element does not fit its columns.
+	 */
+	static JsonArray append(JsonArray array, Object value, boolean columnar, JsonStorage storage) {
+		if (array instanceof NumericJsonArray && !((NumericJsonArray) array).accepts(value)) {
+			if (columnar && array.isEmpty() && value instanceof JsonObject) {
+				array = new ColumnarJsonArray(storage);
+			} else {
+				array = new JsonArray(array);
+			}
+		}
+		if (array instanceof ColumnarJsonArray) {
+			ColumnarJsonArray columns = (ColumnarJsonArray) array;
+			if (columns.appendRow(value)) {
+				return array;
+			}
+			array = columns.toJsonArray();
+		}
+		array.add(value);
+		return array;
+	}
+
+	/**
+	 * Returns the object or array being built, or the array which takes
+	 * its place, once its closing bracket has been read.
+	 */
+	static Object complete(Object container) {
+		if (container instanceof NumericJsonArray && ((JsonArray) container).isEmpty()) {
+			// an empty array has no numbers to hold
+			return new JsonArray();
+		} else if (container instanceof ColumnarJsonArray) {
+			((JsonArray) container).trimToSize();
+		}
+		return container;
+	}
+
+	private static int closer(int kind) {
+		return kind == OBJECT ? '}' : ']';
+	}
+
+	final JSONFormatException unexpected(int c) {
+		if (c == -1) {
+			return new JSONFormatException("unexpected end of input");
+		}
+		return new JSONFormatException("unexpected token '" + (char) c + "' at position " + (position() - 1));
+	}
+
+	static boolean isDelimiter(int c) {
+		return c == ',' || c == '}' || c == ']' || c == ':'
+				|| c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	/**
+	 * Returns the value represented by the given literal text, which is
+	 * a JsonNumber holding the text of a number when numbers are kept
+	 * raw.
+	 */
+	final Object literal(CharSequence data) throws JSONFormatException {
+		if (rawNumbers) {
+			String text = data.toString();
+			if (NumberScanner.isNumber(text)) {
+				return JsonNumber.wrap(text);
+			}
+			return toPrimitive(text);
+		}
+		return toPrimitive(data);
+	}
+
+	/**
+	 * Returns the boolean, long, or double value represented by the
+	 * given literal text.
+	 */
+	static Object toPrimitive(CharSequence data) throws JSONFormatException {
+		if (matches(data, "true")) {
+			return true;
+		} else if (matches(data, "false")) {
+			return false;
+		}
+		Object number = NumberScanner.parse(data);
+		if (number != null) {
+			return number;
+		}
+		// forms such as NaN or hexadecimal floating point, which are
+		// outside the grammar of json numbers but have always been read
+		try {
+			return Double.parseDouble(data.toString());
+		} catch (NumberFormatException ex) {
+			throw new JSONFormatException("(" + data + ") is not a valid value");
+		}
+	}
+
+	private static boolean matches(CharSequence data, String s) {
+		if (data.length() != s.length()) {
+			return false;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			if (data.charAt(i) != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,237 @@
+package com.jsontools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ *
+ * <p>
+ * The <code>ArrayIndex</code> class is a hash index over the object
+ * elements of a <code>JsonArray</code>, keyed on the primitive values
+ * found at one or more dotted key paths of each element. Each bucket
+ * holds the elements sharing a key in the order in which they appear in
+ * the array, so the first element of a bucket which matches a content
+ * specification is also the first matching element of the array.
+ * Elements which lack a value at one of the paths, or hold an object or
+ * array there, are not indexed.
+ * </p>
+ * <p>
+ * An index is kept in step with the array by <code>JsonArray</code>,
+ * which records the modification count of the array the index reflects.
+ * Modifications which cannot be applied to the index cheaply leave it
+ * out of date, and it is rebuilt the next time it is used. Since the
+ * array may be read by several threads at once, a rebuild fills new
+ * buckets and publishes them whole, so that a reader never sees buckets
+ * being filled; readers racing to rebuild build equal buckets.
+ * </p>
+ * <p>
+ * Changes made to an element in place, rather than through the array,
+ * are not seen by the index, which goes on filing the element under its
+ * former values until it is rebuilt.
+ * </p>
+ *
+ */
+final class ArrayIndex {
+
+	private final String[] keypaths;
+	private final String[][] paths;
+	// the buckets, or null while they are out of date
+	private volatile Buckets current;
+
+	ArrayIndex(String[] keypaths) {
+		if (keypaths.length == 0) {
+			throw new IllegalArgumentException("an index needs at least one key path");
+		}
+		this.keypaths = keypaths.clone();
+		this.paths = new String[keypaths.length][];
+		for (int i = 0; i < keypaths.length; i++) {
+			paths[i] = keypaths[i].split("\\.", -1);
+			for (String key : paths[i]) {
+				if (key.isEmpty()) {
+					throw new IllegalArgumentException("(" + keypaths[i] + ") is not a valid key path");
+				}
+			}
+		}
+	}
+
+	boolean covers(String[] keypaths) {
+		return Arrays.equals(this.keypaths, keypaths);
+	}
+
+	boolean isCurrent(int modCount) {
+		Buckets buckets = current;
+		return buckets != null && buckets.modCount == modCount;
+	}
+
+	void sync(int modCount) {
+		current.modCount = modCount;
+	}
+
+	void invalidate() {
+		current = null;
+	}
+
+	void rebuild(List<Object> items, int modCount) {
+		current = build(items, modCount);
+	}
+
+	private Buckets build(List<Object> items, int modCount) {
+		Buckets buckets = new Buckets(modCount);
+		for (Object item : items) {
+			add(buckets.map, item);
+		}
+		return buckets;
+	}
+
+	/**
+	 * Indexes an element appended to the end of the array.
+	 */
+	void add(Object item) {
+		add(current.map, item);
+	}
+
+	private void add(HashMap<Object, List<JsonObject>> buckets, Object item) {
+		Object key = keyOf(item);
+		if (key != null) {
+			List<JsonObject> bucket = buckets.get(key);
+			if (bucket == null) {
+				bucket = new ArrayList<JsonObject>(1);
+				buckets.put(key, bucket);
+			}
+			bucket.add((JsonObject) item);
+		}
+	}
+
+	/**
+	 * Removes an element which was removed from the array. Returns
+	 * false if the element is not where its current values place it,
+	 * because it was modified after it was indexed, or if it appears
+	 * more than once so that the removed occurrence is unknown.
+	 */
+	boolean remove(Object item) {
+		Object key = keyOf(item);
+		if (key == null) {
+			return true;
+		}
+		HashMap<Object, List<JsonObject>> buckets = current.map;
+		List<JsonObject> bucket = buckets.get(key);
+		int i = bucket == null ? -1 : indexOfIdentity(bucket, item);
+		if (i < 0 || indexOfIdentity(bucket.subList(i + 1, bucket.size()), item) >= 0) {
+			// the element was modified, or appears more than once
+			return false;
+		}
+		bucket.remove(i);
+		if (bucket.isEmpty()) {
+			buckets.remove(key);
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces an element which was replaced in place in the array.
+	 * Returns false if the order of a bucket cannot be kept without
+	 * knowing the positions of its elements.
+	 */
+	boolean replace(Object previous, Object item) {
+		Object previousKey = keyOf(previous);
+		Object key = keyOf(item);
+		HashMap<Object, List<JsonObject>> buckets = current.map;
+		if (previousKey != null && previousKey.equals(key)) {
+			List<JsonObject> bucket = buckets.get(key);
+			int i = bucket == null ? -1 : indexOfIdentity(bucket, previous);
+			if (i < 0 || indexOfIdentity(bucket.subList(i + 1, bucket.size()), previous) >= 0) {
+				// the element was modified, or appears more than once
+				return false;
+			}
+			bucket.set(i, (JsonObject) item);
+			return true;
+		}
+		if (key != null && buckets.containsKey(key)) {
+			return false;
+		}
+		if (previousKey != null && !remove(previous)) {
+			return false;
+		}
+		add(item);
+		return true;
+	}
+
+	/**
+	 * Returns the elements indexed under the given key, in array order,
+	 * rebuilding the buckets first if they do not reflect the given
+	 * modification count of the array.
+	 */
+	List<JsonObject> bucket(Object key, List<Object> items, int modCount) {
+		Buckets buckets = current;
+		if (buckets == null || buckets.modCount != modCount) {
+			buckets = build(items, modCount);
+			current = buckets;
+		}
+		List<JsonObject> bucket = buckets.map.get(key);
+		return bucket != null ? bucket : Collections.<JsonObject>emptyList();
+	}
+
+	private Object keyOf(Object item) {
+		return item instanceof JsonObject ? key((JsonObject) item) : null;
+	}
+
+	/**
+	 * Returns the key of the given element or content specification,
+	 * or null if it does not hold a primitive value at every path.
+	 */
+	Object key(JsonObject jobj) {
+		if (paths.length == 1) {
+			return valueAt(jobj, paths[0]);
+		}
+		Object[] values = new Object[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			if ((values[i] = valueAt(jobj, paths[i])) == null) {
+				return null;
+			}
+		}
+		return Arrays.asList(values);
+	}
+
+	private static Object valueAt(JsonObject jobj, String[] path) {
+		Object value = jobj;
+		for (String key : path) {
+			if (!(value instanceof JsonObject)) {
+				return null;
+			}
+			value = ((JsonObject) value).get(key);
+		}
+		if (value instanceof JsonObject || value instanceof JsonArray) {
+			return null;
+		}
+		return value;
+	}
+
+	/**
+	 * The buckets of an index, with the modification count of the array
+	 * they reflect. Once published they are changed only by writes to
+	 * the array, which no read of the array may overlap.
+	 */
+	private static final class Buckets {
+
+		private final HashMap<Object, List<JsonObject>> map = new HashMap<Object, List<JsonObject>>();
+		private int modCount;
+
+		Buckets(int modCount) {
+			this.modCount = modCount;
+		}
+
+	}
+
+	private static int indexOfIdentity(List<JsonObject> bucket, Object item) {
+		for (int i = 0; i < bucket.size(); i++) {
+			if (bucket.get(i) == item) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
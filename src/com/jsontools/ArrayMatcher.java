@@ -0,0 +1,267 @@
+package com.jsontools;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ *
+ * <p>
+ * The <code>ArrayMatcher</code> class decides whether one json array is
+ * a subset of another, giving the same answer as testing every element
+ * against every element of the other array, without doing so. Each
+ * object or array element must be a subset of a distinct object or
+ * array element of the other array; elements are matched in order, each
+ * to the first unclaimed element it is a subset of. Each primitive
+ * element must equal some primitive element of the other array, and
+ * does not claim it.
+ * </p>
+ * <p>
+ * The elements of the other array are hashed lazily as elements needing
+ * them are met: primitives into a set, objects into buckets keyed on the
+ * value held at a key, and arrays into buckets keyed on a primitive they
+ * contain. An element is only tested against the bucket of its most
+ * selective key or primitive, and the buckets hold indices in array
+ * order, so the first element of a bucket it is a subset of is also the
+ * first such element of the array. Claimed elements are recorded in a
+ * <code>BitSet</code>.
+ * </p>
+ *
+ */
+final class ArrayMatcher {
+
+	// arrays no longer than this are searched directly rather than hashed
+	private static final int DIRECT_SEARCH_SIZE = 8;
+
+	private final Object[] items;
+	private final BitSet claimed;
+	private HashSet<Object> primitives;
+	private Candidates objects;
+	private Candidates arrays;
+	// buckets of object elements, by key and then by the value at the key
+	private HashMap<String, HashMap<Object, Candidates>> objectBuckets;
+	// buckets of array elements, by a primitive they contain
+	private HashMap<Object, Candidates> arrayBuckets;
+
+	ArrayMatcher(JsonArray other) {
+		this.items = other.toArray();
+		this.claimed = new BitSet(items.length);
+	}
+
+	/**
+	 * Returns true if the given array is a subset of the array this
+	 * matcher was created over. A matcher is used for one array only.
+	 */
+	boolean matches(JsonArray subset) {
+		for (Object item : subset) {
+			if (item instanceof JsonObject) {
+				if (!claim(item, objectCandidates((JsonObject) item))) {
+					return false;
+				}
+			} else if (item instanceof JsonArray) {
+				if (!claim(item, arrayCandidates((JsonArray) item))) {
+					return false;
+				}
+			} else if (!containsPrimitive(item)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean containsPrimitive(Object item) {
+		if (items.length <= DIRECT_SEARCH_SIZE) {
+			for (Object otherItem : items) {
+				if (item.equals(otherItem)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (primitives == null) {
+			primitives = new HashSet<Object>();
+			for (Object otherItem : items) {
+				if (!(otherItem instanceof JsonObject) && !(otherItem instanceof JsonArray)) {
+					primitives.add(otherItem);
+				}
+			}
+		}
+		return primitives.contains(item);
+	}
+
+	/**
+	 * Claims the first unclaimed candidate which the given element is a
+	 * subset of, returning false if there is none.
+	 */
+	private boolean claim(Object item, Candidates candidates) {
+		if (candidates == null) {
+			return false;
+		}
+		// skip the candidates claimed since the bucket was last used
+		while (candidates.first < candidates.size && claimed.get(candidates.indices[candidates.first])) {
+			candidates.first++;
+		}
+		for (int i = candidates.first; i < candidates.size; i++) {
+			int index = candidates.indices[i];
+			if (!claimed.get(index) && isSubset(item, items[index])) {
+				claimed.set(index);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isSubset(Object item, Object otherItem) {
+		if (item == otherItem) {
+			return true;
+		} else if (item instanceof JsonObject) {
+			return ((JsonObject) item).subsetOf((JsonObject) otherItem);
+		}
+		return ((JsonArray) item).subsetOf((JsonArray) otherItem);
+	}
+
+	/**
+	 * Returns the object elements the given object may be a subset of:
+	 * those holding an equal primitive, or a value of the same type, at
+	 * whichever of its keys gives the fewest, or every object element if
+	 * it has no keys.
+	 */
+	private Candidates objectCandidates(JsonObject item) {
+		if (objects == null) {
+			objects = new Candidates();
+			for (int i = 0; i < items.length; i++) {
+				if (items[i] instanceof JsonObject) {
+					objects.add(i);
+				}
+			}
+		}
+		if (objects.size <= DIRECT_SEARCH_SIZE || item.isEmpty()) {
+			return objects;
+		}
+		Candidates best = null;
+		for (Map.Entry<String, Object> entry : item.entrySet()) {
+			Candidates candidates = objectBucket(entry.getKey(), entry.getValue());
+			if (candidates == null) {
+				// no object element holds such a value, so none can match
+				return null;
+			}
+			if (best == null || candidates.remaining() < best.remaining()) {
+				best = candidates;
+			}
+		}
+		return best;
+	}
+
+	private Candidates objectBucket(String key, Object value) {
+		if (objectBuckets == null) {
+			objectBuckets = new HashMap<String, HashMap<Object, Candidates>>();
+		}
+		HashMap<Object, Candidates> buckets = objectBuckets.get(key);
+		if (buckets == null) {
+			buckets = new HashMap<Object, Candidates>();
+			for (int i = 0; i < objects.size; i++) {
+				int index = objects.indices[i];
+				Object otherValue = ((JsonObject) items[index]).get(key);
+				if (otherValue != null) {
+					buckets.computeIfAbsent(bucketKey(otherValue), k -> new Candidates()).add(index);
+				}
+			}
+			objectBuckets.put(key, buckets);
+		}
+		return buckets.get(bucketKey(value));
+	}
+
+	/**
+	 * Returns the key under which an object element holding the given
+	 * value at a key is bucketed: the value itself for a primitive, which
+	 * must be equal, or its type for an object or array, which must only
+	 * be of the same type.
+	 */
+	private static Object bucketKey(Object value) {
+		if (value instanceof JsonObject) {
+			return JsonObject.class;
+		} else if (value instanceof JsonArray) {
+			return JsonArray.class;
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the array elements the given array may be a subset of:
+	 * those containing whichever of its primitive elements is rarest, or
+	 * else every array element.
+	 */
+	private Candidates arrayCandidates(JsonArray item) {
+		if (arrays == null) {
+			arrays = new Candidates();
+			for (int i = 0; i < items.length; i++) {
+				if (items[i] instanceof JsonArray) {
+					arrays.add(i);
+				}
+			}
+		}
+		if (arrays.size <= DIRECT_SEARCH_SIZE) {
+			return arrays;
+		}
+		Candidates best = arrays;
+		for (Object element : item) {
+			if (element instanceof JsonObject || element instanceof JsonArray) {
+				continue;
+			}
+			Candidates candidates = arrayBucket(element);
+			if (candidates == null) {
+				// no array element contains the primitive, so none can match
+				return null;
+			}
+			if (candidates.remaining() < best.remaining()) {
+				best = candidates;
+			}
+		}
+		return best;
+	}
+
+	private Candidates arrayBucket(Object primitive) {
+		if (arrayBuckets == null) {
+			arrayBuckets = new HashMap<Object, Candidates>();
+			for (int i = 0; i < arrays.size; i++) {
+				int index = arrays.indices[i];
+				for (Object element : (JsonArray) items[index]) {
+					if (!(element instanceof JsonObject) && !(element instanceof JsonArray)) {
+						Candidates candidates = arrayBuckets.computeIfAbsent(element, k -> new Candidates());
+						// an array holding a primitive more than once is bucketed once
+						if (candidates.size == 0 || candidates.indices[candidates.size - 1] != index) {
+							candidates.add(index);
+						}
+					}
+				}
+			}
+		}
+		return arrayBuckets.get(primitive);
+	}
+
+	/**
+	 * Indices of elements of the other array, in ascending order, before
+	 * the first of which every element has been claimed.
+	 */
+	private static final class Candidates {
+
+		private int[] indices = new int[4];
+		private int size;
+		private int first;
+
+		void add(int index) {
+			if (size == indices.length) {
+				indices = Arrays.copyOf(indices, size << 1);
+			}
+			indices[size++] = index;
+		}
+
+		int remaining() {
+			return size - first;
+		}
+
+	}
+
+}
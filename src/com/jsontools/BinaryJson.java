@@ -0,0 +1,100 @@
+package com.jsontools;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ *
+ * <p>
+ * The <code>BinaryJson</code> class holds the constants of the binary
+ * encoding written by <code>BinaryJsonEncoder</code> and read by
+ * <code>BinaryJsonDecoder</code>.
+ * </p>
+ * <p>
+ * A stream starts with a four-byte header: the magic bytes 'J' 'B', the
+ * format version, and a flags byte. It is followed by any number of
+ * values, each of which starts with a tag byte:
+ * </p>
+ * <pre>
+ * FALSE, TRUE    no payload
+ * LONG           zigzag varint
+ * DOUBLE         8 bytes, the big-endian IEEE 754 bits
+ * STRING         varint byte length, UTF-8 bytes
+ * NUMBER         varint byte length, the text of a JsonNumber
+ * OBJECT         varint member count, then each key followed by a value
+ * ARRAY          varint element count, then each value
+ * </pre>
+ * <p>
+ * Varints are unsigned LEB128. A key is a varint whose low bit is 0 for
+ * a literal key, with the byte length of the UTF-8 bytes which follow in
+ * the remaining bits, or 1 for a reference to an earlier literal key by
+ * its number in the remaining bits. When the stream has a key dictionary,
+ * every literal key is numbered in order of appearance until the
+ * dictionary holds <code>MAX_DICTIONARY_SIZE</code> keys, and later keys
+ * equal to a numbered key are written as references.
+ * </p>
+ *
+ */
+final class BinaryJson {
+
+	static final int MAGIC_0 = 'J';
+	static final int MAGIC_1 = 'B';
+	static final int VERSION = 1;
+	static final int FLAG_DICTIONARY = 1;
+
+	static final int FALSE = 0;
+	static final int TRUE = 1;
+	static final int LONG = 2;
+	static final int DOUBLE = 3;
+	static final int STRING = 4;
+	static final int OBJECT = 5;
+	static final int ARRAY = 6;
+	static final int NUMBER = 7;
+
+	// keys are no longer numbered once the dictionary holds this many
+	static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+	private BinaryJson() {
+	}
+
+	/**
+	 * The serialized form of <code>JsonObject</code> and
+	 * <code>JsonArray</code>, which holds the binary encoding of the
+	 * tree in place of the default serialization of the map or list.
+	 */
+	static final class Proxy implements Serializable {
+
+		private static final long serialVersionUID = 2934815731942305166L;
+
+		private final byte[] data;
+		// whether the tree is frozen again once it is decoded
+		private final boolean frozen;
+		// the kind of storage of the objects of the decoded tree
+		private final JsonStorage storage;
+
+		Proxy(Object value) {
+			this.data = BinaryJsonEncoder.encode(value);
+			if (value instanceof JsonObject) {
+				this.frozen = ((JsonObject) value).isFrozen();
+				this.storage = ((JsonObject) value).storage();
+			} else {
+				this.frozen = ((JsonArray) value).isFrozen();
+				this.storage = JsonStorage.CONCURRENT;
+			}
+		}
+
+		private Object readResolve() throws ObjectStreamException {
+			try {
+				Object value = BinaryJsonDecoder.decode(data, storage != null ? storage : JsonStorage.CONCURRENT);
+				return frozen ? FrozenJsonObject.freeze(value) : value;
+			} catch (JSONFormatException ex) {
+				InvalidObjectException invalid = new InvalidObjectException("malformed binary json");
+				invalid.initCause(ex);
+				throw invalid;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,358 @@
+package com.jsontools;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ *
+ * <p>
+ * The <code>BinaryJsonDecoder</code> class reads <code>JsonObject</code>
+ * and <code>JsonArray</code> trees from a stream written by
+ * <code>BinaryJsonEncoder</code>, one tree for each call to
+ * <code>read</code>. Trees of any depth can be read.
+ * </p>
+ * <p>
+ * Input from an InputStream is read ahead in chunks, so the stream should
+ * hold nothing after the encoding that is meant for another reader. A
+ * ByteBuffer is read from its position, which is left just past the last
+ * tree read.
+ * </p>
+ * <p>
+ * BinaryJsonDecoder objects are not thread-safe.
+ * </p>
+ *
+ */
+public final class BinaryJsonDecoder {
+
+	static final int BUFFER_SIZE = 8192;
+
+	private final InputStream in;
+	private final ByteBuffer source;
+	private byte[] buf;
+	private int pos;
+	private int limit;
+	// offset of buf within the backing array of a heap buffer
+	private int arrayOffset;
+	private boolean started;
+	private boolean dictionary;
+	private final ArrayList<String> keys = new ArrayList<String>();
+
+	private Object[] containers = new Object[16];
+	// key of the member being read in each object
+	private String[] pending = new String[16];
+	// number of members or elements each container has left to read
+	private int[] remaining = new int[16];
+	private int depth;
+	// the kind of storage of the objects this decoder builds
+	JsonStorage storage = JsonStorage.CONCURRENT;
+
+	/**
+	 * Creates a decoder which reads from the given stream.
+	 *
+	 * @param in - the source of the encoding
+	 */
+	public BinaryJsonDecoder(InputStream in) {
+		if (in == null) {
+			throw new NullPointerException();
+		}
+		this.in = in;
+		this.source = null;
+		this.buf = new byte[BUFFER_SIZE];
+	}
+
+	/**
+	 * Creates a decoder which reads from the given buffer.
+	 *
+	 * @param source - the source of the encoding
+	 */
+	public BinaryJsonDecoder(ByteBuffer source) {
+		this.in = null;
+		this.source = source;
+		if (source.hasArray()) {
+			// read the backing array in place
+			this.buf = source.array();
+			this.arrayOffset = source.arrayOffset();
+			this.pos = arrayOffset + source.position();
+			this.limit = arrayOffset + source.limit();
+		} else {
+			this.buf = new byte[BUFFER_SIZE];
+		}
+	}
+
+	/**
+	 * Reads the next object or array.
+	 *
+	 * @return the next <code>JsonObject</code> or <code>JsonArray</code>,
+	 * or null if the stream holds no more trees
+	 * @throws JSONFormatException if the stream is not a valid encoding
+	 * @throws EOFException if the stream ends part of the way through a tree
+	 * @throws IOException if the InputStream throws an IOException
+	 */
+	public Object read() throws JSONFormatException, IOException {
+		if (!started) {
+			if (!available()) {
+				return null;
+			}
+			if (readByte() != BinaryJson.MAGIC_0 || readByte() != BinaryJson.MAGIC_1) {
+				throw new JSONFormatException("not a binary json stream");
+			}
+			int version = readByte();
+			if (version != BinaryJson.VERSION) {
+				throw new JSONFormatException("unsupported binary json version " + version);
+			}
+			dictionary = (readByte() & BinaryJson.FLAG_DICTIONARY) != 0;
+			started = true;
+		}
+		if (!available()) {
+			return null;
+		}
+		try {
+			int tag = readByte();
+			if (tag != BinaryJson.OBJECT && tag != BinaryJson.ARRAY) {
+				throw new JSONFormatException("expected an object or array but found tag " + tag);
+			}
+			return readTree(tag);
+		} finally {
+			Arrays.fill(containers, 0, depth, null);
+			Arrays.fill(pending, 0, depth, null);
+			depth = 0;
+			if (source != null) {
+				// leave the buffer positioned after the tree
+				if (source.hasArray()) {
+					source.position(pos - arrayOffset);
+				} else {
+					// give back the bytes read ahead
+					source.position(source.position() - (limit - pos));
+					pos = limit = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the first object or array from the given encoding.
+	 *
+	 * @param data - an encoding written by <code>BinaryJsonEncoder</code>
+	 * @return the first <code>JsonObject</code> or <code>JsonArray</code>
+	 * of the encoding
+	 * @throws JSONFormatException if the data is not a valid encoding
+	 */
+	public static Object decode(byte[] data) throws JSONFormatException {
+		return decode(data, JsonStorage.CONCURRENT);
+	}
+
+	/**
+	 * Reads the first object or array from the given encoding, building
+	 * objects with the given kind of storage.
+	 */
+	static Object decode(byte[] data, JsonStorage storage) throws JSONFormatException {
+		try {
+			BinaryJsonDecoder decoder = new BinaryJsonDecoder(ByteBuffer.wrap(data));
+			decoder.storage = storage;
+			Object value = decoder.read();
+			if (value == null) {
+				throw new JSONFormatException("no object or array was encoded");
+			}
+			return value;
+		} catch (EOFException ex) {
+			throw new JSONFormatException("unexpected end of input");
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private Object readTree(int tag) throws JSONFormatException, IOException {
+		push(tag);
+		while (true) {
+			int top = depth - 1;
+			Object value;
+			if (remaining[top] == 0) {
+				// the container is complete
+				value = containers[top];
+				containers[top] = null;
+				depth--;
+				if (depth == 0) {
+					return value;
+				}
+				top--;
+			} else {
+				remaining[top]--;
+				if (containers[top] instanceof JsonObject) {
+					pending[top] = readKey();
+				}
+				tag = readByte();
+				if (tag == BinaryJson.OBJECT || tag == BinaryJson.ARRAY) {
+					push(tag);
+					continue;
+				}
+				value = readScalar(tag);
+			}
+			Object container = containers[top];
+			if (container instanceof JsonObject) {
+				((JsonObject) container).put(pending[top], value);
+				pending[top] = null;
+			} else {
+				((JsonArray) container).add(value);
+			}
+		}
+	}
+
+	private void push(int tag) throws JSONFormatException, IOException {
+		int size = readLength();
+		if (depth == containers.length) {
+			int capacity = depth << 1;
+			containers = Arrays.copyOf(containers, capacity);
+			pending = Arrays.copyOf(pending, capacity);
+			remaining = Arrays.copyOf(remaining, capacity);
+		}
+		if (tag == BinaryJson.OBJECT) {
+			containers[depth] = storage.newObject();
+		} else {
+			JsonArray jarr = new JsonArray();
+			// the size is not trusted beyond what a buffer could hold
+			jarr.ensureCapacity(Math.min(size, BUFFER_SIZE));
+			containers[depth] = jarr;
+		}
+		remaining[depth] = size;
+		depth++;
+	}
+
+	private Object readScalar(int tag) throws JSONFormatException, IOException {
+		switch (tag) {
+		case BinaryJson.FALSE:
+			return Boolean.FALSE;
+		case BinaryJson.TRUE:
+			return Boolean.TRUE;
+		case BinaryJson.LONG:
+			long v = readVarint();
+			return (v >>> 1) ^ -(v & 1);
+		case BinaryJson.DOUBLE:
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits = bits << 8 | readByte();
+			}
+			return Double.longBitsToDouble(bits);
+		case BinaryJson.STRING:
+			return readString(readLength());
+		case BinaryJson.NUMBER:
+			String text = readString(readLength());
+			if (!NumberScanner.isNumber(text)) {
+				throw new JSONFormatException("(" + text + ") is not a valid number");
+			}
+			return JsonNumber.wrap(text);
+		default:
+			throw new JSONFormatException("unknown tag " + tag);
+		}
+	}
+
+	private String readKey() throws JSONFormatException, IOException {
+		long v = readVarint();
+		if ((v & 1) != 0) {
+			long number = v >>> 1;
+			if (number >= keys.size()) {
+				throw new JSONFormatException("reference to unknown key " + number);
+			}
+			return keys.get((int) number);
+		}
+		long length = v >>> 1;
+		if (length > Integer.MAX_VALUE) {
+			throw new JSONFormatException("key length " + length + " is too large");
+		}
+		String key = readString((int) length);
+		if (dictionary && keys.size() < BinaryJson.MAX_DICTIONARY_SIZE) {
+			keys.add(key);
+		}
+		return key;
+	}
+
+	private String readString(int length) throws IOException {
+		if (limit - pos >= length) {
+			String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+			pos += length;
+			return s;
+		}
+		// gather a string which spans more than one chunk
+		byte[] bytes = new byte[Math.min(length, BUFFER_SIZE)];
+		int n = 0;
+		while (n < length) {
+			if (pos == limit) {
+				fill();
+			}
+			int chunk = Math.min(limit - pos, length - n);
+			if (n + chunk > bytes.length) {
+				bytes = Arrays.copyOf(bytes, (int) Math.min(length, Math.max(n + chunk, 2L * bytes.length)));
+			}
+			System.arraycopy(buf, pos, bytes, n, chunk);
+			pos += chunk;
+			n += chunk;
+		}
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private int readLength() throws JSONFormatException, IOException {
+		long length = readVarint();
+		if (length > Integer.MAX_VALUE) {
+			throw new JSONFormatException("length " + length + " is too large");
+		}
+		return (int) length;
+	}
+
+	private long readVarint() throws JSONFormatException, IOException {
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte();
+			v |= (long) (b & 0x7F) << shift;
+			if (b < 0x80) {
+				return v;
+			}
+		}
+		throw new JSONFormatException("varint is too long");
+	}
+
+	private int readByte() throws IOException {
+		if (pos == limit) {
+			fill();
+		}
+		return buf[pos++] & 0xFF;
+	}
+
+	/**
+	 * Returns true if at least one more byte can be read.
+	 */
+	private boolean available() throws IOException {
+		if (pos < limit) {
+			return true;
+		}
+		try {
+			fill();
+		} catch (EOFException ex) {
+			return false;
+		}
+		return true;
+	}
+
+	private void fill() throws IOException {
+		int n;
+		if (in != null) {
+			n = in.read(buf, 0, buf.length);
+		} else if (source.hasArray() || !source.hasRemaining()) {
+			n = -1;
+		} else {
+			n = Math.min(buf.length, source.remaining());
+			source.get(buf, 0, n);
+		}
+		if (n <= 0) {
+			throw new EOFException();
+		}
+		pos = 0;
+		limit = n;
+	}
+
+}
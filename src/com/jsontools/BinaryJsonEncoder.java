@@ -0,0 +1,377 @@
+package com.jsontools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ *
+ * <p>
+ * The <code>BinaryJsonEncoder</code> class writes <code>JsonObject</code>
+ * and <code>JsonArray</code> trees to a stream in a compact binary
+ * encoding, which <code>BinaryJsonDecoder</code> reads back. Values are
+ * tagged with their type, lengths and Long values are written as
+ * varints, and Double values as their raw bits, so no number or string
+ * has to be formatted or scanned as text. Trees of any depth can be
+ * written.
+ * </p>
+ * <p>
+ * When created with a key dictionary, the encoder numbers each distinct
+ * key the first time it is written, and writes later occurrences of the
+ * key as its number. The dictionary lasts for the whole stream, so a
+ * stream of many objects sharing the same keys spells each key out
+ * once.
+ * </p>
+ * <p>
+ * Each call to <code>write</code> encodes a value into a buffer which is
+ * passed to the destination before the call returns. An OutputStream is
+ * neither flushed nor closed; a ByteBuffer is filled from its position,
+ * and a <code>BufferOverflowException</code> is thrown if it has too
+ * little room remaining.
+ * </p>
+ * <p>
+ * A call to <code>write</code> which fails leaves the encoder as it was
+ * before the call, the keys it added to the dictionary included, and
+ * restores the position of a ByteBuffer, so that the encoder can go on
+ * writing. The exception is a failure after part of the value has been
+ * passed to an OutputStream, which cannot be taken back: the stream is
+ * then incomplete, and the encoder throws
+ * <code>IllegalStateException</code> from any further
+ * <code>write</code>.
+ * </p>
+ * <p>
+ * BinaryJsonEncoder objects are not thread-safe.
+ * </p>
+ *
+ */
+public final class BinaryJsonEncoder {
+
+	static final int BUFFER_SIZE = 8192;
+
+	private final OutputStream out;
+	private final ByteBuffer target;
+	private final boolean dictionary;
+	private final HashMap<String, Integer> keys;
+	private final byte[] buf = new byte[BUFFER_SIZE];
+	private int count;
+	private boolean started;
+	// whether part of the value being written has reached the destination
+	private boolean flushed;
+	// whether a failed write left part of a value in the OutputStream
+	private boolean failed;
+
+	private Iterator<?>[] iterators = new Iterator<?>[16];
+	private boolean[] objects = new boolean[16];
+	// number of members or elements each container has left to write
+	private int[] remaining = new int[16];
+	private int depth;
+
+	/**
+	 * Creates an encoder which writes to the given stream without a key
+	 * dictionary.
+	 *
+	 * @param out - the destination of the encoding
+	 */
+	public BinaryJsonEncoder(OutputStream out) {
+		this(out, false);
+	}
+
+	/**
+	 * Creates an encoder which writes to the given stream.
+	 *
+	 * @param out - the destination of the encoding
+	 * @param dictionary - whether keys are numbered and written by number
+	 * after their first occurrence
+	 */
+	public BinaryJsonEncoder(OutputStream out, boolean dictionary) {
+		this(out, null, dictionary);
+	}
+
+	/**
+	 * Creates an encoder which writes to the given buffer without a key
+	 * dictionary.
+	 *
+	 * @param target - the destination of the encoding
+	 */
+	public BinaryJsonEncoder(ByteBuffer target) {
+		this(target, false);
+	}
+
+	/**
+	 * Creates an encoder which writes to the given buffer.
+	 *
+	 * @param target - the destination of the encoding
+	 * @param dictionary - whether keys are numbered and written by number
+	 * after their first occurrence
+	 */
+	public BinaryJsonEncoder(ByteBuffer target, boolean dictionary) {
+		this(null, target, dictionary);
+	}
+
+	private BinaryJsonEncoder(OutputStream out, ByteBuffer target, boolean dictionary) {
+		if (out == null && target == null) {
+			throw new NullPointerException();
+		}
+		this.out = out;
+		this.target = target;
+		this.dictionary = dictionary;
+		this.keys = dictionary ? new HashMap<String, Integer>() : null;
+	}
+
+	/**
+	 * Writes the given object or array to the destination.
+	 *
+	 * @param value - a <code>JsonObject</code> or <code>JsonArray</code>
+	 * @throws IOException if the OutputStream throws an IOException
+	 * @throws IllegalArgumentException if the value is neither an object
+	 * nor an array
+	 * @throws ConcurrentModificationException if an object or array is
+	 * modified while it is being written
+	 * @throws IllegalStateException if an earlier write failed after part
+	 * of its value was passed to the OutputStream
+	 */
+	public void write(Object value) throws IOException {
+		if (!(value instanceof JsonObject) && !(value instanceof JsonArray)) {
+			throw new IllegalArgumentException("only a JsonObject or JsonArray can be written");
+		}
+		if (failed) {
+			throw new IllegalStateException("an earlier write left the stream incomplete");
+		}
+		boolean wasStarted = started;
+		int position = target != null ? target.position() : 0;
+		int dictionarySize = dictionary ? keys.size() : 0;
+		boolean written = false;
+		flushed = false;
+		try {
+			if (!started) {
+				writeByte(BinaryJson.MAGIC_0);
+				writeByte(BinaryJson.MAGIC_1);
+				writeByte(BinaryJson.VERSION);
+				writeByte(dictionary ? BinaryJson.FLAG_DICTIONARY : 0);
+				started = true;
+			}
+			writeTree(value);
+			flushBuffer();
+			written = true;
+		} finally {
+			Arrays.fill(iterators, 0, depth, null);
+			depth = 0;
+			if (!written) {
+				rollBack(wasStarted, position, dictionarySize);
+			}
+		}
+	}
+
+	/**
+	 * Undoes a write which failed, or marks the encoder failed if part of
+	 * the value has already been written to the OutputStream.
+	 */
+	private void rollBack(boolean wasStarted, int position, int dictionarySize) {
+		count = 0;
+		if (target != null) {
+			target.position(position);
+		} else if (flushed) {
+			failed = true;
+			return;
+		}
+		started = wasStarted;
+		if (dictionary) {
+			keys.values().removeIf(number -> number >= dictionarySize);
+		}
+	}
+
+	/**
+	 * Writes the given object or array to a new byte array with a key
+	 * dictionary.
+	 *
+	 * @param value - a <code>JsonObject</code> or <code>JsonArray</code>
+	 * @return the encoding of the value
+	 * @throws IllegalArgumentException if the value is neither an object
+	 * nor an array
+	 */
+	public static byte[] encode(Object value) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			new BinaryJsonEncoder(out, true).write(value);
+		} catch (IOException ex) {
+			// a ByteArrayOutputStream never throws
+			throw new AssertionError(ex);
+		}
+		return out.toByteArray();
+	}
+
+	private void writeTree(Object value) throws IOException {
+		while (true) {
+			if (value instanceof JsonObject) {
+				JsonObject jobj = (JsonObject) value;
+				int size = jobj.size();
+				writeByte(BinaryJson.OBJECT);
+				writeVarint(size);
+				push(jobj.entrySet().iterator(), true, size);
+			} else if (value instanceof JsonArray) {
+				JsonArray jarr = (JsonArray) value;
+				int size = jarr.size();
+				writeByte(BinaryJson.ARRAY);
+				writeVarint(size);
+				push(jarr.iterator(), false, size);
+			} else if (value instanceof String) {
+				writeByte(BinaryJson.STRING);
+				writeString((String) value, 0);
+			} else if (value instanceof Long) {
+				long l = (Long) value;
+				writeByte(BinaryJson.LONG);
+				writeVarint((l << 1) ^ (l >> 63));
+			} else if (value instanceof Double) {
+				long bits = Double.doubleToRawLongBits((Double) value);
+				writeByte(BinaryJson.DOUBLE);
+				for (int shift = 56; shift >= 0; shift -= 8) {
+					writeByte((int) (bits >>> shift));
+				}
+			} else if (value instanceof JsonNumber) {
+				writeByte(BinaryJson.NUMBER);
+				writeString(value.toString(), 0);
+			} else if (value instanceof Boolean) {
+				writeByte((Boolean) value ? BinaryJson.TRUE : BinaryJson.FALSE);
+			} else {
+				throw new IllegalArgumentException("cannot encode a value of " + value.getClass());
+			}
+			// find the next value, closing every container which is done
+			while (true) {
+				if (depth == 0) {
+					return;
+				}
+				int top = depth - 1;
+				Iterator<?> iterator = iterators[top];
+				boolean hasNext = iterator.hasNext();
+				if (hasNext != remaining[top] > 0) {
+					// the size written no longer matches the contents
+					throw new ConcurrentModificationException();
+				}
+				if (hasNext) {
+					remaining[top]--;
+					Object next = iterator.next();
+					if (objects[top]) {
+						Map.Entry<?, ?> entry = (Map.Entry<?, ?>) next;
+						writeKey((String) entry.getKey());
+						value = entry.getValue();
+					} else {
+						value = next;
+					}
+					break;
+				}
+				iterators[top] = null;
+				depth--;
+			}
+		}
+	}
+
+	private void push(Iterator<?> iterator, boolean object, int size) {
+		if (depth == iterators.length) {
+			int capacity = depth << 1;
+			iterators = Arrays.copyOf(iterators, capacity);
+			objects = Arrays.copyOf(objects, capacity);
+			remaining = Arrays.copyOf(remaining, capacity);
+		}
+		iterators[depth] = iterator;
+		objects[depth] = object;
+		remaining[depth] = size;
+		depth++;
+	}
+
+	private void writeKey(String key) throws IOException {
+		if (dictionary) {
+			Integer number = keys.get(key);
+			if (number != null) {
+				writeVarint(((long) number << 1) | 1);
+				return;
+			}
+			if (keys.size() < BinaryJson.MAX_DICTIONARY_SIZE) {
+				keys.put(key, keys.size());
+			}
+		}
+		writeString(key, 1);
+	}
+
+	/**
+	 * Writes the byte length of the UTF-8 encoding of the given String,
+	 * shifted left by <code>shift</code> bits, followed by the encoding.
+	 * Unpaired surrogates are written as '?', as String.getBytes does.
+	 */
+	private void writeString(String s, int shift) throws IOException {
+		int length = s.length();
+		long utf8Length = length;
+		for (int i = 0; i < length; i++) {
+			char c = s.charAt(i);
+			if (c >= 0x80) {
+				if (c < 0x800) {
+					utf8Length++;
+				} else if (Character.isHighSurrogate(c) && i + 1 < length
+						&& Character.isLowSurrogate(s.charAt(i + 1))) {
+					// four bytes for the pair of chars
+					utf8Length += 2;
+					i++;
+				} else if (!Character.isSurrogate(c)) {
+					utf8Length += 2;
+				}
+			}
+		}
+		writeVarint(utf8Length << shift);
+		for (int i = 0; i < length; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				if (count == buf.length) {
+					flushBuffer();
+				}
+				buf[count++] = (byte) c;
+			} else if (c < 0x800) {
+				writeByte(0xC0 | c >> 6);
+				writeByte(0x80 | c & 0x3F);
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, s.charAt(++i));
+				writeByte(0xF0 | codePoint >> 18);
+				writeByte(0x80 | codePoint >> 12 & 0x3F);
+				writeByte(0x80 | codePoint >> 6 & 0x3F);
+				writeByte(0x80 | codePoint & 0x3F);
+			} else if (Character.isSurrogate(c)) {
+				writeByte('?');
+			} else {
+				writeByte(0xE0 | c >> 12);
+				writeByte(0x80 | c >> 6 & 0x3F);
+				writeByte(0x80 | c & 0x3F);
+			}
+		}
+	}
+
+	private void writeVarint(long v) throws IOException {
+		while ((v & ~0x7FL) != 0) {
+			writeByte((int) (v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		writeByte((int) v);
+	}
+
+	private void writeByte(int b) throws IOException {
+		if (count == buf.length) {
+			flushBuffer();
+		}
+		buf[count++] = (byte) b;
+	}
+
+	private void flushBuffer() throws IOException {
+		if (target != null) {
+			target.put(buf, 0, count);
+		} else {
+			flushed = true;
+			out.write(buf, 0, count);
+		}
+		count = 0;
+	}
+
+}
@@ -0,0 +1,328 @@
+package com.jsontools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *
+ * <p>
+ * The <code>ByteJsonParser</code> class parses UTF-8 encoded json data
+ * without first decoding it into characters. Every structural character
+ * of json is ASCII, and no byte of a multi-byte UTF-8 sequence falls in
+ * the ASCII range, so the structure is scanned directly on bytes. Only
+ * the contents of keys and String values are decoded, and a key or
+ * String which is entirely ASCII takes the cheaper Latin-1 path.
+ * </p>
+ * <p>
+ * When constructed over a <code>ByteBuffer</code> without an accessible
+ * backing array, the buffer is copied through a fixed-size chunk which
+ * is refilled as the cursor reaches its end.
+ * </p>
+ * <p>
+ * When constructed over a <code>FileChannel</code>, the file is mapped
+ * into memory one window at a time and each window is read through the
+ * same chunk. A window never exceeds the 2 GB limit of a single mapping,
+ * so files of any size can be parsed; tokens which straddle two windows
+ * are carried over in the chunk like any other token.
+ * </p>
+ * <p>
+ * Runs of whitespace and the bodies of keys and Strings are scanned
+ * eight bytes at a time with the word operations of <code>Swar</code>.
+ * </p>
+ *
+ */
+final class ByteJsonParser extends AbstractJsonParser {
+
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+	static final int FILE_BUFFER_SIZE = 1 << 16;
+	static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+	private final FileChannel channel;
+	private final long windowSize;
+	// channel position up to which windows have been mapped
+	private long mapped;
+	// channel position at which the input ends, or -1 for the end of the file
+	private final long mapLimit;
+	private ByteBuffer source;
+	private byte[] buf;
+	private int pos;
+	private int limit;
+	// input offset of buf[0]
+	private long offset;
+	// the view through which literals are converted
+	private final LiteralText text = new LiteralText();
+
+	ByteJsonParser(byte[] buf, int offset, int length) {
+		this.channel = null;
+		this.windowSize = 0;
+		this.mapLimit = 0;
+		this.source = null;
+		this.buf = buf;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.offset = -offset;
+	}
+
+	ByteJsonParser(ByteBuffer source, int bufferSize) {
+		this.channel = null;
+		this.windowSize = 0;
+		this.mapLimit = 0;
+		this.source = source;
+		this.buf = new byte[bufferSize];
+	}
+
+	ByteJsonParser(FileChannel channel, int bufferSize, long windowSize) {
+		this(channel, bufferSize, windowSize, 0, -1);
+	}
+
+	/**
+	 * Creates a parser over the bytes of the channel from position
+	 * <code>start</code> up to <code>end</code>, or up to the end of the
+	 * file if <code>end</code> is -1.
+	 */
+	ByteJsonParser(FileChannel channel, int bufferSize, long windowSize, long start, long end) {
+		this.channel = channel;
+		this.windowSize = windowSize;
+		this.mapped = start;
+		this.mapLimit = end;
+		this.offset = start;
+		this.source = null;
+		this.buf = new byte[bufferSize];
+	}
+
+	/**
+	 * Points a parser constructed over a byte array at the given range of
+	 * bytes, so that it can be used for another document.
+	 */
+	void reset(byte[] buf, int offset, int length) {
+		this.buf = buf;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.offset = -offset;
+	}
+
+	/**
+	 * Returns a parser over the remaining bytes of the given buffer. The
+	 * position of the buffer is not modified.
+	 */
+	static ByteJsonParser of(ByteBuffer data) {
+		if (data.hasArray()) {
+			return new ByteJsonParser(data.array(), data.arrayOffset() + data.position(), data.remaining());
+		}
+		return new ByteJsonParser(data.duplicate(), Math.min(DEFAULT_BUFFER_SIZE, Math.max(data.remaining(), 1)));
+	}
+
+	@Override
+	int nextToken() throws IOException {
+		do {
+			final byte[] buf = this.buf;
+			while (pos < limit) {
+				byte b = buf[pos++];
+				if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+					return b & 0xFF;
+				}
+				// skip runs of indentation a word at a time
+				while (pos + Swar.WORD <= limit) {
+					long mask = ~Swar.whitespace(Swar.word(buf, pos)) & Swar.HIGH_BITS;
+					if (mask != 0) {
+						pos += Swar.first(mask);
+						break;
+					}
+					pos += Swar.WORD;
+				}
+			}
+		} while (fill(limit));
+		return -1;
+	}
+
+	@Override
+	String readKey() throws JSONFormatException, IOException {
+		int start = pos;
+		boolean valid = true;
+		boolean ascii = true;
+		do {
+			final byte[] buf = this.buf;
+			while (pos < limit) {
+				if (pos + Swar.WORD <= limit) {
+					long word = Swar.word(buf, pos);
+					long mask = Swar.eq(word, Swar.QUOTES) | Swar.eq(word, Swar.BACKSLASHES) | Swar.eq(word, Swar.PERIODS);
+					if (mask == 0) {
+						ascii &= (word & Swar.HIGH_BITS) == 0;
+						pos += Swar.WORD;
+						continue;
+					}
+					int skip = Swar.first(mask);
+					ascii &= (word & Swar.HIGH_BITS & ((1L << (skip << 3)) - 1)) == 0;
+					pos += skip;
+				}
+				byte b = buf[pos++];
+				if (b == '"') {
+					if (!valid) {
+						throw new JSONFormatException("(\"" + decode(start, pos - start, ascii) + ") is not a valid key");
+					}
+					return decode(start, pos - start - 1, ascii);
+				} else if (b == '\\') {
+					pos++;
+				} else if (b == '.') {
+					valid = false;
+				} else if (b < 0) {
+					ascii = false;
+				}
+			}
+			int shift = start;
+			if (!fill(start)) {
+				break;
+			}
+			start -= shift;
+		} while (true);
+		throw unexpected(-1);
+	}
+
+	@Override
+	String readString() throws JSONFormatException, IOException {
+		int start = pos;
+		boolean ascii = true;
+		do {
+			final byte[] buf = this.buf;
+			while (pos < limit) {
+				if (pos + Swar.WORD <= limit) {
+					long word = Swar.word(buf, pos);
+					long mask = Swar.eq(word, Swar.QUOTES) | Swar.eq(word, Swar.BACKSLASHES);
+					if (mask == 0) {
+						ascii &= (word & Swar.HIGH_BITS) == 0;
+						pos += Swar.WORD;
+						continue;
+					}
+					int skip = Swar.first(mask);
+					ascii &= (word & Swar.HIGH_BITS & ((1L << (skip << 3)) - 1)) == 0;
+					pos += skip;
+				}
+				byte b = buf[pos++];
+				if (b == '"') {
+					return decode(start, pos - start - 1, ascii);
+				} else if (b == '\\') {
+					pos++;
+				} else if (b < 0) {
+					ascii = false;
+				}
+			}
+			int shift = start;
+			if (!fill(start)) {
+				break;
+			}
+			start -= shift;
+		} while (true);
+		throw unexpected(-1);
+	}
+
+	@Override
+	void skipString() throws JSONFormatException, IOException {
+		do {
+			final byte[] buf = this.buf;
+			while (pos < limit) {
+				if (pos + Swar.WORD <= limit) {
+					long word = Swar.word(buf, pos);
+					long mask = Swar.eq(word, Swar.QUOTES) | Swar.eq(word, Swar.BACKSLASHES);
+					if (mask == 0) {
+						pos += Swar.WORD;
+						continue;
+					}
+					pos += Swar.first(mask);
+				}
+				byte b = buf[pos++];
+				if (b == '"') {
+					return;
+				} else if (b == '\\') {
+					pos++;
+				}
+			}
+		} while (fill(limit));
+		throw unexpected(-1);
+	}
+
+	@Override
+	Object readLiteral(int first) throws JSONFormatException, IOException {
+		int start = pos - 1;
+		do {
+			final byte[] buf = this.buf;
+			while (pos < limit && !isDelimiter(buf[pos])) {
+				pos++;
+			}
+			if (pos < limit) {
+				break;
+			}
+			int shift = start;
+			if (!fill(start)) {
+				break;
+			}
+			start -= shift;
+		} while (true);
+		return literal(text.set(buf, start, pos - start));
+	}
+
+	@Override
+	long position() {
+		return offset + pos;
+	}
+
+	@Override
+	void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+		}
+	}
+
+	private String decode(int start, int length, boolean ascii) {
+		if (ascii && strings != null) {
+			return strings.get(buf, start, length);
+		}
+		return new String(buf, start, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Copies more bytes from the source buffer, keeping the bytes from
+	 * <code>keep</code> onwards and moving them to the front of the
+	 * buffer. Returns false at the end of the input.
+	 */
+	private boolean fill(int keep) throws IOException {
+		if ((source == null || !source.hasRemaining()) && !mapNextWindow()) {
+			return false;
+		}
+		int kept = limit - keep;
+		if (kept == buf.length) {
+			// a single token fills the whole buffer
+			buf = Arrays.copyOf(buf, buf.length << 1);
+		} else if (keep > 0) {
+			System.arraycopy(buf, keep, buf, 0, kept);
+		}
+		offset += keep;
+		pos -= keep;
+		limit = kept;
+		int n = Math.min(buf.length - limit, source.remaining());
+		source.get(buf, limit, n);
+		limit += n;
+		return true;
+	}
+
+	/**
+	 * Maps the next window of the channel, if any, as the source buffer.
+	 */
+	private boolean mapNextWindow() throws IOException {
+		if (channel == null) {
+			return false;
+		}
+		long size = mapLimit < 0 ? channel.size() : mapLimit;
+		if (mapped >= size) {
+			return false;
+		}
+		long length = Math.min(size - mapped, windowSize);
+		source = channel.map(MapMode.READ_ONLY, mapped, length);
+		mapped += length;
+		return true;
+	}
+
+}
@@ -0,0 +1,209 @@
+package com.jsontools;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ *
+ * <p>
+ * The <code>CharJsonParser</code> class parses json data held in a
+ * <code>char</code> buffer. The buffer is walked once with a cursor; keys,
+ * Strings and literals are copied out of it directly, without any
+ * intermediate substrings of the enclosing document.
+ * </p>
+ * <p>
+ * When constructed over a <code>Reader</code>, the buffer has a fixed
+ * size and is refilled as the cursor reaches its end. Only a token which
+ * is larger than the buffer causes it to grow, so memory use does not
+ * depend on the length of the input.
+ * </p>
+ *
+ */
+final class CharJsonParser extends AbstractJsonParser {
+
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final Reader reader;
+	private char[] buf;
+	private int pos;
+	private int limit;
+	// stream offset of buf[0]
+	private long offset;
+	// the view through which literals are converted
+	private final LiteralText text = new LiteralText();
+
+	CharJsonParser(String data) {
+		this(data.toCharArray(), 0, data.length());
+	}
+
+	CharJsonParser(char[] buf, int offset, int length) {
+		this.reader = null;
+		this.buf = buf;
+		this.pos = offset;
+		this.limit = offset + length;
+	}
+
+	CharJsonParser(Reader reader, int bufferSize) {
+		this.reader = reader;
+		this.buf = new char[bufferSize];
+	}
+
+	/**
+	 * Points a parser constructed over characters at the given range of
+	 * characters, so that it can be used for another document.
+	 */
+	void reset(char[] buf, int offset, int length) {
+		this.buf = buf;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.offset = 0;
+	}
+
+	@Override
+	int nextToken() throws IOException {
+		do {
+			final char[] buf = this.buf;
+			while (pos < limit) {
+				char c = buf[pos++];
+				if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+					return c;
+				}
+			}
+		} while (fill(limit));
+		return -1;
+	}
+
+	@Override
+	String readKey() throws JSONFormatException, IOException {
+		int start = pos;
+		boolean valid = true;
+		do {
+			final char[] buf = this.buf;
+			while (pos < limit) {
+				char c = buf[pos++];
+				if (c == '"') {
+					if (!valid) {
+						throw new JSONFormatException("(\"" + new String(buf, start, pos - start) + ") is not a valid key");
+					}
+					return string(start, pos - start - 1);
+				} else if (c == '\\') {
+					pos++;
+				} else if (c == '.') {
+					valid = false;
+				}
+			}
+			int shift = start;
+			if (!fill(start)) {
+				break;
+			}
+			start -= shift;
+		} while (true);
+		throw unexpected(-1);
+	}
+
+	@Override
+	String readString() throws JSONFormatException, IOException {
+		int start = pos;
+		do {
+			final char[] buf = this.buf;
+			while (pos < limit) {
+				char c = buf[pos++];
+				if (c == '"') {
+					return string(start, pos - start - 1);
+				} else if (c == '\\') {
+					pos++;
+				}
+			}
+			int shift = start;
+			if (!fill(start)) {
+				break;
+			}
+			start -= shift;
+		} while (true);
+		throw unexpected(-1);
+	}
+
+	@Override
+	void skipString() throws JSONFormatException, IOException {
+		do {
+			final char[] buf = this.buf;
+			while (pos < limit) {
+				char c = buf[pos++];
+				if (c == '"') {
+					return;
+				} else if (c == '\\') {
+					pos++;
+				}
+			}
+		} while (fill(limit));
+		throw unexpected(-1);
+	}
+
+	@Override
+	Object readLiteral(int first) throws JSONFormatException, IOException {
+		int start = pos - 1;
+		do {
+			final char[] buf = this.buf;
+			while (pos < limit && !isDelimiter(buf[pos])) {
+				pos++;
+			}
+			if (pos < limit) {
+				break;
+			}
+			int shift = start;
+			if (!fill(start)) {
+				break;
+			}
+			start -= shift;
+		} while (true);
+		return literal(text.set(buf, start, pos - start));
+	}
+
+	@Override
+	long position() {
+		return offset + pos;
+	}
+
+	@Override
+	void close() throws IOException {
+		if (reader != null) {
+			reader.close();
+		}
+	}
+
+	private String string(int start, int length) {
+		return strings == null ? new String(buf, start, length) : strings.get(buf, start, length);
+	}
+
+	/**
+	 * Reads more characters from the underlying reader, keeping the
+	 * characters from <code>keep</code> onwards and moving them to the
+	 * front of the buffer. Returns false at the end of the input.
+	 */
+	private boolean fill(int keep) throws IOException {
+		if (reader == null) {
+			return false;
+		}
+		int kept = limit - keep;
+		if (kept == buf.length) {
+			// a single token fills the whole buffer
+			buf = Arrays.copyOf(buf, buf.length << 1);
+		} else if (keep > 0) {
+			System.arraycopy(buf, keep, buf, 0, kept);
+		}
+		offset += keep;
+		pos -= keep;
+		limit = kept;
+		int n;
+		do {
+			n = reader.read(buf, limit, buf.length - limit);
+		} while (n == 0);
+		if (n < 0) {
+			return false;
+		}
+		limit += n;
+		return true;
+	}
+
+}
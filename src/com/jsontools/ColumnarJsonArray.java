@@ -0,0 +1,969 @@
+package com.jsontools;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
+/**
+ *
+ * <p>
+ * The <code>ColumnarJsonArray</code> class is a <code>JsonArray</code> of
+ * objects which all have the same keys, held column by column instead of
+ * as one map per object. The keys are stored once, in the order of the
+ * first object, and each column is a <code>long[]</code> while all of its
+ * values are Long values, a <code>double[]</code> while all are Double
+ * values, and an <code>Object[]</code> otherwise. A
+ * <code>JsonParserContext</code> or <code>JsonPushParser</code> builds
+ * these arrays once enabled with <code>setColumnarArrays</code>,
+ * appending each object to the columns as soon as it has been read.
+ * </p>
+ * <p>
+ * The elements are presented as <code>Row</code> views, lightweight
+ * JsonObjects which read their values from the columns, and a numeric
+ * column is scanned by <code>longColumn</code> or
+ * <code>doubleColumn</code> straight from its primitive array. A row
+ * read with <code>get</code> has one view, kept from its first read, so
+ * reading an element twice gives the same object. Iteration,
+ * <code>forEach</code> and <code>toArray</code> hand out views which are
+ * not kept, so that a pass over the whole array, such as writing it
+ * out, leaves nothing behind.
+ * </p>
+ * <p>
+ * The first modification of the array or of one of its rows turns the
+ * rows into objects of their own, held by a plain <code>JsonArray</code>:
+ * the views kept so far become those objects, holding their members
+ * themselves, and the other rows are copied out of the columns. Views
+ * which were not kept read and write the object their row became. A
+ * view therefore stays valid however the array is modified, and may be
+ * kept, compared or stored in other objects like any other element.
+ * </p>
+ * <p>
+ * Like a plain JsonArray, the array may be read by several threads at
+ * once as long as none of them modifies it; views are kept with
+ * compare-and-set, so that readers racing to read a row get one view.
+ * </p>
+ *
+ */
+final class ColumnarJsonArray extends JsonArray {
+
+	private static final long serialVersionUID = 5524031961207412390L;
+
+	private static final byte LONGS = 1;
+	private static final byte DOUBLES = 2;
+	private static final byte OBJECTS = 3;
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// the storage of the objects the rows turn into, which for
+	// ORDERED also requires every row to have its keys in one order
+	private final JsonStorage storage;
+
+	// keys of the columns, in the order of the first row
+	private String[] keys;
+	private HashMap<String, Integer> positions;
+	private byte[] kinds;
+	private long[][] longs;
+	private double[][] doubles;
+	private Object[][] objects;
+	private int count;
+	private int capacity;
+	// columns and values of the row being appended
+	private int[] rowColumns;
+	private Object[] rowValues;
+
+	// the views of the rows read with get so far, by index
+	private volatile AtomicReferenceArray<Row> rows;
+	// the elements, once the rows have become objects
+	private JsonArray boxed;
+	// the objects the rows became, by their index before, through which
+	// views which were not kept find their object
+	private JsonObject[] promoted;
+
+	ColumnarJsonArray(JsonStorage storage) {
+		super();
+		this.storage = storage;
+	}
+
+	/**
+	 * Appends the given value as a row if it is an object with the keys
+	 * of the rows before it. Returns false, changing nothing, otherwise.
+	 * The value must not be referenced elsewhere, as only its contents
+	 * are kept.
+	 */
+	boolean appendRow(Object value) {
+		if (boxed != null || !(value instanceof JsonObject)) {
+			return false;
+		}
+		JsonObject row = (JsonObject) value;
+		if (keys == null) {
+			layout(row);
+		} else if (row.size() != keys.length) {
+			return false;
+		}
+		int i = 0;
+		for (Map.Entry<String, Object> entry : row.entrySet()) {
+			if (i == keys.length) {
+				// the object grew while it was being read
+				return false;
+			}
+			String key = entry.getKey();
+			int column = i;
+			if (!keys[i].equals(key)) {
+				Integer position = storage == JsonStorage.ORDERED ? null : positions.get(key);
+				if (position == null) {
+					return false;
+				}
+				column = position;
+			}
+			rowColumns[i] = column;
+			rowValues[i] = entry.getValue();
+			i++;
+		}
+		if (i != keys.length) {
+			return false;
+		}
+		if (count == capacity) {
+			grow(Math.max(DEFAULT_CAPACITY, capacity << 1));
+		}
+		for (int j = 0; j < i; j++) {
+			store(rowColumns[j], rowValues[j]);
+			rowValues[j] = null;
+		}
+		count++;
+		modCount++;
+		AtomicReferenceArray<Row> rows = this.rows;
+		if (rows != null && rows.length() < count) {
+			// a write, which no read overlaps, so the views can be moved
+			AtomicReferenceArray<Row> grown = new AtomicReferenceArray<Row>(capacity);
+			for (int j = 0; j < rows.length(); j++) {
+				grown.set(j, rows.get(j));
+			}
+			this.rows = grown;
+		}
+		return true;
+	}
+
+	private void layout(JsonObject row) {
+		int width = row.size();
+		keys = new String[width];
+		positions = new HashMap<String, Integer>();
+		kinds = new byte[width];
+		longs = new long[width][];
+		doubles = new double[width][];
+		objects = new Object[width][];
+		rowColumns = new int[width];
+		rowValues = new Object[width];
+		int i = 0;
+		for (Map.Entry<String, Object> entry : row.entrySet()) {
+			if (i == width) {
+				break;
+			}
+			keys[i] = entry.getKey();
+			positions.put(keys[i], i);
+			Object value = entry.getValue();
+			kinds[i] = value instanceof Long ? LONGS : value instanceof Double ? DOUBLES : OBJECTS;
+			i++;
+		}
+		if (i < width) {
+			// the object shrank while it was being read
+			keys = Arrays.copyOf(keys, i);
+		}
+		grow(DEFAULT_CAPACITY);
+	}
+
+	private void grow(int newCapacity) {
+		for (int column = 0; column < keys.length; column++) {
+			switch (kinds[column]) {
+			case LONGS:
+				longs[column] = longs[column] == null ? new long[newCapacity] : Arrays.copyOf(longs[column], newCapacity);
+				break;
+			case DOUBLES:
+				doubles[column] = doubles[column] == null ? new double[newCapacity] : Arrays.copyOf(doubles[column], newCapacity);
+				break;
+			default:
+				objects[column] = objects[column] == null ? new Object[newCapacity] : Arrays.copyOf(objects[column], newCapacity);
+			}
+		}
+		capacity = newCapacity;
+	}
+
+	private void store(int column, Object value) {
+		if (kinds[column] == LONGS) {
+			if (value instanceof Long) {
+				longs[column][count] = (Long) value;
+				return;
+			}
+			toObjects(column);
+		} else if (kinds[column] == DOUBLES) {
+			if (value instanceof Double) {
+				doubles[column][count] = (Double) value;
+				return;
+			}
+			toObjects(column);
+		}
+		objects[column][count] = value;
+	}
+
+	/**
+	 * Moves a numeric column to boxed storage.
+	 */
+	private void toObjects(int column) {
+		Object[] values = new Object[capacity];
+		for (int i = 0; i < count; i++) {
+			values[i] = value(column, i);
+		}
+		objects[column] = values;
+		longs[column] = null;
+		doubles[column] = null;
+		kinds[column] = OBJECTS;
+	}
+
+	private Object value(int column, int row) {
+		switch (kinds[column]) {
+		case LONGS:
+			return longs[column][row];
+		case DOUBLES:
+			return doubles[column][row];
+		default:
+			return objects[column][row];
+		}
+	}
+
+	/**
+	 * Returns the elements as a plain JsonArray of new objects.
+	 */
+	JsonArray toJsonArray() {
+		if (boxed != null) {
+			return new JsonArray(boxed);
+		}
+		JsonArray list = new JsonArray();
+		list.ensureCapacity(count);
+		for (int i = 0; i < count; i++) {
+			list.add(toObject(i));
+		}
+		return list;
+	}
+
+	private JsonObject toObject(int row) {
+		JsonObject jobj = storage.newObject();
+		for (int column = 0; column < keys.length; column++) {
+			jobj.put(keys[column], value(column, row));
+		}
+		return jobj;
+	}
+
+	/**
+	 * Turns the rows into objects held by a plain JsonArray, if they are
+	 * still held as columns, and returns that array. Rows which have a kept
+	 * view become that view, so that it remains the element; the others
+	 * are recorded by index for the views which were not kept.
+	 */
+	private JsonArray promote() {
+		if (boxed == null) {
+			JsonArray list = new JsonArray();
+			list.ensureCapacity(count);
+			JsonObject[] elements = new JsonObject[count];
+			for (int i = 0; i < count; i++) {
+				Row row = kept(i);
+				if (row != null) {
+					row.detach(toObject(i));
+					elements[i] = row;
+				} else {
+					elements[i] = toObject(i);
+				}
+				list.add(elements[i]);
+			}
+			boxed = list;
+			promoted = elements;
+			rows = null;
+			keys = null;
+			positions = null;
+			kinds = null;
+			longs = null;
+			doubles = null;
+			objects = null;
+			rowColumns = null;
+			rowValues = null;
+			count = 0;
+			capacity = 0;
+			invalidateIndexes();
+		}
+		return boxed;
+	}
+
+	/**
+	 * Promotes the array before a write which may move or replace
+	 * elements, marking indexes out of date.
+	 */
+	private JsonArray rewrite(boolean structural) {
+		JsonArray list = promote();
+		if (structural) {
+			modCount++;
+		}
+		invalidateIndexes();
+		return list;
+	}
+
+	/**
+	 * Promotes the array before elements are appended.
+	 */
+	private JsonArray append() {
+		JsonArray list = promote();
+		modCount++;
+		invalidateIndexes();
+		return list;
+	}
+
+	// column scans
+
+	@Override
+	public LongStream longColumn(String key) {
+		Integer column = boxed == null && positions != null ? positions.get(key) : null;
+		if (column != null && kinds[column] == LONGS) {
+			return Arrays.stream(longs[column], 0, count);
+		}
+		return super.longColumn(key);
+	}
+
+	@Override
+	public DoubleStream doubleColumn(String key) {
+		Integer column = boxed == null && positions != null ? positions.get(key) : null;
+		if (column != null && kinds[column] == DOUBLES) {
+			return Arrays.stream(doubles[column], 0, count);
+		} else if (column != null && kinds[column] == LONGS) {
+			return Arrays.stream(longs[column], 0, count).asDoubleStream();
+		}
+		return super.doubleColumn(key);
+	}
+
+	// reads
+
+	@Override
+	public int size() {
+		return boxed != null ? boxed.size() : count;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public Object get(int index) {
+		if (boxed != null) {
+			return boxed.get(index);
+		}
+		Objects.checkIndex(index, count);
+		AtomicReferenceArray<Row> rows = this.rows;
+		if (rows == null) {
+			synchronized (this) {
+				rows = this.rows;
+				if (rows == null) {
+					rows = new AtomicReferenceArray<Row>(count);
+					this.rows = rows;
+				}
+			}
+		}
+		Row row = rows.get(index);
+		if (row == null) {
+			Row created = new Row(this, index);
+			row = rows.compareAndExchange(index, null, created);
+			if (row == null) {
+				row = created;
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Returns the kept view of a row, or null if it has none.
+	 */
+	private Row kept(int index) {
+		AtomicReferenceArray<Row> rows = this.rows;
+		return rows != null && index < rows.length() ? rows.get(index) : null;
+	}
+
+	/**
+	 * Returns the view of a row for a read or a pass over the array,
+	 * without keeping a view made for the purpose.
+	 */
+	private Row row(int index) {
+		Row row = kept(index);
+		return row != null ? row : new Row(this, index);
+	}
+
+	/**
+	 * Returns the element at the given index for a pass over the array.
+	 */
+	private Object element(int index) {
+		return boxed != null ? boxed.get(index) : row(index);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if (boxed != null) {
+			return boxed.indexOf(o);
+		}
+		for (int i = 0; i < count; i++) {
+			if (row(i).equals(o)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		if (boxed != null) {
+			return boxed.lastIndexOf(o);
+		}
+		for (int i = count - 1; i >= 0; i--) {
+			if (row(i).equals(o)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public Object[] toArray() {
+		if (boxed != null) {
+			return boxed.toArray();
+		}
+		Object[] array = new Object[count];
+		for (int i = 0; i < count; i++) {
+			array[i] = row(i);
+		}
+		return array;
+	}
+
+	@Override
+	public <T> T[] toArray(T[] a) {
+		if (boxed != null) {
+			return boxed.toArray(a);
+		}
+		Object[] array = toArray();
+		if (a.length < array.length) {
+			@SuppressWarnings("unchecked")
+			T[] copy = (T[]) Arrays.copyOf(array, array.length, a.getClass());
+			return copy;
+		}
+		System.arraycopy(array, 0, a, 0, array.length);
+		if (a.length > array.length) {
+			a[array.length] = null;
+		}
+		return a;
+	}
+
+	@Override
+	public Iterator<Object> iterator() {
+		return new Itr(0);
+	}
+
+	@Override
+	public ListIterator<Object> listIterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public ListIterator<Object> listIterator(int index) {
+		if (index < 0 || index > size()) {
+			throw new IndexOutOfBoundsException("Index: " + index);
+		}
+		return new Itr(index);
+	}
+
+	@Override
+	public Spliterator<Object> spliterator() {
+		if (boxed != null) {
+			return boxed.spliterator();
+		}
+		return Spliterators.spliterator(this, Spliterator.ORDERED);
+	}
+
+	@Override
+	public void forEach(Consumer<? super Object> action) {
+		if (boxed != null) {
+			boxed.forEach(action);
+			return;
+		}
+		int expectedModCount = modCount;
+		for (int i = 0; i < count && modCount == expectedModCount; i++) {
+			action.accept(row(i));
+		}
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public Object clone() {
+		if (boxed != null) {
+			return boxed.clone();
+		}
+		ColumnarJsonArray copy = new ColumnarJsonArray(storage);
+		for (int i = 0; i < count; i++) {
+			copy.appendRow(row(i));
+		}
+		return copy;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (boxed != null) {
+			return boxed.equals(o);
+		}
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof List)) {
+			return false;
+		}
+		Iterator<?> iterator = ((List<?>) o).iterator();
+		for (int i = 0; i < count; i++) {
+			if (!iterator.hasNext() || !row(i).equals(iterator.next())) {
+				return false;
+			}
+		}
+		return !iterator.hasNext();
+	}
+
+	@Override
+	public int hashCode() {
+		if (boxed != null) {
+			return boxed.hashCode();
+		}
+		int hashCode = 1;
+		for (int i = 0; i < count; i++) {
+			hashCode = 31 * hashCode + row(i).hashCode();
+		}
+		return hashCode;
+	}
+
+	@Override
+	public void ensureCapacity(int minCapacity) {
+		if (boxed != null) {
+			boxed.ensureCapacity(minCapacity);
+		} else if (keys != null && minCapacity > capacity) {
+			grow(minCapacity);
+		}
+	}
+
+	@Override
+	public void trimToSize() {
+		if (boxed != null) {
+			boxed.trimToSize();
+		} else if (keys != null && capacity > count) {
+			grow(count);
+		}
+	}
+
+	// writes turn the rows into objects first
+
+	@Override
+	public boolean add(Object e) {
+		return append().add(e);
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Object> e) {
+		return append().addAll(e);
+	}
+
+	@Override
+	public void add(int index, Object element) {
+		rewrite(true).add(index, element);
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends Object> e) {
+		return rewrite(true).addAll(index, e);
+	}
+
+	@Override
+	public Object set(int index, Object element) {
+		return rewrite(false).set(index, element);
+	}
+
+	@Override
+	public Object remove(int index) {
+		return rewrite(true).remove(index);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return rewrite(true).remove(o);
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		return rewrite(true).removeAll(c);
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		return rewrite(true).retainAll(c);
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super Object> filter) {
+		return rewrite(true).removeIf(filter);
+	}
+
+	@Override
+	public void replaceAll(UnaryOperator<Object> operator) {
+		rewrite(false).replaceAll(operator);
+	}
+
+	@Override
+	public void sort(Comparator<? super Object> c) {
+		rewrite(true).sort(c);
+	}
+
+	@Override
+	public void clear() {
+		rewrite(true).clear();
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		rewrite(true).subList(fromIndex, toIndex).clear();
+	}
+
+	@Override
+	public List<Object> subList(int fromIndex, int toIndex) {
+		// the view writes to the plain array directly
+		return rewrite(true).subList(fromIndex, toIndex);
+	}
+
+	/**
+	 * An iterator over the elements by index, which remains correct if
+	 * the rows become objects while it is in use.
+	 */
+	private final class Itr implements ListIterator<Object> {
+
+		private int cursor;
+		private int lastReturned = -1;
+		private int expectedModCount = modCount;
+
+		Itr(int index) {
+			this.cursor = index;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return cursor < size();
+		}
+
+		@Override
+		public Object next() {
+			checkForComodification();
+			if (cursor >= size()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor;
+			return element(cursor++);
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return cursor > 0;
+		}
+
+		@Override
+		public Object previous() {
+			checkForComodification();
+			if (cursor <= 0) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = --cursor;
+			return element(cursor);
+		}
+
+		@Override
+		public int nextIndex() {
+			return cursor;
+		}
+
+		@Override
+		public int previousIndex() {
+			return cursor - 1;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			ColumnarJsonArray.this.remove(lastReturned);
+			cursor = lastReturned;
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+
+		@Override
+		public void set(Object e) {
+			if (lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			ColumnarJsonArray.this.set(lastReturned, e);
+			expectedModCount = modCount;
+		}
+
+		@Override
+		public void add(Object e) {
+			checkForComodification();
+			ColumnarJsonArray.this.add(cursor++, e);
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+	}
+
+	/**
+	 * A view of one element of a columnar array as a JsonObject. While
+	 * the array is held as columns, the view reads its values from them;
+	 * once the rows have become objects, a kept view is an element of the
+	 * array in its own right, and holds its members in an object of its
+	 * own, while any other view reads and writes the object its row
+	 * became.
+	 */
+	static final class Row extends DetachedJsonObject {
+
+		private static final long serialVersionUID = -2207319442410865095L;
+
+		private final JsonStorage storage;
+		// the array the row is read from, while it is held as columns
+		private ColumnarJsonArray array;
+		private final int index;
+		// the members of the row, once it holds them itself
+		private JsonObject target;
+
+		Row(ColumnarJsonArray array, int index) {
+			this.storage = array.storage;
+			this.array = array;
+			this.index = index;
+		}
+
+		/**
+		 * Gives the row the object holding its members, as the array
+		 * stops holding them.
+		 */
+		void detach(JsonObject target) {
+			this.target = target;
+			this.array = null;
+		}
+
+		/**
+		 * Returns the object holding the members of the row, turning the
+		 * rows of the array into objects first if needed.
+		 */
+		private JsonObject writable() {
+			JsonObject target = target();
+			if (target == null) {
+				array.promote();
+				target = target();
+			}
+			return target;
+		}
+
+		/**
+		 * Returns the object holding the members of the row, or null while
+		 * the array holds them as columns.
+		 */
+		private JsonObject target() {
+			if (target != null) {
+				return target;
+			}
+			JsonObject[] promoted = array.promoted;
+			return promoted != null ? promoted[index] : null;
+		}
+
+		@Override
+		JsonStorage storage() {
+			return storage;
+		}
+
+		@Override
+		public int size() {
+			JsonObject target = target();
+			return target != null ? target.size() : array.keys.length;
+		}
+
+		@Override
+		public Object get(Object key) {
+			JsonObject target = target();
+			if (target != null) {
+				return target.get(key);
+			}
+			Integer column = array.positions.get(key);
+			return column != null ? array.value(column, index) : null;
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			JsonObject target = target();
+			if (target != null) {
+				return target.entrySet();
+			}
+			return new AbstractSet<Map.Entry<String, Object>>() {
+
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					JsonObject target = target();
+					if (target != null) {
+						// the row has become an object since the set was made
+						return target.entrySet().iterator();
+					}
+					ColumnarJsonArray array = Row.this.array;
+					String[] keys = array.keys;
+					return new Iterator<Map.Entry<String, Object>>() {
+
+						private int column;
+
+						@Override
+						public boolean hasNext() {
+							return column < keys.length;
+						}
+
+						@Override
+						public Map.Entry<String, Object> next() {
+							if (column >= keys.length) {
+								throw new NoSuchElementException();
+							}
+							String key = keys[column];
+							// the rows may have become objects since iteration began
+							JsonObject target = target();
+							Object value = target != null ? target.get(key) : array.value(column, index);
+							column++;
+							return new AbstractMap.SimpleEntry<String, Object>(key, value) {
+
+								private static final long serialVersionUID = 1L;
+
+								@Override
+								public Object setValue(Object value) {
+									Object previous = getValue();
+									if (isValue(value)) {
+										writable().put(key, value);
+										super.setValue(value);
+										return previous;
+									}
+									return null;
+								}
+
+							};
+						}
+
+					};
+				}
+
+				@Override
+				public int size() {
+					return Row.this.size();
+				}
+
+			};
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			return writable().put(key, value);
+		}
+
+		@Override
+		public void putAll(Map<? extends String, ? extends Object> m) {
+			writable().putAll(m);
+		}
+
+		@Override
+		public Object putIfAbsent(String key, Object value) {
+			return writable().putIfAbsent(key, value);
+		}
+
+		@Override
+		public Object remove(Object key) {
+			return writable().remove(key);
+		}
+
+		@Override
+		public boolean remove(Object key, Object value) {
+			return writable().remove(key, value);
+		}
+
+		@Override
+		public Object replace(String key, Object value) {
+			return writable().replace(key, value);
+		}
+
+		@Override
+		public boolean replace(String key, Object oldValue, Object newValue) {
+			return writable().replace(key, oldValue, newValue);
+		}
+
+		@Override
+		public void replaceAll(BiFunction<? super String, ? super Object, ? extends Object> function) {
+			writable().replaceAll(function);
+		}
+
+		@Override
+		public Object compute(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+			return writable().compute(key, remappingFunction);
+		}
+
+		@Override
+		public Object computeIfAbsent(String key, Function<? super String, ? extends Object> mappingFunction) {
+			return writable().computeIfAbsent(key, mappingFunction);
+		}
+
+		@Override
+		public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+			return writable().computeIfPresent(key, remappingFunction);
+		}
+
+		@Override
+		public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+			return writable().merge(key, value, remappingFunction);
+		}
+
+		@Override
+		public void clear() {
+			writable().clear();
+		}
+
+	}
+
+}
@@ -0,0 +1,494 @@
+package com.jsontools;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongBiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ *
+ * <p>
+ * The <code>DetachedJsonObject</code> class is the base of the
+ * <code>JsonObject</code> classes which hold their entries in storage of
+ * their own instead of in the table of the
+ * <code>ConcurrentHashMap</code> they derive from, which stays empty.
+ * Subclasses provide <code>size</code>, <code>get</code>,
+ * <code>entrySet</code> and every write; this class answers the other
+ * reads, including the bulk operations of <code>ConcurrentHashMap</code>,
+ * from those. The bulk operations run sequentially, whatever their
+ * parallelism threshold.
+ * </p>
+ * <p>
+ * A <code>KeySetView</code> can only be backed by the table of its map,
+ * so <code>keySet()</code> and <code>keySet(mappedValue)</code> return
+ * a read-only copy of the keys, which is not kept in any order. Adding to it, removing from it or clearing
+ * it throws <code>UnsupportedOperationException</code>; removal through
+ * its iterator cannot be intercepted, and only changes the copy.
+ * </p>
+ *
+ */
+abstract class DetachedJsonObject extends JsonObject {
+
+	private static final long serialVersionUID = 4127009384720573391L;
+
+	@Override
+	public abstract int size();
+
+	@Override
+	public abstract Object get(Object key);
+
+	@Override
+	public abstract Set<Map.Entry<String, Object>> entrySet();
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public long mappingCount() {
+		return size();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public Object getOrDefault(Object key, Object defaultValue) {
+		Object value = get(key);
+		return value != null ? value : defaultValue;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			if (entry.getValue().equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean contains(Object value) {
+		return containsValue(value);
+	}
+
+	@Override
+	public KeySetView<String, Object> keySet() {
+		return new KeySnapshot(this).keySet();
+	}
+
+	@Override
+	public KeySetView<String, Object> keySet(Object mappedValue) {
+		if (mappedValue == null) {
+			throw new NullPointerException();
+		}
+		// the copy is read-only, so there is nothing to add with the value
+		return keySet();
+	}
+
+	/**
+	 * The map behind the copy of the keys returned by
+	 * <code>keySet</code>, whose view writes to it through
+	 * <code>remove</code> and <code>clear</code>; a view without a mapped
+	 * value already refuses to add.
+	 */
+	private static final class KeySnapshot extends ConcurrentHashMap<String, Object> {
+
+		private static final long serialVersionUID = -2674140239837519634L;
+
+		private KeySnapshot(DetachedJsonObject object) {
+			super(object.size());
+			for (Map.Entry<String, Object> entry : object.entrySet()) {
+				super.put(entry.getKey(), Boolean.TRUE);
+			}
+		}
+
+		@Override
+		public Object remove(Object key) {
+			throw new UnsupportedOperationException("the keys of this JsonObject are a read-only copy");
+		}
+
+		@Override
+		public boolean remove(Object key, Object value) {
+			throw new UnsupportedOperationException("the keys of this JsonObject are a read-only copy");
+		}
+
+		@Override
+		public void clear() {
+			throw new UnsupportedOperationException("the keys of this JsonObject are a read-only copy");
+		}
+
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return new AbstractCollection<Object>() {
+
+			@Override
+			public Iterator<Object> iterator() {
+				Iterator<Map.Entry<String, Object>> entries = entrySet().iterator();
+				return new Iterator<Object>() {
+
+					@Override
+					public boolean hasNext() {
+						return entries.hasNext();
+					}
+
+					@Override
+					public Object next() {
+						return entries.next().getValue();
+					}
+
+					@Override
+					public void remove() {
+						entries.remove();
+					}
+
+				};
+			}
+
+			@Override
+			public int size() {
+				return DetachedJsonObject.this.size();
+			}
+
+		};
+	}
+
+	@Override
+	public Enumeration<String> keys() {
+		Iterator<Map.Entry<String, Object>> entries = entrySet().iterator();
+		return new Enumeration<String>() {
+
+			@Override
+			public boolean hasMoreElements() {
+				return entries.hasNext();
+			}
+
+			@Override
+			public String nextElement() {
+				return entries.next().getKey();
+			}
+
+		};
+	}
+
+	@Override
+	public Enumeration<Object> elements() {
+		Iterator<Object> values = values().iterator();
+		return new Enumeration<Object>() {
+
+			@Override
+			public boolean hasMoreElements() {
+				return values.hasNext();
+			}
+
+			@Override
+			public Object nextElement() {
+				return values.next();
+			}
+
+		};
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super String, ? super Object> action) {
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			action.accept(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof Map)) {
+			return false;
+		}
+		Map<?, ?> other = (Map<?, ?>) o;
+		if (other.size() != size()) {
+			return false;
+		}
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			if (!entry.getValue().equals(other.get(entry.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 0;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			hash += entry.getKey().hashCode() ^ entry.getValue().hashCode();
+		}
+		return hash;
+	}
+
+	// the bulk operations of ConcurrentHashMap, run sequentially
+
+	@Override
+	public void forEach(long parallelismThreshold, BiConsumer<? super String, ? super Object> action) {
+		forEach(action);
+	}
+
+	@Override
+	public <U> void forEach(long parallelismThreshold, BiFunction<? super String, ? super Object, ? extends U> transformer,
+			Consumer<? super U> action) {
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			U u = transformer.apply(entry.getKey(), entry.getValue());
+			if (u != null) {
+				action.accept(u);
+			}
+		}
+	}
+
+	@Override
+	public <U> U search(long parallelismThreshold, BiFunction<? super String, ? super Object, ? extends U> searchFunction) {
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			U u = searchFunction.apply(entry.getKey(), entry.getValue());
+			if (u != null) {
+				return u;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public <U> U reduce(long parallelismThreshold, BiFunction<? super String, ? super Object, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		U result = null;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			U u = transformer.apply(entry.getKey(), entry.getValue());
+			if (u != null) {
+				result = result == null ? u : reducer.apply(result, u);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public double reduceToDouble(long parallelismThreshold, ToDoubleBiFunction<? super String, ? super Object> transformer,
+			double basis, DoubleBinaryOperator reducer) {
+		double result = basis;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			result = reducer.applyAsDouble(result, transformer.applyAsDouble(entry.getKey(), entry.getValue()));
+		}
+		return result;
+	}
+
+	@Override
+	public long reduceToLong(long parallelismThreshold, ToLongBiFunction<? super String, ? super Object> transformer,
+			long basis, LongBinaryOperator reducer) {
+		long result = basis;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			result = reducer.applyAsLong(result, transformer.applyAsLong(entry.getKey(), entry.getValue()));
+		}
+		return result;
+	}
+
+	@Override
+	public int reduceToInt(long parallelismThreshold, ToIntBiFunction<? super String, ? super Object> transformer,
+			int basis, IntBinaryOperator reducer) {
+		int result = basis;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			result = reducer.applyAsInt(result, transformer.applyAsInt(entry.getKey(), entry.getValue()));
+		}
+		return result;
+	}
+
+	@Override
+	public void forEachKey(long parallelismThreshold, Consumer<? super String> action) {
+		forEach(parallelismThreshold, (key, value) -> key, action);
+	}
+
+	@Override
+	public <U> void forEachKey(long parallelismThreshold, Function<? super String, ? extends U> transformer,
+			Consumer<? super U> action) {
+		forEach(parallelismThreshold, (key, value) -> transformer.apply(key), action);
+	}
+
+	@Override
+	public <U> U searchKeys(long parallelismThreshold, Function<? super String, ? extends U> searchFunction) {
+		return search(parallelismThreshold, (key, value) -> searchFunction.apply(key));
+	}
+
+	@Override
+	public String reduceKeys(long parallelismThreshold, BiFunction<? super String, ? super String, ? extends String> reducer) {
+		return reduce(parallelismThreshold, (key, value) -> key, reducer);
+	}
+
+	@Override
+	public <U> U reduceKeys(long parallelismThreshold, Function<? super String, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		return reduce(parallelismThreshold, (key, value) -> transformer.apply(key), reducer);
+	}
+
+	@Override
+	public double reduceKeysToDouble(long parallelismThreshold, ToDoubleFunction<? super String> transformer,
+			double basis, DoubleBinaryOperator reducer) {
+		return reduceToDouble(parallelismThreshold, (key, value) -> transformer.applyAsDouble(key), basis, reducer);
+	}
+
+	@Override
+	public long reduceKeysToLong(long parallelismThreshold, ToLongFunction<? super String> transformer,
+			long basis, LongBinaryOperator reducer) {
+		return reduceToLong(parallelismThreshold, (key, value) -> transformer.applyAsLong(key), basis, reducer);
+	}
+
+	@Override
+	public int reduceKeysToInt(long parallelismThreshold, ToIntFunction<? super String> transformer,
+			int basis, IntBinaryOperator reducer) {
+		return reduceToInt(parallelismThreshold, (key, value) -> transformer.applyAsInt(key), basis, reducer);
+	}
+
+	@Override
+	public void forEachValue(long parallelismThreshold, Consumer<? super Object> action) {
+		forEach(parallelismThreshold, (key, value) -> value, action);
+	}
+
+	@Override
+	public <U> void forEachValue(long parallelismThreshold, Function<? super Object, ? extends U> transformer,
+			Consumer<? super U> action) {
+		forEach(parallelismThreshold, (key, value) -> transformer.apply(value), action);
+	}
+
+	@Override
+	public <U> U searchValues(long parallelismThreshold, Function<? super Object, ? extends U> searchFunction) {
+		return search(parallelismThreshold, (key, value) -> searchFunction.apply(value));
+	}
+
+	@Override
+	public Object reduceValues(long parallelismThreshold, BiFunction<? super Object, ? super Object, ? extends Object> reducer) {
+		return reduce(parallelismThreshold, (key, value) -> value, reducer);
+	}
+
+	@Override
+	public <U> U reduceValues(long parallelismThreshold, Function<? super Object, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		return reduce(parallelismThreshold, (key, value) -> transformer.apply(value), reducer);
+	}
+
+	@Override
+	public double reduceValuesToDouble(long parallelismThreshold, ToDoubleFunction<? super Object> transformer,
+			double basis, DoubleBinaryOperator reducer) {
+		return reduceToDouble(parallelismThreshold, (key, value) -> transformer.applyAsDouble(value), basis, reducer);
+	}
+
+	@Override
+	public long reduceValuesToLong(long parallelismThreshold, ToLongFunction<? super Object> transformer,
+			long basis, LongBinaryOperator reducer) {
+		return reduceToLong(parallelismThreshold, (key, value) -> transformer.applyAsLong(value), basis, reducer);
+	}
+
+	@Override
+	public int reduceValuesToInt(long parallelismThreshold, ToIntFunction<? super Object> transformer,
+			int basis, IntBinaryOperator reducer) {
+		return reduceToInt(parallelismThreshold, (key, value) -> transformer.applyAsInt(value), basis, reducer);
+	}
+
+	@Override
+	public void forEachEntry(long parallelismThreshold, Consumer<? super Map.Entry<String, Object>> action) {
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			action.accept(entry);
+		}
+	}
+
+	@Override
+	public <U> void forEachEntry(long parallelismThreshold, Function<Map.Entry<String, Object>, ? extends U> transformer,
+			Consumer<? super U> action) {
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			U u = transformer.apply(entry);
+			if (u != null) {
+				action.accept(u);
+			}
+		}
+	}
+
+	@Override
+	public <U> U searchEntries(long parallelismThreshold, Function<Map.Entry<String, Object>, ? extends U> searchFunction) {
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			U u = searchFunction.apply(entry);
+			if (u != null) {
+				return u;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Map.Entry<String, Object> reduceEntries(long parallelismThreshold,
+			BiFunction<Map.Entry<String, Object>, Map.Entry<String, Object>, ? extends Map.Entry<String, Object>> reducer) {
+		Map.Entry<String, Object> result = null;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			result = result == null ? entry : reducer.apply(result, entry);
+		}
+		return result;
+	}
+
+	@Override
+	public <U> U reduceEntries(long parallelismThreshold, Function<Map.Entry<String, Object>, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		U result = null;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			U u = transformer.apply(entry);
+			if (u != null) {
+				result = result == null ? u : reducer.apply(result, u);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public double reduceEntriesToDouble(long parallelismThreshold, ToDoubleFunction<Map.Entry<String, Object>> transformer,
+			double basis, DoubleBinaryOperator reducer) {
+		double result = basis;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			result = reducer.applyAsDouble(result, transformer.applyAsDouble(entry));
+		}
+		return result;
+	}
+
+	@Override
+	public long reduceEntriesToLong(long parallelismThreshold, ToLongFunction<Map.Entry<String, Object>> transformer,
+			long basis, LongBinaryOperator reducer) {
+		long result = basis;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			result = reducer.applyAsLong(result, transformer.applyAsLong(entry));
+		}
+		return result;
+	}
+
+	@Override
+	public int reduceEntriesToInt(long parallelismThreshold, ToIntFunction<Map.Entry<String, Object>> transformer,
+			int basis, IntBinaryOperator reducer) {
+		int result = basis;
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			result = reducer.applyAsInt(result, transformer.applyAsInt(entry));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,345 @@
+package com.jsontools;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
+/**
+ *
+ * <p>
+ * The <code>FrozenJsonArray</code> class is a deeply immutable
+ * <code>JsonArray</code>, produced by <code>JsonArray.freeze</code> and
+ * by freezing the objects holding it. It reads through to a private copy
+ * of the elements, held in a final field, so numeric arrays keep their
+ * <code>long[]</code> or <code>double[]</code> storage and any number of
+ * threads may read the array without locking. The list this class
+ * derives from stays empty.
+ * </p>
+ * <p>
+ * Like a frozen object, a frozen array keeps the hash of its elements
+ * once computed, and is found unequal to a frozen array with a different
+ * hash without comparing elements.
+ * </p>
+ * <p>
+ * Writes, and the creation of indexes, throw
+ * <code>UnsupportedOperationException</code>. <code>clone</code> returns
+ * a mutable copy of the array whose elements are still frozen.
+ * </p>
+ *
+ */
+final class FrozenJsonArray extends JsonArray {
+
+	private static final long serialVersionUID = 8213570044319270687L;
+
+	private final JsonArray elements;
+	// the hash of the elements, or 0 until it is first computed
+	private transient int hash;
+
+	FrozenJsonArray(JsonArray elements) {
+		this.elements = elements;
+	}
+
+	@Override
+	public boolean isFrozen() {
+		return true;
+	}
+
+	@Override
+	public JsonArray freeze() {
+		return this;
+	}
+
+	@Override
+	public int size() {
+		return elements.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return elements.isEmpty();
+	}
+
+	@Override
+	public Object get(int index) {
+		return elements.get(index);
+	}
+
+	@Override
+	public long getLong(int index) {
+		return elements.getLong(index);
+	}
+
+	@Override
+	public double getDouble(int index) {
+		return elements.getDouble(index);
+	}
+
+	@Override
+	public long[] toLongArray() {
+		return elements.toLongArray();
+	}
+
+	@Override
+	public double[] toDoubleArray() {
+		return elements.toDoubleArray();
+	}
+
+	@Override
+	public LongStream longStream() {
+		return elements.longStream();
+	}
+
+	@Override
+	public DoubleStream doubleStream() {
+		return elements.doubleStream();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return elements.contains(o);
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		return elements.indexOf(o);
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return elements.lastIndexOf(o);
+	}
+
+	@Override
+	public Object[] toArray() {
+		return elements.toArray();
+	}
+
+	@Override
+	public <T> T[] toArray(T[] a) {
+		return elements.toArray(a);
+	}
+
+	@Override
+	public Iterator<Object> iterator() {
+		return new ReadOnlyIterator(elements.listIterator());
+	}
+
+	@Override
+	public ListIterator<Object> listIterator() {
+		return new ReadOnlyIterator(elements.listIterator());
+	}
+
+	@Override
+	public ListIterator<Object> listIterator(int index) {
+		return new ReadOnlyIterator(elements.listIterator(index));
+	}
+
+	@Override
+	public Spliterator<Object> spliterator() {
+		return elements.spliterator();
+	}
+
+	@Override
+	public void forEach(Consumer<? super Object> action) {
+		elements.forEach(action);
+	}
+
+	@Override
+	public List<Object> subList(int fromIndex, int toIndex) {
+		return Collections.unmodifiableList(elements.subList(fromIndex, toIndex));
+	}
+
+	@Override
+	public Object clone() {
+		return elements.clone();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (o instanceof FrozenJsonArray && hashCode() != o.hashCode()) {
+			return false;
+		}
+		return elements.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			// threads racing here compute the same value, so the write is benign
+			h = elements.hashCode();
+			hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	public void ensureCapacity(int minCapacity) {
+	}
+
+	@Override
+	public void trimToSize() {
+	}
+
+	// writes are not supported
+
+	private static UnsupportedOperationException frozen() {
+		return new UnsupportedOperationException("frozen JsonArray cannot be modified");
+	}
+
+	@Override
+	public boolean add(Object e) {
+		throw frozen();
+	}
+
+	@Override
+	public void add(int index, Object element) {
+		throw frozen();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Object> e) {
+		throw frozen();
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends Object> e) {
+		throw frozen();
+	}
+
+	@Override
+	public Object set(int index, Object element) {
+		throw frozen();
+	}
+
+	@Override
+	public Object remove(int index) {
+		throw frozen();
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		throw frozen();
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		throw frozen();
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		throw frozen();
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super Object> filter) {
+		throw frozen();
+	}
+
+	@Override
+	public void replaceAll(UnaryOperator<Object> operator) {
+		throw frozen();
+	}
+
+	@Override
+	public void sort(Comparator<? super Object> c) {
+		throw frozen();
+	}
+
+	@Override
+	public void clear() {
+		throw frozen();
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		throw frozen();
+	}
+
+	@Override
+	public void createIndex(String... keypaths) {
+		throw frozen();
+	}
+
+	@Override
+	public boolean dropIndex(String... keypaths) {
+		throw frozen();
+	}
+
+	/**
+	 * Iterates over the elements without allowing them to be changed.
+	 */
+	private static final class ReadOnlyIterator implements ListIterator<Object> {
+
+		private final ListIterator<Object> iterator;
+
+		ReadOnlyIterator(ListIterator<Object> iterator) {
+			this.iterator = iterator;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		@Override
+		public Object next() {
+			return iterator.next();
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return iterator.hasPrevious();
+		}
+
+		@Override
+		public Object previous() {
+			return iterator.previous();
+		}
+
+		@Override
+		public int nextIndex() {
+			return iterator.nextIndex();
+		}
+
+		@Override
+		public int previousIndex() {
+			return iterator.previousIndex();
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super Object> action) {
+			iterator.forEachRemaining(action);
+		}
+
+		@Override
+		public void remove() {
+			throw frozen();
+		}
+
+		@Override
+		public void set(Object e) {
+			throw frozen();
+		}
+
+		@Override
+		public void add(Object e) {
+			throw frozen();
+		}
+
+	}
+
+}
@@ -0,0 +1,380 @@
+package com.jsontools;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ *
+ * <p>
+ * The <code>FrozenJsonObject</code> class is a deeply immutable
+ * <code>JsonObject</code>, produced by <code>JsonObject.freeze</code>.
+ * Its keys and values are packed into a single array, each key followed
+ * by its value, in place of the nodes of a
+ * <code>ConcurrentHashMap</code>. Keys are found by a linear scan in
+ * objects of up to eight members, and through an open-addressing table
+ * of positions in larger ones. Nested objects are frozen and nested
+ * arrays are held as <code>FrozenJsonArray</code> objects.
+ * </p>
+ * <p>
+ * Every field but the cached hash is final, and nothing else is
+ * written after construction, so any number of threads may read a
+ * frozen object without locking, even if it was handed to them without
+ * synchronization. Writes throw
+ * <code>UnsupportedOperationException</code>.
+ * </p>
+ * <p>
+ * As a frozen tree can never change, each frozen object and array keeps
+ * the hash of its contents once computed, and computes it from the
+ * cached hashes of its members, so hashing a frozen tree again costs
+ * nothing and frozen trees serve well as the keys of hash maps. Two
+ * frozen trees with different hashes are unequal, which
+ * <code>equals</code> finds without comparing their members.
+ * </p>
+ *
+ */
+final class FrozenJsonObject extends DetachedJsonObject {
+
+	private static final long serialVersionUID = -6094271758893207443L;
+
+	// objects of up to this many members are searched linearly
+	private static final int SCAN_LIMIT = 8;
+
+	// each key followed by its value
+	private final Object[] entries;
+	// positions of keys in entries, plus one, by hash; null for small objects
+	private final int[] slots;
+	// the hash of the contents, or 0 until it is first computed
+	private transient int hash;
+
+	private FrozenJsonObject(Object[] entries) {
+		this.entries = entries;
+		int size = entries.length >> 1;
+		if (size <= SCAN_LIMIT) {
+			this.slots = null;
+			return;
+		}
+		int[] table = new int[Integer.highestOneBit(size - 1) << 2];
+		int mask = table.length - 1;
+		for (int i = 0; i < entries.length; i += 2) {
+			int slot = spread(entries[i].hashCode()) & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = i + 1;
+		}
+		this.slots = table;
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the position of the given key in entries, or -1.
+	 */
+	private int find(Object key) {
+		if (slots == null) {
+			for (int i = 0; i < entries.length; i += 2) {
+				if (key.equals(entries[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		int mask = slots.length - 1;
+		int slot = spread(key.hashCode()) & mask;
+		int position;
+		while ((position = slots[slot]) != 0) {
+			if (key.equals(entries[position - 1])) {
+				return position - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	@Override
+	public int size() {
+		return entries.length >> 1;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (key instanceof String) {
+			int i = find(key);
+			if (i >= 0) {
+				return entries[i + 1];
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return new AbstractSet<Map.Entry<String, Object>>() {
+
+			@Override
+			public Iterator<Map.Entry<String, Object>> iterator() {
+				return new Iterator<Map.Entry<String, Object>>() {
+
+					private int next;
+
+					@Override
+					public boolean hasNext() {
+						return next < entries.length;
+					}
+
+					@Override
+					public Map.Entry<String, Object> next() {
+						if (next >= entries.length) {
+							throw new NoSuchElementException();
+						}
+						Map.Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<String, Object>(
+								(String) entries[next], entries[next + 1]);
+						next += 2;
+						return entry;
+					}
+
+				};
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				if (!(o instanceof Map.Entry)) {
+					return false;
+				}
+				Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+				Object value = get(entry.getKey());
+				return value != null && value.equals(entry.getValue());
+			}
+
+			@Override
+			public int size() {
+				return FrozenJsonObject.this.size();
+			}
+
+		};
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof FrozenJsonObject && o != this && hashCode() != o.hashCode()) {
+			return false;
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			// threads racing here compute the same value, so the write is benign
+			h = super.hashCode();
+			hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	public boolean isFrozen() {
+		return true;
+	}
+
+	@Override
+	public JsonObject freeze() {
+		return this;
+	}
+
+	/**
+	 * Returns a deeply immutable copy of the given object or array, or
+	 * the value itself if it is already frozen or is a primitive. The
+	 * tree is copied with an explicit stack, so it may be of any depth.
+	 */
+	static Object freeze(Object value) {
+		if (isFrozenOrPrimitive(value)) {
+			return value;
+		}
+		if (isNumeric(value)) {
+			return freezeNumeric((JsonArray) value);
+		}
+		ArrayList<Frame> stack = new ArrayList<Frame>();
+		stack.add(new Frame(value));
+		while (true) {
+			Frame top = stack.get(stack.size() - 1);
+			if (top.iterator.hasNext()) {
+				Object next = top.iterator.next();
+				String key = null;
+				if (top.object) {
+					Map.Entry<?, ?> entry = (Map.Entry<?, ?>) next;
+					key = (String) entry.getKey();
+					next = entry.getValue();
+				}
+				if (!isFrozenOrPrimitive(next)) {
+					if (isNumeric(next)) {
+						next = freezeNumeric((JsonArray) next);
+					} else {
+						top.key = key;
+						stack.add(new Frame(next));
+						continue;
+					}
+				}
+				top.add(key, next);
+			} else {
+				stack.remove(stack.size() - 1);
+				Object frozen = top.build();
+				if (stack.isEmpty()) {
+					return frozen;
+				}
+				Frame parent = stack.get(stack.size() - 1);
+				parent.add(parent.key, frozen);
+			}
+		}
+	}
+
+	private static boolean isFrozenOrPrimitive(Object value) {
+		if (value instanceof JsonObject) {
+			return ((JsonObject) value).isFrozen();
+		} else if (value instanceof JsonArray) {
+			return ((JsonArray) value).isFrozen();
+		}
+		return true;
+	}
+
+	private static boolean isNumeric(Object value) {
+		return value instanceof NumericJsonArray && ((NumericJsonArray) value).isPrimitive();
+	}
+
+	private static FrozenJsonArray freezeNumeric(JsonArray array) {
+		JsonArray copy = (JsonArray) array.clone();
+		copy.trimToSize();
+		return new FrozenJsonArray(copy);
+	}
+
+	/**
+	 * An object or array being copied, with the copies of the members or
+	 * elements visited so far.
+	 */
+	private static final class Frame {
+
+		final Iterator<?> iterator;
+		final boolean object;
+		Object[] items;
+		int count;
+		// the key of the member whose value is being copied
+		String key;
+
+		Frame(Object container) {
+			this.object = container instanceof JsonObject;
+			if (object) {
+				JsonObject jobj = (JsonObject) container;
+				this.iterator = jobj.entrySet().iterator();
+				this.items = new Object[jobj.size() << 1];
+			} else {
+				JsonArray jarr = (JsonArray) container;
+				this.iterator = jarr.iterator();
+				this.items = new Object[jarr.size()];
+			}
+		}
+
+		void add(String key, Object value) {
+			int needed = object ? count + 2 : count + 1;
+			if (needed > items.length) {
+				// the container grew while it was being copied
+				items = Arrays.copyOf(items, Math.max(needed, items.length << 1));
+			}
+			if (object) {
+				items[count++] = key;
+			}
+			items[count++] = value;
+		}
+
+		Object build() {
+			Object[] contents = count == items.length ? items : Arrays.copyOf(items, count);
+			if (object) {
+				return new FrozenJsonObject(contents);
+			}
+			return new FrozenJsonArray(new JsonArray(Arrays.asList(contents)));
+		}
+
+	}
+
+	// writes are not supported
+
+	private static UnsupportedOperationException frozen() {
+		return new UnsupportedOperationException("frozen JsonObject cannot be modified");
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		throw frozen();
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Object> m) {
+		throw frozen();
+	}
+
+	@Override
+	public Object putIfAbsent(String key, Object value) {
+		throw frozen();
+	}
+
+	@Override
+	public Object remove(Object key) {
+		throw frozen();
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		throw frozen();
+	}
+
+	@Override
+	public Object replace(String key, Object value) {
+		throw frozen();
+	}
+
+	@Override
+	public boolean replace(String key, Object oldValue, Object newValue) {
+		throw frozen();
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super String, ? super Object, ? extends Object> function) {
+		throw frozen();
+	}
+
+	@Override
+	public Object compute(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+		throw frozen();
+	}
+
+	@Override
+	public Object computeIfAbsent(String key, Function<? super String, ? extends Object> mappingFunction) {
+		throw frozen();
+	}
+
+	@Override
+	public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+		throw frozen();
+	}
+
+	@Override
+	public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+		throw frozen();
+	}
+
+	@Override
+	public void clear() {
+		throw frozen();
+	}
+
+}
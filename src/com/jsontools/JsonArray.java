@@ -1,7 +1,14 @@
 package com.jsontools;
 
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
 
 /**
  * 
@@ -16,7 +23,27 @@ import java.util.Collection;
  * <p>
  * JsonArray objects are mutable; after they are constructed,
  * JsonArray objects can be given new items and they can have their
- * items removed. 
+ * items removed. <code>freeze</code> returns a deeply immutable copy of
+ * an array which any number of threads may read without locking, and
+ * which keeps the hash of its elements once computed.
+ * </p>
+ * <p>
+ * JsonArray objects can be indexed on the values found at one or more
+ * key paths of their object elements with <code>createIndex</code>, so
+ * that <code>findAll</code> and <code>seek</code> with a content
+ * specification giving those values look up matching elements directly
+ * instead of testing every element. Indexes follow changes made through
+ * the methods of the array; elements which are modified in place after
+ * they were added must be reindexed with <code>createIndex</code>.
+ * </p>
+ * <p>
+ * Arrays of numbers read by <code>JsonParser</code>, or created with
+ * <code>ofLongs</code> or <code>ofDoubles</code>, hold their elements as
+ * a <code>long[]</code> or <code>double[]</code> for as long as every
+ * element is a Long, or every element is a Double. They are read with
+ * <code>getLong</code>, <code>toDoubleArray</code>,
+ * <code>longStream</code> and the like without boxing, and move to
+ * boxed storage transparently when an element of another type is added.
  * </p>
  *
  */
@@ -27,7 +54,8 @@ public class JsonArray extends ArrayList<Object> {
 	 */
 	private static final long serialVersionUID = 7051911002593297250L;
 	
-	private final StringBuilder stringBuilder = new StringBuilder();;
+	
+	private transient ArrayList<ArrayIndex> indexes;
 
 	public JsonArray() {
 		super();
@@ -40,6 +68,7 @@ public class JsonArray extends ArrayList<Object> {
 					&& !(obj instanceof Boolean)
 					&& !(obj instanceof Long)
 					&& !(obj instanceof Double)
+					&& !(obj instanceof JsonNumber)
 					&& !(obj instanceof JsonObject)
 					&& !(obj instanceof JsonArray)) {
 				clear();
@@ -54,9 +83,15 @@ public class JsonArray extends ArrayList<Object> {
 				|| e instanceof Boolean
 				|| e instanceof Long
 				|| e instanceof Double
+				|| e instanceof JsonNumber
 				|| e instanceof JsonObject
 				|| e instanceof JsonArray) {
-			return super.add(e);
+			int from = size();
+			boolean added = super.add(e);
+			if (indexes != null) {
+				indexAppended(from);
+			}
+			return added;
 		}
 		return false;
 	}
@@ -67,6 +102,7 @@ public class JsonArray extends ArrayList<Object> {
 				|| element instanceof Boolean
 				|| element instanceof Long
 				|| element instanceof Double
+				|| element instanceof JsonNumber
 				|| element instanceof JsonObject
 				|| element instanceof JsonArray) {
 			super.add(index, element);
@@ -80,12 +116,18 @@ public class JsonArray extends ArrayList<Object> {
 					&& !(obj instanceof Boolean)
 					&& !(obj instanceof Long)
 					&& !(obj instanceof Double)
+					&& !(obj instanceof JsonNumber)
 					&& !(obj instanceof JsonObject)
 					&& !(obj instanceof JsonArray)) {
 				return false;
 			}
 		}
-		return super.addAll(e);
+		int from = size();
+		boolean added = super.addAll(e);
+		if (indexes != null) {
+			indexAppended(from);
+		}
+		return added;
 	}
 	
 	@Override
@@ -95,6 +137,7 @@ public class JsonArray extends ArrayList<Object> {
 					&& !(obj instanceof Boolean)
 					&& !(obj instanceof Long)
 					&& !(obj instanceof Double)
+					&& !(obj instanceof JsonNumber)
 					&& !(obj instanceof JsonObject)
 					&& !(obj instanceof JsonArray)) {
 				return false;
@@ -104,70 +147,377 @@ public class JsonArray extends ArrayList<Object> {
 	}
 	
 	@Override
-	public String toString() {
-		stringBuilder.delete(0, stringBuilder.length());
-		stringBuilder.append('[');
-		int i = 0;
-		for (Object item : this) {
-			if (item instanceof String) {
-				stringBuilder.append("\"" + item + "\"");
-			} else {
-				stringBuilder.append(item);
+	public Object set(int index, Object element) {
+		Object previous = super.set(index, element);
+		if (indexes != null) {
+			for (ArrayIndex arrayIndex : indexes) {
+				if (arrayIndex.isCurrent(modCount) && !arrayIndex.replace(previous, element)) {
+					arrayIndex.invalidate();
+				}
 			}
-			if (i < size() - 1) {
-				stringBuilder.append(',');
+		}
+		return previous;
+	}
+	
+	@Override
+	public Object remove(int index) {
+		Object removed = super.remove(index);
+		if (indexes != null) {
+			for (ArrayIndex arrayIndex : indexes) {
+				if (arrayIndex.isCurrent(modCount - 1) && arrayIndex.remove(removed)) {
+					arrayIndex.sync(modCount);
+				}
 			}
-			i++;
 		}
-		stringBuilder.append(']');
+		return removed;
+	}
+	
+	@Override
+	public boolean remove(Object o) {
+		if (indexes == null) {
+			return super.remove(o);
+		}
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+	
+	@Override
+	public Object clone() {
+		JsonArray copy = (JsonArray) super.clone();
+		copy.indexes = null;
+		return copy;
+	}
+	
+	/**
+	 * Returns a JsonArray of the given Long values, held as a
+	 * <code>long[]</code> until a value of another type is added.
+	 *
+	 * @param values - the elements of the array
+	 * @return a new JsonArray holding the values
+	 */
+	public static JsonArray ofLongs(long... values) {
+		return new NumericJsonArray(values.clone());
+	}
+	
+	/**
+	 * Returns a JsonArray of the given Double values, held as a
+	 * <code>double[]</code> until a value of another type is added.
+	 *
+	 * @param values - the elements of the array
+	 * @return a new JsonArray holding the values
+	 */
+	public static JsonArray ofDoubles(double... values) {
+		return new NumericJsonArray(values.clone());
+	}
+	
+	/**
+	 * Returns the Long element at the given index as a primitive, or the
+	 * exact value of a JsonNumber element.
+	 *
+	 * @param index - the index of the element
+	 * @return the value of the element
+	 * @throws ClassCastException if the element is not a Long or
+	 * JsonNumber
+	 * @throws ArithmeticException if a JsonNumber element is not an
+	 * integer within the range of a long
+	 */
+	public long getLong(int index) {
+		return longValue(get(index));
+	}
+	
+	/**
+	 * Returns the Long, Double or JsonNumber element at the given index
+	 * as a primitive double.
+	 *
+	 * @param index - the index of the element
+	 * @return the value of the element
+	 * @throws ClassCastException if the element is not a number
+	 */
+	public double getDouble(int index) {
+		return ((Number) get(index)).doubleValue();
+	}
+	
+	/**
+	 * Returns the elements of this array, which must all be Long
+	 * values or integral JsonNumber values, as a new <code>long[]</code>.
+	 *
+	 * @return the values of the elements
+	 * @throws ClassCastException if an element is not a Long or
+	 * JsonNumber
+	 */
+	public long[] toLongArray() {
+		long[] values = new long[size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getLong(i);
+		}
+		return values;
+	}
+	
+	/**
+	 * Returns the elements of this array, which must all be numbers,
+	 * as a new <code>double[]</code>.
+	 *
+	 * @return the values of the elements
+	 * @throws ClassCastException if an element is not a number
+	 */
+	public double[] toDoubleArray() {
+		double[] values = new double[size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getDouble(i);
+		}
+		return values;
+	}
+	
+	/**
+	 * Returns a stream of the elements of this array, which must all be
+	 * Long values or integral JsonNumber values.
+	 *
+	 * @return a sequential LongStream of the elements
+	 */
+	public LongStream longStream() {
+		return stream().mapToLong(JsonArray::longValue);
+	}
+	
+	private static long longValue(Object element) {
+		if (element instanceof JsonNumber) {
+			return ((JsonNumber) element).asLong();
+		}
+		return (Long) element;
+	}
+	
+	/**
+	 * Returns a stream of the elements of this array, which must all be
+	 * numbers.
+	 *
+	 * @return a sequential DoubleStream of the elements
+	 */
+	public DoubleStream doubleStream() {
+		return stream().mapToDouble(element -> ((Number) element).doubleValue());
+	}
+	
+	/**
+	 * Writes this array as json text to the given destination in a
+	 * single pass, without building a String for any nested value.
+	 *
+	 * @param out - the destination of the text
+	 * @throws IOException if the destination throws an IOException
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		JsonWriter.write(this, out);
+	}
+	
+	/**
+	 * Writes this array as json text to the given writer in a single
+	 * pass. The text is passed to the writer in chunks; the writer is
+	 * neither flushed nor closed.
+	 *
+	 * @param out - the destination of the text
+	 * @throws IOException if the writer throws an IOException
+	 */
+	public void writeTo(Writer out) throws IOException {
+		JsonWriter.write(this, out);
+	}
+	
+	/**
+	 * Serializes this array as its binary encoding, written by
+	 * <code>BinaryJsonEncoder</code>, rather than as the default
+	 * serialized form of the list it extends.
+	 */
+	protected Object writeReplace() throws ObjectStreamException {
+		return new BinaryJson.Proxy(this);
+	}
+	
+	/**
+	 * Returns the Long values found at the given key of the elements of
+	 * this array, which must all be objects holding a Long or JsonNumber
+	 * there. Arrays read with columns enabled scan a column of Long
+	 * values straight from its <code>long[]</code>.
+	 *
+	 * @param key - the key of the values
+	 * @return a stream of the values, in order
+	 * @throws ClassCastException if an element is not an object, or its
+	 * value is not a Long
+	 * @throws NullPointerException if an element has no value at the key
+	 */
+	public LongStream longColumn(String key) {
+		return stream().mapToLong(e -> longValue(((JsonObject) e).get(key)));
+	}
+	
+	/**
+	 * Returns the values found at the given key of the elements of this
+	 * array as doubles; the elements must all be objects holding a Long,
+	 * Double or JsonNumber there. Arrays read with columns enabled scan a
+	 * numeric column straight from its primitive array.
+	 *
+	 * @param key - the key of the values
+	 * @return a stream of the values, in order
+	 * @throws ClassCastException if an element is not an object, or its
+	 * value is not a number
+	 * @throws NullPointerException if an element has no value at the key
+	 */
+	public DoubleStream doubleColumn(String key) {
+		return stream().mapToDouble(e -> ((Number) ((JsonObject) e).get(key)).doubleValue());
+	}
+	
+	/**
+	 * Returns a deeply immutable copy of this array, in which every
+	 * nested object and array is frozen as well, or this array if it is
+	 * already frozen. Numeric arrays keep their primitive storage.
+	 *
+	 * @return a frozen JsonArray equal to this array
+	 */
+	public JsonArray freeze() {
+		return (JsonArray) FrozenJsonObject.freeze(this);
+	}
+	
+	/**
+	 * Returns true if this array was produced by <code>freeze</code> and
+	 * cannot be modified.
+	 *
+	 * @return true if this array is frozen
+	 */
+	public boolean isFrozen() {
+		return false;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder stringBuilder = new StringBuilder();
+		try {
+			writeTo(stringBuilder);
+		} catch (IOException ex) {
+			// a StringBuilder never throws
+			throw new UncheckedIOException(ex);
+		}
 		return stringBuilder.toString();
 	}
 	
+	/**
+	 * Returns true if every element of this array is matched by an
+	 * element of the other array: a primitive by an equal primitive, and
+	 * an object or array by a distinct object or array of which it is a
+	 * subset. Objects and arrays are matched in order, each to the first
+	 * unclaimed element it is a subset of.
+	 *
+	 * @param other - the array to match the elements of this array in
+	 * @return true if this array is a subset of the other array
+	 */
 	public boolean subsetOf(JsonArray other) {
-		ArrayList<Integer> referencedIndices = new ArrayList<Integer>();
-		boolean subset = true;
-		for (Object thisItem : this) {
-			if (thisItem instanceof JsonObject) {
-				boolean foundMatch = false;
-				for (int i = 0; i < other.size(); i++) {
-					Object otherItem = other.get(i);
-					if (thisItem.getClass() == otherItem.getClass()) {
-						if (((JsonObject) thisItem).subsetOf((JsonObject) otherItem)) {
-							if (referencedIndices.contains(i)) {
-								continue;
-							}
-							referencedIndices.add(i);
-							foundMatch = true;
-							break;
-						}
-					}
-				}
-				subset = foundMatch;
-			} else if (thisItem instanceof JsonArray) {
-				boolean foundMatch = false;
-				for (int i = 0; i < other.size(); i++) {
-					Object otherItem = other.get(i);
-					if (thisItem.getClass() == otherItem.getClass()) {
-						if (((JsonArray) thisItem).subsetOf((JsonArray) otherItem)) {
-							if (referencedIndices.contains(i)) {
-								continue;
-							}
-							referencedIndices.add(i);
-							foundMatch = true;
-							break;
-						}
+		return new ArrayMatcher(other).matches(this);
+	}
+	
+	/**
+	 * Indexes the object elements of this array on the primitive values
+	 * at the given dotted key paths, such as <code>sku</code> or
+	 * <code>meta.id</code>, replacing any index on the same key paths.
+	 * Content specifications which give a primitive value for every key
+	 * path of an index are then looked up in it. The index follows
+	 * changes made through the methods of this array, but not changes
+	 * made to an element in place: an element whose indexed value is
+	 * changed afterwards is still found only under its former value, so
+	 * <code>findAll</code> and <code>seek</code> miss it until
+	 * <code>createIndex</code> is called again.
+	 *
+	 * @param keypaths - one or more key paths made of keys separated by
+	 * the period ( ' . ' ) character
+	 * @throws IllegalArgumentException if no key path is given, or if a
+	 * key path has an empty key
+	 */
+	public void createIndex(String... keypaths) {
+		ArrayIndex arrayIndex = new ArrayIndex(keypaths);
+		dropIndex(keypaths);
+		if (indexes == null) {
+			indexes = new ArrayList<ArrayIndex>();
+		}
+		arrayIndex.rebuild(this, modCount);
+		indexes.add(arrayIndex);
+	}
+	
+	/**
+	 * Removes the index on the given key paths, if there is one.
+	 *
+	 * @param keypaths - the key paths the index was created with
+	 * @return true if an index was removed
+	 */
+	public boolean dropIndex(String... keypaths) {
+		if (indexes != null) {
+			for (int i = 0; i < indexes.size(); i++) {
+				if (indexes.get(i).covers(keypaths)) {
+					indexes.remove(i);
+					if (indexes.isEmpty()) {
+						indexes = null;
 					}
-				}
-				subset = foundMatch;
-			} else {
-				if (!other.contains(thisItem)) {
-					return false;
+					return true;
 				}
 			}
-			if (!subset) {
-				return subset;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the object elements of this array of which the given
+	 * content specification is a subset, in order.
+	 *
+	 * @param spec - the content specification to match
+	 * @return a new JsonArray holding the matching elements
+	 */
+	public JsonArray findAll(JsonObject spec) {
+		JsonArray matches = new JsonArray();
+		List<?> candidates = candidates(spec);
+		for (Object item : candidates != null ? candidates : this) {
+			if (item instanceof JsonObject && spec.subsetOf((JsonObject) item)) {
+				matches.add(item);
+			}
+		}
+		return matches;
+	}
+	
+	/**
+	 * Returns the only elements which can match the given content
+	 * specification according to an index, in order, or null if no
+	 * index applies to the specification.
+	 */
+	List<JsonObject> candidates(JsonObject spec) {
+		if (indexes == null) {
+			return null;
+		}
+		for (ArrayIndex arrayIndex : indexes) {
+			Object key = arrayIndex.key(spec);
+			if (key != null) {
+				return arrayIndex.bucket(key, this, modCount);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Marks every index out of date, for subclasses which move the
+	 * elements to different storage without modifying the list.
+	 */
+	void invalidateIndexes() {
+		if (indexes != null) {
+			for (ArrayIndex arrayIndex : indexes) {
+				arrayIndex.invalidate();
+			}
+		}
+	}
+	
+	/**
+	 * Brings each index which was current before the elements from
+	 * <code>from</code> onwards were appended up to date.
+	 */
+	private void indexAppended(int from) {
+		for (ArrayIndex arrayIndex : indexes) {
+			if (arrayIndex.isCurrent(modCount - 1)) {
+				for (int i = from; i < size(); i++) {
+					arrayIndex.add(get(i));
+				}
+				arrayIndex.sync(modCount);
 			}
 		}
-		return subset;
 	}
 }
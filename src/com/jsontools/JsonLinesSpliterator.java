@@ -0,0 +1,335 @@
+package com.jsontools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ *
+ * <p>
+ * The <code>JsonLinesSpliterator</code> class walks newline-delimited json
+ * (one JSON object per line) and parses each line into a
+ * <code>JsonObject</code>. Blank lines are ignored. A line which cannot be
+ * parsed is passed to an error handler as a failed
+ * <code>JsonParseResult</code> holding the text of the line, and
+ * traversal continues with the next line.
+ * </p>
+ * <p>
+ * Lines are located directly in UTF-8 bytes, which are read in blocks
+ * and parsed in place whenever a line lies entirely within one block.
+ * A spliterator over a file splits its byte range at a newline near the
+ * middle, so that parallel streams divide large files evenly between
+ * threads. A spliterator over an <code>InputStream</code> cannot seek,
+ * so it splits by handing off a batch of raw lines for another thread
+ * to parse.
+ * </p>
+ *
+ */
+abstract class JsonLinesSpliterator implements Spliterator<JsonObject> {
+
+	static final int BLOCK_SIZE = 1 << 16;
+	// ranges smaller than this are not split further
+	static final int MIN_SPLIT_SIZE = 1 << 16;
+	static final int BATCH_SIZE = 1024;
+
+	final Consumer<? super JsonParseResult> errorHandler;
+
+	byte[] block;
+	// unread bytes are block[blockPos..blockLen)
+	int blockPos;
+	int blockLen;
+	// input offset of block[blockPos]
+	long pos;
+	// lines starting at or after this offset belong to another spliterator
+	long end;
+	private byte[] scratch;
+
+	// the current line, set by nextLine()
+	byte[] lineBuf;
+	int lineOff;
+	int lineLen;
+
+	JsonLinesSpliterator(Consumer<? super JsonParseResult> errorHandler, long pos, long end) {
+		this.errorHandler = errorHandler;
+		this.pos = pos;
+		this.end = end;
+	}
+
+	static JsonLinesSpliterator of(FileChannel channel, Consumer<? super JsonParseResult> errorHandler) throws IOException {
+		return new FileLines(channel, errorHandler, 0, channel.size());
+	}
+
+	static JsonLinesSpliterator of(InputStream in, Consumer<? super JsonParseResult> errorHandler) {
+		return new StreamLines(in, errorHandler);
+	}
+
+	/**
+	 * Reads up to <code>len</code> bytes of input starting at offset
+	 * <code>position</code>, returning the number of bytes read, or -1
+	 * at the end of the input.
+	 */
+	abstract int read(byte[] dst, int off, int len, long position) throws IOException;
+
+	@Override
+	public boolean tryAdvance(Consumer<? super JsonObject> action) {
+		try {
+			while (nextLine()) {
+				if (isBlank(lineBuf, lineOff, lineLen)) {
+					continue;
+				}
+				JsonObject jobj;
+				try {
+					jobj = new ByteJsonParser(lineBuf, lineOff, lineLen).parseObject();
+				} catch (JSONFormatException ex) {
+					errorHandler.accept(JsonParseResult.failure(new String(lineBuf, lineOff, lineLen, StandardCharsets.UTF_8), ex));
+					continue;
+				}
+				action.accept(jobj);
+				return true;
+			}
+			return false;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@Override
+	public long estimateSize() {
+		// the number of lines is unknown; the remaining byte count is
+		// proportional to it, which is all that splitting decisions need
+		return end == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(end - pos, 0);
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+
+	/**
+	 * Advances to the next line of this spliterator's range, setting
+	 * <code>lineBuf</code>, <code>lineOff</code> and <code>lineLen</code>
+	 * to its bytes (without the newline). Returns false once no line
+	 * starts within the range.
+	 */
+	boolean nextLine() throws IOException {
+		if (pos >= end) {
+			return false;
+		}
+		int scratchLen = -1;
+		while (true) {
+			if (blockPos == blockLen) {
+				if (block == null) {
+					block = new byte[BLOCK_SIZE];
+				}
+				int n = read(block, 0, block.length, pos);
+				if (n <= 0) {
+					// the last line has no trailing newline
+					end = pos;
+					if (scratchLen < 0) {
+						return false;
+					}
+					setLine(scratch, 0, scratchLen);
+					return true;
+				}
+				blockPos = 0;
+				blockLen = n;
+			}
+			int newline = indexOfNewline(block, blockPos, blockLen);
+			int stop = newline < 0 ? blockLen : newline;
+			if (newline >= 0 && scratchLen < 0) {
+				// the line lies entirely within the block
+				setLine(block, blockPos, stop - blockPos);
+			} else {
+				// the line spans blocks, so it is gathered in scratch
+				scratchLen = Math.max(scratchLen, 0);
+				int length = stop - blockPos;
+				if (scratch == null || scratch.length < scratchLen + length) {
+					scratch = Arrays.copyOf(scratch == null ? new byte[0] : scratch,
+							Math.max(scratchLen + length, 2 * (scratch == null ? 256 : scratch.length)));
+				}
+				System.arraycopy(block, blockPos, scratch, scratchLen, length);
+				scratchLen += length;
+				setLine(scratch, 0, scratchLen);
+			}
+			if (newline >= 0) {
+				pos += newline + 1 - blockPos;
+				blockPos = newline + 1;
+				return true;
+			}
+			pos += blockLen - blockPos;
+			blockPos = blockLen;
+		}
+	}
+
+	private void setLine(byte[] buf, int off, int len) {
+		lineBuf = buf;
+		lineOff = off;
+		lineLen = len;
+	}
+
+	static int indexOfNewline(byte[] buf, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buf[i] == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	static boolean isBlank(byte[] buf, int off, int len) {
+		for (int i = off; i < off + len; i++) {
+			byte b = buf[i];
+			if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the lines of a range of a file with positional reads, so that
+	 * any number of spliterators may share one channel.
+	 */
+	static final class FileLines extends JsonLinesSpliterator {
+
+		private final FileChannel channel;
+
+		FileLines(FileChannel channel, Consumer<? super JsonParseResult> errorHandler, long pos, long end) {
+			super(errorHandler, pos, end);
+			this.channel = channel;
+		}
+
+		@Override
+		int read(byte[] dst, int off, int len, long position) throws IOException {
+			return channel.read(ByteBuffer.wrap(dst, off, len), position);
+		}
+
+		@Override
+		public Spliterator<JsonObject> trySplit() {
+			if (end - pos < 2L * MIN_SPLIT_SIZE) {
+				return null;
+			}
+			try {
+				long split = lineStartAfter(pos + (end - pos) / 2);
+				if (split < 0 || split >= end) {
+					return null;
+				}
+				// the prefix is handed off; this spliterator keeps the suffix
+				FileLines prefix = new FileLines(channel, errorHandler, pos, split);
+				pos = split;
+				blockPos = 0;
+				blockLen = 0;
+				return prefix;
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		/**
+		 * Returns the offset just past the first newline at or after the
+		 * given offset, or -1 if there is none.
+		 */
+		private long lineStartAfter(long position) throws IOException {
+			byte[] probe = new byte[4096];
+			while (true) {
+				int n = read(probe, 0, probe.length, position);
+				if (n <= 0) {
+					return -1;
+				}
+				int newline = indexOfNewline(probe, 0, n);
+				if (newline >= 0) {
+					return position + newline + 1;
+				}
+				position += n;
+			}
+		}
+
+	}
+
+	/**
+	 * Reads the lines of an <code>InputStream</code> in order. Splitting
+	 * copies out a batch of raw lines, which are then parsed by whichever
+	 * thread traverses the batch.
+	 */
+	static final class StreamLines extends JsonLinesSpliterator {
+
+		private final InputStream in;
+
+		StreamLines(InputStream in, Consumer<? super JsonParseResult> errorHandler) {
+			super(errorHandler, 0, Long.MAX_VALUE);
+			this.in = in;
+		}
+
+		@Override
+		int read(byte[] dst, int off, int len, long position) throws IOException {
+			return in.read(dst, off, len);
+		}
+
+		@Override
+		public Spliterator<JsonObject> trySplit() {
+			try {
+				byte[][] lines = new byte[BATCH_SIZE][];
+				int count = 0;
+				while (count < BATCH_SIZE && nextLine()) {
+					lines[count++] = Arrays.copyOfRange(lineBuf, lineOff, lineOff + lineLen);
+				}
+				return count == 0 ? null : new BatchLines(lines, count, errorHandler);
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+	}
+
+	/**
+	 * Walks lines which have already been read into memory.
+	 */
+	static final class BatchLines extends JsonLinesSpliterator {
+
+		private final byte[][] lines;
+		private final int count;
+		private int index;
+
+		BatchLines(byte[][] lines, int count, Consumer<? super JsonParseResult> errorHandler) {
+			super(errorHandler, 0, count);
+			this.lines = lines;
+			this.count = count;
+		}
+
+		@Override
+		int read(byte[] dst, int off, int len, long position) {
+			return -1;
+		}
+
+		@Override
+		boolean nextLine() {
+			if (index == count) {
+				return false;
+			}
+			byte[] line = lines[index];
+			lines[index++] = null;
+			lineBuf = line;
+			lineOff = 0;
+			lineLen = line.length;
+			return true;
+		}
+
+		@Override
+		public long estimateSize() {
+			return count - index;
+		}
+
+		@Override
+		public Spliterator<JsonObject> trySplit() {
+			return null;
+		}
+
+	}
+
+}
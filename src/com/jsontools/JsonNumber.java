@@ -0,0 +1,320 @@
+package com.jsontools;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ *
+ * <p>
+ * The <code>JsonNumber</code> class represents a json number by its
+ * original text, such as <code>12345678901234567890.000</code>, for data
+ * read with the lossless methods of <code>JsonParser</code>. The text is
+ * converted only when the value is asked for, as a <code>long</code>,
+ * <code>double</code>, <code>BigInteger</code> or
+ * <code>BigDecimal</code>, and is written back out exactly as it was
+ * read, so numbers which pass through untouched are never converted and
+ * never lose precision.
+ * </p>
+ * <p>
+ * Two JsonNumber objects are equal if they represent the same numeric
+ * value, so <code>1.50</code> equals <code>1.5</code>. A JsonNumber is
+ * never equal to a Long or Double. Equality and hashing compare the sign,
+ * significant digits and exponent of the text, found once and kept, so
+ * they never convert the number, whatever its magnitude.
+ * </p>
+ * <p>
+ * JsonNumber objects are immutable.
+ * </p>
+ *
+ */
+public final class JsonNumber extends Number {
+
+	private static final long serialVersionUID = 6083926514392170532L;
+
+	/**
+	 * The largest number of digits of an integer which
+	 * <code>asBigInteger</code> builds.
+	 */
+	public static final int MAX_BIG_INTEGER_DIGITS = 100000;
+
+	private final String text;
+	// the Long or Double value of the text, once it has been converted
+	private transient Object value;
+	// the normalized form of the text, once it has been found
+	private transient Normal normal;
+
+	/**
+	 * Creates a JsonNumber from the given text.
+	 *
+	 * @param text - the text of a number, of the form
+	 * <code>[+-]digits[.digits][(e|E)[+-]digits]</code>
+	 * @throws NumberFormatException if the text is not of that form
+	 */
+	public JsonNumber(String text) {
+		this(text, true);
+	}
+
+	private JsonNumber(String text, boolean validate) {
+		if (validate && !NumberScanner.isNumber(text)) {
+			throw new NumberFormatException("(" + text + ") is not a valid number");
+		}
+		this.text = text;
+	}
+
+	/**
+	 * Wraps text which is already known to be a valid number.
+	 */
+	static JsonNumber wrap(String text) {
+		return new JsonNumber(text, false);
+	}
+
+	private Object value() {
+		Object v = value;
+		if (v == null) {
+			value = v = NumberScanner.parse(text);
+		}
+		return v;
+	}
+
+	private Normal normal() {
+		Normal n = normal;
+		if (n == null) {
+			normal = n = Normal.of(text);
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the exact value of this number as a long.
+	 *
+	 * @return the value of this number
+	 * @throws ArithmeticException if the number has a nonzero fractional
+	 * part or is out of the range of a long
+	 */
+	public long asLong() {
+		Object v = value();
+		if (v instanceof Long) {
+			return (Long) v;
+		}
+		return asBigInteger(19).longValueExact();
+	}
+
+	/**
+	 * Returns the double nearest to the value of this number.
+	 *
+	 * @return the value of this number, rounded to a double
+	 */
+	public double asDouble() {
+		return ((Number) value()).doubleValue();
+	}
+
+	/**
+	 * Returns the exact value of this number as a BigDecimal, with the
+	 * scale given by its text.
+	 *
+	 * @return the value of this number
+	 * @throws ArithmeticException if the exponent of the number is out of
+	 * the range of the scale of a BigDecimal
+	 */
+	public BigDecimal asBigDecimal() {
+		try {
+			return new BigDecimal(text);
+		} catch (NumberFormatException ex) {
+			// the exponent of the text overflows, though the value may not
+			Normal n = normal();
+			if (n.exponent instanceof Long) {
+				long scale = n.digits.length() - 1 - (Long) n.exponent;
+				if (scale == (int) scale) {
+					BigDecimal value = new BigDecimal(new BigInteger(n.digits), (int) scale);
+					return n.negative ? value.negate() : value;
+				}
+			}
+			throw new ArithmeticException("(" + text + ") is out of the range of a BigDecimal");
+		}
+	}
+
+	/**
+	 * Returns the exact value of this number as a BigInteger. Integers of
+	 * more than <code>MAX_BIG_INTEGER_DIGITS</code> digits are refused
+	 * rather than built.
+	 *
+	 * @return the value of this number
+	 * @throws ArithmeticException if the number has a nonzero fractional
+	 * part, or has more than <code>MAX_BIG_INTEGER_DIGITS</code> digits
+	 */
+	public BigInteger asBigInteger() {
+		Object v = value();
+		if (v instanceof Long) {
+			return BigInteger.valueOf((Long) v);
+		}
+		return asBigInteger(MAX_BIG_INTEGER_DIGITS);
+	}
+
+	private BigInteger asBigInteger(int maxDigits) {
+		Normal n = normal();
+		if (n.digits.isEmpty()) {
+			return BigInteger.ZERO;
+		}
+		long exponent = n.exponent instanceof Long ? (Long) n.exponent : ((BigInteger) n.exponent).signum() * Long.MAX_VALUE;
+		int fraction = n.digits.length() - 1;
+		if (exponent < fraction) {
+			throw new ArithmeticException("(" + text + ") has a nonzero fractional part");
+		}
+		if (exponent >= maxDigits) {
+			throw new ArithmeticException("(" + text + ") has more than " + maxDigits + " digits");
+		}
+		BigInteger value = new BigInteger(n.digits).multiply(BigInteger.TEN.pow((int) exponent - fraction));
+		return n.negative ? value.negate() : value;
+	}
+
+	@Override
+	public int intValue() {
+		return (int) longValue();
+	}
+
+	@Override
+	public long longValue() {
+		return ((Number) value()).longValue();
+	}
+
+	@Override
+	public float floatValue() {
+		return (float) asDouble();
+	}
+
+	@Override
+	public double doubleValue() {
+		return asDouble();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof JsonNumber)) {
+			return false;
+		}
+		JsonNumber other = (JsonNumber) o;
+		return text.equals(other.text) || normal().equals(other.normal());
+	}
+
+	@Override
+	public int hashCode() {
+		return normal().hashCode();
+	}
+
+	/**
+	 * Returns the text this number was read from.
+	 */
+	@Override
+	public String toString() {
+		return text;
+	}
+
+	/**
+	 * A number in scientific form, d.ddd... times ten to the exponent,
+	 * which is the same for every text of the same value. The digits
+	 * have no leading or trailing zeros; zero has no digits and is never
+	 * negative. The exponent is a Long, or a BigInteger only if it is out
+	 * of the range of a long.
+	 */
+	private static final class Normal {
+
+		private static final Normal ZERO = new Normal(false, "", 0L);
+
+		// exponents of no more than this many digits are added as longs
+		private static final int LONG_EXPONENT_DIGITS = 18;
+
+		final boolean negative;
+		final String digits;
+		final Number exponent;
+
+		private Normal(boolean negative, String digits, Number exponent) {
+			this.negative = negative;
+			this.digits = digits;
+			this.exponent = exponent;
+		}
+
+		/**
+		 * Returns the normal form of text which is a valid number.
+		 */
+		static Normal of(String text) {
+			int length = text.length();
+			int i = 0;
+			boolean negative = text.charAt(0) == '-';
+			if (negative || text.charAt(0) == '+') {
+				i++;
+			}
+			StringBuilder digits = new StringBuilder();
+			// digits of the mantissa seen, digits before the point, and the first nonzero digit
+			int position = 0;
+			int integerDigits = -1;
+			int first = -1;
+			int significant = 0;
+			for (; i < length; i++) {
+				char c = text.charAt(i);
+				if (c == '.') {
+					integerDigits = position;
+					continue;
+				} else if (c == 'e' || c == 'E') {
+					break;
+				}
+				if (first < 0 && c != '0') {
+					first = position;
+				}
+				if (first >= 0) {
+					digits.append(c);
+					if (c != '0') {
+						significant = digits.length();
+					}
+				}
+				position++;
+			}
+			if (first < 0) {
+				return ZERO;
+			}
+			if (integerDigits < 0) {
+				integerDigits = position;
+			}
+			digits.setLength(significant);
+			long shift = integerDigits - 1 - first;
+			Number exponent;
+			if (i == length) {
+				exponent = shift;
+			} else {
+				String written = text.substring(i + 1);
+				int start = written.startsWith("-") || written.startsWith("+") ? 1 : 0;
+				int end = start;
+				while (end < written.length() - 1 && written.charAt(end) == '0') {
+					end++;
+				}
+				if (written.length() - end <= LONG_EXPONENT_DIGITS) {
+					long value = Long.parseLong(written.substring(end));
+					exponent = (written.charAt(0) == '-' ? -value : value) + shift;
+				} else {
+					BigInteger value = new BigInteger(written).add(BigInteger.valueOf(shift));
+					exponent = value.bitLength() < Long.SIZE ? (Number) value.longValue() : value;
+				}
+			}
+			return new Normal(negative, digits.toString(), exponent);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Normal)) {
+				return false;
+			}
+			Normal other = (Normal) o;
+			return negative == other.negative && digits.equals(other.digits) && exponent.equals(other.exponent);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = 31 * digits.hashCode() + exponent.hashCode();
+			return negative ? ~hash : hash;
+		}
+
+	}
+
+}
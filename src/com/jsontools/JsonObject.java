@@ -1,8 +1,10 @@
 package com.jsontools;
 
-import java.util.EmptyStackException;
-import java.util.Set;
-import java.util.Stack;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -20,6 +22,26 @@ import java.util.concurrent.ConcurrentHashMap;
  * objects can be given new key-value pairs, they can have keys deleted
  * from their contents, and they can have their key-value values modified.
  * </p>
+ * <p>
+ * <code>freeze</code> returns a deeply immutable copy of a JsonObject,
+ * which holds its members in packed arrays rather than in the nodes of a
+ * <code>ConcurrentHashMap</code>, so it takes far less memory, and which
+ * may be read by any number of threads without locking. Frozen objects
+ * throw <code>UnsupportedOperationException</code> when written to. They
+ * keep the hash of their contents once computed, which makes them cheap
+ * to use as the keys of hash maps or to deduplicate.
+ * </p>
+ * <p>
+ * Objects created with <code>create</code>, or by a context or push
+ * parser given a kind of storage with <code>setObjectStorage</code>,
+ * may instead hold their members in a <code>HashMap</code> or an
+ * insertion-ordered <code>LinkedHashMap</code>, which are faster to
+ * build and read from a single thread; see <code>JsonStorage</code>.
+ * Such objects, like frozen
+ * ones, answer <code>keySet</code> with a read-only, unordered copy of
+ * their keys; <code>entrySet</code> and <code>keys</code> are live and
+ * keep the order of the storage.
+ * </p>
  *
  */
 public class JsonObject extends ConcurrentHashMap<String, Object>{
@@ -29,7 +51,6 @@ public class JsonObject extends ConcurrentHashMap<String, Object>{
 	 */
 	private static final long serialVersionUID = -1586787919457232015L;
 	
-	private final StringBuilder stringBuilder = new StringBuilder();;
 
 	@Override
 	public Object get(Object key) {
@@ -41,50 +62,149 @@ public class JsonObject extends ConcurrentHashMap<String, Object>{
 	
 	@Override
 	public Object put(String key, Object value) {
-		if (value instanceof String
+		if (isValue(value)) {
+			return super.put(key, value);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns true if the given value may be held by a JsonObject.
+	 */
+	static boolean isValue(Object value) {
+		return value instanceof String
 				|| value instanceof Boolean
 				|| value instanceof Long
 				|| value instanceof Double
+				|| value instanceof JsonNumber
 				|| value instanceof JsonObject
-				|| value instanceof JsonArray) {
-			return super.put(key, value);
+				|| value instanceof JsonArray;
+	}
+
+	/**
+	 * Stores a value without checking its type, for subclasses which
+	 * hold values that are decoded later.
+	 */
+	final Object putUnchecked(String key, Object value) {
+		return super.put(key, value);
+	}
+
+	/**
+	 * Returns a new empty JsonObject which holds its members in the given
+	 * kind of storage. Objects created with <code>new JsonObject()</code>
+	 * use <code>JsonStorage.CONCURRENT</code>.
+	 *
+	 * @param storage - the kind of storage for the members
+	 * @return a new empty JsonObject
+	 */
+	public static JsonObject create(JsonStorage storage) {
+		return storage.newObject();
+	}
+	
+	/**
+	 * Returns the kind of storage this object holds its members in, or
+	 * <code>CONCURRENT</code> for frozen and lazily decoded objects.
+	 */
+	JsonStorage storage() {
+		return JsonStorage.CONCURRENT;
+	}
+	
+	/**
+	 * Returns a deeply immutable copy of this object, in which every
+	 * nested object and array is frozen as well, or this object if it is
+	 * already frozen. Nested values which are already frozen are shared
+	 * rather than copied.
+	 *
+	 * @return a frozen JsonObject equal to this object
+	 */
+	public JsonObject freeze() {
+		return (JsonObject) FrozenJsonObject.freeze(this);
+	}
+	
+	/**
+	 * Returns true if this object was produced by <code>freeze</code>
+	 * and cannot be modified.
+	 *
+	 * @return true if this object is frozen
+	 */
+	public boolean isFrozen() {
+		return false;
+	}
+	
+	/**
+	 * Returns a frozen JsonObject holding the entries of the given map
+	 * whose values are json values, as <code>put</code> would accept
+	 * them, with nested objects and arrays frozen.
+	 *
+	 * @param entries - the members of the object
+	 * @return a new frozen JsonObject
+	 */
+	public static JsonObject frozen(Map<String, ?> entries) {
+		JsonObject jobj = new JsonObject();
+		for (Map.Entry<String, ?> entry : entries.entrySet()) {
+			jobj.put(entry.getKey(), entry.getValue());
 		}
-		return null;
+		return jobj.freeze();
+	}
+	
+	/**
+	 * Writes this object as json text to the given destination in a
+	 * single pass, without building a String for any nested value.
+	 *
+	 * @param out - the destination of the text
+	 * @throws IOException if the destination throws an IOException
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		JsonWriter.write(this, out);
+	}
+	
+	/**
+	 * Writes this object as json text to the given writer in a single
+	 * pass. The text is passed to the writer in chunks; the writer is
+	 * neither flushed nor closed.
+	 *
+	 * @param out - the destination of the text
+	 * @throws IOException if the writer throws an IOException
+	 */
+	public void writeTo(Writer out) throws IOException {
+		JsonWriter.write(this, out);
+	}
+	
+	/**
+	 * Serializes this object as its binary encoding, written by
+	 * <code>BinaryJsonEncoder</code>, rather than as the default
+	 * serialized form of the map it extends.
+	 */
+	protected Object writeReplace() throws ObjectStreamException {
+		return new BinaryJson.Proxy(this);
 	}
 	
 	@Override
 	public String toString() {
-		stringBuilder.delete(0, stringBuilder.length());
-		stringBuilder.append('{');
-		int i = 0;
-		Set<String> keySet = keySet();
-		for (String key : keySet) {
-			stringBuilder.append("\"" + key + "\":");
-			Object value = get(key);
-			if (value instanceof String) {
-				stringBuilder.append("\"" + value + "\"");
-			} else {
-				stringBuilder.append(value);
-			}
-			if (i < keySet.size() - 1) {
-				stringBuilder.append(',');
-			}
-			i++;
+		StringBuilder stringBuilder = new StringBuilder();
+		try {
+			writeTo(stringBuilder);
+		} catch (IOException ex) {
+			// a StringBuilder never throws
+			throw new UncheckedIOException(ex);
 		}
-		stringBuilder.append('}');
 		return stringBuilder.toString();
 	}
 	
 	public boolean subsetOf(JsonObject other) {
 		boolean subset = true;
-		for (String key : keySet()) {
+		for (Map.Entry<String, Object> entry : entrySet()) {
 			try {
-				Object thisValue = get(key);
-				Object otherValue = other.get(key);
-				if (thisValue.getClass() != otherValue.getClass()) {
+				Object thisValue = entry.getValue();
+				Object otherValue = other.get(entry.getKey());
+				if (!sameType(thisValue, otherValue)) {
 					// return false if identical keys map to different value types
 					return false;
 				}
+				if (thisValue == otherValue) {
+					// a shared subtree, such as one kept by freeze, is a subset of itself
+					continue;
+				}
 				if (thisValue instanceof JsonObject) {
 					// recursively check if the value in "this"
 					// is a subset of the value in "other"
@@ -108,158 +228,33 @@ public class JsonObject extends ConcurrentHashMap<String, Object>{
 		return subset;
 	}
 	
-	public Object seek(String keypath) throws JSONFormatException {
-		Object currentData = this;
-		Stack<Character> stack = new Stack<Character>();
-		char[] keypathArray = keypath.toCharArray();
-		int length = keypathArray.length;
-		int beginIndex = 0;
-		int currentIndex = beginIndex;
-		
-		while (currentIndex < length) {
-			char currentChar = keypathArray[currentIndex];
-			if (currentIndex == length - 1) {
-				String fragment = keypath.substring(beginIndex, currentIndex + 1);
-				// ending a key or an index specification
-				if (keypathArray[currentIndex] == ']') {
-					// ending an index specification
-					JsonArray currentArray = (JsonArray) currentData;
-					String specification = fragment.substring(1, fragment.length() - 1);
-					// is index specified by content or by number?
-					if (keypathArray[currentIndex - 1] == '}') {
-						// index specified by content
-						JsonObject specificationObject = JsonParser.parseObjectString(specification);
-						for (Object item : currentArray) {
-							if (item instanceof JsonObject && specificationObject.subsetOf((JsonObject) item)) {
-								currentData = item;
-								break;
-							}
-						}
-					} else {
-						// index specified by index
-						currentData = currentArray.get(Integer.parseInt(specification));
-					}
-				} else {
-					// ending a key
-					currentData = ((JsonObject) currentData).get(fragment);
-				}
-			} else if (currentChar == '[' || currentChar == '.') {
-				try {
-					if (stack.peek() == '"') {
-						// character is inside a string
-						currentIndex++;
-						continue;
-					} else {
-						if (currentChar == '[') {
-							stack.push(currentChar);
-						}
-					}
-				} catch (EmptyStackException ex) {
-					if (currentChar == '[') {
-						stack.push(currentChar);
-					}
-				}
-				// if stack has previous content then continue
-				if (stack.size() > 1) {
-					currentIndex++;
-					continue;
-				}
-				String fragment = keypath.substring(beginIndex, currentIndex);
-				// ending a key or an index specification
-				if (keypathArray[currentIndex - 1] == ']') {
-					// ending an index specification
-					JsonArray currentArray = (JsonArray) currentData;
-					String specification = fragment.substring(1, fragment.length() - 1);
-					// is index specified by content or by number?
-					if (keypathArray[currentIndex - 2] == '}') {
-						// index specified by content
-						JsonObject specificationObject = JsonParser.parseObjectString(specification);
-						for (Object item : currentArray) {
-							if (item instanceof JsonObject && specificationObject.subsetOf((JsonObject) item)) {
-								// first match will be used in the case where there are multiple matches
-								currentData = item;
-								break;
-							}
-						}
-					} else {
-						// index specified by index
-						currentData = currentArray.get(Integer.parseInt(specification));
-					}
-				} else {
-					// ending a key
-					currentData = ((JsonObject) currentData).get(fragment);
-				}
-				// increment beginIndex according to [ or .
-				if (currentChar == '[') {
-					beginIndex = currentIndex;
-				} else {
-					beginIndex = currentIndex + 1;
-				}
-			} else if (currentChar == '{') {
-				try {
-					if (stack.peek() == '"') {
-						// character is inside a string
-						currentIndex++;
-						continue;
-					} else {
-						stack.push(currentChar);
-					}
-				} catch (EmptyStackException ex) {
-					stack.push(currentChar);
-				}
-			} else if (currentChar == '}') {
-				try {
-					if (stack.peek() == '"') {
-						// character is inside a string
-						currentIndex++;
-						continue;
-					} else if (stack.peek() == '{') {
-						stack.pop();
-					} else {
-						throw new JSONFormatException("unexpected token '}'");
-					}
-				} catch (EmptyStackException ex) {
-					throw new JSONFormatException("unexpected token '}'");
-				}
-			} else if (currentChar == ']') {
-				try {
-					if (stack.peek() == '"') {
-						// character is inside a string
-						currentIndex++;
-						continue;
-					} else if (stack.peek() == '[') {
-						stack.pop();
-					} else {
-						throw new JSONFormatException("unexpected token ']'");
-					}
-				} catch (EmptyStackException ex) {
-					throw new JSONFormatException("unexpected token ']'");
-				}
-			} else if (currentChar == '"') {
-				try {
-					if (stack.peek() == '"') {
-						if (keypathArray[currentIndex - 1] == '\\') {
-							// character is inside a string
-							currentIndex++;
-							continue;
-						} else {
-							stack.pop();
-						}
-					} else {
-						stack.push(currentChar);
-					}
-				} catch (EmptyStackException ex) {
-					stack.push(currentChar);
-				}
-			}
-			currentIndex++;
+	/**
+	 * Returns true if both values are objects, both are arrays, or both
+	 * are primitives of the same class. Subclasses of JsonObject and
+	 * JsonArray, such as lazily decoded objects, count as their base
+	 * class.
+	 */
+	static boolean sameType(Object a, Object b) {
+		if (a instanceof JsonObject) {
+			return b instanceof JsonObject;
+		} else if (a instanceof JsonArray) {
+			return b instanceof JsonArray;
 		}
-		return currentData;
+		return a.getClass() == b.getClass();
+	}
+	
+	public Object seek(String keypath) throws JSONFormatException {
+		return seek(KeyPath.cached(keypath));
+	}
+	
+	public Object seek(KeyPath keypath) {
+		return keypath.seek(this);
 	}
 	
 	public void join(JsonObject other) {
-		for (String key : other.keySet()) {
-			Object value = other.get(key);
+		for (Map.Entry<String, Object> entry : other.entrySet()) {
+			String key = entry.getKey();
+			Object value = entry.getValue();
 			if (value instanceof JsonObject) {
 				Object thisValue = get(key);
 				if (thisValue instanceof JsonObject) {
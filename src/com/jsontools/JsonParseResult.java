@@ -0,0 +1,80 @@
+package com.jsontools;
+
+/**
+ *
+ * <p>
+ * The <code>JsonParseResult</code> class holds the outcome of parsing one
+ * input of a batch passed to <code>JsonParser.parseAll</code>. Each result
+ * holds either the parsed <code>JsonObject</code> or <code>JsonArray</code>,
+ * or the exception which prevented that input from being parsed, so
+ * that one malformed input does not abort the rest of the batch.
+ * </p>
+ * <p>
+ * JsonParseResult objects are immutable.
+ * </p>
+ *
+ */
+public final class JsonParseResult {
+
+	private final Object input;
+	private final Object value;
+	private final Throwable error;
+
+	private JsonParseResult(Object input, Object value, Throwable error) {
+		this.input = input;
+		this.value = value;
+		this.error = error;
+	}
+
+	static JsonParseResult success(Object input, Object value) {
+		return new JsonParseResult(input, value, null);
+	}
+
+	static JsonParseResult failure(Object input, Throwable error) {
+		return new JsonParseResult(input, null, error);
+	}
+
+	/**
+	 * Returns the input this result was parsed from.
+	 *
+	 * @return the String, byte array, File, or Path given in the batch
+	 */
+	public Object getInput() {
+		return input;
+	}
+
+	/**
+	 * Returns true if the input was parsed successfully.
+	 *
+	 * @return true if <code>getValue()</code> holds the parsed data
+	 */
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	/**
+	 * Returns the parsed data, or null if parsing failed.
+	 *
+	 * @return a JsonObject or a JsonArray, or null
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the exception or error which prevented the input from
+	 * being parsed, or null if parsing succeeded.
+	 *
+	 * @return a JSONFormatException, an IOException, an unchecked
+	 * exception, or an Error, or null
+	 */
+	public Throwable getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return isSuccess() ? String.valueOf(value) : String.valueOf(error);
+	}
+
+}
@@ -1,10 +1,28 @@
 package com.jsontools;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.util.EmptyStackException;
-import java.util.Scanner;
-import java.util.Stack;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 
@@ -16,6 +34,13 @@ import java.util.Stack;
  * json data. This process ignores whitespace (spaces, tabs, newlines,
  * and carriage returns) which is not located within a String value.
  * </p>
+ * <p>
+ * Each call parses with fresh state and the default settings. A
+ * <code>JsonParserContext</code> keeps its buffers and state from one
+ * document to the next, for callers which parse many small documents,
+ * and carries settings such as the <code>StringTable</code> keys and
+ * short String values are canonicalized through.
+ * </p>
  *
  */
 public final class JsonParser {
@@ -67,6 +92,12 @@ public final class JsonParser {
 	 * 	file. A JSON object may not include any keys which contain
 	 * 	the period ( ' . ' ) character.
 	 * 	</p>
+	 * 	<p>
+	 * 	The file is read as UTF-8 and is parsed directly from memory
+	 * 	mapped windows of the file, so files larger than 2 GB are
+	 * 	supported. An I/O error other than a missing file is thrown
+	 * 	as an <code>UncheckedIOException</code>.
+	 * 	</p>
 	 * 	
 	 * 	@param file - a file containing a JSON object to be parsed
 	 * 	@return the JsonObject represented by the data in the given file
@@ -74,14 +105,54 @@ public final class JsonParser {
 	 * 	@throws JSONFormatException if there is a JSON formatting error
 	 */
 	public static JsonObject parseObjectFile(File file) throws FileNotFoundException, JSONFormatException {
-		Scanner scanner = new Scanner(file);	
-		StringBuilder stringBuilder = new StringBuilder();
-		
-		while (scanner.hasNextLine()) {
-			stringBuilder.append(scanner.nextLine());
+		ByteJsonParser parser = openFile(file);
+		try {
+			return parser.parseObject();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} finally {
+			closeFile(parser);
 		}
-		scanner.close();
-		return parseObjectString(stringBuilder.toString());
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseObjectFile</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonObject parseObjectFile(File file, ForkJoinPool pool)
+	 * 	throws FileNotFoundException, JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON object represented by the UTF-8 data in the
+	 * 	given file, parsing it on several threads. A JSON object may not
+	 * 	include any keys which contain the period ( ' . ' ) character.
+	 * 	</p>
+	 * 	<p>
+	 * 	The body of the root object is cut into chunks at commas which
+	 * 	separate its top-level key-value pairs, and the chunks are parsed
+	 * 	concurrently on the given pool and assembled in order. Inputs
+	 * 	too small to be worth splitting are parsed on the calling
+	 * 	thread.
+	 * 	</p>
+	 * 	<p>
+	 * 	An I/O error other than a missing file is thrown as an
+	 * 	<code>UncheckedIOException</code>.
+	 * 	</p>
+	 * 	
+	 * 	@param file - a file containing a JSON object to be parsed
+	 * 	@param pool - the pool to parse on
+	 * 	@return the JsonObject represented by the data in the given file
+	 * 	@throws FileNotFoundException if the file does not exist
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonObject parseObjectFile(File file, ForkJoinPool pool) throws FileNotFoundException, JSONFormatException {
+		return (JsonObject) parseFile(file, '{', pool);
 	}
 	
 	/**
@@ -108,7 +179,12 @@ public final class JsonParser {
 	 * 	@throws JSONFormatException if there is a JSON formatting error
 	 */
 	public static JsonObject parseObjectString(String data) throws JSONFormatException {
-		return constructJsonObject(removeWhitespace(data));
+		try {
+			return new CharJsonParser(data).parseObject();
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
 	}
 	
 	/**
@@ -116,27 +192,34 @@ public final class JsonParser {
 	 * 		.tab{tab-size: 8;}
 	 * 	</style>
 	 * 	<p>
-	 * 	<b><i>parseArrayFile</i></b>
+	 * 	<b><i>parseObjectString</i></b>
 	 * 	</p>
 	 * 	<p>
 	 * 	<pre class="tab"><code>
-	 * public static JsonObject parseArrayFile(File file)
-	 * 	throws FileNotFoundException, JSONFormatException
+	 * public static JsonObject parseObjectString(String data, ForkJoinPool pool)
+	 * 	throws JSONFormatException
 	 * 	</code></pre>
 	 * 	</p>
 	 * 	<p>
-	 * 	Returns the JSON array represented by the data in the file
-	 * 	located at the given file path.
+	 * 	Returns the JSON object represented in the given String, parsing
+	 * 	it on several threads. A JSON object may not include any keys
+	 * 	which contain the period ( ' . ' ) character.
+	 * 	</p>
+	 * 	<p>
+	 * 	The body of the root object is cut into chunks at commas which
+	 * 	separate its top-level key-value pairs, and the chunks are parsed
+	 * 	concurrently on the given pool and assembled in order. Inputs
+	 * 	too small to be worth splitting are parsed on the calling
+	 * 	thread.
 	 * 	</p>
 	 * 	
-	 * 	@param filepath - a file path String
-	 * 	@return the JSON array represented by the data in the file
-	 * 	located at the given file path
-	 * 	@throws FileNotFoundException if the file does not exist
+	 * 	@param data - a String representation of a JSON object
+	 * 	@param pool - the pool to parse on
+	 * 	@return the JSON object represented in the given String
 	 * 	@throws JSONFormatException if there is a JSON formatting error
 	 */
-	public static JsonArray parseArrayFile(String filepath) throws FileNotFoundException, JSONFormatException {
-		return parseArrayFile(new File(filepath));
+	public static JsonObject parseObjectString(String data, ForkJoinPool pool) throws JSONFormatException {
+		return (JsonObject) ParallelJsonParser.parse(data.toCharArray(), '{', pool);
 	}
 	
 	/**
@@ -144,33 +227,44 @@ public final class JsonParser {
 	 * 		.tab{tab-size: 8;}
 	 * 	</style>
 	 * 	<p>
-	 * 	<b><i>parseArrayFile</i></b>
+	 * 	<b><i>parseObjectLazy</i></b>
 	 * 	</p>
 	 * 	<p>
 	 * 	<pre class="tab"><code>
-	 * public static JsonObject parseArrayFile(File file)
-	 * 	throws FileNotFoundException, JSONFormatException
+	 * public static JsonObject parseObjectLazy(String data)
+	 * 	throws JSONFormatException
 	 * 	</code></pre>
 	 * 	</p>
 	 * 	<p>
-	 * 	Returns the JSON array represented by the data in the given
-	 * 	file.
+	 * 	Returns the JSON object represented in the given String,
+	 * 	decoding its values only as they are accessed. A JSON object
+	 * 	may not include any keys which contain the period ( ' . ' )
+	 * 	character.
+	 * 	</p>
+	 * 	<p>
+	 * 	Only the keys of the object are read up front, together with
+	 * 	the position of each value in the data. A value is decoded
+	 * 	when it is first accessed, by <code>get</code> or
+	 * 	<code>seek</code>, and the result is kept; nested objects are
+	 * 	decoded lazily in turn. Iterating over the values or entries of
+	 * 	the object decodes all of them, and a write decodes the value
+	 * 	it replaces. The returned object holds on to the data until
+	 * 	every value has been decoded.
+	 * 	</p>
+	 * 	<p>
+	 * 	Formatting errors inside nested values are found only when
+	 * 	those values are decoded, and are then thrown as an
+	 * 	<code>IllegalStateException</code> caused by a
+	 * 	<code>JSONFormatException</code>.
 	 * 	</p>
 	 * 	
-	 * 	@param file - a file containing a JSON array to be parsed
-	 * 	@return the JSON array represented by the data in the given
-	 * 	file
-	 * 	@throws FileNotFoundException if the file does not exist
-	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 * 	@param data - a String representation of a JSON object
+	 * 	@return the JSON object represented in the given String
+	 * 	@throws JSONFormatException if the keys or the top-level
+	 * 	structure of the object are malformed
 	 */
-	public static JsonArray parseArrayFile(File file) throws FileNotFoundException, JSONFormatException {
-		Scanner scanner = new Scanner(file);	
-		StringBuilder stringBuilder = new StringBuilder();
-		while (scanner.hasNextLine()) {
-			stringBuilder.append(scanner.nextLine());
-		}
-		scanner.close();
-		return parseArrayString(stringBuilder.toString());
+	public static JsonObject parseObjectLazy(String data) throws JSONFormatException {
+		return new LazyJsonObject(data.toCharArray(), 0, data.length());
 	}
 	
 	/**
@@ -178,24 +272,43 @@ public final class JsonParser {
 	 * 		.tab{tab-size: 8;}
 	 * 	</style>
 	 * 	<p>
-	 * 	<b><i>parseArrayString</i></b>
+	 * 	<b><i>parseObjectLazy</i></b>
 	 * 	</p>
 	 * 	<p>
 	 * 	<pre class="tab"><code>
-	 * public static JsonObject parseArrayString(String data)
+	 * public static JsonObject parseObjectLazy(byte[] data)
 	 * 	throws JSONFormatException
 	 * 	</code></pre>
 	 * 	</p>
 	 * 	<p>
-	 * 	Returns the JSON array represented by the given String.
+	 * 	Returns the JSON object represented by the given UTF-8 encoded
+	 * 	bytes, decoding its values only as they are accessed. The
+	 * 	array must not be modified while the object is in use.
+	 * 	</p>
+	 * 	<p>
+	 * 	Only the keys of the object are read up front, together with
+	 * 	the position of each value in the data. A value is decoded
+	 * 	when it is first accessed, by <code>get</code> or
+	 * 	<code>seek</code>, and the result is kept; nested objects are
+	 * 	decoded lazily in turn. Iterating over the values or entries of
+	 * 	the object decodes all of them, and a write decodes the value
+	 * 	it replaces. The returned object holds on to the data until
+	 * 	every value has been decoded.
+	 * 	</p>
+	 * 	<p>
+	 * 	Formatting errors inside nested values are found only when
+	 * 	those values are decoded, and are then thrown as an
+	 * 	<code>IllegalStateException</code> caused by a
+	 * 	<code>JSONFormatException</code>.
 	 * 	</p>
 	 * 	
-	 * 	@param data - a String representing a JSON array
-	 * 	@return the JSON array represented by the given String
-	 * 	@throws JSONFOrmatException if there is a JSON formatting error
+	 * 	@param data - UTF-8 encoded bytes representing a JSON object
+	 * 	@return the JSON object represented by the given bytes
+	 * 	@throws JSONFormatException if the keys or the top-level
+	 * 	structure of the object are malformed
 	 */
-	public static JsonArray parseArrayString(String data) throws JSONFormatException {
-		return constructJsonArray(removeWhitespace(data));
+	public static JsonObject parseObjectLazy(byte[] data) throws JSONFormatException {
+		return new LazyJsonObject(data, 0, data.length);
 	}
 	
 	/**
@@ -203,62 +316,32 @@ public final class JsonParser {
 	 * 		.tab{tab-size: 8;}
 	 * 	</style>
 	 * 	<p>
-	 * 	<b><i>removeWhitespace</i></b>
+	 * 	<b><i>parseObjectLossless</i></b>
 	 * 	</p>
 	 * 	<p>
 	 * 	<pre class="tab"><code>
-	 * public static String removeWhitespace(String line)
-	 * 	</pre></code>
+	 * public static JsonObject parseObjectLossless(String data)
+	 * 	throws JSONFormatException
+	 * 	</code></pre>
 	 * 	</p>
 	 * 	<p>
-	 * 	Returns the String after removing all whitespace characters
-	 * 	(' ', '\t', '\n', '\r') not contained within a nested String
-	 * 	(e.g. "my string is cool" would become "mystringiscool", but
-	 * 	"my string is \"very cool\"" would become "mystringis\"very
-	 * 	 cool\"")
+	 * 	Returns the JSON object represented in the given String,
+	 * 	without converting its numbers. A JSON object may not include
+	 * 	any keys which contain the period ( ' . ' ) character.
+	 * 	</p>
+	 * 	<p>
+	 * 	Every number is kept as a <code>JsonNumber</code> holding its
+	 * 	original text, which is converted only when its value is asked
+	 * 	for and is written back out unchanged, so no number is
+	 * 	converted unless it is read and none loses precision.
 	 * 	</p>
 	 * 	
-	 * 	@param line - a String to be processed
-	 * 	@return the given String after removing all whitespace
-	 * 	characters not contained within a nested String
+	 * 	@param data - a String representation of a JSON object
+	 * 	@return the JSON object represented in the given String
+	 * 	@throws JSONFormatException if there is a JSON formatting error
 	 */
-	public static String removeWhitespace(String line) {
-		Stack<Character> stack = new Stack<Character>();
-		StringBuilder stringBuilder = new StringBuilder();
-		
-		char currentChar;
-		for (int i = 0; i < line.length(); i++) {
-			currentChar = line.charAt(i);
-			if (currentChar == '"') {
-				try {
-					if (stack.peek() == '"') {
-						if (line.charAt(i - 1) != '\\') {
-							// ending a string (quotes are not escaped)
-							stack.pop();
-						}
-					} else {	
-						// starting a string
-						stack.push(currentChar);
-					}
-				} catch (EmptyStackException ex) {
-					stack.push(currentChar);
-				}
-				// currentChar is never whitespace in this case
-				stringBuilder.append(currentChar);
-			} else if (stack.size() == 0) {
-				if (currentChar != ' ' 
-						&& currentChar != '\t' 
-						&& currentChar != '\n' 
-						&& currentChar != '\r' ) {
-					// non-whitespace not in a String is accepted
-					stringBuilder.append(currentChar);
-				}
-			} else {
-				// any characters including whitespace in a String is accepted
-				stringBuilder.append(currentChar);
-			}
-		}
-		return stringBuilder.toString();
+	public static JsonObject parseObjectLossless(String data) throws JSONFormatException {
+		return (JsonObject) parseLossless(new CharJsonParser(data), '{');
 	}
 	
 	/**
@@ -266,156 +349,31 @@ public final class JsonParser {
 	 * 		.tab{tab-size: 8;}
 	 * 	</style>
 	 * 	<p>
-	 * 	<b><i>constructJsonObject</i></b>
+	 * 	<b><i>parseObjectLossless</i></b>
 	 * 	</p>
 	 * 	<p>
 	 * 	<pre class="tab"><code>
-	 * private static JsonObject constructJsonObject(String data)
+	 * public static JsonObject parseObjectLossless(byte[] data)
 	 * 	throws JSONFormatException
-	 * 	</pre></code>
+	 * 	</code></pre>
 	 * 	</p>
 	 * 	<p>
-	 * 	Returns the JSON object represented in a given String. A
-	 * 	JSON object may not include any keys which contain the period
-	 * 	( ' . ' ) character.
+	 * 	Returns the JSON object represented by the given UTF-8 encoded
+	 * 	bytes, without converting its numbers.
+	 * 	</p>
+	 * 	<p>
+	 * 	Every number is kept as a <code>JsonNumber</code> holding its
+	 * 	original text, which is converted only when its value is asked
+	 * 	for and is written back out unchanged, so no number is
+	 * 	converted unless it is read and none loses precision.
 	 * 	</p>
 	 * 	
-	 * 	@param data - a String representing a JSON object
-	 * 	@return the JSON object represented in the given String
+	 * 	@param data - UTF-8 encoded bytes representing a JSON object
+	 * 	@return the JSON object represented by the given bytes
 	 * 	@throws JSONFormatException if there is a JSON formatting error
 	 */
-	private static JsonObject constructJsonObject(String data) throws JSONFormatException {
-		char[] dataArray = data.toCharArray();
-		int length = dataArray.length;
-		if (dataArray[0] != '{') {
-			throw new JSONFormatException("json object does not begin with '{'");
-		}
-		if (dataArray[length - 1] != '}') {
-			throw new JSONFormatException("json object does not end with '}'");
-		}
-			
-		Stack<Character> stack = new Stack<Character>();
-		JsonObject jobj = new JsonObject();
-		
-		int beginIndex = 1;
-		int currentIndex = beginIndex;
-		while (currentIndex < length - 1) {
-			char currentChar = dataArray[currentIndex];
-			
-			if (currentChar == '{') {
-				// starting a json object
-				// verify character is not inside a string
-				try {
-					if (stack.peek() != '"') {
-						stack.push(currentChar);
-					}
-				} catch (EmptyStackException ex) {
-					stack.push(currentChar);
-				}
-			} else if (currentChar == '[') {
-				// starting a json list
-				// verify character is not inside a string
-				try {
-					if (stack.peek() != '"') {
-						stack.push(currentChar);
-					}
-				} catch (EmptyStackException ex) {
-					stack.push(currentChar);
-				}
-			} else if (currentChar == '"') {
-				// starting or ending a string
-				// check if character is inside a string
-				try {
-					if (stack.peek() == '"') {
-						if (dataArray[currentIndex - 1] != '\\') {
-							// ending a string (quotes are not escaped)
-							stack.pop();
-						}
-					} else {
-						// starting a string
-						stack.push(currentChar);
-					}
-				} catch (EmptyStackException ex) {
-					stack.push(currentChar);
-				}
-			} else if (currentChar == '}') {
-				// ending a json object
-				// check if character is in a string
-				try {
-					if (stack.peek() == '"') {
-						currentIndex++;
-						continue;
-					}
-				} catch (EmptyStackException ex) {
-					throw new JSONFormatException("unexpected token '}'");
-				}
-				// check for valid nesting
-				if (stack.peek() == '{') {
-					// exiting a json object
-					stack.pop();
-				} else {
-					throw new JSONFormatException("unexpected token '}'");
-				}
-				// check if json object is at root level
-				if (stack.size() == 0) {
-					String entry = data.substring(beginIndex, currentIndex + 1);
-					String key = validateKey(entry);
-					jobj.put(key, constructJsonObject(entry.substring(key.length() + 3, entry.length())));
-					beginIndex = currentIndex + 2;
-					if (dataArray[currentIndex + 1] == ',') {
-						currentIndex++;
-					}
-				}
-			} else if (currentChar == ']') {
-				// ending a json list
-				// check if character is in a string
-				try {
-					if (stack.peek() == '"') {
-						currentIndex++;
-						continue;
-					}
-				} catch (EmptyStackException ex) {
-					throw new JSONFormatException("unexpected token ']'");
-				}
-				// check for valid nesting
-				if (stack.peek() == '[') {
-					// exiting a json object
-					stack.pop();
-				} else {
-					throw new JSONFormatException("unexpected token ']'");
-				}
-				// check if json object is at root level
-				if (stack.size() == 0) {
-					String entry = data.substring(beginIndex, currentIndex + 1);
-					String key = validateKey(entry);
-					jobj.put(key, constructJsonArray(entry.substring(key.length() + 3, entry.length())));
-					beginIndex = currentIndex + 2;
-					if (dataArray[currentIndex + 1] == ',') {
-						currentIndex++;
-					}
-				}
-			} else if (currentChar == ',') {
-				// ending an entry
-				// verify comma is ending a primitive and if primitive is at root level
-				char prev = dataArray[currentIndex - 1];
-				if (prev != '}' && prev != ']' && stack.size() == 0) {
-					String entry = data.substring(beginIndex, currentIndex);
-					String key = validateKey(entry);
-					jobj.put(key, constructJsonPrimitive(entry.substring(key.length() + 3, entry.length())));
-					beginIndex = currentIndex + 1;
-				}
-				
-			}
-			currentIndex++;
-		}
-		if (beginIndex < currentIndex) {
-			// there is an unrecognized primitive at the end
-			// of the json file if this code is hit
-			String entry = data.substring(beginIndex, currentIndex);
-			String key = validateKey(entry);
-			jobj.put(key, constructJsonPrimitive(entry.substring(key.length() + 3, entry.length())));
-		}
-		return jobj;
+	public static JsonObject parseObjectLossless(byte[] data) throws JSONFormatException {
+		return (JsonObject) parseLossless(new ByteJsonParser(data, 0, data.length), '{');
 	}
 	
 	/**
@@ -423,143 +381,31 @@ public final class JsonParser {
 	 * 		.tab{tab-size: 8;}
 	 * 	</style>
 	 * 	<p>
-	 * 	<b><i>constructJsonList</i></b>
+	 * 	<b><i>parseArrayLossless</i></b>
 	 * 	</p>
 	 * 	<p>
 	 * 	<pre class="tab"><code>
-	 * private static JsonList constructJsonList(String data)
+	 * public static JsonArray parseArrayLossless(String data)
 	 * 	throws JSONFormatException
-	 * 	</pre></code>
+	 * 	</code></pre>
 	 * 	</p>
 	 * 	<p>
-	 * 	Returns the JSON list (array) represented by the given String.
+	 * 	Returns the JSON array represented in the given String,
+	 * 	without converting its numbers.
+	 * 	</p>
+	 * 	<p>
+	 * 	Every number is kept as a <code>JsonNumber</code> holding its
+	 * 	original text, which is converted only when its value is asked
+	 * 	for and is written back out unchanged, so no number is
+	 * 	converted unless it is read and none loses precision.
 	 * 	</p>
 	 * 	
-	 * 	@param data - a String representing a JSON list (array)
-	 * 	@return the JSON list (array) represented by the given String
+	 * 	@param data - a String representation of a JSON array
+	 * 	@return the JSON array represented in the given String
 	 * 	@throws JSONFormatException if there is a JSON formatting error
 	 */
-	private static JsonArray constructJsonArray(String data) throws JSONFormatException {
-		char[] dataArray = data.toCharArray();
-		int length = dataArray.length;
-		if (dataArray[0] != '[') {
-			throw new JSONFormatException("json list does not begin with '['");
-		}
-		if (dataArray[length - 1] != ']') {
-			throw new JSONFormatException("json list does not end with ']'");
-		}
-		
-		Stack<Character> stack = new Stack<Character>();
-		JsonArray jlist = new JsonArray();
-		
-		int beginIndex = 1;
-		int currentIndex = beginIndex;
-		while (currentIndex < length - 1) {
-			char currentChar = dataArray[currentIndex];
-			
-			if (currentChar == '{') {
-				// starting a json object
-				// verify character is not inside a string
-				try {
-					if (stack.peek() != '"') {
-						stack.push(currentChar);
-					}
-				} catch (EmptyStackException ex) {
-					stack.push(currentChar);
-				}
-			} else if (currentChar == '[') {
-				// starting a json list
-				// verify character is not inside a string
-				try {
-					if (stack.peek() != '"') {
-						stack.push(currentChar);
-					}
-				} catch (EmptyStackException ex) {
-					stack.push(currentChar);
-				}
-			} else if (currentChar == '"') {
-				// starting or ending a string
-				// check if character is inside a string
-				try {
-					if (stack.peek() == '"') {
-						if (dataArray[currentIndex - 1] != '\\') {
-							// ending a string (quotes are not escaped)
-							stack.pop();
-						}
-					} else {
-						// starting a string
-						stack.push(currentChar);
-					}
-				} catch (EmptyStackException ex) {
-					stack.push(currentChar);
-				}
-			} else if (currentChar == '}') {
-				// ending a json object
-				// check if character is in a string
-				try {
-					if (stack.peek() == '"') {
-						currentIndex++;
-						continue;
-					}
-				} catch (EmptyStackException ex) {
-					throw new JSONFormatException("unexpected token '}'");
-				}
-				// check for valid nesting
-				if (stack.peek() == '{') {
-					// exiting a json object
-					stack.pop();
-				} else {
-					throw new JSONFormatException("unexpected token '}'");
-				}
-				// check if json object is at root level
-				if (stack.size() == 0) {
-					jlist.add(constructJsonObject(data.substring(beginIndex, currentIndex + 1)));
-					beginIndex = currentIndex + 2;
-				}
-			} else if (currentChar == ']') {
-				// ending a json list
-				// check if character is in a string
-				try {
-					if (stack.peek() == '"') {
-						currentIndex++;
-						continue;
-					}
-				} catch (EmptyStackException ex) {
-					throw new JSONFormatException("unexpected token ']'");
-				}
-				// check for valid nesting
-				if (stack.peek() == '[') {
-					// exiting a json object
-					stack.pop();
-				} else {
-					throw new JSONFormatException("unexpected token ']'");
-				}
-				// check if json object is at root level
-				if (stack.size() == 0) {
-					jlist.add(constructJsonArray(data.substring(beginIndex, currentIndex + 1)));
-					beginIndex = currentIndex + 2;
-					if (dataArray[currentIndex + 1] == ',') {
-						currentIndex++;
-					}
-				}
-			} else if (currentChar == ',') {
-				// ending an entry
-				// verify comma is ending a primitive and if primitive is at root level
-				char prev = dataArray[currentIndex - 1];
-				if (prev != '}' && prev != ']' && stack.size() == 0) {
-					jlist.add(constructJsonPrimitive(data.substring(beginIndex, currentIndex)));
-					beginIndex = currentIndex + 1;
-				}
-				
-			}
-			currentIndex++;
-		}
-		if (beginIndex < currentIndex) {
-			// there is an unrecognized primitive at the end
-			// of the json list if this code is hit
-			jlist.add(constructJsonPrimitive(data.substring(beginIndex, currentIndex)));
-		}
-		return jlist;
+	public static JsonArray parseArrayLossless(String data) throws JSONFormatException {
+		return (JsonArray) parseLossless(new CharJsonParser(data), '[');
 	}
 	
 	/**
@@ -567,45 +413,31 @@ public final class JsonParser {
 	 * 		.tab{tab-size: 8;}
 	 * 	</style>
 	 * 	<p>
-	 * 	<b><i>constructJsonPrimitive</i></b>
+	 * 	<b><i>parseArrayLossless</i></b>
 	 * 	</p>
 	 * 	<p>
 	 * 	<pre class="tab"><code>
-	 * private static String constructJsonPrimitive(String line)
+	 * public static JsonArray parseArrayLossless(byte[] data)
 	 * 	throws JSONFormatException
-	 * 	</pre></code>
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON array represented by the given UTF-8 encoded
+	 * 	bytes, without converting its numbers.
 	 * 	</p>
 	 * 	<p>
-	 * 	Returns the primitive data type (String, boolean, long, or double) represented by the given String.
+	 * 	Every number is kept as a <code>JsonNumber</code> holding its
+	 * 	original text, which is converted only when its value is asked
+	 * 	for and is written back out unchanged, so no number is
+	 * 	converted unless it is read and none loses precision.
 	 * 	</p>
 	 * 	
-	 * 	@param data - a String representation of a primitive data value
-	 * 	@return the primitive data value represented by the given String
-	 * 	@throws JSONFormatException if the given String does not contain a String representation of a primitive data value
+	 * 	@param data - UTF-8 encoded bytes representing a JSON array
+	 * 	@return the JSON array represented by the given bytes
+	 * 	@throws JSONFormatException if there is a JSON formatting error
 	 */
-	private static Object constructJsonPrimitive(String data) throws JSONFormatException {
-		if (data.charAt(0) == '"' && data.charAt(data.length() - 1) == '"') {
-			// check for string
-			return data.substring(1, data.length() - 1);
-		} else if (data.equals("true")) {
-			// check for bool (true)
-			return true;
-		} else if (data.equals("false")) {
-			// check for bool (false)
-			return false;
-		} else {
-			try {
-				return Long.parseLong(data);
-			} catch (NumberFormatException ex1) {
-				// not a Long
-				try {
-					return Double.parseDouble(data);
-				} catch (NumberFormatException ex2) {
-					// not a Double
-					throw new JSONFormatException("(" + data + ") is not a valid value");
-				}
-			}
-		}
+	public static JsonArray parseArrayLossless(byte[] data) throws JSONFormatException {
+		return (JsonArray) parseLossless(new ByteJsonParser(data, 0, data.length), '[');
 	}
 	
 	/**
@@ -613,43 +445,939 @@ public final class JsonParser {
 	 * 		.tab{tab-size: 8;}
 	 * 	</style>
 	 * 	<p>
-	 * 	<b><i>validateKey</i></b>
+	 * 	<b><i>parseArrayFile</i></b>
 	 * 	</p>
 	 * 	<p>
-	 * 	<code>
-	 * private static String validateKey(String entry)
-	 * 	throws JSONFormatException
-	 * 	</code>
+	 * 	<pre class="tab"><code>
+	 * public static JsonObject parseArrayFile(File file)
+	 * 	throws FileNotFoundException, JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON array represented by the data in the file
+	 * 	located at the given file path.
+	 * 	</p>
+	 * 	
+	 * 	@param filepath - a file path String
+	 * 	@return the JSON array represented by the data in the file
+	 * 	located at the given file path
+	 * 	@throws FileNotFoundException if the file does not exist
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonArray parseArrayFile(String filepath) throws FileNotFoundException, JSONFormatException {
+		return parseArrayFile(new File(filepath));
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseArrayFile</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonObject parseArrayFile(File file)
+	 * 	throws FileNotFoundException, JSONFormatException
+	 * 	</code></pre>
 	 * 	</p>
 	 * 	<p>
-	 * 	Returns the key in a JSON key-value pair. All characters
-	 * 	other than the period ( ' . ' ) may be used as a part of a
-	 * 	key. You may pass either an entire key-value pair such as
-	 * 	"\"key\":\"value\"", or just a key such as "\"key\"".
+	 * 	Returns the JSON array represented by the data in the given
+	 * 	file.
 	 * 	</p>
 	 * 	<p>
-	 * 	Note that if you pass an entire key-value pair, no characters
-	 *  past the first colon ( ' : ' ) character will be considered
-	 *  (in other words, this function will work as intended even if
-	 *  the value of the key-value pair contains a JSON formatting
-	 *  error).
+	 * 	The file is read as UTF-8 and is parsed directly from memory
+	 * 	mapped windows of the file, so files larger than 2 GB are
+	 * 	supported. An I/O error other than a missing file is thrown
+	 * 	as an <code>UncheckedIOException</code>.
 	 * 	</p>
 	 * 	
-	 * 	@param entry - a String containing a JSON key
-	 * 	@return the key in a JSON key-value pair
-	 * 	@throws JSONFormatException if the key is not formatted correctly
+	 * 	@param file - a file containing a JSON array to be parsed
+	 * 	@return the JSON array represented by the data in the given
+	 * 	file
+	 * 	@throws FileNotFoundException if the file does not exist
+	 * 	@throws JSONFormatException if there is a JSON formatting error
 	 */
-	private static String validateKey(String entry) throws JSONFormatException {
-		String[] split = entry.split(":");
-		String key = split[0];
-		// validate that the key starts and ends with double-quotes,
-		// and that it does not contain a period
-		if (key.charAt(0) == '"' && key.charAt(key.length() - 1) == '"' && !key.contains(".")) {
-			key = key.substring(1, key.length() - 1);
-		} else {
-			throw new JSONFormatException("(" + key + ") is not a valid key");
+	public static JsonArray parseArrayFile(File file) throws FileNotFoundException, JSONFormatException {
+		ByteJsonParser parser = openFile(file);
+		try {
+			return parser.parseArray();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} finally {
+			closeFile(parser);
 		}
-		return key;
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseArrayFile</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonArray parseArrayFile(File file, ForkJoinPool pool)
+	 * 	throws FileNotFoundException, JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON array represented by the UTF-8 data in the
+	 * 	given file, parsing it on several threads.
+	 * 	</p>
+	 * 	<p>
+	 * 	The body of the root array is cut into chunks at commas which
+	 * 	separate its top-level elements, and the chunks are parsed
+	 * 	concurrently on the given pool and assembled in order. Inputs
+	 * 	too small to be worth splitting are parsed on the calling
+	 * 	thread.
+	 * 	</p>
+	 * 	<p>
+	 * 	An I/O error other than a missing file is thrown as an
+	 * 	<code>UncheckedIOException</code>.
+	 * 	</p>
+	 * 	
+	 * 	@param file - a file containing a JSON array to be parsed
+	 * 	@param pool - the pool to parse on
+	 * 	@return the JSON array represented by the data in the given file
+	 * 	@throws FileNotFoundException if the file does not exist
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonArray parseArrayFile(File file, ForkJoinPool pool) throws FileNotFoundException, JSONFormatException {
+		return (JsonArray) parseFile(file, '[', pool);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseArrayString</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonObject parseArrayString(String data)
+	 * 	throws JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON array represented by the given String.
+	 * 	</p>
+	 * 	
+	 * 	@param data - a String representing a JSON array
+	 * 	@return the JSON array represented by the given String
+	 * 	@throws JSONFOrmatException if there is a JSON formatting error
+	 */
+	public static JsonArray parseArrayString(String data) throws JSONFormatException {
+		try {
+			return new CharJsonParser(data).parseArray();
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseArrayString</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonArray parseArrayString(String data, ForkJoinPool pool)
+	 * 	throws JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON array represented by the given String, parsing
+	 * 	it on several threads.
+	 * 	</p>
+	 * 	<p>
+	 * 	The body of the root array is cut into chunks at commas which
+	 * 	separate its top-level elements, and the chunks are parsed
+	 * 	concurrently on the given pool and assembled in order. Inputs
+	 * 	too small to be worth splitting are parsed on the calling
+	 * 	thread.
+	 * 	</p>
+	 * 	
+	 * 	@param data - a String representing a JSON array
+	 * 	@param pool - the pool to parse on
+	 * 	@return the JSON array represented by the given String
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonArray parseArrayString(String data, ForkJoinPool pool) throws JSONFormatException {
+		return (JsonArray) ParallelJsonParser.parse(data.toCharArray(), '[', pool);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseObjectBytes</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonObject parseObjectBytes(byte[] data)
+	 * 	throws JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON object represented by the given UTF-8 encoded
+	 * 	bytes. The bytes are parsed directly; only the contents of keys
+	 * 	and String values are decoded into characters.
+	 * 	</p>
+	 * 	
+	 * 	@param data - UTF-8 encoded bytes representing a JSON object
+	 * 	@return the JSON object represented by the given bytes
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonObject parseObjectBytes(byte[] data) throws JSONFormatException {
+		return parseObjectBytes(data, 0, data.length);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseObjectBytes</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonObject parseObjectBytes(byte[] data, int offset, int length)
+	 * 	throws JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON object represented by the given range of UTF-8
+	 * 	encoded bytes. The bytes are parsed directly; only the contents
+	 * 	of keys and String values are decoded into characters.
+	 * 	</p>
+	 * 	
+	 * 	@param data - a byte array containing UTF-8 encoded json data
+	 * 	@param offset - the index of the first byte to be parsed
+	 * 	@param length - the number of bytes to be parsed
+	 * 	@return the JSON object represented by the given range of bytes
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonObject parseObjectBytes(byte[] data, int offset, int length) throws JSONFormatException {
+		if (offset < 0 || length < 0 || offset > data.length - length) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + data.length);
+		}
+		try {
+			return new ByteJsonParser(data, offset, length).parseObject();
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseObjectBytes</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonObject parseObjectBytes(ByteBuffer data)
+	 * 	throws JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON object represented by the remaining UTF-8 encoded
+	 * 	bytes of the given buffer, which may be a heap or a direct
+	 * 	buffer. The position of the buffer is not modified.
+	 * 	</p>
+	 * 	
+	 * 	@param data - a buffer containing UTF-8 encoded json data
+	 * 	@return the JSON object represented by the remaining bytes of the given
+	 * 	buffer
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonObject parseObjectBytes(ByteBuffer data) throws JSONFormatException {
+		try {
+			return ByteJsonParser.of(data).parseObject();
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseArrayBytes</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonArray parseArrayBytes(byte[] data)
+	 * 	throws JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON array represented by the given UTF-8 encoded
+	 * 	bytes. The bytes are parsed directly; only the contents of keys
+	 * 	and String values are decoded into characters.
+	 * 	</p>
+	 * 	
+	 * 	@param data - UTF-8 encoded bytes representing a JSON array
+	 * 	@return the JSON array represented by the given bytes
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonArray parseArrayBytes(byte[] data) throws JSONFormatException {
+		return parseArrayBytes(data, 0, data.length);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseArrayBytes</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonArray parseArrayBytes(byte[] data, int offset, int length)
+	 * 	throws JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON array represented by the given range of UTF-8
+	 * 	encoded bytes. The bytes are parsed directly; only the contents
+	 * 	of keys and String values are decoded into characters.
+	 * 	</p>
+	 * 	
+	 * 	@param data - a byte array containing UTF-8 encoded json data
+	 * 	@param offset - the index of the first byte to be parsed
+	 * 	@param length - the number of bytes to be parsed
+	 * 	@return the JSON array represented by the given range of bytes
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonArray parseArrayBytes(byte[] data, int offset, int length) throws JSONFormatException {
+		if (offset < 0 || length < 0 || offset > data.length - length) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + data.length);
+		}
+		try {
+			return new ByteJsonParser(data, offset, length).parseArray();
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseArrayBytes</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static JsonArray parseArrayBytes(ByteBuffer data)
+	 * 	throws JSONFormatException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the JSON array represented by the remaining UTF-8 encoded
+	 * 	bytes of the given buffer, which may be a heap or a direct
+	 * 	buffer. The position of the buffer is not modified.
+	 * 	</p>
+	 * 	
+	 * 	@param data - a buffer containing UTF-8 encoded json data
+	 * 	@return the JSON array represented by the remaining bytes of the given
+	 * 	buffer
+	 * 	@throws JSONFormatException if there is a JSON formatting error
+	 */
+	public static JsonArray parseArrayBytes(ByteBuffer data) throws JSONFormatException {
+		try {
+			return ByteJsonParser.of(data).parseArray();
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseAll</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static List&ltJsonParseResult&gt parseAll(Collection&lt?&gt inputs)
+	 * 	throws InterruptedException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Parses every input of a batch concurrently and returns the
+	 * 	results in input order. Each input may be a String, a byte
+	 * 	array of UTF-8 encoded data, a File, or a Path, and may hold
+	 * 	either a JSON object or a JSON array. An input which cannot be
+	 * 	parsed yields a result holding its exception rather than
+	 * 	aborting the batch.
+	 * 	</p>
+	 * 	<p>
+	 * 	Files and Paths are parsed on virtual threads when the running
+	 * 	JVM supports them (and on a cached pool of daemon threads
+	 * 	otherwise), since they spend most of their time waiting on I/O.
+	 * 	Strings and byte arrays are parsed on the common
+	 * 	<code>ForkJoinPool</code>.
+	 * 	</p>
+	 * 	
+	 * 	@param inputs - the Strings, byte arrays, Files, and Paths to be
+	 * 	parsed
+	 * 	@return the result of parsing each input, in input order
+	 * 	@throws InterruptedException if interrupted while waiting for
+	 * 	the batch to complete
+	 */
+	public static List<JsonParseResult> parseAll(Collection<?> inputs) throws InterruptedException {
+		return parseAll(inputs, null);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>parseAll</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static List&ltJsonParseResult&gt parseAll(Collection&lt?&gt inputs, Executor executor)
+	 * 	throws InterruptedException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Parses every input of a batch on the given executor and returns
+	 * 	the results in input order. Each input may be a String, a byte
+	 * 	array of UTF-8 encoded data, a File, or a Path, and may hold
+	 * 	either a JSON object or a JSON array. An input which cannot be
+	 * 	parsed, or which the executor rejects, yields a result holding
+	 * 	its exception rather than aborting the batch; so does an Error
+	 * 	thrown while parsing it, such as an OutOfMemoryError.
+	 * 	</p>
+	 * 	
+	 * 	@param inputs - the Strings, byte arrays, Files, and Paths to be
+	 * 	parsed
+	 * 	@param executor - the executor to parse on, or null to use the
+	 * 	defaults described for <code>parseAll(Collection)</code>
+	 * 	@return the result of parsing each input, in input order
+	 * 	@throws InterruptedException if interrupted while waiting for
+	 * 	the batch to complete
+	 */
+	public static List<JsonParseResult> parseAll(Collection<?> inputs, Executor executor) throws InterruptedException {
+		JsonParseResult[] results = new JsonParseResult[inputs.size()];
+		CountDownLatch remaining = new CountDownLatch(results.length);
+		int i = 0;
+		for (Object input : inputs) {
+			final int index = i++;
+			Runnable task = () -> {
+				try {
+					results[index] = parse(input);
+				} catch (Throwable ex) {
+					// an Error still yields a result, so no input is left without one
+					results[index] = JsonParseResult.failure(input, ex);
+				} finally {
+					remaining.countDown();
+				}
+			};
+			try {
+				if (executor != null) {
+					executor.execute(task);
+				} else if (input instanceof File || input instanceof Path) {
+					FileExecutor.INSTANCE.execute(task);
+				} else {
+					ForkJoinPool.commonPool().execute(task);
+				}
+			} catch (RejectedExecutionException ex) {
+				results[index] = JsonParseResult.failure(input, ex);
+				remaining.countDown();
+			}
+		}
+		remaining.await();
+		return Arrays.asList(results);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>lines</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static Stream&ltJsonObject&gt lines(Path path)
+	 * 	throws IOException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns a stream of the JSON objects in the given newline-
+	 * 	delimited json (JSON Lines) file, one object per line, in file
+	 * 	order. Blank lines are ignored. The stream splits the file at
+	 * 	newline boundaries, so that a parallel stream spreads the
+	 * 	parsing of a large file across all cores.
+	 * 	</p>
+	 * 	<p>
+	 * 	Lines which cannot be parsed are skipped; use the overload
+	 * 	which takes an error handler to be told about them.
+	 * 	</p>
+	 * 	<p>
+	 * 	The returned stream holds the file open and should be closed,
+	 * 	for example with a try-with-resources statement. An I/O error
+	 * 	encountered while streaming is thrown as an
+	 * 	<code>UncheckedIOException</code>.
+	 * 	</p>
+	 * 	
+	 * 	@param path - the path of a JSON Lines file
+	 * 	@return a stream of the JSON objects in the file
+	 * 	@throws IOException if the file cannot be opened
+	 */
+	public static Stream<JsonObject> lines(Path path) throws IOException {
+		return lines(path, result -> { });
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>lines</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static Stream&ltJsonObject&gt lines(Path path, Consumer&lt? super JsonParseResult&gt errorHandler)
+	 * 	throws IOException
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns a stream of the JSON objects in the given newline-
+	 * 	delimited json (JSON Lines) file, one object per line, in file
+	 * 	order. Blank lines are ignored. The stream splits the file at
+	 * 	newline boundaries, so that a parallel stream spreads the
+	 * 	parsing of a large file across all cores.
+	 * 	</p>
+	 * 	<p>
+	 * 	Each line which cannot be parsed is passed to the error handler
+	 * 	as a failed <code>JsonParseResult</code> holding the text of the
+	 * 	line, and the stream continues with the next line. The handler
+	 * 	may be called from several threads at once by a parallel stream.
+	 * 	</p>
+	 * 	<p>
+	 * 	The returned stream holds the file open and should be closed,
+	 * 	for example with a try-with-resources statement. An I/O error
+	 * 	encountered while streaming is thrown as an
+	 * 	<code>UncheckedIOException</code>.
+	 * 	</p>
+	 * 	
+	 * 	@param path - the path of a JSON Lines file
+	 * 	@param errorHandler - receives each line which cannot be parsed
+	 * 	@return a stream of the JSON objects in the file
+	 * 	@throws IOException if the file cannot be opened
+	 */
+	public static Stream<JsonObject> lines(Path path, Consumer<? super JsonParseResult> errorHandler) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return StreamSupport.stream(JsonLinesSpliterator.of(channel, errorHandler), false)
+					.onClose(() -> {
+						try {
+							channel.close();
+						} catch (IOException ex) {
+							throw new UncheckedIOException(ex);
+						}
+					});
+		} catch (IOException | RuntimeException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>lines</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static Stream&ltJsonObject&gt lines(InputStream in)
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns a stream of the JSON objects in the given newline-
+	 * 	delimited json (JSON Lines) input, one object per line, in input
+	 * 	order. Blank lines are ignored. The input is read sequentially;
+	 * 	a parallel stream parses batches of lines on other threads.
+	 * 	</p>
+	 * 	<p>
+	 * 	Lines which cannot be parsed are skipped; use the overload
+	 * 	which takes an error handler to be told about them.
+	 * 	</p>
+	 * 	<p>
+	 * 	Closing the returned stream does not close the given input
+	 * 	stream. An I/O error encountered while streaming is thrown as an
+	 * 	<code>UncheckedIOException</code>.
+	 * 	</p>
+	 * 	
+	 * 	@param in - an input stream of UTF-8 encoded JSON Lines data
+	 * 	@return a stream of the JSON objects in the input
+	 */
+	public static Stream<JsonObject> lines(InputStream in) {
+		return lines(in, result -> { });
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>lines</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static Stream&ltJsonObject&gt lines(InputStream in, Consumer&lt? super JsonParseResult&gt errorHandler)
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns a stream of the JSON objects in the given newline-
+	 * 	delimited json (JSON Lines) input, one object per line, in input
+	 * 	order. Blank lines are ignored. The input is read sequentially;
+	 * 	a parallel stream parses batches of lines on other threads.
+	 * 	</p>
+	 * 	<p>
+	 * 	Each line which cannot be parsed is passed to the error handler
+	 * 	as a failed <code>JsonParseResult</code> holding the text of the
+	 * 	line, and the stream continues with the next line. The handler
+	 * 	may be called from several threads at once by a parallel stream.
+	 * 	</p>
+	 * 	<p>
+	 * 	Closing the returned stream does not close the given input
+	 * 	stream. An I/O error encountered while streaming is thrown as an
+	 * 	<code>UncheckedIOException</code>.
+	 * 	</p>
+	 * 	
+	 * 	@param in - an input stream of UTF-8 encoded JSON Lines data
+	 * 	@param errorHandler - receives each line which cannot be parsed
+	 * 	@return a stream of the JSON objects in the input
+	 */
+	public static Stream<JsonObject> lines(InputStream in, Consumer<? super JsonParseResult> errorHandler) {
+		return StreamSupport.stream(JsonLinesSpliterator.of(in, errorHandler), false);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>publishObjects</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static Flow.Publisher&ltJsonObject&gt publishObjects(InputStream in)
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns a publisher of the JSON objects in the given input, which
+	 * 	is either a single JSON array, whose elements are published, or
+	 * 	newline-delimited json, whose lines are published. Objects are
+	 * 	published as soon as they are parsed, so a subscriber receives
+	 * 	the first elements of a large array before the rest of it has
+	 * 	been read. An element which is not an object is signalled as a
+	 * 	<code>JSONFormatException</code>.
+	 * 	</p>
+	 * 	<p>
+	 * 	The input is read only while the subscriber has requested
+	 * 	elements it has not yet received, so a slow subscriber holds
+	 * 	back reading and memory use stays bounded by a chunk of input
+	 * 	and one element. Input is read, parsed and published by tasks
+	 * 	run on virtual threads where the running JVM provides them,
+	 * 	and on daemon threads otherwise.
+	 * 	</p>
+	 * 	<p>
+	 * 	The publisher accepts a single subscriber. The input stream is
+	 * 	closed once the publication completes, fails, or is cancelled.
+	 * 	</p>
+	 * 	
+	 * 	@param in - an input stream of UTF-8 encoded json data
+	 * 	@return a publisher of the JSON objects in the input
+	 */
+	public static Flow.Publisher<JsonObject> publishObjects(InputStream in) {
+		return publishObjects(in, FileExecutor.INSTANCE);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>publishObjects</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static Flow.Publisher&ltJsonObject&gt publishObjects(InputStream in, Executor executor)
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns a publisher of the JSON objects in the given input, which
+	 * 	is either a single JSON array, whose elements are published, or
+	 * 	newline-delimited json, whose lines are published. Objects are
+	 * 	published as soon as they are parsed, so a subscriber receives
+	 * 	the first elements of a large array before the rest of it has
+	 * 	been read. An element which is not an object is signalled as a
+	 * 	<code>JSONFormatException</code>.
+	 * 	</p>
+	 * 	<p>
+	 * 	The input is read only while the subscriber has requested
+	 * 	elements it has not yet received, so a slow subscriber holds
+	 * 	back reading and memory use stays bounded by a chunk of input
+	 * 	and one element. Input is read, parsed and published by tasks
+	 * 	run on the given executor.
+	 * 	</p>
+	 * 	<p>
+	 * 	The publisher accepts a single subscriber. The input stream is
+	 * 	closed once the publication completes, fails, or is cancelled.
+	 * 	</p>
+	 * 	
+	 * 	@param in - an input stream of UTF-8 encoded json data
+	 * 	@param executor - the executor to read and publish on
+	 * 	@return a publisher of the JSON objects in the input
+	 */
+	public static Flow.Publisher<JsonObject> publishObjects(InputStream in, Executor executor) {
+		return new JsonPublisher<JsonObject>(in, JsonObject.class, executor);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>publishValues</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static Flow.Publisher&ltObject&gt publishValues(InputStream in)
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns a publisher of the JSON values in the given input, which
+	 * 	is either a single JSON array, whose elements are published, or
+	 * 	newline-delimited json, whose lines are published. Values are
+	 * 	published as soon as they are parsed, as a String, Boolean,
+	 * 	Long, Double, <code>JsonObject</code> or <code>JsonArray</code>,
+	 * 	so a subscriber receives the first elements of a large array
+	 * 	before the rest of it has been read.
+	 * 	</p>
+	 * 	<p>
+	 * 	The input is read only while the subscriber has requested
+	 * 	elements it has not yet received, so a slow subscriber holds
+	 * 	back reading and memory use stays bounded by a chunk of input
+	 * 	and one element. Input is read, parsed and published by tasks
+	 * 	run on virtual threads where the running JVM provides them,
+	 * 	and on daemon threads otherwise.
+	 * 	</p>
+	 * 	<p>
+	 * 	The publisher accepts a single subscriber. The input stream is
+	 * 	closed once the publication completes, fails, or is cancelled.
+	 * 	</p>
+	 * 	
+	 * 	@param in - an input stream of UTF-8 encoded json data
+	 * 	@return a publisher of the JSON values in the input
+	 */
+	public static Flow.Publisher<Object> publishValues(InputStream in) {
+		return publishValues(in, FileExecutor.INSTANCE);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>publishValues</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static Flow.Publisher&ltObject&gt publishValues(InputStream in, Executor executor)
+	 * 	</code></pre>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns a publisher of the JSON values in the given input, which
+	 * 	is either a single JSON array, whose elements are published, or
+	 * 	newline-delimited json, whose lines are published. Values are
+	 * 	published as soon as they are parsed, as a String, Boolean,
+	 * 	Long, Double, <code>JsonObject</code> or <code>JsonArray</code>,
+	 * 	so a subscriber receives the first elements of a large array
+	 * 	before the rest of it has been read.
+	 * 	</p>
+	 * 	<p>
+	 * 	The input is read only while the subscriber has requested
+	 * 	elements it has not yet received, so a slow subscriber holds
+	 * 	back reading and memory use stays bounded by a chunk of input
+	 * 	and one element. Input is read, parsed and published by tasks
+	 * 	run on the given executor.
+	 * 	</p>
+	 * 	<p>
+	 * 	The publisher accepts a single subscriber. The input stream is
+	 * 	closed once the publication completes, fails, or is cancelled.
+	 * 	</p>
+	 * 	
+	 * 	@param in - an input stream of UTF-8 encoded json data
+	 * 	@param executor - the executor to read and publish on
+	 * 	@return a publisher of the JSON values in the input
+	 */
+	public static Flow.Publisher<Object> publishValues(InputStream in, Executor executor) {
+		return new JsonPublisher<Object>(in, Object.class, executor);
+	}
+	
+	/**
+	 * 	<style>
+	 * 		.tab{tab-size: 8;}
+	 * 	</style>
+	 * 	<p>
+	 * 	<b><i>removeWhitespace</i></b>
+	 * 	</p>
+	 * 	<p>
+	 * 	<pre class="tab"><code>
+	 * public static String removeWhitespace(String line)
+	 * 	</pre></code>
+	 * 	</p>
+	 * 	<p>
+	 * 	Returns the String after removing all whitespace characters
+	 * 	(' ', '\t', '\n', '\r') not contained within a nested String
+	 * 	(e.g. "my string is cool" would become "mystringiscool", but
+	 * 	"my string is \"very cool\"" would become "mystringis\"very
+	 * 	 cool\"")
+	 * 	</p>
+	 * 	
+	 * 	@param line - a String to be processed
+	 * 	@return the given String after removing all whitespace
+	 * 	characters not contained within a nested String
+	 */
+	public static String removeWhitespace(String line) {
+		int length = line.length();
+		char[] result = new char[length];
+		int count = 0;
+		boolean inString = false;
+		
+		char currentChar;
+		char prevChar = 0;
+		for (int i = 0; i < length; i++) {
+			currentChar = line.charAt(i);
+			if (currentChar == '"') {
+				if (!inString) {
+					// starting a string
+					inString = true;
+				} else if (prevChar != '\\') {
+					// ending a string (quotes are not escaped)
+					inString = false;
+				}
+				// currentChar is never whitespace in this case
+				result[count++] = currentChar;
+			} else if (inString
+					|| (currentChar != ' '
+					&& currentChar != '\t'
+					&& currentChar != '\n'
+					&& currentChar != '\r')) {
+				// non-whitespace, or any character in a String, is accepted
+				result[count++] = currentChar;
+			}
+			prevChar = currentChar;
+		}
+		return new String(result, 0, count);
+	}
+
+	private static ByteJsonParser openFile(File file) throws FileNotFoundException {
+		FileChannel channel = new FileInputStream(file).getChannel();
+		return new ByteJsonParser(channel, ByteJsonParser.FILE_BUFFER_SIZE, ByteJsonParser.DEFAULT_WINDOW_SIZE);
+	}
+	
+	private static Object parseFile(File file, char open, ForkJoinPool pool) throws FileNotFoundException, JSONFormatException {
+		try (FileChannel channel = new FileInputStream(file).getChannel()) {
+			return ParallelJsonParser.parse(channel, open, pool);
+		} catch (FileNotFoundException ex) {
+			throw ex;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	private static Object parseLossless(AbstractJsonParser parser, char open) throws JSONFormatException {
+		parser.rawNumbers = true;
+		try {
+			return open == '{' ? parser.parseObject() : parser.parseArray();
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	private static void closeFile(ByteJsonParser parser) {
+		try {
+			parser.close();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static JsonParseResult parse(Object input) {
+		try {
+			AbstractJsonParser parser;
+			if (input instanceof String) {
+				parser = new CharJsonParser((String) input);
+			} else if (input instanceof byte[]) {
+				byte[] data = (byte[]) input;
+				parser = new ByteJsonParser(data, 0, data.length);
+			} else if (input instanceof File || input instanceof Path) {
+				File file = input instanceof File ? (File) input : ((Path) input).toFile();
+				parser = openFile(file);
+			} else {
+				throw new IllegalArgumentException("cannot parse input of type " + (input == null ? null : input.getClass().getName()));
+			}
+			try {
+				return JsonParseResult.success(input, parser.parseDocument());
+			} finally {
+				parser.close();
+			}
+		} catch (UncheckedIOException ex) {
+			return JsonParseResult.failure(input, ex.getCause());
+		} catch (Exception ex) {
+			return JsonParseResult.failure(input, ex);
+		}
+	}
+	
+	/**
+	 * Lazily creates the default executor for parsing files, which uses
+	 * virtual threads when the running JVM provides them.
+	 */
+	private static final class FileExecutor {
+		
+		static final Executor INSTANCE = create();
+		
+		private static Executor create() {
+			try {
+				Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (Executor) factory.invoke(null);
+			} catch (ReflectiveOperationException ex) {
+				// virtual threads are unavailable before Java 21
+				return Executors.newCachedThreadPool(runnable -> {
+					Thread thread = new Thread(runnable, "JsonParser-file");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+		}
+		
 	}
 
 }
@@ -0,0 +1,379 @@
+package com.jsontools;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ *
+ * <p>
+ * The <code>JsonParserContext</code> class parses documents held in
+ * memory, like the static methods of <code>JsonParser</code>, with state
+ * which is kept from one document to the next: the parsers themselves,
+ * the buffer String input is copied into, the stack of open containers,
+ * and a <code>StringTable</code> through which keys and short String
+ * values are canonicalized. Once a context has parsed a document or two,
+ * parsing a small document allocates little more than the tree which is
+ * returned, which makes contexts suited to servers handling many small
+ * messages.
+ * </p>
+ * <p>
+ * A context builds objects with concurrent storage unless another kind
+ * is set with <code>setObjectStorage</code>, and holds uniform arrays of
+ * objects as columns only once enabled with
+ * <code>setColumnarArrays</code>. A context taken from the shared pool
+ * is returned to the default settings when closed.
+ * </p>
+ * <p>
+ * JsonParserContext objects are not thread-safe; a context is used by
+ * one thread at a time. A thread may keep a context of its own, for
+ * example in a <code>ThreadLocal</code>, or borrow one from the shared
+ * pool with <code>acquire</code> and return it with <code>close</code>:
+ * </p>
+ * <pre>
+ * try (JsonParserContext context = JsonParserContext.acquire()) {
+ *     JsonObject message = context.parseObjectBytes(data);
+ *     ...
+ * }
+ * </pre>
+ * <p>
+ * The pool holds a small number of contexts, in proportion to the
+ * number of processors rather than the number of threads, and is taken
+ * from and returned to without locking. It therefore suits virtual
+ * threads, which are too numerous to each keep a context and should
+ * not block while holding a lock.
+ * </p>
+ *
+ */
+public final class JsonParserContext implements AutoCloseable {
+
+	// the buffer String input is first copied into
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	// buffers grown beyond this by a large document are not kept
+	private static final int MAX_RETAINED_BUFFER_SIZE = 1 << 16;
+	private static final byte[] NO_BYTES = new byte[0];
+
+	// contexts returned with close, awaiting reuse
+	private static final AtomicReferenceArray<JsonParserContext> POOL = new AtomicReferenceArray<JsonParserContext>(
+			Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1);
+	// number of slots of the pool a thread tries before giving up
+	private static final int PROBES = 4;
+
+	private final CharJsonParser charParser;
+	private final ByteJsonParser byteParser;
+	private char[] chars = new char[INITIAL_BUFFER_SIZE];
+	// the buffer the contents of direct buffers are copied into, if any
+	private byte[] bytes = NO_BYTES;
+	// whether the context belongs to the pool
+	private final boolean shared;
+	private boolean closed;
+
+	/**
+	 * Creates a context which canonicalizes Strings through a table of its
+	 * own.
+	 */
+	public JsonParserContext() {
+		this(new StringTable(), false);
+	}
+
+	/**
+	 * Creates a context which canonicalizes Strings through the given
+	 * table, which may be shared with other contexts.
+	 *
+	 * @param strings - the table to canonicalize keys and short String
+	 * values through, or null to canonicalize nothing
+	 */
+	public JsonParserContext(StringTable strings) {
+		this(strings, false);
+	}
+
+	private JsonParserContext(StringTable strings, boolean shared) {
+		this.charParser = new CharJsonParser(chars, 0, 0);
+		this.byteParser = new ByteJsonParser(NO_BYTES, 0, 0);
+		charParser.strings = strings;
+		byteParser.strings = strings;
+		this.shared = shared;
+	}
+
+	/**
+	 * Sets the kind of storage of the JSON objects this context builds.
+	 * <code>JsonStorage.CONCURRENT</code>, the default, builds objects
+	 * which may be shared between threads; <code>HASH</code> and
+	 * <code>ORDERED</code> build objects which are faster to build and
+	 * read from a single thread, and <code>ORDERED</code> keeps keys in
+	 * the order they were parsed.
+	 *
+	 * @param storage - a kind of JsonStorage
+	 * @throws NullPointerException if storage is null
+	 */
+	public void setObjectStorage(JsonStorage storage) {
+		if (storage == null) {
+			throw new NullPointerException();
+		}
+		charParser.storage = storage;
+		byteParser.storage = storage;
+	}
+
+	/**
+	 * Returns the kind of storage of the JSON objects this context
+	 * builds.
+	 *
+	 * @return the kind of JsonStorage set by <code>setObjectStorage</code>
+	 */
+	public JsonStorage getObjectStorage() {
+		return charParser.storage;
+	}
+
+	/**
+	 * Sets whether this context holds arrays of JSON objects which all
+	 * have the same keys column by column, with the keys stored once and
+	 * numeric columns held as primitive arrays, instead of as one map per
+	 * object. The objects of such an array are read through lightweight
+	 * views, and its numeric columns are scanned with
+	 * <code>JsonArray.longColumn</code> and
+	 * <code>JsonArray.doubleColumn</code>. An array whose objects differ
+	 * in shape is held as usual. The default is false.
+	 *
+	 * @param columnar - true to hold uniform arrays of objects as columns
+	 */
+	public void setColumnarArrays(boolean columnar) {
+		charParser.columnar = columnar;
+		byteParser.columnar = columnar;
+	}
+
+	/**
+	 * Returns the setting made by <code>setColumnarArrays</code>.
+	 *
+	 * @return true if uniform arrays of objects are held as columns
+	 */
+	public boolean isColumnarArrays() {
+		return charParser.columnar;
+	}
+
+	/**
+	 * Returns a context from the shared pool, or a new context if the
+	 * pool has none to spare. The context is returned to the pool by
+	 * <code>close</code>, after which it must no longer be used.
+	 *
+	 * @return a context for the use of the calling thread
+	 */
+	public static JsonParserContext acquire() {
+		int mask = POOL.length() - 1;
+		int start = probe();
+		for (int i = 0; i < PROBES; i++) {
+			JsonParserContext context = POOL.getAndSet((start + i) & mask, null);
+			if (context != null) {
+				context.closed = false;
+				return context;
+			}
+		}
+		return new JsonParserContext(new StringTable(), true);
+	}
+
+	/**
+	 * Closes the context, returning it to the shared pool if it was
+	 * taken from there. A context may not be used once closed; closing
+	 * it again has no effect.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (shared) {
+			// the next borrower gets the default settings
+			setObjectStorage(JsonStorage.CONCURRENT);
+			setColumnarArrays(false);
+			int mask = POOL.length() - 1;
+			int start = probe();
+			for (int i = 0; i < PROBES; i++) {
+				if (POOL.compareAndSet((start + i) & mask, null, this)) {
+					return;
+				}
+			}
+			// the pool is full, so the context is left to be collected
+		}
+	}
+
+	// spreads threads over the pool
+	private static int probe() {
+		int hash = System.identityHashCode(Thread.currentThread());
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the JSON object represented in the given String. A JSON
+	 * object may not include any keys which contain the period ( ' . ' )
+	 * character.
+	 *
+	 * @param data - a String representation of a JSON object
+	 * @return the JSON object represented in the given String
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IllegalStateException if the context has been closed
+	 */
+	public JsonObject parseObjectString(String data) throws JSONFormatException {
+		return (JsonObject) parse(chars(data), '{');
+	}
+
+	/**
+	 * Returns the JSON array represented in the given String.
+	 *
+	 * @param data - a String representation of a JSON array
+	 * @return the JSON array represented in the given String
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IllegalStateException if the context has been closed
+	 */
+	public JsonArray parseArrayString(String data) throws JSONFormatException {
+		return (JsonArray) parse(chars(data), '[');
+	}
+
+	/**
+	 * Returns the JSON object represented by the given UTF-8 encoded
+	 * bytes.
+	 *
+	 * @param data - UTF-8 encoded bytes representing a JSON object
+	 * @return the JSON object represented by the given bytes
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IllegalStateException if the context has been closed
+	 */
+	public JsonObject parseObjectBytes(byte[] data) throws JSONFormatException {
+		return parseObjectBytes(data, 0, data.length);
+	}
+
+	/**
+	 * Returns the JSON object represented by the given range of UTF-8
+	 * encoded bytes.
+	 *
+	 * @param data - a byte array containing UTF-8 encoded json data
+	 * @param offset - the index of the first byte to be parsed
+	 * @param length - the number of bytes to be parsed
+	 * @return the JSON object represented by the given range of bytes
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IllegalStateException if the context has been closed
+	 */
+	public JsonObject parseObjectBytes(byte[] data, int offset, int length) throws JSONFormatException {
+		return (JsonObject) parse(bytes(data, offset, length), '{');
+	}
+
+	/**
+	 * Returns the JSON object represented by the remaining UTF-8 encoded
+	 * bytes of the given buffer, which may be a heap or a direct buffer.
+	 * The position of the buffer is not modified.
+	 *
+	 * @param data - a buffer containing UTF-8 encoded json data
+	 * @return the JSON object represented by the remaining bytes of the
+	 * given buffer
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IllegalStateException if the context has been closed
+	 */
+	public JsonObject parseObjectBytes(ByteBuffer data) throws JSONFormatException {
+		return (JsonObject) parse(bytes(data), '{');
+	}
+
+	/**
+	 * Returns the JSON array represented by the given UTF-8 encoded
+	 * bytes.
+	 *
+	 * @param data - UTF-8 encoded bytes representing a JSON array
+	 * @return the JSON array represented by the given bytes
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IllegalStateException if the context has been closed
+	 */
+	public JsonArray parseArrayBytes(byte[] data) throws JSONFormatException {
+		return parseArrayBytes(data, 0, data.length);
+	}
+
+	/**
+	 * Returns the JSON array represented by the given range of UTF-8
+	 * encoded bytes.
+	 *
+	 * @param data - a byte array containing UTF-8 encoded json data
+	 * @param offset - the index of the first byte to be parsed
+	 * @param length - the number of bytes to be parsed
+	 * @return the JSON array represented by the given range of bytes
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IllegalStateException if the context has been closed
+	 */
+	public JsonArray parseArrayBytes(byte[] data, int offset, int length) throws JSONFormatException {
+		return (JsonArray) parse(bytes(data, offset, length), '[');
+	}
+
+	/**
+	 * Returns the JSON array represented by the remaining UTF-8 encoded
+	 * bytes of the given buffer, which may be a heap or a direct buffer.
+	 * The position of the buffer is not modified.
+	 *
+	 * @param data - a buffer containing UTF-8 encoded json data
+	 * @return the JSON array represented by the remaining bytes of the
+	 * given buffer
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IllegalStateException if the context has been closed
+	 */
+	public JsonArray parseArrayBytes(ByteBuffer data) throws JSONFormatException {
+		return (JsonArray) parse(bytes(data), '[');
+	}
+
+	private AbstractJsonParser chars(String data) {
+		checkOpen();
+		int length = data.length();
+		if (length > chars.length) {
+			chars = new char[Math.max(length, chars.length << 1)];
+		}
+		data.getChars(0, length, chars, 0);
+		charParser.reset(chars, 0, length);
+		return charParser;
+	}
+
+	private AbstractJsonParser bytes(byte[] data, int offset, int length) {
+		checkOpen();
+		if (offset < 0 || length < 0 || offset > data.length - length) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + data.length);
+		}
+		byteParser.reset(data, offset, length);
+		return byteParser;
+	}
+
+	private AbstractJsonParser bytes(ByteBuffer data) {
+		checkOpen();
+		if (data.hasArray()) {
+			byteParser.reset(data.array(), data.arrayOffset() + data.position(), data.remaining());
+			return byteParser;
+		}
+		int length = data.remaining();
+		if (length > bytes.length) {
+			bytes = new byte[Math.max(length, Math.max(INITIAL_BUFFER_SIZE, bytes.length << 1))];
+		}
+		data.get(data.position(), bytes, 0, length);
+		byteParser.reset(bytes, 0, length);
+		return byteParser;
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("JsonParserContext has been closed");
+		}
+	}
+
+	private Object parse(AbstractJsonParser parser, char open) throws JSONFormatException {
+		try {
+			return open == '{' ? parser.parseObject() : parser.parseArray();
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		} finally {
+			// drop everything which refers to the document
+			parser.reset();
+			byteParser.reset(NO_BYTES, 0, 0);
+			if (chars.length > MAX_RETAINED_BUFFER_SIZE) {
+				chars = new char[INITIAL_BUFFER_SIZE];
+				charParser.reset(chars, 0, 0);
+			}
+			if (bytes.length > MAX_RETAINED_BUFFER_SIZE) {
+				bytes = NO_BYTES;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,274 @@
+package com.jsontools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * <p>
+ * The <code>JsonPublisher</code> class publishes the elements of a json
+ * array, or the values of newline-delimited json, read from an
+ * <code>InputStream</code>. Input which begins with '[' is taken to be a
+ * single array whose elements are published; any other input is taken
+ * to be a sequence of values, each of which is published.
+ * </p>
+ * <p>
+ * The input is read in chunks through a <code>JsonPushParser</code>, and
+ * only while the subscriber has outstanding demand, so a slow subscriber
+ * holds back reading rather than letting parsed elements pile up: at
+ * most one chunk of input and one partly built element are held at a
+ * time. Reading, parsing and the signals to the subscriber, from
+ * <code>onSubscribe</code> on, all happen in tasks run on the given
+ * executor, one task at a time, so that no other signal can arrive
+ * before <code>onSubscribe</code> has returned, even if it requests
+ * elements.
+ * </p>
+ * <p>
+ * Any failure ends the publication and is signalled with
+ * <code>onError</code>: a failure to read or parse the input, and an
+ * exception thrown by the subscriber from <code>onSubscribe</code> or
+ * <code>onNext</code>.
+ * </p>
+ * <p>
+ * The input can only be read once, so a publisher accepts a single
+ * subscriber, and signals an <code>IllegalStateException</code> to any
+ * other. The input stream is closed once the publication completes,
+ * fails, or is cancelled.
+ * </p>
+ *
+ */
+final class JsonPublisher<T> implements Flow.Publisher<T> {
+
+	static final int CHUNK_SIZE = 8192;
+
+	private final InputStream in;
+	private final Class<T> type;
+	private final Executor executor;
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+
+	JsonPublisher(InputStream in, Class<T> type, Executor executor) {
+		this.in = Objects.requireNonNull(in);
+		this.type = type;
+		this.executor = Objects.requireNonNull(executor);
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super T> subscriber) {
+		Objects.requireNonNull(subscriber);
+		if (!subscribed.compareAndSet(false, true)) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+
+				@Override
+				public void request(long n) {
+				}
+
+				@Override
+				public void cancel() {
+				}
+
+			});
+			subscriber.onError(new IllegalStateException("a JsonParser publisher accepts only one subscriber"));
+			return;
+		}
+		// onSubscribe is signalled by the first task
+		new Emission(subscriber).schedule();
+	}
+
+	/**
+	 * The subscription of the subscriber, which reads and parses input as
+	 * demand allows.
+	 */
+	private final class Emission implements Flow.Subscription {
+
+		// what the input has been found to be
+		private static final int START = 0;
+		private static final int ELEMENTS = 1;
+		private static final int AFTER_ARRAY = 2;
+		private static final int VALUES = 3;
+
+		private final Flow.Subscriber<? super T> subscriber;
+		private final JsonPushParser parser = new JsonPushParser();
+		private final byte[] chunk = new byte[CHUNK_SIZE];
+		private final ByteBuffer buffer = ByteBuffer.wrap(chunk);
+		private final AtomicLong requested = new AtomicLong();
+		// the number of times the emission has been scheduled and not run
+		private final AtomicInteger pending = new AtomicInteger();
+		private volatile boolean cancelled;
+		private volatile long invalidRequest;
+		// only accessed by the task emitting
+		private boolean started;
+		private int state = START;
+		private long emitted;
+		private boolean done;
+
+		Emission(Flow.Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = n;
+			} else {
+				requested.getAndAccumulate(n, (current, added) -> {
+					long sum = current + added;
+					return sum < 0 ? Long.MAX_VALUE : sum;
+				});
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+
+		private void schedule() {
+			if (pending.getAndIncrement() == 0) {
+				executor.execute(this::drain);
+			}
+		}
+
+		private void drain() {
+			int missed = 1;
+			do {
+				if (!started) {
+					started = true;
+					start();
+				}
+				if (!done) {
+					emit();
+				}
+				missed = pending.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		/**
+		 * Signals the subscription to the subscriber. Requests it makes
+		 * meanwhile are served once it returns, by the same task.
+		 */
+		private void start() {
+			try {
+				subscriber.onSubscribe(this);
+			} catch (Throwable ex) {
+				finish();
+				subscriber.onError(ex);
+			}
+		}
+
+		/**
+		 * Publishes elements while there is demand, and signals the end of
+		 * the publication once there are none left.
+		 */
+		private void emit() {
+			try {
+				while (true) {
+					if (cancelled) {
+						finish();
+						return;
+					}
+					if (invalidRequest != 0) {
+						finish();
+						subscriber.onError(new IllegalArgumentException("non-positive request of " + invalidRequest + " elements"));
+						return;
+					}
+					long demand = requested.get();
+					if (demand == 0) {
+						return;
+					}
+					Object value = next();
+					if (value == null) {
+						finish();
+						subscriber.onComplete();
+						return;
+					}
+					if (!type.isInstance(value)) {
+						throw new JSONFormatException("element " + emitted + " is not a json object");
+					}
+					T element = type.cast(value);
+					emitted++;
+					if (demand != Long.MAX_VALUE) {
+						requested.decrementAndGet();
+					}
+					subscriber.onNext(element);
+				}
+			} catch (Throwable ex) {
+				// once onComplete or onError has been signalled, nothing more is
+				if (!done) {
+					finish();
+					subscriber.onError(ex);
+				}
+			}
+		}
+
+		/**
+		 * Returns the next element to be published, reading more input as
+		 * needed, or null at the end of the input.
+		 */
+		private Object next() throws JSONFormatException, IOException {
+			while (true) {
+				JsonToken token = parser.peek();
+				if (token == JsonToken.NEED_MORE_INPUT) {
+					read();
+					continue;
+				}
+				if (state == START) {
+					if (token == JsonToken.BEGIN_ARRAY) {
+						parser.nextToken();
+						state = ELEMENTS;
+					} else {
+						state = VALUES;
+					}
+					continue;
+				}
+				if (state == ELEMENTS && token == JsonToken.END_ARRAY) {
+					parser.nextToken();
+					state = AFTER_ARRAY;
+					continue;
+				}
+				if (token == JsonToken.END_DOCUMENT) {
+					return null;
+				}
+				if (state == AFTER_ARRAY) {
+					throw new JSONFormatException("json data continues after the end of the array");
+				}
+				Object value;
+				while ((value = parser.nextValue()) == null) {
+					read();
+				}
+				return value;
+			}
+		}
+
+		private void read() throws IOException {
+			int n;
+			do {
+				n = in.read(chunk);
+			} while (n == 0);
+			if (n < 0) {
+				parser.endOfInput();
+			} else {
+				parser.feed(buffer.limit(n).position(0));
+			}
+		}
+
+		private void finish() {
+			done = true;
+			try {
+				in.close();
+			} catch (IOException ex) {
+				// the publication is over, so there is no one to tell
+			}
+		}
+
+	}
+
+}
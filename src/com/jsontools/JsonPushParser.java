@@ -0,0 +1,561 @@
+package com.jsontools;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *
+ * <p>
+ * The <code>JsonPushParser</code> class is a non-blocking parser of
+ * UTF-8 encoded json data which arrives in fragments of any size, such
+ * as the reads of a non-blocking channel. Each fragment is handed to
+ * the parser with <code>feed</code>, which copies it and returns at
+ * once, and the parser is then drained of the tokens or values the
+ * input so far makes complete. When the input runs out part of the way
+ * through a token or a value, the parser reports
+ * <code>JsonToken.NEED_MORE_INPUT</code>, or returns null from
+ * <code>nextValue()</code>. It keeps its place, and the parts of a
+ * value it has already built, until more input is fed, so no call
+ * ever blocks and one thread can serve many parsers.
+ * </p>
+ * <p>
+ * The input is a sequence of json objects and arrays separated by
+ * optional whitespace, which includes newline-delimited json. Only
+ * input which has not yet been drained is held, together with the part
+ * of a String or number which a fragment ends in the middle of.
+ * <code>endOfInput()</code> marks the end of the input, after which
+ * <code>nextToken()</code> reports <code>END_DOCUMENT</code> once
+ * everything has been drained.
+ * </p>
+ * <pre>
+ * parser.feed(buffer);
+ * Object value;
+ * while ((value = parser.nextValue()) != null) {
+ *     handle(value);
+ * }
+ * </pre>
+ * <p>
+ * Tokens are reported as by <code>JsonReader</code>, with String values
+ * and names returned with their escape sequences preserved. Objects
+ * built by <code>nextValue()</code> may not include keys which contain
+ * the period ( ' . ' ) character. Objects are built with concurrent
+ * storage unless another kind is set with <code>setObjectStorage</code>,
+ * and arrays of objects are held as columns only once enabled with
+ * <code>setColumnarArrays</code>. A parser created with a
+ * <code>StringTable</code> canonicalizes names and short String values
+ * through it, as a <code>JsonParserContext</code> does, whether they are
+ * read as tokens or built into values; a parser created without one
+ * canonicalizes nothing.
+ * </p>
+ * <p>
+ * JsonPushParser objects are not thread-safe. A parser which has
+ * reported a formatting error may not be used any further.
+ * </p>
+ *
+ */
+public final class JsonPushParser {
+
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	// a buffer grown beyond this by a large token is not kept
+	private static final int MAX_RETAINED_BUFFER_SIZE = 1 << 16;
+
+	// scopes, each named for what is expected next
+	private static final int DOCUMENT = 0;
+	private static final int OBJECT_EMPTY = 1;
+	private static final int OBJECT_NAME = 2;
+	private static final int OBJECT_COLON = 3;
+	private static final int OBJECT_VALUE = 4;
+	private static final int OBJECT_NEXT = 5;
+	private static final int ARRAY_EMPTY = 6;
+	private static final int ARRAY_VALUE = 7;
+	private static final int ARRAY_NEXT = 8;
+
+	private final StringTable strings;
+	private JsonStorage storage = JsonStorage.CONCURRENT;
+	private boolean columnar;
+
+	// input fed but not yet consumed, from pos to limit
+	private byte[] buf = new byte[INITIAL_BUFFER_SIZE];
+	private int pos;
+	private int limit;
+	// input offset of buf[0]
+	private long offset;
+	private boolean ended;
+	private JSONFormatException failure;
+
+	private int[] scopes = new int[16];
+	private int depth = 1;
+	private JsonToken peeked;
+	// for a peeked String, name or literal, where its text begins, and
+	// how far it has been scanned for its end
+	private int tokenStart = -1;
+	private int scan;
+	private boolean ascii;
+	private final LiteralText text = new LiteralText();
+	private Object value;
+
+	// the containers of the value being built by nextValue
+	private Object[] containers = new Object[16];
+	private String[] keys = new String[16];
+	private int building;
+
+	/**
+	 * Creates a parser which canonicalizes nothing.
+	 */
+	public JsonPushParser() {
+		this(null);
+	}
+
+	/**
+	 * Creates a parser which canonicalizes names and short String values
+	 * through the given table, which may be shared with other parsers and
+	 * contexts.
+	 *
+	 * @param strings - the table to canonicalize names and short String
+	 * values through, or null to canonicalize nothing
+	 */
+	public JsonPushParser(StringTable strings) {
+		this.strings = strings;
+	}
+
+	/**
+	 * Sets the kind of storage of the objects built by
+	 * <code>nextValue()</code> from now on. The default is
+	 * <code>JsonStorage.CONCURRENT</code>.
+	 *
+	 * @param storage - a kind of JsonStorage
+	 * @throws NullPointerException if storage is null
+	 */
+	public void setObjectStorage(JsonStorage storage) {
+		if (storage == null) {
+			throw new NullPointerException();
+		}
+		this.storage = storage;
+	}
+
+	/**
+	 * Returns the kind of storage of the objects built by
+	 * <code>nextValue()</code>.
+	 *
+	 * @return the kind of JsonStorage set by <code>setObjectStorage</code>
+	 */
+	public JsonStorage getObjectStorage() {
+		return storage;
+	}
+
+	/**
+	 * Sets whether the arrays built by <code>nextValue()</code> from now
+	 * on hold arrays of objects which all have the same keys column by
+	 * column, as a <code>JsonParserContext</code> may. The default is
+	 * false.
+	 *
+	 * @param columnar - true to hold uniform arrays of objects as columns
+	 */
+	public void setColumnarArrays(boolean columnar) {
+		this.columnar = columnar;
+	}
+
+	/**
+	 * Returns the setting made by <code>setColumnarArrays</code>.
+	 *
+	 * @return true if uniform arrays of objects are held as columns
+	 */
+	public boolean isColumnarArrays() {
+		return columnar;
+	}
+
+	/**
+	 * Copies the remaining bytes of the given buffer into the parser, and
+	 * moves the position of the buffer to its limit, so that the buffer
+	 * may be reused as soon as this method returns.
+	 *
+	 * @param data - the next fragment of the input
+	 * @throws IllegalStateException if <code>endOfInput()</code> has been
+	 * called
+	 */
+	public void feed(ByteBuffer data) {
+		if (ended) {
+			throw new IllegalStateException("end of input has already been reached");
+		}
+		int length = data.remaining();
+		int keep = tokenStart >= 0 ? tokenStart : pos;
+		int kept = limit - keep;
+		int needed = kept + length;
+		if (needed > buf.length) {
+			buf = Arrays.copyOfRange(buf, keep, keep + Math.max(needed, buf.length << 1));
+		} else if (buf.length > MAX_RETAINED_BUFFER_SIZE && needed <= INITIAL_BUFFER_SIZE) {
+			buf = Arrays.copyOfRange(buf, keep, keep + INITIAL_BUFFER_SIZE);
+		} else if (keep > 0) {
+			System.arraycopy(buf, keep, buf, 0, kept);
+		}
+		offset += keep;
+		pos -= keep;
+		limit = kept;
+		if (tokenStart >= 0) {
+			tokenStart -= keep;
+			scan -= keep;
+		}
+		data.get(buf, limit, length);
+		limit += length;
+	}
+
+	/**
+	 * Marks the end of the input. The remaining tokens and values can
+	 * still be drained; a value which is left incomplete is reported as
+	 * a formatting error.
+	 */
+	public void endOfInput() {
+		ended = true;
+	}
+
+	/**
+	 * Returns the kind of the next token without consuming it, or
+	 * <code>NEED_MORE_INPUT</code> if the input fed so far does not show
+	 * what the next token is.
+	 *
+	 * @return the kind of the next token
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 */
+	public JsonToken peek() throws JSONFormatException {
+		if (failure != null) {
+			throw failure;
+		}
+		try {
+			return peekToken();
+		} catch (JSONFormatException ex) {
+			failure = ex;
+			throw ex;
+		}
+	}
+
+	/**
+	 * Consumes the next token and returns its kind, or returns
+	 * <code>NEED_MORE_INPUT</code> without consuming anything if the
+	 * token is not yet complete. For <code>NAME</code>,
+	 * <code>STRING</code>, <code>NUMBER</code> and <code>BOOLEAN</code>
+	 * tokens, the value of the token is then available from
+	 * <code>getValue()</code>.
+	 *
+	 * @return the kind of the consumed token
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IllegalStateException if <code>nextValue()</code> has
+	 * returned part of the way through a value
+	 */
+	public JsonToken nextToken() throws JSONFormatException {
+		if (failure != null) {
+			throw failure;
+		}
+		if (building > 0) {
+			throw new IllegalStateException("a value is being built by nextValue");
+		}
+		return consume();
+	}
+
+	/**
+	 * Returns the value of the last <code>NAME</code>, <code>STRING</code>,
+	 * <code>NUMBER</code> or <code>BOOLEAN</code> token consumed by
+	 * <code>nextToken()</code>, or null if the last token had no value.
+	 *
+	 * @return a String, Boolean, Long, or Double, or null
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * Consumes the next value, whatever its kind, and returns it as a
+	 * String, Boolean, Long, Double, <code>JsonObject</code> or
+	 * <code>JsonArray</code>. Returns null if the value is not yet
+	 * complete, keeping what has been built of it for the next call, or
+	 * if the input has ended.
+	 *
+	 * @return the next value, or null
+	 * @throws JSONFormatException if the next token is not the beginning
+	 * of a value, or if there is a JSON formatting error
+	 */
+	public Object nextValue() throws JSONFormatException {
+		if (building == 0) {
+			JsonToken token = peek();
+			if (token == JsonToken.NEED_MORE_INPUT || token == JsonToken.END_DOCUMENT) {
+				return null;
+			}
+			if (token == JsonToken.NAME || token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+				throw new JSONFormatException("expected a value but was " + token);
+			}
+		}
+		while (true) {
+			Object completed;
+			switch (consume()) {
+			case NEED_MORE_INPUT:
+				return null;
+			case BEGIN_OBJECT:
+				open(storage.newObject());
+				continue;
+			case BEGIN_ARRAY:
+				// held as primitives unless an element is not a number
+				open(new NumericJsonArray());
+				continue;
+			case NAME:
+				String key = (String) value;
+				if (key.indexOf('.') >= 0) {
+					throw failure = new JSONFormatException("(\"" + key + "\") is not a valid key");
+				}
+				keys[building - 1] = key;
+				continue;
+			case END_OBJECT:
+			case END_ARRAY:
+				building--;
+				completed = AbstractJsonParser.complete(containers[building]);
+				containers[building] = null;
+				keys[building] = null;
+				break;
+			default:
+				completed = value;
+				break;
+			}
+			value = null;
+			if (building == 0) {
+				return completed;
+			}
+			int top = building - 1;
+			if (containers[top] instanceof JsonObject) {
+				((JsonObject) containers[top]).put(keys[top], completed);
+			} else {
+				containers[top] = AbstractJsonParser.append((JsonArray) containers[top], completed, columnar, storage);
+			}
+		}
+	}
+
+	private void open(Object container) {
+		if (building == containers.length) {
+			containers = Arrays.copyOf(containers, building << 1);
+			keys = Arrays.copyOf(keys, building << 1);
+		}
+		containers[building++] = container;
+	}
+
+	private JsonToken consume() throws JSONFormatException {
+		JsonToken token = peek();
+		try {
+			switch (token) {
+			case BEGIN_OBJECT:
+				push(OBJECT_EMPTY);
+				value = null;
+				break;
+			case BEGIN_ARRAY:
+				push(ARRAY_EMPTY);
+				value = null;
+				break;
+			case END_OBJECT:
+			case END_ARRAY:
+				depth--;
+				value = null;
+				break;
+			case NAME:
+			case STRING:
+				if (!scanString()) {
+					return JsonToken.NEED_MORE_INPUT;
+				}
+				break;
+			case NUMBER:
+			case BOOLEAN:
+				if (!scanLiteral()) {
+					return JsonToken.NEED_MORE_INPUT;
+				}
+				break;
+			default:
+				return token;
+			}
+		} catch (JSONFormatException ex) {
+			failure = ex;
+			throw ex;
+		}
+		tokenStart = -1;
+		peeked = null;
+		return token;
+	}
+
+	private JsonToken peekToken() throws JSONFormatException {
+		if (peeked != null) {
+			return peeked;
+		}
+		int top = depth - 1;
+		while (true) {
+			int c = nextByte();
+			if (c == -1) {
+				if (!ended) {
+					return JsonToken.NEED_MORE_INPUT;
+				}
+				if (depth > 1) {
+					throw new JSONFormatException("unexpected end of input");
+				}
+				return JsonToken.END_DOCUMENT;
+			}
+			switch (scopes[top]) {
+			case DOCUMENT:
+				if (c != '{' && c != '[') {
+					throw new JSONFormatException("json data does not begin with '{' or '['");
+				}
+				return peekValue(c);
+			case OBJECT_EMPTY:
+			case OBJECT_NAME:
+				if (c == '}' && scopes[top] == OBJECT_EMPTY) {
+					return peeked(JsonToken.END_OBJECT);
+				}
+				if (c != '"') {
+					throw unexpected(c);
+				}
+				scopes[top] = OBJECT_COLON;
+				return peekString(JsonToken.NAME);
+			case OBJECT_COLON:
+				if (c != ':') {
+					throw unexpected(c);
+				}
+				scopes[top] = OBJECT_VALUE;
+				continue;
+			case OBJECT_VALUE:
+				scopes[top] = OBJECT_NEXT;
+				return peekValue(c);
+			case OBJECT_NEXT:
+				if (c == '}') {
+					return peeked(JsonToken.END_OBJECT);
+				}
+				if (c != ',') {
+					throw unexpected(c);
+				}
+				scopes[top] = OBJECT_NAME;
+				continue;
+			case ARRAY_EMPTY:
+			case ARRAY_VALUE:
+				if (c == ']' && scopes[top] == ARRAY_EMPTY) {
+					return peeked(JsonToken.END_ARRAY);
+				}
+				scopes[top] = ARRAY_NEXT;
+				return peekValue(c);
+			default:
+				if (c == ']') {
+					return peeked(JsonToken.END_ARRAY);
+				}
+				if (c != ',') {
+					throw unexpected(c);
+				}
+				scopes[top] = ARRAY_VALUE;
+				continue;
+			}
+		}
+	}
+
+	private JsonToken peekValue(int c) throws JSONFormatException {
+		switch (c) {
+		case '{':
+			return peeked(JsonToken.BEGIN_OBJECT);
+		case '[':
+			return peeked(JsonToken.BEGIN_ARRAY);
+		case '"':
+			return peekString(JsonToken.STRING);
+		default:
+			if (AbstractJsonParser.isDelimiter(c)) {
+				throw unexpected(c);
+			}
+			// the first character is part of the literal
+			tokenStart = pos - 1;
+			scan = pos;
+			return peeked(c == 't' || c == 'f' ? JsonToken.BOOLEAN : JsonToken.NUMBER);
+		}
+	}
+
+	private JsonToken peekString(JsonToken token) {
+		tokenStart = pos;
+		scan = pos;
+		ascii = true;
+		return peeked(token);
+	}
+
+	private JsonToken peeked(JsonToken token) {
+		peeked = token;
+		return token;
+	}
+
+	/**
+	 * Consumes and returns the next byte which is not whitespace, or -1
+	 * if the input fed so far is exhausted.
+	 */
+	private int nextByte() {
+		final byte[] buf = this.buf;
+		while (pos < limit) {
+			byte b = buf[pos++];
+			if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+				return b & 0xFF;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Scans the peeked String or name for its closing quote, from where
+	 * the last scan stopped, and returns true with its value once found.
+	 */
+	private boolean scanString() throws JSONFormatException {
+		final byte[] buf = this.buf;
+		int i = scan;
+		while (i < limit) {
+			byte b = buf[i++];
+			if (b == '"') {
+				value = decode(tokenStart, i - tokenStart - 1);
+				pos = i;
+				return true;
+			} else if (b == '\\') {
+				// the escaped byte may not have been fed yet
+				i++;
+			} else if (b < 0) {
+				ascii = false;
+			}
+		}
+		scan = i;
+		if (ended) {
+			throw new JSONFormatException("unexpected end of input");
+		}
+		return false;
+	}
+
+	/**
+	 * Scans the peeked literal for the delimiter which follows it, which
+	 * is left unconsumed, and returns true with its value once found or
+	 * once the input has ended.
+	 */
+	private boolean scanLiteral() throws JSONFormatException {
+		final byte[] buf = this.buf;
+		int i = scan;
+		while (i < limit && !AbstractJsonParser.isDelimiter(buf[i])) {
+			i++;
+		}
+		scan = i;
+		if (i == limit && !ended) {
+			return false;
+		}
+		value = AbstractJsonParser.toPrimitive(text.set(buf, tokenStart, i - tokenStart));
+		pos = i;
+		return true;
+	}
+
+	private String decode(int start, int length) {
+		if (ascii && strings != null) {
+			// escape sequences are preserved, so the bytes are the String
+			return strings.get(buf, start, length);
+		}
+		return new String(buf, start, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+	}
+
+	private void push(int scope) {
+		if (depth == scopes.length) {
+			scopes = Arrays.copyOf(scopes, depth << 1);
+		}
+		scopes[depth++] = scope;
+	}
+
+	private JSONFormatException unexpected(int c) {
+		return new JSONFormatException("unexpected token '" + (char) c + "' at position " + (offset + pos - 1));
+	}
+
+}
@@ -0,0 +1,459 @@
+package com.jsontools;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *
+ * <p>
+ * The <code>JsonReader</code> class is a pull parser which reads json
+ * data one token at a time from a <code>Reader</code> or an
+ * <code>InputStream</code>. Input is read through a fixed-size buffer,
+ * so arbitrarily large documents can be processed in constant memory.
+ * Whole <code>JsonObject</code> and <code>JsonArray</code> instances can
+ * be built for selected subtrees with <code>nextObject()</code> and
+ * <code>nextArray()</code>, and unwanted subtrees can be passed over with
+ * <code>skipValue()</code>.
+ * </p>
+ * <p>
+ * As in <code>JsonParser</code>, String values and names are returned
+ * with their escape sequences preserved. Names returned by
+ * <code>nextName()</code> may contain the period ( ' . ' ) character,
+ * but objects built by <code>nextObject()</code> may not.
+ * </p>
+ * <p>
+ * JsonReader objects are not thread-safe.
+ * </p>
+ *
+ */
+public class JsonReader implements Closeable {
+
+	private static final int DOCUMENT_EMPTY = 0;
+	private static final int DOCUMENT_DONE = 1;
+	private static final int OBJECT_EMPTY = 2;
+	private static final int OBJECT_NAME = 3;
+	private static final int OBJECT_VALUE = 4;
+	private static final int ARRAY_EMPTY = 5;
+	private static final int ARRAY_VALUE = 6;
+
+	private final CharJsonParser parser;
+	private int[] scopes = new int[16];
+	private int depth = 1;
+	private JsonToken peeked;
+	// first character of the peeked token, already consumed from the input
+	private int peekedChar;
+	private Object value;
+
+	/**
+	 * Creates a reader of the json data read from the given
+	 * <code>Reader</code>, through a buffer of the default size.
+	 *
+	 * @param reader - the source of the json text
+	 */
+	public JsonReader(Reader reader) {
+		this(reader, CharJsonParser.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a reader of the json data read from the given
+	 * <code>Reader</code>, through a buffer of the given number of
+	 * characters. The buffer grows only to hold a single token longer
+	 * than it.
+	 *
+	 * @param reader - the source of the json text
+	 * @param bufferSize - the number of characters read at a time
+	 * @throws IllegalArgumentException if bufferSize is not positive
+	 */
+	public JsonReader(Reader reader, int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("buffer size must be positive");
+		}
+		this.parser = new CharJsonParser(reader, bufferSize);
+		scopes[0] = DOCUMENT_EMPTY;
+	}
+
+	/**
+	 * Creates a reader of the UTF-8 encoded json data read from the
+	 * given <code>InputStream</code>.
+	 *
+	 * @param in - an input stream of UTF-8 encoded json data
+	 */
+	public JsonReader(InputStream in) {
+		this(new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the kind of the next token without consuming it.
+	 *
+	 * @return the kind of the next token
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public JsonToken peek() throws JSONFormatException, IOException {
+		if (peeked != null) {
+			return peeked;
+		}
+		int top = depth - 1;
+		int c = parser.nextToken();
+		switch (scopes[top]) {
+		case OBJECT_EMPTY:
+		case OBJECT_VALUE:
+			if (c == '}') {
+				return peeked(JsonToken.END_OBJECT, c);
+			}
+			if (scopes[top] == OBJECT_VALUE) {
+				if (c != ',') {
+					throw parser.unexpected(c);
+				}
+				c = parser.nextToken();
+			}
+			if (c != '"') {
+				throw parser.unexpected(c);
+			}
+			scopes[top] = OBJECT_NAME;
+			return peeked(JsonToken.NAME, c);
+		case OBJECT_NAME:
+			if (c != ':') {
+				throw parser.unexpected(c);
+			}
+			c = parser.nextToken();
+			scopes[top] = OBJECT_VALUE;
+			break;
+		case ARRAY_EMPTY:
+			if (c == ']') {
+				return peeked(JsonToken.END_ARRAY, c);
+			}
+			scopes[top] = ARRAY_VALUE;
+			break;
+		case ARRAY_VALUE:
+			if (c == ']') {
+				return peeked(JsonToken.END_ARRAY, c);
+			}
+			if (c != ',') {
+				throw parser.unexpected(c);
+			}
+			c = parser.nextToken();
+			break;
+		case DOCUMENT_EMPTY:
+			scopes[top] = DOCUMENT_DONE;
+			break;
+		default:
+			if (c != -1) {
+				throw parser.unexpected(c);
+			}
+			return peeked(JsonToken.END_DOCUMENT, c);
+		}
+		// a value is expected
+		switch (c) {
+		case '{':
+			return peeked(JsonToken.BEGIN_OBJECT, c);
+		case '[':
+			return peeked(JsonToken.BEGIN_ARRAY, c);
+		case '"':
+			return peeked(JsonToken.STRING, c);
+		case 't':
+		case 'f':
+			return peeked(JsonToken.BOOLEAN, c);
+		default:
+			if (c == -1 || AbstractJsonParser.isDelimiter(c)) {
+				throw parser.unexpected(c);
+			}
+			return peeked(JsonToken.NUMBER, c);
+		}
+	}
+
+	/**
+	 * Consumes the next token and returns its kind. For <code>NAME</code>,
+	 * <code>STRING</code>, <code>NUMBER</code> and <code>BOOLEAN</code>
+	 * tokens, the value of the token is then available from
+	 * <code>getValue()</code>.
+	 *
+	 * @return the kind of the consumed token
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public JsonToken nextToken() throws JSONFormatException, IOException {
+		JsonToken token = peek();
+		value = null;
+		switch (token) {
+		case BEGIN_OBJECT:
+			beginObject();
+			break;
+		case END_OBJECT:
+			endObject();
+			break;
+		case BEGIN_ARRAY:
+			beginArray();
+			break;
+		case END_ARRAY:
+			endArray();
+			break;
+		case NAME:
+			value = nextName();
+			break;
+		case STRING:
+			value = nextString();
+			break;
+		case NUMBER:
+		case BOOLEAN:
+			peeked = null;
+			value = parser.readLiteral(peekedChar);
+			break;
+		default:
+			break;
+		}
+		return token;
+	}
+
+	/**
+	 * Returns the value of the last <code>NAME</code>, <code>STRING</code>,
+	 * <code>NUMBER</code> or <code>BOOLEAN</code> token consumed by
+	 * <code>nextToken()</code>, or null if the last token had no value.
+	 *
+	 * @return a String, Boolean, Long, or Double, or null
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns true if the current object or array has another element.
+	 *
+	 * @return false if the next token ends an object, an array, or the
+	 * document
+	 * @throws JSONFormatException if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public boolean hasNext() throws JSONFormatException, IOException {
+		JsonToken token = peek();
+		return token != JsonToken.END_OBJECT
+				&& token != JsonToken.END_ARRAY
+				&& token != JsonToken.END_DOCUMENT;
+	}
+
+	/**
+	 * Consumes the beginning of an object, after which the reader is
+	 * positioned at its first name or at its end.
+	 *
+	 * @throws JSONFormatException if the next token is not the beginning
+	 * of an object, or if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public void beginObject() throws JSONFormatException, IOException {
+		consume(JsonToken.BEGIN_OBJECT);
+		push(OBJECT_EMPTY);
+	}
+
+	/**
+	 * Consumes the end of the current object.
+	 *
+	 * @throws JSONFormatException if the next token is not the end of an
+	 * object, or if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public void endObject() throws JSONFormatException, IOException {
+		consume(JsonToken.END_OBJECT);
+		depth--;
+	}
+
+	/**
+	 * Consumes the beginning of an array, after which the reader is
+	 * positioned at its first element or at its end.
+	 *
+	 * @throws JSONFormatException if the next token is not the beginning
+	 * of an array, or if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public void beginArray() throws JSONFormatException, IOException {
+		consume(JsonToken.BEGIN_ARRAY);
+		push(ARRAY_EMPTY);
+	}
+
+	/**
+	 * Consumes the end of the current array.
+	 *
+	 * @throws JSONFormatException if the next token is not the end of an
+	 * array, or if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public void endArray() throws JSONFormatException, IOException {
+		consume(JsonToken.END_ARRAY);
+		depth--;
+	}
+
+	/**
+	 * Consumes the next name of the current object and returns it, with
+	 * its escape sequences preserved.
+	 *
+	 * @return the next name
+	 * @throws JSONFormatException if the next token is not a name, or if
+	 * there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public String nextName() throws JSONFormatException, IOException {
+		consume(JsonToken.NAME);
+		return parser.readString();
+	}
+
+	/**
+	 * Consumes the next String value and returns it, with its escape
+	 * sequences preserved.
+	 *
+	 * @return the next String value
+	 * @throws JSONFormatException if the next token is not a String, or
+	 * if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public String nextString() throws JSONFormatException, IOException {
+		consume(JsonToken.STRING);
+		return parser.readString();
+	}
+
+	/**
+	 * Consumes the next boolean value and returns it. If the next token
+	 * is of any other kind, nothing is consumed, and the token may still
+	 * be read with the method for its kind.
+	 *
+	 * @return the next boolean value
+	 * @throws JSONFormatException if the next token is not a boolean, or
+	 * if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public boolean nextBoolean() throws JSONFormatException, IOException {
+		return (Boolean) parser.readLiteral(consume(JsonToken.BOOLEAN));
+	}
+
+	/**
+	 * Consumes the next number and returns it as a long. A number with a
+	 * fraction or an exponent, or an integer outside the range of a
+	 * long, is consumed all the same before the exception is thrown; if
+	 * the next token is not a number, nothing is consumed.
+	 *
+	 * @return the next number
+	 * @throws JSONFormatException if the next token is not a number, if
+	 * the number is not an integer within the range of a long, or if
+	 * there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public long nextLong() throws JSONFormatException, IOException {
+		Object number = parser.readLiteral(consume(JsonToken.NUMBER));
+		if (!(number instanceof Long)) {
+			throw new JSONFormatException("(" + number + ") is not a long value");
+		}
+		return (Long) number;
+	}
+
+	/**
+	 * Consumes the next number and returns it as a double. An integer
+	 * is converted, losing precision beyond 2<sup>53</sup>.
+	 *
+	 * @return the next number
+	 * @throws JSONFormatException if the next token is not a number, or
+	 * if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public double nextDouble() throws JSONFormatException, IOException {
+		return ((Number) parser.readLiteral(consume(JsonToken.NUMBER))).doubleValue();
+	}
+
+	/**
+	 * Consumes the next json object and returns it as a
+	 * <code>JsonObject</code>.
+	 *
+	 * @return the next json object
+	 * @throws JSONFormatException if the next token is not the beginning
+	 * of an object, or if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public JsonObject nextObject() throws JSONFormatException, IOException {
+		return (JsonObject) parser.readValue(consume(JsonToken.BEGIN_OBJECT));
+	}
+
+	/**
+	 * Consumes the next json array and returns it as a
+	 * <code>JsonArray</code>.
+	 *
+	 * @return the next json array
+	 * @throws JSONFormatException if the next token is not the beginning
+	 * of an array, or if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public JsonArray nextArray() throws JSONFormatException, IOException {
+		return (JsonArray) parser.readValue(consume(JsonToken.BEGIN_ARRAY));
+	}
+
+	/**
+	 * Consumes the next value, whatever its kind, and returns it as a
+	 * String, Boolean, Long, Double, <code>JsonObject</code> or
+	 * <code>JsonArray</code>.
+	 *
+	 * @return the next value
+	 * @throws JSONFormatException if the next token is not the beginning
+	 * of a value, or if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public Object nextValue() throws JSONFormatException, IOException {
+		return parser.readValue(consumeValue());
+	}
+
+	/**
+	 * Consumes the next value without building it. If the next token is
+	 * a name, the name and its value are both skipped.
+	 *
+	 * @throws JSONFormatException if the next token is neither a name nor
+	 * the beginning of a value, or if there is a JSON formatting error
+	 * @throws IOException if the input cannot be read
+	 */
+	public void skipValue() throws JSONFormatException, IOException {
+		if (peek() == JsonToken.NAME) {
+			consume(JsonToken.NAME);
+			parser.skipString();
+		}
+		parser.skipValue(consumeValue());
+	}
+
+	@Override
+	public void close() throws IOException {
+		parser.close();
+	}
+
+	private JsonToken peeked(JsonToken token, int c) {
+		peeked = token;
+		peekedChar = c;
+		return token;
+	}
+
+	private int consume(JsonToken expected) throws JSONFormatException, IOException {
+		JsonToken token = peek();
+		if (token != expected) {
+			throw new JSONFormatException("expected " + expected + " but was " + token);
+		}
+		peeked = null;
+		return peekedChar;
+	}
+
+	private int consumeValue() throws JSONFormatException, IOException {
+		JsonToken token = peek();
+		if (token == JsonToken.NAME
+				|| token == JsonToken.END_OBJECT
+				|| token == JsonToken.END_ARRAY
+				|| token == JsonToken.END_DOCUMENT) {
+			throw new JSONFormatException("expected a value but was " + token);
+		}
+		peeked = null;
+		return peekedChar;
+	}
+
+	private void push(int scope) {
+		if (depth == scopes.length) {
+			scopes = Arrays.copyOf(scopes, depth << 1);
+		}
+		scopes[depth++] = scope;
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.jsontools;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ *
+ * <p>
+ * The <code>JsonStorage</code> enum lists the kinds of storage a
+ * <code>JsonObject</code> can hold its members in. Objects of a given
+ * kind are created with <code>JsonObject.create</code>, and the
+ * <code>setObjectStorage</code> methods of <code>JsonParserContext</code>
+ * and <code>JsonPushParser</code> choose the kind of the objects they
+ * build.
+ * </p>
+ *
+ */
+public enum JsonStorage {
+
+	/**
+	 * The table of the <code>ConcurrentHashMap</code> JsonObject derives
+	 * from, which may be read and written by several threads at once.
+	 * This is the default.
+	 */
+	CONCURRENT,
+
+	/**
+	 * A <code>HashMap</code>, which is faster to build and read than a
+	 * concurrent table but must not be written while other threads use
+	 * the object.
+	 */
+	HASH,
+
+	/**
+	 * A <code>LinkedHashMap</code>, which keeps members in the order in
+	 * which they were first added, so that an object is written out with
+	 * its keys in the order they were parsed; <code>entrySet</code> and
+	 * <code>keys</code> follow that order, while <code>keySet</code> is an
+	 * unordered copy. Like <code>HASH</code>, it must not be written while
+	 * other threads use the object.
+	 */
+	ORDERED;
+
+	/**
+	 * Returns a new empty JsonObject of this kind of storage.
+	 */
+	JsonObject newObject() {
+		switch (this) {
+		case HASH:
+			return new MapJsonObject(new HashMap<String, Object>(), this);
+		case ORDERED:
+			return new MapJsonObject(new LinkedHashMap<String, Object>(), this);
+		default:
+			return new JsonObject();
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.jsontools;
+
+/**
+ *
+ * <p>
+ * The <code>JsonToken</code> enum lists the kinds of tokens reported by
+ * <code>JsonReader</code> and <code>JsonPushParser</code> while they walk
+ * through json data.
+ * </p>
+ *
+ */
+public enum JsonToken {
+
+	/** The opening '{' of a json object. */
+	BEGIN_OBJECT,
+
+	/** The closing '}' of a json object. */
+	END_OBJECT,
+
+	/** The opening '[' of a json array. */
+	BEGIN_ARRAY,
+
+	/** The closing ']' of a json array. */
+	END_ARRAY,
+
+	/** A key of a json object. */
+	NAME,
+
+	/** A String value. */
+	STRING,
+
+	/** A long or double value. */
+	NUMBER,
+
+	/** A boolean value. */
+	BOOLEAN,
+
+	/** The end of the json data. */
+	END_DOCUMENT,
+
+	/**
+	 * The input fed to a <code>JsonPushParser</code> so far ends before
+	 * the next token does. Never reported by <code>JsonReader</code>.
+	 */
+	NEED_MORE_INPUT
+
+}
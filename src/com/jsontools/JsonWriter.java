@@ -0,0 +1,167 @@
+package com.jsontools;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ *
+ * <p>
+ * The <code>JsonWriter</code> class writes a tree of json data as text
+ * in a single pass. Objects and arrays are walked with an explicit stack
+ * of iterators rather than by recursion, so trees of any depth can be
+ * written, and every node is written straight to the destination instead
+ * of into a String of its own.
+ * </p>
+ * <p>
+ * Keys and String values hold json text with its escape sequences
+ * preserved, as produced by <code>JsonParser</code>, so they are written
+ * between quotes as they are. The output has no whitespace, and members
+ * of an object appear in the iteration order of the object.
+ * </p>
+ * <p>
+ * Output to a <code>Writer</code> is gathered into a buffer which is
+ * passed on in chunks; output to any other <code>Appendable</code> is
+ * appended directly.
+ * </p>
+ *
+ */
+final class JsonWriter {
+
+	static final int BUFFER_SIZE = 8192;
+
+	private final Appendable out;
+	// non-null when output is gathered into the buffer
+	private final Writer writer;
+	private final char[] buf;
+	private int count;
+
+	private Iterator<?>[] iterators = new Iterator<?>[16];
+	private boolean[] objects = new boolean[16];
+	// whether the container at each depth has written an element
+	private boolean[] started = new boolean[16];
+	private int depth;
+
+	private JsonWriter(Appendable out) {
+		this.out = out;
+		this.writer = null;
+		this.buf = null;
+	}
+
+	private JsonWriter(Writer writer) {
+		this.out = writer;
+		this.writer = writer;
+		this.buf = new char[BUFFER_SIZE];
+	}
+
+	static void write(Object value, Appendable out) throws IOException {
+		if (out instanceof Writer) {
+			write(value, (Writer) out);
+		} else {
+			new JsonWriter(out).writeTree(value);
+		}
+	}
+
+	static void write(Object value, Writer writer) throws IOException {
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		jsonWriter.writeTree(value);
+		jsonWriter.flushBuffer();
+	}
+
+	private void writeTree(Object value) throws IOException {
+		while (true) {
+			if (value instanceof JsonObject) {
+				append('{');
+				push(((JsonObject) value).entrySet().iterator(), true);
+			} else if (value instanceof JsonArray) {
+				append('[');
+				push(((JsonArray) value).iterator(), false);
+			} else if (value instanceof String) {
+				append('"');
+				append((String) value);
+				append('"');
+			} else {
+				append(String.valueOf(value));
+			}
+			// find the next value, closing every container which is done
+			while (true) {
+				if (depth == 0) {
+					return;
+				}
+				int top = depth - 1;
+				Iterator<?> iterator = iterators[top];
+				if (iterator.hasNext()) {
+					if (started[top]) {
+						append(',');
+					}
+					started[top] = true;
+					Object next = iterator.next();
+					if (objects[top]) {
+						Map.Entry<?, ?> entry = (Map.Entry<?, ?>) next;
+						append('"');
+						append((String) entry.getKey());
+						append('"');
+						append(':');
+						value = entry.getValue();
+					} else {
+						value = next;
+					}
+					break;
+				}
+				append(objects[top] ? '}' : ']');
+				iterators[top] = null;
+				depth--;
+			}
+		}
+	}
+
+	private void push(Iterator<?> iterator, boolean object) {
+		if (depth == iterators.length) {
+			int capacity = depth << 1;
+			iterators = Arrays.copyOf(iterators, capacity);
+			objects = Arrays.copyOf(objects, capacity);
+			started = Arrays.copyOf(started, capacity);
+		}
+		iterators[depth] = iterator;
+		objects[depth] = object;
+		started[depth] = false;
+		depth++;
+	}
+
+	private void append(char c) throws IOException {
+		if (writer == null) {
+			out.append(c);
+			return;
+		}
+		if (count == buf.length) {
+			flushBuffer();
+		}
+		buf[count++] = c;
+	}
+
+	private void append(String s) throws IOException {
+		if (writer == null) {
+			out.append(s);
+			return;
+		}
+		int length = s.length();
+		int offset = 0;
+		while (offset < length) {
+			if (count == buf.length) {
+				flushBuffer();
+			}
+			int n = Math.min(buf.length - count, length - offset);
+			s.getChars(offset, offset + n, buf, count);
+			count += n;
+			offset += n;
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		writer.write(buf, 0, count);
+		count = 0;
+	}
+
+}
@@ -0,0 +1,255 @@
+package com.jsontools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ *
+ * <p>
+ * The <code>KeyPath</code> class represents a keypath understood by
+ * <code>JsonObject.seek</code>, such as
+ * <code>items[{"id":5}].tags[0]</code>, which has been split into its
+ * keys, indices and content specifications ahead of time. Seeking with
+ * a compiled keypath walks the data directly, without scanning the
+ * keypath text or parsing content specifications again, and allocates
+ * nothing when no content specification holds a nested object or array.
+ * Content specifications are looked up in the indexes of an array
+ * created with <code>JsonArray.createIndex</code>, where one applies.
+ * </p>
+ * <p>
+ * <code>JsonObject.seek(String)</code> compiles its keypaths through a
+ * small cache of recently used keypaths, so code which seeks the same
+ * handful of keypaths repeatedly gains most of the benefit without
+ * holding on to <code>KeyPath</code> objects itself. The cache is a
+ * fixed table of slots chosen by the hash of the keypath, read and
+ * written without locking, so threads seeking at the same time do not
+ * contend for it; a keypath replaces whichever keypath held its slot.
+ * </p>
+ * <p>
+ * KeyPath objects are immutable.
+ * </p>
+ *
+ */
+public final class KeyPath {
+
+	// number of slots of the cache behind JsonObject.seek(String), a power of two
+	static final int CACHE_SIZE = 256;
+
+	private static final int KEY = 0;
+	private static final int INDEX = 1;
+	private static final int CONTENT = 2;
+
+	private static final AtomicReferenceArray<KeyPath> CACHE = new AtomicReferenceArray<KeyPath>(CACHE_SIZE);
+
+	private final String source;
+	private final int[] kinds;
+	private final String[] keys;
+	private final int[] indices;
+	// each content specification, and its keys and values
+	private final JsonObject[] specs;
+	private final String[][] specKeys;
+	private final Object[][] specValues;
+
+	private KeyPath(String source, List<Object> segments) {
+		int length = segments.size();
+		this.source = source;
+		this.kinds = new int[length];
+		this.keys = new String[length];
+		this.indices = new int[length];
+		this.specs = new JsonObject[length];
+		this.specKeys = new String[length][];
+		this.specValues = new Object[length][];
+		for (int i = 0; i < length; i++) {
+			Object segment = segments.get(i);
+			if (segment instanceof String) {
+				kinds[i] = KEY;
+				keys[i] = (String) segment;
+			} else if (segment instanceof Integer) {
+				kinds[i] = INDEX;
+				indices[i] = (Integer) segment;
+			} else {
+				JsonObject spec = (JsonObject) segment;
+				kinds[i] = CONTENT;
+				specs[i] = spec;
+				specKeys[i] = spec.keySet().toArray(new String[0]);
+				specValues[i] = new Object[specKeys[i].length];
+				for (int j = 0; j < specKeys[i].length; j++) {
+					specValues[i][j] = spec.get(specKeys[i][j]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compiles the given keypath.
+	 *
+	 * @param keypath - a keypath as accepted by <code>JsonObject.seek</code>
+	 * @return the compiled keypath
+	 * @throws JSONFormatException if the brackets of the keypath are
+	 * unbalanced, or if a content specification is not a valid JSON object
+	 */
+	public static KeyPath compile(String keypath) throws JSONFormatException {
+		List<Object> segments = new ArrayList<Object>();
+		char[] keypathArray = keypath.toCharArray();
+		int length = keypathArray.length;
+		// open brackets and quotes, innermost last
+		char[] stack = new char[length];
+		int depth = 0;
+		int beginIndex = 0;
+
+		for (int currentIndex = 0; currentIndex < length; currentIndex++) {
+			char currentChar = keypathArray[currentIndex];
+			boolean quoted = depth > 0 && stack[depth - 1] == '"';
+			if (currentIndex == length - 1) {
+				// the last fragment ends with the keypath
+				segments.add(segment(keypath.substring(beginIndex)));
+			} else if (currentChar == '[' || currentChar == '.') {
+				if (quoted) {
+					continue;
+				}
+				if (currentChar == '[') {
+					stack[depth++] = currentChar;
+				}
+				if (depth > 1) {
+					// inside an index specification
+					continue;
+				}
+				segments.add(segment(keypath.substring(beginIndex, currentIndex)));
+				// an index specification keeps its opening bracket
+				beginIndex = currentChar == '[' ? currentIndex : currentIndex + 1;
+			} else if (currentChar == '{') {
+				if (!quoted) {
+					stack[depth++] = currentChar;
+				}
+			} else if (currentChar == '}' || currentChar == ']') {
+				if (quoted) {
+					continue;
+				}
+				char opener = currentChar == '}' ? '{' : '[';
+				if (depth == 0 || stack[depth - 1] != opener) {
+					throw new JSONFormatException("unexpected token '" + currentChar + "'");
+				}
+				depth--;
+			} else if (currentChar == '"') {
+				if (!quoted) {
+					stack[depth++] = currentChar;
+				} else if (keypathArray[currentIndex - 1] != '\\') {
+					depth--;
+				}
+			}
+		}
+		return new KeyPath(keypath, segments);
+	}
+
+	/**
+	 * Returns the compiled form of the given keypath from the cache,
+	 * compiling and caching it if it is not there.
+	 */
+	static KeyPath cached(String keypath) throws JSONFormatException {
+		int hash = keypath.hashCode();
+		int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+		KeyPath compiled = CACHE.get(slot);
+		if (compiled == null || !compiled.source.equals(keypath)) {
+			compiled = compile(keypath);
+			CACHE.set(slot, compiled);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Returns the key, index or content specification which the given
+	 * fragment of a keypath stands for.
+	 */
+	private static Object segment(String fragment) throws JSONFormatException {
+		int length = fragment.length();
+		if (fragment.charAt(length - 1) != ']') {
+			return fragment;
+		}
+		String specification = fragment.substring(1, length - 1);
+		// is index specified by content or by number?
+		if (fragment.charAt(length - 2) == '}') {
+			return JsonParser.parseObjectString(specification);
+		}
+		return Integer.parseInt(specification);
+	}
+
+	/**
+	 * Returns the data found by following this keypath from the given
+	 * object, as <code>JsonObject.seek</code> does.
+	 */
+	Object seek(JsonObject root) {
+		Object currentData = root;
+		for (int i = 0; i < kinds.length; i++) {
+			switch (kinds[i]) {
+			case KEY:
+				currentData = ((JsonObject) currentData).get(keys[i]);
+				break;
+			case INDEX:
+				currentData = ((JsonArray) currentData).get(indices[i]);
+				break;
+			default:
+				JsonArray currentArray = (JsonArray) currentData;
+				// an index of the array narrows down the items to test
+				List<?> items = currentArray.candidates(specs[i]);
+				if (items == null) {
+					items = currentArray;
+				}
+				for (int j = 0, size = items.size(); j < size; j++) {
+					Object item = items.get(j);
+					if (item instanceof JsonObject && matches(i, (JsonObject) item)) {
+						// first match will be used in the case where there are multiple matches
+						currentData = item;
+						break;
+					}
+				}
+				break;
+			}
+		}
+		return currentData;
+	}
+
+	/**
+	 * Returns true if the content specification of segment
+	 * <code>i</code> is a subset of the given object.
+	 */
+	private boolean matches(int i, JsonObject item) {
+		String[] keys = specKeys[i];
+		Object[] values = specValues[i];
+		for (int j = 0; j < keys.length; j++) {
+			Object thisValue = values[j];
+			Object otherValue = item.get(keys[j]);
+			if (otherValue == null || !JsonObject.sameType(thisValue, otherValue)) {
+				return false;
+			}
+			if (thisValue instanceof JsonObject) {
+				if (!((JsonObject) thisValue).subsetOf((JsonObject) otherValue)) {
+					return false;
+				}
+			} else if (thisValue instanceof JsonArray) {
+				if (!((JsonArray) thisValue).subsetOf((JsonArray) otherValue)) {
+					return false;
+				}
+			} else if (!thisValue.equals(otherValue)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof KeyPath && source.equals(((KeyPath) o).source);
+	}
+
+	@Override
+	public int hashCode() {
+		return source.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return source;
+	}
+
+}
@@ -0,0 +1,453 @@
+package com.jsontools;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongBiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ *
+ * <p>
+ * The <code>LazyJsonObject</code> class is a <code>JsonObject</code> whose
+ * values are decoded from the source json data only when they are first
+ * accessed. Constructing one walks the members of the object once,
+ * recording each key together with the range of the source holding its
+ * value; nested containers are passed over by bracket nesting alone,
+ * without building anything. A value is decoded by <code>get</code>, and
+ * so by <code>seek</code>, and then replaces its range in the map, so it
+ * is decoded at most once. Nested objects are themselves lazy.
+ * </p>
+ * <p>
+ * Operations which expose several values at once, such as iteration over
+ * <code>values()</code> or <code>entrySet()</code>, equality and the bulk
+ * operations of <code>ConcurrentHashMap</code>, first decode every value.
+ * Writes decode the value they replace or remove. A lazy object keeps
+ * its source data reachable until all of its values have been decoded.
+ * </p>
+ * <p>
+ * Because the contents of nested values are only checked when they are
+ * decoded, a formatting error inside them is thrown from the access
+ * which decodes them, as an <code>IllegalStateException</code> caused by
+ * the <code>JSONFormatException</code>.
+ * </p>
+ *
+ */
+final class LazyJsonObject extends JsonObject {
+
+	private static final long serialVersionUID = -3364870045227313071L;
+
+	// exactly one of the two holds the source data
+	private final char[] chars;
+	private final byte[] bytes;
+	private volatile boolean inflated;
+
+	LazyJsonObject(char[] data, int offset, int length) throws JSONFormatException {
+		this(data, null, offset, offset + length, true);
+	}
+
+	LazyJsonObject(byte[] data, int offset, int length) throws JSONFormatException {
+		this(null, data, offset, offset + length, true);
+	}
+
+	private LazyJsonObject(char[] chars, byte[] bytes, int from, int to, boolean root) throws JSONFormatException {
+		this.chars = chars;
+		this.bytes = bytes;
+		try {
+			index(from, to, root);
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Records the key and value range of every member of the object
+	 * which occupies <code>[from, to)</code> of the source.
+	 */
+	private void index(int from, int to, boolean root) throws JSONFormatException, IOException {
+		AbstractJsonParser parser = open(from, to);
+		// CharJsonParser reports positions within the array, and
+		// ByteJsonParser within the range
+		int base = chars != null ? 0 : from;
+		int c = parser.nextToken();
+		if (c != '{') {
+			throw new JSONFormatException("json object does not begin with '{'");
+		}
+		c = parser.nextToken();
+		if (c != '}') {
+			while (true) {
+				if (c != '"') {
+					throw parser.unexpected(c);
+				}
+				String key = parser.readKey();
+				if ((c = parser.nextToken()) != ':') {
+					throw parser.unexpected(c);
+				}
+				c = parser.nextToken();
+				int start = base + (int) parser.position() - 1;
+				parser.skipValue(c);
+				putUnchecked(key, new Range(start, base + (int) parser.position()));
+				c = parser.nextToken();
+				if (c == '}') {
+					break;
+				}
+				if (c != ',') {
+					throw parser.unexpected(c);
+				}
+				c = parser.nextToken();
+			}
+		}
+		if (root) {
+			parser.expectEnd();
+		}
+	}
+
+	private AbstractJsonParser open(int from, int to) {
+		if (chars != null) {
+			return new CharJsonParser(chars, from, to - from);
+		}
+		return new ByteJsonParser(bytes, from, to - from);
+	}
+
+	private Object decode(String key, Range range) {
+		try {
+			if (range.first(this) == '{') {
+				return new LazyJsonObject(chars, bytes, range.start, range.end, false);
+			}
+			AbstractJsonParser parser = open(range.start, range.end);
+			return parser.readValue(parser.nextToken());
+		} catch (JSONFormatException ex) {
+			throw new IllegalStateException("value of key \"" + key + "\" is malformed", ex);
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@Override
+	public Object get(Object key) {
+		Object value = super.get(key);
+		if (value instanceof Range) {
+			Object decoded = decode((String) key, (Range) value);
+			if (replace((String) key, value, decoded)) {
+				return decoded;
+			}
+			// another thread decoded or replaced the value first
+			return super.get(key);
+		}
+		return value;
+	}
+
+	/**
+	 * Decodes every value which has not been accessed yet.
+	 */
+	private void inflate() {
+		if (!inflated) {
+			for (String key : keySet()) {
+				get(key);
+			}
+			inflated = true;
+		}
+	}
+
+	// writes decode the value they replace
+
+	@Override
+	public Object put(String key, Object value) {
+		get(key);
+		return super.put(key, value);
+	}
+
+	@Override
+	public Object putIfAbsent(String key, Object value) {
+		get(key);
+		return super.putIfAbsent(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		get(key);
+		return super.remove(key);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		get(key);
+		return super.remove(key, value);
+	}
+
+	@Override
+	public Object replace(String key, Object value) {
+		get(key);
+		return super.replace(key, value);
+	}
+
+	@Override
+	public Object compute(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+		get(key);
+		return super.compute(key, remappingFunction);
+	}
+
+	@Override
+	public Object computeIfAbsent(String key, Function<? super String, ? extends Object> mappingFunction) {
+		get(key);
+		return super.computeIfAbsent(key, mappingFunction);
+	}
+
+	@Override
+	public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+		get(key);
+		return super.computeIfPresent(key, remappingFunction);
+	}
+
+	@Override
+	public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+		get(key);
+		return super.merge(key, value, remappingFunction);
+	}
+
+	// reads of several values decode them all
+
+	@Override
+	public void replaceAll(BiFunction<? super String, ? super Object, ? extends Object> function) {
+		inflate();
+		super.replaceAll(function);
+	}
+
+	@Override
+	public Collection<Object> values() {
+		inflate();
+		return super.values();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		inflate();
+		return super.entrySet();
+	}
+
+	@Override
+	public Enumeration<Object> elements() {
+		inflate();
+		return super.elements();
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		inflate();
+		return super.containsValue(value);
+	}
+
+	@Override
+	public boolean contains(Object value) {
+		inflate();
+		return super.contains(value);
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super String, ? super Object> action) {
+		inflate();
+		super.forEach(action);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		inflate();
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		inflate();
+		return super.hashCode();
+	}
+
+	@Override
+	public void forEach(long parallelismThreshold, BiConsumer<? super String, ? super Object> action) {
+		inflate();
+		super.forEach(parallelismThreshold, action);
+	}
+
+	@Override
+	public <U> void forEach(long parallelismThreshold, BiFunction<? super String, ? super Object, ? extends U> transformer,
+			Consumer<? super U> action) {
+		inflate();
+		super.forEach(parallelismThreshold, transformer, action);
+	}
+
+	@Override
+	public <U> U search(long parallelismThreshold, BiFunction<? super String, ? super Object, ? extends U> searchFunction) {
+		inflate();
+		return super.search(parallelismThreshold, searchFunction);
+	}
+
+	@Override
+	public <U> U reduce(long parallelismThreshold, BiFunction<? super String, ? super Object, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		inflate();
+		return super.reduce(parallelismThreshold, transformer, reducer);
+	}
+
+	@Override
+	public double reduceToDouble(long parallelismThreshold, ToDoubleBiFunction<? super String, ? super Object> transformer,
+			double basis, DoubleBinaryOperator reducer) {
+		inflate();
+		return super.reduceToDouble(parallelismThreshold, transformer, basis, reducer);
+	}
+
+	@Override
+	public long reduceToLong(long parallelismThreshold, ToLongBiFunction<? super String, ? super Object> transformer,
+			long basis, LongBinaryOperator reducer) {
+		inflate();
+		return super.reduceToLong(parallelismThreshold, transformer, basis, reducer);
+	}
+
+	@Override
+	public int reduceToInt(long parallelismThreshold, ToIntBiFunction<? super String, ? super Object> transformer,
+			int basis, IntBinaryOperator reducer) {
+		inflate();
+		return super.reduceToInt(parallelismThreshold, transformer, basis, reducer);
+	}
+
+	@Override
+	public void forEachValue(long parallelismThreshold, Consumer<? super Object> action) {
+		inflate();
+		super.forEachValue(parallelismThreshold, action);
+	}
+
+	@Override
+	public <U> void forEachValue(long parallelismThreshold, Function<? super Object, ? extends U> transformer,
+			Consumer<? super U> action) {
+		inflate();
+		super.forEachValue(parallelismThreshold, transformer, action);
+	}
+
+	@Override
+	public <U> U searchValues(long parallelismThreshold, Function<? super Object, ? extends U> searchFunction) {
+		inflate();
+		return super.searchValues(parallelismThreshold, searchFunction);
+	}
+
+	@Override
+	public Object reduceValues(long parallelismThreshold, BiFunction<? super Object, ? super Object, ? extends Object> reducer) {
+		inflate();
+		return super.reduceValues(parallelismThreshold, reducer);
+	}
+
+	@Override
+	public <U> U reduceValues(long parallelismThreshold, Function<? super Object, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		inflate();
+		return super.reduceValues(parallelismThreshold, transformer, reducer);
+	}
+
+	@Override
+	public double reduceValuesToDouble(long parallelismThreshold, ToDoubleFunction<? super Object> transformer,
+			double basis, DoubleBinaryOperator reducer) {
+		inflate();
+		return super.reduceValuesToDouble(parallelismThreshold, transformer, basis, reducer);
+	}
+
+	@Override
+	public long reduceValuesToLong(long parallelismThreshold, ToLongFunction<? super Object> transformer,
+			long basis, LongBinaryOperator reducer) {
+		inflate();
+		return super.reduceValuesToLong(parallelismThreshold, transformer, basis, reducer);
+	}
+
+	@Override
+	public int reduceValuesToInt(long parallelismThreshold, ToIntFunction<? super Object> transformer,
+			int basis, IntBinaryOperator reducer) {
+		inflate();
+		return super.reduceValuesToInt(parallelismThreshold, transformer, basis, reducer);
+	}
+
+	@Override
+	public void forEachEntry(long parallelismThreshold, Consumer<? super Map.Entry<String, Object>> action) {
+		inflate();
+		super.forEachEntry(parallelismThreshold, action);
+	}
+
+	@Override
+	public <U> void forEachEntry(long parallelismThreshold, Function<Map.Entry<String, Object>, ? extends U> transformer,
+			Consumer<? super U> action) {
+		inflate();
+		super.forEachEntry(parallelismThreshold, transformer, action);
+	}
+
+	@Override
+	public <U> U searchEntries(long parallelismThreshold, Function<Map.Entry<String, Object>, ? extends U> searchFunction) {
+		inflate();
+		return super.searchEntries(parallelismThreshold, searchFunction);
+	}
+
+	@Override
+	public Map.Entry<String, Object> reduceEntries(long parallelismThreshold,
+			BiFunction<Map.Entry<String, Object>, Map.Entry<String, Object>, ? extends Map.Entry<String, Object>> reducer) {
+		inflate();
+		return super.reduceEntries(parallelismThreshold, reducer);
+	}
+
+	@Override
+	public <U> U reduceEntries(long parallelismThreshold, Function<Map.Entry<String, Object>, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		inflate();
+		return super.reduceEntries(parallelismThreshold, transformer, reducer);
+	}
+
+	@Override
+	public double reduceEntriesToDouble(long parallelismThreshold, ToDoubleFunction<Map.Entry<String, Object>> transformer,
+			double basis, DoubleBinaryOperator reducer) {
+		inflate();
+		return super.reduceEntriesToDouble(parallelismThreshold, transformer, basis, reducer);
+	}
+
+	@Override
+	public long reduceEntriesToLong(long parallelismThreshold, ToLongFunction<Map.Entry<String, Object>> transformer,
+			long basis, LongBinaryOperator reducer) {
+		inflate();
+		return super.reduceEntriesToLong(parallelismThreshold, transformer, basis, reducer);
+	}
+
+	@Override
+	public int reduceEntriesToInt(long parallelismThreshold, ToIntFunction<Map.Entry<String, Object>> transformer,
+			int basis, IntBinaryOperator reducer) {
+		inflate();
+		return super.reduceEntriesToInt(parallelismThreshold, transformer, basis, reducer);
+	}
+
+	/**
+	 * The range of the source holding a value which has not been decoded.
+	 */
+	private static final class Range {
+
+		final int start;
+		final int end;
+
+		Range(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		int first(LazyJsonObject owner) {
+			return owner.chars != null ? owner.chars[start] : owner.bytes[start];
+		}
+
+	}
+
+}
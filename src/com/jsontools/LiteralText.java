@@ -0,0 +1,69 @@
+package com.jsontools;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * <p>
+ * The <code>LiteralText</code> class is a reusable view of the text of a
+ * literal in the buffer of a parser, so that literals can be converted
+ * without first being copied into a String. Each parser holds one view
+ * and points it at every literal it reads; a view is only valid until
+ * the parser moves on.
+ * </p>
+ *
+ */
+final class LiteralText implements CharSequence {
+
+	private char[] chars;
+	private byte[] bytes;
+	private int start;
+	private int length;
+
+	LiteralText set(char[] chars, int start, int length) {
+		this.chars = chars;
+		this.bytes = null;
+		this.start = start;
+		this.length = length;
+		return this;
+	}
+
+	/**
+	 * Points the view at a range of bytes, each read as one Latin-1
+	 * character.
+	 */
+	LiteralText set(byte[] bytes, int start, int length) {
+		this.chars = null;
+		this.bytes = bytes;
+		this.start = start;
+		this.length = length;
+		return this;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (chars != null) {
+			return chars[start + index];
+		}
+		return (char) (bytes[start + index] & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return toString().substring(start, end);
+	}
+
+	@Override
+	public String toString() {
+		if (chars != null) {
+			return new String(chars, start, length);
+		}
+		return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+	}
+
+}
@@ -0,0 +1,231 @@
+package com.jsontools;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ *
+ * <p>
+ * The <code>MapJsonObject</code> class is a <code>JsonObject</code> which
+ * holds its members in a <code>HashMap</code> or
+ * <code>LinkedHashMap</code> of its own, for the <code>HASH</code> and
+ * <code>ORDERED</code> kinds of <code>JsonStorage</code>.
+ * <code>put</code>, <code>putIfAbsent</code>, <code>replace</code>,
+ * <code>putAll</code> and <code>setValue</code> on entries ignore values
+ * which are not json values, as <code>JsonObject.put</code> does; the
+ * <code>compute</code> and <code>merge</code> methods, as on
+ * JsonObject, are not checked.
+ * </p>
+ * <p>
+ * MapJsonObject objects are not thread-safe.
+ * </p>
+ *
+ */
+final class MapJsonObject extends DetachedJsonObject {
+
+	private static final long serialVersionUID = -7482910356124837745L;
+
+	private final Map<String, Object> map;
+	private final JsonStorage storage;
+
+	MapJsonObject(Map<String, Object> map, JsonStorage storage) {
+		this.map = map;
+		this.storage = storage;
+	}
+
+	@Override
+	JsonStorage storage() {
+		return storage;
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (key instanceof String) {
+			return map.get(key);
+		}
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String && map.containsKey(key);
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		Set<Map.Entry<String, Object>> entries = map.entrySet();
+		return new AbstractSet<Map.Entry<String, Object>>() {
+
+			@Override
+			public Iterator<Map.Entry<String, Object>> iterator() {
+				Iterator<Map.Entry<String, Object>> iterator = entries.iterator();
+				return new Iterator<Map.Entry<String, Object>>() {
+
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public Map.Entry<String, Object> next() {
+						return new CheckedEntry(iterator.next());
+					}
+
+					@Override
+					public void remove() {
+						iterator.remove();
+					}
+
+				};
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return entries.contains(o);
+			}
+
+			@Override
+			public boolean remove(Object o) {
+				return entries.remove(o);
+			}
+
+			@Override
+			public int size() {
+				return entries.size();
+			}
+
+			@Override
+			public void clear() {
+				entries.clear();
+			}
+
+		};
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		if (isValue(value)) {
+			return map.put(key, value);
+		}
+		return null;
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Object> m) {
+		for (Map.Entry<? extends String, ? extends Object> entry : m.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public Object putIfAbsent(String key, Object value) {
+		Object current = get(key);
+		return current != null ? current : put(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		return map.remove(key);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		return value != null && map.remove(key, value);
+	}
+
+	@Override
+	public Object replace(String key, Object value) {
+		return isValue(value) ? map.replace(key, value) : null;
+	}
+
+	@Override
+	public boolean replace(String key, Object oldValue, Object newValue) {
+		return isValue(newValue) && map.replace(key, oldValue, newValue);
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super String, ? super Object, ? extends Object> function) {
+		map.replaceAll(function);
+	}
+
+	@Override
+	public Object compute(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+		return map.compute(key, remappingFunction);
+	}
+
+	@Override
+	public Object computeIfAbsent(String key, Function<? super String, ? extends Object> mappingFunction) {
+		return map.computeIfAbsent(key, mappingFunction);
+	}
+
+	@Override
+	public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+		return map.computeIfPresent(key, remappingFunction);
+	}
+
+	@Override
+	public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+		return map.merge(key, value, remappingFunction);
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+
+	/**
+	 * An entry of the map whose value is checked when it is set.
+	 */
+	private static final class CheckedEntry implements Map.Entry<String, Object> {
+
+		private final Map.Entry<String, Object> entry;
+
+		CheckedEntry(Map.Entry<String, Object> entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public String getKey() {
+			return entry.getKey();
+		}
+
+		@Override
+		public Object getValue() {
+			return entry.getValue();
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			return isValue(value) ? entry.setValue(value) : null;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return entry.equals(o);
+		}
+
+		@Override
+		public int hashCode() {
+			return entry.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return entry.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,302 @@
+package com.jsontools;
+
+import java.math.BigInteger;
+
+/**
+ *
+ * <p>
+ * The <code>NumberScanner</code> class converts the text of a number to
+ * a Long or Double in a single pass, without throwing an exception for
+ * text which is not a Long. The text is classified as an integer or a
+ * decimal while its digits are gathered into a 64-bit significand, and
+ * decimals are converted by one of two exact methods:
+ * </p>
+ * <ul>
+ * <li>Clinger's fast path, when the significand and the power of ten
+ * are both exactly representable as doubles, so that one correctly
+ * rounded multiplication or division gives the answer; otherwise</li>
+ * <li>the Eisel-Lemire algorithm, which multiplies the significand by a
+ * 128-bit approximation of the power of ten and rounds the product,
+ * which is exact for significands of at most 19 digits.</li>
+ * </ul>
+ * <p>
+ * Text with more than 19 significant digits is passed to
+ * <code>Double.parseDouble</code>, which is also correct but slower.
+ * </p>
+ *
+ */
+final class NumberScanner {
+
+	// largest number of decimal digits which always fit in 64 bits
+	private static final int MAX_DIGITS = 19;
+	// largest power of ten which is exactly representable as a double
+	private static final int MAX_EXACT_POWER = 22;
+	private static final long MAX_EXACT_SIGNIFICAND = 1L << 53;
+	// beyond this, an exponent is saturated as it is read
+	private static final int MAX_EXPONENT = 100000;
+
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+	};
+
+	private NumberScanner() {
+	}
+
+	/**
+	 * Returns the value of the given text as a Long if it is an integer
+	 * within the range of a long, as a Double if it is any other number,
+	 * or null if it is not of the form
+	 * <code>[+-]digits[.digits][(e|E)[+-]digits]</code>, where either
+	 * group of digits around the point may be empty but not both.
+	 */
+	static Object parse(CharSequence s) {
+		int length = s.length();
+		int i = 0;
+		boolean negative = false;
+		if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			negative = s.charAt(i) == '-';
+			i++;
+		}
+
+		// significant digits, with the power of ten they are scaled by
+		long significand = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean truncated = false;
+
+		int start = i;
+		char c;
+		while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+			if (digits < MAX_DIGITS) {
+				significand = significand * 10 + (c - '0');
+				if (significand != 0) {
+					digits++;
+				}
+			} else {
+				scale++;
+				truncated |= c != '0';
+			}
+			i++;
+		}
+		int count = i - start;
+		boolean integer = true;
+		if (i < length && s.charAt(i) == '.') {
+			integer = false;
+			start = ++i;
+			while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+				if (digits < MAX_DIGITS) {
+					significand = significand * 10 + (c - '0');
+					if (significand != 0) {
+						digits++;
+					}
+					scale--;
+				} else {
+					truncated |= c != '0';
+				}
+				i++;
+			}
+			count += i - start;
+		}
+		if (count == 0) {
+			return null;
+		}
+		if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+			integer = false;
+			i++;
+			boolean negativeExponent = false;
+			if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+				negativeExponent = s.charAt(i) == '-';
+				i++;
+			}
+			start = i;
+			int exponent = 0;
+			while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+				if (exponent < MAX_EXPONENT) {
+					exponent = exponent * 10 + (c - '0');
+				}
+				i++;
+			}
+			if (i == start) {
+				return null;
+			}
+			scale += negativeExponent ? -exponent : exponent;
+		}
+		if (i != length) {
+			return null;
+		}
+
+		if (integer && scale == 0) {
+			// the significand holds every digit, as an unsigned value
+			if (significand >= 0) {
+				return negative ? -significand : significand;
+			} else if (negative && significand == Long.MIN_VALUE) {
+				return significand;
+			}
+			// out of the range of a long, so read as a Double
+		}
+		if (significand == 0) {
+			return negative ? -0.0 : 0.0;
+		}
+		if (truncated) {
+			// the text is known to be valid, so this cannot throw
+			return Double.parseDouble(s.toString());
+		}
+		double value;
+		if (significand >= 0 && significand <= MAX_EXACT_SIGNIFICAND
+				&& scale >= -MAX_EXACT_POWER && scale <= MAX_EXACT_POWER) {
+			value = scale < 0 ? significand / POWERS_OF_TEN[-scale] : significand * POWERS_OF_TEN[scale];
+		} else {
+			value = Double.longBitsToDouble(eiselLemire(significand, scale));
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Returns true if the given text is of the form accepted by
+	 * <code>parse</code>, without converting it.
+	 */
+	static boolean isNumber(String s) {
+		int length = s.length();
+		int i = 0;
+		if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			i++;
+		}
+		int start = i;
+		i = skipDigits(s, i);
+		int count = i - start;
+		if (i < length && s.charAt(i) == '.') {
+			start = ++i;
+			i = skipDigits(s, i);
+			count += i - start;
+		}
+		if (count == 0) {
+			return false;
+		}
+		if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+			i++;
+			if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+				i++;
+			}
+			start = i;
+			i = skipDigits(s, i);
+			if (i == start) {
+				return false;
+			}
+		}
+		return i == length;
+	}
+
+	private static int skipDigits(String s, int i) {
+		char c;
+		while (i < s.length() && (c = s.charAt(i)) >= '0' && c <= '9') {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the bits of the double nearest to
+	 * <code>w * 10<sup>q</sup></code>, where <code>w</code> is a nonzero
+	 * unsigned value of at most 19 digits.
+	 */
+	private static long eiselLemire(long w, int q) {
+		if (q < Powers.SMALLEST) {
+			return 0L;
+		}
+		if (q > Powers.LARGEST) {
+			return Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+		}
+		int leadingZeros = Long.numberOfLeadingZeros(w);
+		w <<= leadingZeros;
+
+		// the top bits of w times the power of five, refined with the
+		// lower half of the power only when they might be inexact
+		int index = 2 * (q - Powers.SMALLEST);
+		long high = unsignedMultiplyHigh(w, Powers.TABLE[index]);
+		long low = w * Powers.TABLE[index];
+		long precisionMask = 0xFFFFFFFFFFFFFFFFL >>> 55;
+		if ((high & precisionMask) == precisionMask) {
+			long secondHigh = unsignedMultiplyHigh(w, Powers.TABLE[index + 1]);
+			low += secondHigh;
+			if (Long.compareUnsigned(secondHigh, low) > 0) {
+				high++;
+			}
+		}
+
+		int upperBit = (int) (high >>> 63);
+		long mantissa = high >>> (upperBit + 9);
+		int power2 = ((217706 * q) >> 16) + 63 + upperBit - leadingZeros + 1023;
+		if (power2 <= 0) {
+			// subnormal
+			if (-power2 + 1 >= 64) {
+				return 0L;
+			}
+			mantissa >>>= -power2 + 1;
+			mantissa += mantissa & 1;
+			mantissa >>>= 1;
+			power2 = mantissa < (1L << 52) ? 0 : 1;
+			return (long) power2 << 52 | mantissa;
+		}
+		if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1) {
+			// exactly halfway between two doubles, so round to even
+			if (mantissa << (upperBit + 9) == high) {
+				mantissa &= ~1L;
+			}
+		}
+		mantissa += mantissa & 1;
+		mantissa >>>= 1;
+		if (mantissa >= (2L << 52)) {
+			mantissa = 1L << 52;
+			power2++;
+		}
+		mantissa &= ~(1L << 52);
+		if (power2 >= 0x7FF) {
+			return Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+		}
+		return (long) power2 << 52 | mantissa;
+	}
+
+	private static long unsignedMultiplyHigh(long x, long y) {
+		return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+	}
+
+	/**
+	 * The powers of five from 5<sup>-342</sup> to 5<sup>308</sup>, each
+	 * scaled by a power of two to 128 bits and stored as its high and low
+	 * halves. Negative powers are rounded up and positive powers down, as
+	 * the Eisel-Lemire algorithm requires. The table is built the first
+	 * time a number needs it.
+	 */
+	private static final class Powers {
+
+		static final int SMALLEST = -342;
+		static final int LARGEST = 308;
+
+		static final long[] TABLE = new long[2 * (LARGEST - SMALLEST + 1)];
+
+		static {
+			BigInteger five = BigInteger.valueOf(5);
+			for (int q = SMALLEST; q <= LARGEST; q++) {
+				BigInteger c;
+				if (q < 0) {
+					BigInteger power = five.pow(-q);
+					int z = power.bitLength();
+					int b = q >= -27 ? z + 127 : 2 * z + 128;
+					c = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+					if (c.bitLength() > 128) {
+						c = c.shiftRight(c.bitLength() - 128);
+					}
+				} else {
+					c = five.pow(q);
+					int bits = c.bitLength();
+					c = bits < 128 ? c.shiftLeft(128 - bits) : c.shiftRight(bits - 128);
+				}
+				TABLE[2 * (q - SMALLEST)] = c.shiftRight(64).longValue();
+				TABLE[2 * (q - SMALLEST) + 1] = c.longValue();
+			}
+		}
+
+	}
+
+}
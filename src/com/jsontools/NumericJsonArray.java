@@ -0,0 +1,750 @@
+package com.jsontools;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
+/**
+ *
+ * <p>
+ * The <code>NumericJsonArray</code> class is a <code>JsonArray</code>
+ * which holds its elements in a <code>long[]</code> while they are all
+ * Long values, or in a <code>double[]</code> while they are all Double
+ * values, instead of as boxed objects. Elements are boxed only as they
+ * are read through the methods of <code>List</code>; the primitive
+ * accessors of <code>JsonArray</code> read the arrays directly.
+ * </p>
+ * <p>
+ * An element which does not match the kind of the array, and any
+ * modification which is not worth doing on the primitives, such as
+ * <code>subList</code> or <code>removeIf</code>, first promotes the
+ * array to the boxed storage of <code>JsonArray</code>, after which it
+ * behaves as a plain JsonArray. Clearing the array returns it to
+ * primitive storage.
+ * </p>
+ *
+ */
+final class NumericJsonArray extends JsonArray {
+
+	private static final long serialVersionUID = -3325810623405877391L;
+
+	private static final int EMPTY = 0;
+	private static final int LONGS = 1;
+	private static final int DOUBLES = 2;
+	private static final int BOXED = 3;
+
+	private static final int DEFAULT_CAPACITY = 10;
+
+	private int kind;
+	private long[] longs;
+	private double[] doubles;
+	private int count;
+	// capacity requested before the kind of the elements was known
+	private int capacity = DEFAULT_CAPACITY;
+
+	NumericJsonArray() {
+		super();
+	}
+
+	NumericJsonArray(long[] values) {
+		super();
+		if (values.length > 0) {
+			kind = LONGS;
+			longs = values;
+			count = values.length;
+		}
+	}
+
+	NumericJsonArray(double[] values) {
+		super();
+		if (values.length > 0) {
+			kind = DOUBLES;
+			doubles = values;
+			count = values.length;
+		}
+	}
+
+	/**
+	 * Returns true if the given value can be added without promoting
+	 * this array to boxed storage.
+	 */
+	boolean accepts(Object value) {
+		return fit(kind, value) != BOXED;
+	}
+
+	/**
+	 * Returns true if the elements are held as primitives, so none of
+	 * them is an object or array.
+	 */
+	boolean isPrimitive() {
+		return kind != BOXED;
+	}
+
+	/**
+	 * Appends the elements of the given array if both are held as
+	 * primitives of the same kind, or if it is empty. Returns false,
+	 * changing nothing, otherwise.
+	 */
+	boolean appendAll(JsonArray other) {
+		if (other.isEmpty()) {
+			return true;
+		}
+		if (!(other instanceof NumericJsonArray)) {
+			return false;
+		}
+		NumericJsonArray numbers = (NumericJsonArray) other;
+		if (numbers.kind == BOXED || (kind != EMPTY && kind != numbers.kind)) {
+			return false;
+		}
+		start(numbers.kind);
+		ensureCapacity(count + numbers.count);
+		if (kind == LONGS) {
+			System.arraycopy(numbers.longs, 0, longs, count, numbers.count);
+		} else {
+			System.arraycopy(numbers.doubles, 0, doubles, count, numbers.count);
+		}
+		count += numbers.count;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Returns the kind of array which can hold the elements of an array
+	 * of the given kind together with the given value.
+	 */
+	private static int fit(int kind, Object value) {
+		if (value instanceof Long) {
+			return kind == EMPTY || kind == LONGS ? LONGS : BOXED;
+		} else if (value instanceof Double) {
+			return kind == EMPTY || kind == DOUBLES ? DOUBLES : BOXED;
+		}
+		return BOXED;
+	}
+
+	/**
+	 * Allocates the primitive storage for the given kind of elements if
+	 * this array is empty.
+	 */
+	private void start(int kind) {
+		if (this.kind == EMPTY) {
+			this.kind = kind;
+			if (kind == LONGS) {
+				longs = new long[capacity];
+			} else {
+				doubles = new double[capacity];
+			}
+		}
+	}
+
+	/**
+	 * Moves the elements to the boxed storage of <code>JsonArray</code>.
+	 */
+	private void box() {
+		if (kind == BOXED) {
+			return;
+		}
+		Object[] boxed = toArray();
+		kind = BOXED;
+		longs = null;
+		doubles = null;
+		count = 0;
+		// moving the elements is not a modification of the list
+		int expectedModCount = modCount;
+		super.addAll(Arrays.asList(boxed));
+		modCount = expectedModCount;
+		invalidateIndexes();
+	}
+
+	private Object boxed(int index) {
+		if (kind == LONGS) {
+			return longs[index];
+		}
+		return doubles[index];
+	}
+
+	private void append(Object value) {
+		start(fit(kind, value));
+		ensureCapacity(count + 1);
+		if (kind == LONGS) {
+			longs[count++] = (Long) value;
+		} else {
+			doubles[count++] = (Double) value;
+		}
+	}
+
+	private static boolean isValue(Object value) {
+		return value instanceof String
+				|| value instanceof Boolean
+				|| value instanceof Long
+				|| value instanceof Double
+				|| value instanceof JsonNumber
+				|| value instanceof JsonObject
+				|| value instanceof JsonArray;
+	}
+
+	@Override
+	public int size() {
+		return kind == BOXED ? super.size() : count;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public Object get(int index) {
+		if (kind == BOXED) {
+			return super.get(index);
+		}
+		Objects.checkIndex(index, count);
+		return boxed(index);
+	}
+
+	@Override
+	public long getLong(int index) {
+		if (kind != LONGS) {
+			return super.getLong(index);
+		}
+		Objects.checkIndex(index, count);
+		return longs[index];
+	}
+
+	@Override
+	public double getDouble(int index) {
+		if (kind == DOUBLES) {
+			Objects.checkIndex(index, count);
+			return doubles[index];
+		} else if (kind == LONGS) {
+			Objects.checkIndex(index, count);
+			return longs[index];
+		}
+		return super.getDouble(index);
+	}
+
+	@Override
+	public long[] toLongArray() {
+		if (kind == LONGS) {
+			return Arrays.copyOf(longs, count);
+		}
+		return super.toLongArray();
+	}
+
+	@Override
+	public double[] toDoubleArray() {
+		if (kind == DOUBLES) {
+			return Arrays.copyOf(doubles, count);
+		} else if (kind == LONGS) {
+			double[] values = new double[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = longs[i];
+			}
+			return values;
+		}
+		return super.toDoubleArray();
+	}
+
+	@Override
+	public LongStream longStream() {
+		if (kind == LONGS) {
+			return Arrays.stream(longs, 0, count);
+		}
+		return super.longStream();
+	}
+
+	@Override
+	public DoubleStream doubleStream() {
+		if (kind == DOUBLES) {
+			return Arrays.stream(doubles, 0, count);
+		} else if (kind == LONGS) {
+			return Arrays.stream(longs, 0, count).asDoubleStream();
+		}
+		return super.doubleStream();
+	}
+
+	@Override
+	public boolean add(Object e) {
+		if (kind != BOXED) {
+			if (accepts(e)) {
+				append(e);
+				modCount++;
+				return true;
+			}
+			if (!isValue(e)) {
+				return false;
+			}
+			box();
+		}
+		return super.add(e);
+	}
+
+	@Override
+	public void add(int index, Object element) {
+		if (kind != BOXED) {
+			if (accepts(element)) {
+				if (index < 0 || index > count) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+				}
+				append(element);
+				Object array = kind == LONGS ? longs : doubles;
+				System.arraycopy(array, index, array, index + 1, count - 1 - index);
+				if (kind == LONGS) {
+					longs[index] = (Long) element;
+				} else {
+					doubles[index] = (Double) element;
+				}
+				modCount++;
+				return;
+			}
+			if (!isValue(element)) {
+				return;
+			}
+			box();
+		}
+		super.add(index, element);
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Object> e) {
+		if (kind != BOXED) {
+			if (e instanceof JsonArray && appendAll((JsonArray) e)) {
+				return !e.isEmpty();
+			}
+			Object[] values = e.toArray();
+			int fit = kind;
+			for (Object value : values) {
+				fit = fit(fit, value);
+			}
+			if (fit != BOXED) {
+				for (Object value : values) {
+					append(value);
+				}
+				modCount++;
+				return values.length != 0;
+			}
+			box();
+		}
+		return super.addAll(e);
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends Object> e) {
+		box();
+		return super.addAll(index, e);
+	}
+
+	@Override
+	public Object set(int index, Object element) {
+		if (kind != BOXED) {
+			Objects.checkIndex(index, count);
+			if (fit(kind, element) == kind) {
+				Object previous = boxed(index);
+				if (kind == LONGS) {
+					longs[index] = (Long) element;
+				} else {
+					doubles[index] = (Double) element;
+				}
+				return previous;
+			}
+			box();
+		}
+		return super.set(index, element);
+	}
+
+	@Override
+	public Object remove(int index) {
+		if (kind == BOXED) {
+			return super.remove(index);
+		}
+		Objects.checkIndex(index, count);
+		Object removed = boxed(index);
+		Object array = kind == LONGS ? longs : doubles;
+		System.arraycopy(array, index + 1, array, index, count - 1 - index);
+		count--;
+		modCount++;
+		return removed;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (kind == BOXED) {
+			return super.remove(o);
+		}
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		if (kind == BOXED) {
+			super.clear();
+		} else {
+			modCount++;
+		}
+		kind = EMPTY;
+		longs = null;
+		doubles = null;
+		count = 0;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if (kind == BOXED) {
+			return super.indexOf(o);
+		}
+		for (int i = 0; i < count; i++) {
+			if (matches(i, o)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		if (kind == BOXED) {
+			return super.lastIndexOf(o);
+		}
+		for (int i = count - 1; i >= 0; i--) {
+			if (matches(i, o)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns true if the primitive at the given index equals the given
+	 * object, as its boxed form would.
+	 */
+	private boolean matches(int index, Object o) {
+		if (kind == LONGS) {
+			return o instanceof Long && longs[index] == (Long) o;
+		}
+		return o instanceof Double
+				&& Double.doubleToLongBits(doubles[index]) == Double.doubleToLongBits((Double) o);
+	}
+
+	@Override
+	public Object[] toArray() {
+		if (kind == BOXED) {
+			return super.toArray();
+		}
+		Object[] values = new Object[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = boxed(i);
+		}
+		return values;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T[] toArray(T[] a) {
+		if (kind == BOXED) {
+			return super.toArray(a);
+		}
+		Object[] values = toArray();
+		if (a.length < values.length) {
+			return (T[]) Arrays.copyOf(values, values.length, a.getClass());
+		}
+		System.arraycopy(values, 0, a, 0, values.length);
+		if (a.length > values.length) {
+			a[values.length] = null;
+		}
+		return a;
+	}
+
+	@Override
+	public void ensureCapacity(int minCapacity) {
+		if (kind == BOXED) {
+			super.ensureCapacity(minCapacity);
+		} else if (kind == EMPTY) {
+			capacity = Math.max(capacity, minCapacity);
+		} else {
+			int length = kind == LONGS ? longs.length : doubles.length;
+			if (minCapacity > length) {
+				int newLength = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(minCapacity, length + (length >> 1) + 1L));
+				if (kind == LONGS) {
+					longs = Arrays.copyOf(longs, newLength);
+				} else {
+					doubles = Arrays.copyOf(doubles, newLength);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void trimToSize() {
+		if (kind == BOXED) {
+			super.trimToSize();
+		} else if (kind == LONGS) {
+			longs = Arrays.copyOf(longs, count);
+		} else if (kind == DOUBLES) {
+			doubles = Arrays.copyOf(doubles, count);
+		}
+	}
+
+	@Override
+	public void sort(Comparator<? super Object> c) {
+		if (c == null && kind != BOXED) {
+			// the natural order of the boxed values is the primitive order
+			if (kind == LONGS) {
+				Arrays.sort(longs, 0, count);
+			} else if (kind == DOUBLES) {
+				Arrays.sort(doubles, 0, count);
+			}
+			modCount++;
+			return;
+		}
+		box();
+		super.sort(c);
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		box();
+		super.removeRange(fromIndex, toIndex);
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		box();
+		return super.removeAll(c);
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		box();
+		return super.retainAll(c);
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super Object> filter) {
+		box();
+		return super.removeIf(filter);
+	}
+
+	@Override
+	public void replaceAll(UnaryOperator<Object> operator) {
+		box();
+		super.replaceAll(operator);
+	}
+
+	@Override
+	public List<Object> subList(int fromIndex, int toIndex) {
+		box();
+		return super.subList(fromIndex, toIndex);
+	}
+
+	@Override
+	public Iterator<Object> iterator() {
+		return kind == BOXED ? super.iterator() : new Itr(0);
+	}
+
+	@Override
+	public ListIterator<Object> listIterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public ListIterator<Object> listIterator(int index) {
+		if (kind == BOXED) {
+			return super.listIterator(index);
+		}
+		if (index < 0 || index > count) {
+			throw new IndexOutOfBoundsException("Index: " + index);
+		}
+		return new Itr(index);
+	}
+
+	@Override
+	public Spliterator<Object> spliterator() {
+		if (kind == BOXED) {
+			return super.spliterator();
+		}
+		return Spliterators.spliterator(this, Spliterator.ORDERED);
+	}
+
+	@Override
+	public void forEach(Consumer<? super Object> action) {
+		if (kind == BOXED) {
+			super.forEach(action);
+			return;
+		}
+		int expectedModCount = modCount;
+		for (int i = 0; i < count && modCount == expectedModCount; i++) {
+			action.accept(boxed(i));
+		}
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	public Object clone() {
+		NumericJsonArray copy = (NumericJsonArray) super.clone();
+		if (longs != null) {
+			copy.longs = Arrays.copyOf(longs, count);
+		}
+		if (doubles != null) {
+			copy.doubles = Arrays.copyOf(doubles, count);
+		}
+		return copy;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (kind == BOXED) {
+			return super.equals(o);
+		}
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof List)) {
+			return false;
+		}
+		if (o instanceof NumericJsonArray) {
+			NumericJsonArray other = (NumericJsonArray) o;
+			if (kind == other.kind && kind == LONGS) {
+				return Arrays.equals(longs, 0, count, other.longs, 0, other.count);
+			} else if (kind == other.kind && kind == DOUBLES) {
+				return Arrays.equals(doubles, 0, count, other.doubles, 0, other.count);
+			}
+		}
+		Iterator<?> iterator = ((List<?>) o).iterator();
+		for (int i = 0; i < count; i++) {
+			if (!iterator.hasNext() || !boxed(i).equals(iterator.next())) {
+				return false;
+			}
+		}
+		return !iterator.hasNext();
+	}
+
+	@Override
+	public int hashCode() {
+		if (kind == BOXED) {
+			return super.hashCode();
+		}
+		int hashCode = 1;
+		for (int i = 0; i < count; i++) {
+			int elementHash = kind == LONGS ? Long.hashCode(longs[i]) : Double.hashCode(doubles[i]);
+			hashCode = 31 * hashCode + elementHash;
+		}
+		return hashCode;
+	}
+
+	/**
+	 * An iterator over the elements by index, which remains correct if
+	 * the array is promoted to boxed storage while it is in use.
+	 */
+	private final class Itr implements ListIterator<Object> {
+
+		private int cursor;
+		private int lastReturned = -1;
+		private int expectedModCount = modCount;
+
+		Itr(int index) {
+			this.cursor = index;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return cursor < size();
+		}
+
+		@Override
+		public Object next() {
+			checkForComodification();
+			if (cursor >= size()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor;
+			return get(cursor++);
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return cursor > 0;
+		}
+
+		@Override
+		public Object previous() {
+			checkForComodification();
+			if (cursor <= 0) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = --cursor;
+			return get(cursor);
+		}
+
+		@Override
+		public int nextIndex() {
+			return cursor;
+		}
+
+		@Override
+		public int previousIndex() {
+			return cursor - 1;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			NumericJsonArray.this.remove(lastReturned);
+			cursor = lastReturned;
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+
+		@Override
+		public void set(Object e) {
+			if (lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			NumericJsonArray.this.set(lastReturned, e);
+			expectedModCount = modCount;
+		}
+
+		@Override
+		public void add(Object e) {
+			checkForComodification();
+			NumericJsonArray.this.add(cursor++, e);
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,360 @@
+package com.jsontools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ *
+ * <p>
+ * The <code>ParallelJsonParser</code> class parses a single large JSON
+ * object or array on several threads. A first sequential pass walks the
+ * input tracking only String state and nesting depth, and cuts the body
+ * of the root container into chunks of roughly equal size at commas
+ * which separate root-level elements. Each chunk is then parsed as a
+ * run of elements on a <code>ForkJoinPool</code>, and the partial
+ * results are assembled in input order.
+ * </p>
+ * <p>
+ * Inputs which yield a single chunk are parsed sequentially on the
+ * calling thread.
+ * </p>
+ *
+ */
+final class ParallelJsonParser {
+
+	// chunks are never cut smaller than this many characters or bytes
+	static final int MIN_CHUNK_SIZE = 1 << 16;
+	// number of chunks aimed for per thread of the pool, to even out load
+	static final int CHUNKS_PER_THREAD = 4;
+
+	private ParallelJsonParser() {
+	}
+
+	static Object parse(char[] data, char open, ForkJoinPool pool) throws JSONFormatException {
+		int first = 0;
+		while (first < data.length && isWhitespace(data[first])) {
+			first++;
+		}
+		int last = data.length - 1;
+		while (last > first && isWhitespace(data[last])) {
+			last--;
+		}
+		checkRoot(open, first < data.length ? data[first] : -1, last > first ? data[last] : -1);
+
+		Boundaries boundaries = new Boundaries(first + 1, chunkSize(last - first - 1, pool));
+		boundaries.scan(data, first + 1, last, 0);
+		boundaries.finish();
+		try {
+			if (boundaries.count == 0) {
+				CharJsonParser parser = new CharJsonParser(data, 0, data.length);
+				return open == '{' ? parser.parseObject() : parser.parseArray();
+			}
+			List<ForkJoinTask<Object>> tasks = new ArrayList<ForkJoinTask<Object>>();
+			long start = first + 1;
+			for (int i = 0; i <= boundaries.count; i++) {
+				long end = i < boundaries.count ? boundaries.cuts[i] : last;
+				int from = (int) start;
+				int length = (int) (end - start);
+				tasks.add(pool.submit(() -> parseChunk(new CharJsonParser(data, from, length), open)));
+				start = end + 1;
+			}
+			return assemble(open, tasks);
+		} catch (IOException ex) {
+			// in-memory input never performs I/O
+			throw new AssertionError(ex);
+		}
+	}
+
+	static Object parse(FileChannel channel, char open, ForkJoinPool pool) throws JSONFormatException, IOException {
+		long size = channel.size();
+		byte[] block = new byte[ByteJsonParser.FILE_BUFFER_SIZE];
+
+		long first = 0;
+		int firstByte = -1;
+		scan: while (first < size) {
+			int n = readFully(channel, block, (int) Math.min(block.length, size - first), first);
+			for (int i = 0; i < n; i++) {
+				if (!isWhitespace(block[i])) {
+					first += i;
+					firstByte = block[i];
+					break scan;
+				}
+			}
+			first += n;
+		}
+		long last = size - 1;
+		int lastByte = -1;
+		scan: while (last > first) {
+			int n = (int) Math.min(block.length, last - first);
+			readFully(channel, block, n, last + 1 - n);
+			for (int i = n - 1; i >= 0; i--) {
+				if (!isWhitespace(block[i])) {
+					last -= n - 1 - i;
+					lastByte = block[i];
+					break scan;
+				}
+			}
+			last -= n;
+		}
+		checkRoot(open, firstByte, last > first ? lastByte : -1);
+
+		Boundaries boundaries = new Boundaries(first + 1, chunkSize(last - first - 1, pool));
+		for (long position = first + 1; position < last; ) {
+			int n = readFully(channel, block, (int) Math.min(block.length, last - position), position);
+			boundaries.scan(block, 0, n, position);
+			position += n;
+		}
+		boundaries.finish();
+		if (boundaries.count == 0) {
+			ByteJsonParser parser = new ByteJsonParser(channel, ByteJsonParser.FILE_BUFFER_SIZE, ByteJsonParser.DEFAULT_WINDOW_SIZE);
+			return open == '{' ? parser.parseObject() : parser.parseArray();
+		}
+		List<ForkJoinTask<Object>> tasks = new ArrayList<ForkJoinTask<Object>>();
+		long start = first + 1;
+		for (int i = 0; i <= boundaries.count; i++) {
+			long from = start;
+			long end = i < boundaries.count ? boundaries.cuts[i] : last;
+			int bufferSize = (int) Math.max(Math.min(ByteJsonParser.FILE_BUFFER_SIZE, end - from), 1);
+			tasks.add(pool.submit(() -> parseChunk(new ByteJsonParser(channel, bufferSize, ByteJsonParser.DEFAULT_WINDOW_SIZE, from, end), open)));
+			start = end + 1;
+		}
+		return assemble(open, tasks);
+	}
+
+	/**
+	 * Parses one chunk, returning either the partial container or the
+	 * exception which prevented the chunk from being parsed.
+	 */
+	private static Object parseChunk(AbstractJsonParser parser, char open) {
+		try {
+			if (open == '{') {
+				JsonObject jobj = parser.storage.newObject();
+				parser.readMembers(jobj);
+				return jobj;
+			}
+			JsonArray jlist = new NumericJsonArray();
+			parser.readElements(jlist);
+			return jlist;
+		} catch (JSONFormatException | IOException ex) {
+			return ex;
+		}
+	}
+
+	private static Object assemble(char open, List<ForkJoinTask<Object>> tasks) throws JSONFormatException, IOException {
+		Object[] parts = new Object[tasks.size()];
+		int total = 0;
+		for (int i = 0; i < parts.length; i++) {
+			parts[i] = tasks.get(i).join();
+			if (parts[i] instanceof JSONFormatException) {
+				throw (JSONFormatException) parts[i];
+			} else if (parts[i] instanceof IOException) {
+				throw (IOException) parts[i];
+			}
+			if (open == '[') {
+				total += ((JsonArray) parts[i]).size();
+			}
+		}
+		if (open == '{') {
+			JsonObject jobj = ((JsonObject) parts[0]).storage().newObject();
+			for (Object part : parts) {
+				// later chunks win on duplicate keys, as in sequential parsing
+				jobj.putAll((JsonObject) part);
+			}
+			return jobj;
+		}
+		NumericJsonArray numbers = new NumericJsonArray();
+		numbers.ensureCapacity(total);
+		boolean numeric = total > 0;
+		for (int i = 0; i < parts.length && numeric; i++) {
+			numeric = numbers.appendAll((JsonArray) parts[i]);
+		}
+		if (numeric) {
+			// every chunk held numbers of the same kind as primitives
+			return numbers;
+		}
+		JsonArray jlist = new JsonArray();
+		jlist.ensureCapacity(total);
+		for (Object part : parts) {
+			jlist.addAll((JsonArray) part);
+		}
+		return jlist;
+	}
+
+	/**
+	 * Reads exactly <code>length</code> bytes of the channel starting at
+	 * <code>position</code> into the front of the block.
+	 */
+	private static int readFully(FileChannel channel, byte[] block, int length, long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(block, 0, length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("file was truncated while being parsed");
+			}
+		}
+		return length;
+	}
+
+	private static void checkRoot(char open, int first, int last) throws JSONFormatException {
+		if (open == '{') {
+			if (first != '{') {
+				throw new JSONFormatException("json object does not begin with '{'");
+			}
+			if (last != '}') {
+				throw new JSONFormatException("json object does not end with '}'");
+			}
+		} else {
+			if (first != '[') {
+				throw new JSONFormatException("json list does not begin with '['");
+			}
+			if (last != ']') {
+				throw new JSONFormatException("json list does not end with ']'");
+			}
+		}
+	}
+
+	private static long chunkSize(long length, ForkJoinPool pool) {
+		return Math.max(MIN_CHUNK_SIZE, length / ((long) pool.getParallelism() * CHUNKS_PER_THREAD));
+	}
+
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	/**
+	 * Tracks String state and nesting depth across the body of the root
+	 * container, recording the positions of root-level commas at which
+	 * the body is cut into chunks. Bytes are classified 64 at a time into
+	 * bitmaps of quotes, backslashes and structural characters, so that
+	 * only the brackets and commas outside of Strings are visited one by
+	 * one; the remainder of a buffer shorter than a block, and characters,
+	 * are classified one at a time.
+	 */
+	static final class Boundaries {
+
+		private static final long EVEN_BITS = 0x5555555555555555L;
+
+		private final long chunkSize;
+		private long nextCut;
+		private int depth;
+		private boolean inString;
+		// whether the next character is escaped by a backslash
+		private boolean escaped;
+		long[] cuts = new long[16];
+		int count;
+
+		Boundaries(long start, long chunkSize) {
+			this.chunkSize = chunkSize;
+			this.nextCut = start + chunkSize;
+		}
+
+		void scan(char[] buf, int from, int to, long base) throws JSONFormatException {
+			for (int i = from; i < to; i++) {
+				accept(buf[i], base + i);
+			}
+		}
+
+		void scan(byte[] buf, int from, int to, long base) throws JSONFormatException {
+			int i = from;
+			for (; i + Swar.BLOCK <= to; i += Swar.BLOCK) {
+				scanBlock(buf, i, base + i);
+			}
+			for (; i < to; i++) {
+				accept(buf[i], base + i);
+			}
+		}
+
+		private void scanBlock(byte[] buf, int index, long position) throws JSONFormatException {
+			long backslashes = Swar.bitmap(buf, index, Swar.BACKSLASHES);
+			long quotes = Swar.bitmap(buf, index, Swar.QUOTES);
+			if (backslashes != 0 || escaped) {
+				quotes &= ~escapedBits(backslashes);
+			}
+			// bits from each opening quote up to its closing quote
+			long strings = Swar.prefixXor(quotes) ^ (inString ? -1L : 0L);
+			inString = strings < 0;
+			escaped &= inString;
+			long structurals = Swar.structurals(buf, index) & ~strings;
+			while (structurals != 0) {
+				int bit = Long.numberOfTrailingZeros(structurals);
+				structural(buf[index + bit], position + bit);
+				structurals &= structurals - 1;
+			}
+		}
+
+		/**
+		 * Returns the bitmap of the characters of a block which follow an
+		 * escaping backslash, and updates whether the first character of
+		 * the next block does. In a run of backslashes every other one
+		 * escapes the next character, so a run which starts on an even
+		 * bit escapes the characters at odd bits following it and vice
+		 * versa; adding the run starts which lie on odd bits to the
+		 * backslashes carries those runs past their ends, which tells the
+		 * two kinds apart.
+		 */
+		private long escapedBits(long backslashes) {
+			long carry = escaped ? 1L : 0L;
+			backslashes &= ~carry;
+			long followsEscape = backslashes << 1 | carry;
+			long oddStarts = backslashes & ~EVEN_BITS & ~followsEscape;
+			long evenRuns = oddStarts + backslashes;
+			escaped = Long.compareUnsigned(evenRuns, oddStarts) < 0;
+			return (EVEN_BITS ^ (evenRuns << 1)) & followsEscape;
+		}
+
+		private void accept(int c, long position) throws JSONFormatException {
+			if (inString) {
+				if (escaped) {
+					escaped = false;
+				} else if (c == '\\') {
+					escaped = true;
+				} else if (c == '"') {
+					inString = false;
+				}
+			} else if (c == '"') {
+				inString = true;
+			} else {
+				structural(c, position);
+			}
+		}
+
+		private void structural(int c, long position) throws JSONFormatException {
+			switch (c) {
+			case '{':
+			case '[':
+				depth++;
+				break;
+			case '}':
+			case ']':
+				if (--depth < 0) {
+					throw new JSONFormatException("unexpected token '" + (char) c + "' at position " + position);
+				}
+				break;
+			case ',':
+				if (depth == 0 && position >= nextCut) {
+					if (count == cuts.length) {
+						cuts = Arrays.copyOf(cuts, count << 1);
+					}
+					cuts[count++] = position;
+					nextCut = position + chunkSize;
+				}
+				break;
+			default:
+				break;
+			}
+		}
+
+		void finish() throws JSONFormatException {
+			if (inString || depth != 0) {
+				throw new JSONFormatException("unexpected end of input");
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.jsontools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *
+ * <p>
+ * The <code>StringTable</code> class is a bounded table of canonical
+ * String instances which a <code>JsonParserContext</code> can be created
+ * with, and which several contexts may share. Keys and short String
+ * values are then looked up in the table straight from the characters
+ * or bytes of the input, by hashing and comparing them where they lie,
+ * so a key or value which is already in the table is returned without
+ * allocating anything, and every document parsed shares the same
+ * instance of it.
+ * </p>
+ * <p>
+ * The table has a fixed number of slots and never grows. Each String
+ * hashes to a small group of neighbouring slots; when all of them are
+ * taken, a new String replaces the one in a slot picked from bits of its
+ * own hash, however often either String is seen. A frequent String may
+ * therefore be displaced by a rare one in the same group, and is simply
+ * added again the next time it is met, so the table holds whichever
+ * Strings were met last in each group rather than those which recur
+ * most. Strings longer than the maximum length of the table, and byte
+ * input which is not entirely ASCII, are not looked up.
+ * </p>
+ * <p>
+ * StringTable objects are thread-safe. Slots are read and written
+ * without locking; because Strings are immutable, a race between two
+ * threads can at worst cause an equal String to replace the one in a
+ * slot, which costs some sharing but never returns a wrong String.
+ * </p>
+ *
+ */
+public final class StringTable {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+	public static final int DEFAULT_MAX_LENGTH = 64;
+
+	// number of neighbouring slots each String may occupy
+	private static final int WAYS = 4;
+
+	private final String[] slots;
+	private final int mask;
+	private final int maxLength;
+
+	/**
+	 * Creates a table of <code>DEFAULT_CAPACITY</code> slots for Strings
+	 * of at most <code>DEFAULT_MAX_LENGTH</code> characters.
+	 */
+	public StringTable() {
+		this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+	}
+
+	/**
+	 * Creates a table with the given number of slots, rounded up to a
+	 * power of two.
+	 *
+	 * @param capacity - the most Strings the table holds at once
+	 * @param maxLength - the length of the longest String the table holds
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 * or exceeds 2<sup>30</sup>, or if the maximum length is negative
+	 */
+	public StringTable(int capacity, int maxLength) {
+		if (capacity < 1 || capacity > 1 << 30 || maxLength < 0) {
+			throw new IllegalArgumentException("invalid capacity " + capacity + " or maximum length " + maxLength);
+		}
+		int size = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+		this.slots = new String[size];
+		this.mask = size - 1;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Returns the String in the table which equals the given String,
+	 * adding the given String if there is none.
+	 *
+	 * @param s - a String
+	 * @return an equal String, shared with earlier callers
+	 */
+	public String canonicalize(String s) {
+		int length = s.length();
+		if (length > maxLength) {
+			return s;
+		}
+		int hash = s.hashCode();
+		for (int i = 0; i < WAYS; i++) {
+			String candidate = slots[(hash + i) & mask];
+			if (candidate != null && candidate.equals(s)) {
+				return candidate;
+			}
+		}
+		return insert(hash, s);
+	}
+
+	/**
+	 * Removes every String from the table.
+	 */
+	public void clear() {
+		Arrays.fill(slots, null);
+	}
+
+	/**
+	 * Returns the String of the given range of characters.
+	 */
+	String get(char[] buf, int start, int length) {
+		if (length > maxLength) {
+			return new String(buf, start, length);
+		}
+		int hash = 0;
+		for (int i = start, end = start + length; i < end; i++) {
+			hash = 31 * hash + buf[i];
+		}
+		for (int i = 0; i < WAYS; i++) {
+			String candidate = slots[(hash + i) & mask];
+			if (candidate != null && matches(candidate, buf, start, length)) {
+				return candidate;
+			}
+		}
+		return insert(hash, new String(buf, start, length));
+	}
+
+	/**
+	 * Returns the String of the given range of ASCII bytes.
+	 */
+	String get(byte[] buf, int start, int length) {
+		if (length > maxLength) {
+			return new String(buf, start, length, StandardCharsets.ISO_8859_1);
+		}
+		int hash = 0;
+		for (int i = start, end = start + length; i < end; i++) {
+			hash = 31 * hash + (buf[i] & 0xFF);
+		}
+		for (int i = 0; i < WAYS; i++) {
+			String candidate = slots[(hash + i) & mask];
+			if (candidate != null && matches(candidate, buf, start, length)) {
+				return candidate;
+			}
+		}
+		return insert(hash, new String(buf, start, length, StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Stores the given String in a free slot of its group, or in place
+	 * of one of the group chosen by its hash, and returns it.
+	 */
+	private String insert(int hash, String s) {
+		for (int i = 0; i < WAYS; i++) {
+			int slot = (hash + i) & mask;
+			if (slots[slot] == null) {
+				slots[slot] = s;
+				return s;
+			}
+		}
+		slots[(hash + ((hash >>> 16) & (WAYS - 1))) & mask] = s;
+		return s;
+	}
+
+	private static boolean matches(String candidate, char[] buf, int start, int length) {
+		if (candidate.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (candidate.charAt(i) != buf[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean matches(String candidate, byte[] buf, int start, int length) {
+		if (candidate.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (candidate.charAt(i) != (buf[start + i] & 0xFF)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
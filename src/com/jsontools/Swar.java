@@ -0,0 +1,135 @@
+package com.jsontools;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ *
+ * <p>
+ * The <code>Swar</code> class classifies UTF-8 json bytes eight at a time
+ * by treating each group of eight bytes as one <code>long</code> ("SIMD
+ * within a register"). Byte masks have the high bit of a byte set where
+ * that byte matched, and <code>movemask</code> compresses such a mask into
+ * one bit per byte, so that eight words yield a bitmap of a 64-byte block.
+ * Bit <i>i</i> of a bitmap always describes byte <i>i</i> of the block.
+ * </p>
+ * <p>
+ * Callers handle the bytes which do not fill a whole word or block with
+ * their ordinary scalar loops.
+ * </p>
+ *
+ */
+final class Swar {
+
+	static final int WORD = Long.BYTES;
+	static final int BLOCK = Long.SIZE;
+
+	static final long HIGH_BITS = 0x8080808080808080L;
+	private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+	private static final long ONES = 0x0101010101010101L;
+
+	static final long QUOTES = broadcast('"');
+	static final long BACKSLASHES = broadcast('\\');
+	static final long PERIODS = broadcast('.');
+	private static final long SPACES = broadcast(' ');
+	private static final long TABS = broadcast('\t');
+	private static final long NEWLINES = broadcast('\n');
+	private static final long RETURNS = broadcast('\r');
+	private static final long COMMAS = broadcast(',');
+	// '[' and ']' differ from '{' and '}' only in bit 5
+	private static final long BIT_5 = broadcast(0x20);
+	private static final long OPEN_BRACES = broadcast('{');
+	private static final long CLOSE_BRACES = broadcast('}');
+
+	private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private Swar() {
+	}
+
+	static long broadcast(int b) {
+		return (b & 0xFFL) * ONES;
+	}
+
+	/**
+	 * Returns the eight bytes starting at <code>index</code>, with the
+	 * first byte in the lowest bits.
+	 */
+	static long word(byte[] buf, int index) {
+		return (long) LONGS.get(buf, index);
+	}
+
+	/**
+	 * Returns a byte mask of the bytes of <code>word</code> which equal
+	 * the corresponding bytes of <code>pattern</code>.
+	 */
+	static long eq(long word, long pattern) {
+		long t = word ^ pattern;
+		return ~(((t & LOW_BITS) + LOW_BITS) | t | LOW_BITS);
+	}
+
+	/**
+	 * Returns a byte mask of the whitespace bytes of <code>word</code>.
+	 */
+	static long whitespace(long word) {
+		return eq(word, SPACES) | eq(word, TABS) | eq(word, NEWLINES) | eq(word, RETURNS);
+	}
+
+	/**
+	 * Returns the index of the first matching byte of a non-zero byte mask.
+	 */
+	static int first(long mask) {
+		return Long.numberOfTrailingZeros(mask) >>> 3;
+	}
+
+	/**
+	 * Compresses a byte mask into its low eight bits.
+	 */
+	static long movemask(long mask) {
+		return ((mask >>> 7) * 0x0102040810204080L) >>> 56;
+	}
+
+	/**
+	 * Returns the bitmap of the bytes of the 64-byte block starting at
+	 * <code>index</code> which equal <code>pattern</code>.
+	 */
+	static long bitmap(byte[] buf, int index, long pattern) {
+		long bits = 0;
+		for (int i = 0; i < BLOCK; i += WORD) {
+			bits |= movemask(eq(word(buf, index + i), pattern)) << i;
+		}
+		return bits;
+	}
+
+	/**
+	 * Returns the bitmap of the brackets and commas of the 64-byte block
+	 * starting at <code>index</code>.
+	 */
+	static long structurals(byte[] buf, int index) {
+		long bits = 0;
+		for (int i = 0; i < BLOCK; i += WORD) {
+			long word = word(buf, index + i);
+			long folded = word | BIT_5;
+			long mask = eq(folded, OPEN_BRACES) | eq(folded, CLOSE_BRACES) | eq(word, COMMAS);
+			bits |= movemask(mask) << i;
+		}
+		return bits;
+	}
+
+	/**
+	 * Returns the bitmap in which each bit is the exclusive or of all bits
+	 * of <code>bits</code> at or below it. Applied to the unescaped quotes
+	 * of a block, this marks every character from an opening quote up to
+	 * but excluding its closing quote.
+	 */
+	static long prefixXor(long bits) {
+		bits ^= bits << 1;
+		bits ^= bits << 2;
+		bits ^= bits << 4;
+		bits ^= bits << 8;
+		bits ^= bits << 16;
+		bits ^= bits << 32;
+		return bits;
+	}
+
+}
@@ -0,0 +1,208 @@
+package com.jsontools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BinaryJsonTest {
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+	}
+
+	@Test
+	@DisplayName("stream of objects and arrays")
+	void test001() {
+		try {
+			String[] jsonStrings = {
+					"{\"name\":\"caf\u00e9 \\\"\uD83D\uDE00\\\"\",\"id\":-9223372036854775808,\"max\":9223372036854775807,"
+							+ "\"ratio\":-0.0,\"big\":1.7976931348623157E308,\"on\":true,\"off\":false,"
+							+ "\"empty\":{},\"list\":[[],[1,2.5,\"x\"],{\"name\":\"nested\"}]}",
+					"{\"name\":\"second\",\"id\":1,\"list\":[]}",
+			};
+			for (boolean dictionary : new boolean[] { false, true }) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				BinaryJsonEncoder encoder = new BinaryJsonEncoder(out, dictionary);
+				for (String jsonString : jsonStrings) {
+					encoder.write(JsonParser.parseObjectString(jsonString));
+				}
+				encoder.write(JsonParser.parseArrayString("[1,[2,[3]],{\"id\":4}]"));
+				BinaryJsonDecoder decoder = new BinaryJsonDecoder(new ByteArrayInputStream(out.toByteArray()));
+				for (String jsonString : jsonStrings) {
+					assertEquals(JsonParser.parseObjectString(jsonString), decoder.read());
+				}
+				assertEquals(JsonParser.parseArrayString("[1,[2,[3]],{\"id\":4}]"), decoder.read());
+				assertNull(decoder.read());
+			}
+
+			// a deep tree, with keys repeated often enough to be numbered
+			StringBuilder deep = new StringBuilder();
+			for (int i = 0; i < 50000; i++) {
+				deep.append("{\"k").append(i % 7).append("\":[");
+			}
+			deep.append("true");
+			for (int i = 0; i < 50000; i++) {
+				deep.append("]}");
+			}
+			JsonArray jarr = JsonParser.parseArrayString("[" + deep + "]");
+			assertEquals(jarr.toString(), BinaryJsonDecoder.decode(BinaryJsonEncoder.encode(jarr)).toString());
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("byte buffers")
+	void test002() {
+		try {
+			JsonObject first = JsonParser.parseObjectString("{\"a\":[1,2,3],\"b\":{\"a\":\"text\"}}");
+			JsonObject second = JsonParser.parseObjectString("{\"b\":{\"a\":2.5}}");
+			for (ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.allocate(256), ByteBuffer.allocateDirect(256) }) {
+				buffer.put((byte) 42);
+				BinaryJsonEncoder encoder = new BinaryJsonEncoder(buffer, true);
+				encoder.write(first);
+				int end = buffer.position();
+				encoder.write(second);
+				buffer.put((byte) 42);
+				buffer.flip();
+				buffer.get();
+				BinaryJsonDecoder decoder = new BinaryJsonDecoder(buffer);
+				assertEquals(first, decoder.read());
+				// the buffer is left just past each tree read
+				assertEquals(end, buffer.position());
+				assertEquals(second, decoder.read());
+				assertEquals(1, buffer.remaining());
+			}
+
+			// a buffer with too little room remaining
+			assertThrows(java.nio.BufferOverflowException.class,
+					() -> new BinaryJsonEncoder(ByteBuffer.allocate(8)).write(first));
+			
+			// a failed write is undone, dictionary entries included, and the encoder goes on
+			ByteBuffer small = ByteBuffer.allocate(64);
+			BinaryJsonEncoder encoder = new BinaryJsonEncoder(small, true);
+			JsonObject tiny = JsonParser.parseObjectString("{\"a\":1}");
+			encoder.write(tiny);
+			int written = small.position();
+			StringBuilder large = new StringBuilder("{\"a\":2");
+			for (int i = 0; i < 20; i++) {
+				large.append(",\"key").append(i).append("\":").append(i);
+			}
+			JsonObject big = JsonParser.parseObjectString(large.append('}').toString());
+			assertThrows(java.nio.BufferOverflowException.class, () -> encoder.write(big));
+			assertEquals(written, small.position());
+			encoder.write(JsonParser.parseObjectString("{\"key0\":true}"));
+			small.flip();
+			BinaryJsonDecoder smallDecoder = new BinaryJsonDecoder(small);
+			assertEquals(tiny, smallDecoder.read());
+			assertEquals(JsonParser.parseObjectString("{\"key0\":true}"), smallDecoder.read());
+			
+			// a stream which received part of a failed value cannot be written to again
+			ByteArrayOutputStream partial = new ByteArrayOutputStream() {
+				
+				@Override
+				public synchronized void write(byte[] b, int off, int len) {
+					if (size() > 0) {
+						throw new UnsupportedOperationException("full");
+					}
+					super.write(b, off, len);
+				}
+				
+			};
+			BinaryJsonEncoder streamEncoder = new BinaryJsonEncoder(partial, true);
+			StringBuilder huge = new StringBuilder("[");
+			for (int i = 0; i < 2000; i++) {
+				huge.append(i == 0 ? "" : ",").append("\"value").append(i).append('"');
+			}
+			JsonArray hugeArray = JsonParser.parseArrayString(huge.append(']').toString());
+			assertThrows(UnsupportedOperationException.class, () -> streamEncoder.write(hugeArray));
+			assertThrows(IllegalStateException.class, () -> streamEncoder.write(tiny));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("java serialization and malformed input")
+	void test003() {
+		try {
+			String jsonString = "{\"name\":\"lazy\",\"items\":[{\"id\":1},{\"id\":2}],\"nested\":{\"ok\":true}}";
+			Object[] values = {
+					JsonParser.parseObjectString(jsonString),
+					JsonParser.parseObjectLazy(jsonString),
+					JsonParser.parseArrayString("[1,{\"id\":2},[3.5]]"),
+			};
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				for (Object value : values) {
+					out.writeObject(value);
+				}
+			}
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+				for (Object value : values) {
+					Object copy = in.readObject();
+					assertEquals(value, copy);
+					assertTrue(copy.getClass() == JsonObject.class || copy.getClass() == JsonArray.class);
+				}
+			}
+			// frozen trees stay frozen
+			JsonObject frozen = JsonParser.parseObjectString(jsonString).freeze();
+			bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(frozen);
+			}
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+				JsonObject copy = (JsonObject) in.readObject();
+				assertEquals(frozen, copy);
+				assertTrue(copy.isFrozen());
+				assertTrue(((JsonArray) copy.get("items")).isFrozen());
+			}
+
+			byte[] encoded = BinaryJsonEncoder.encode(JsonParser.parseObjectString(jsonString));
+			// truncated at every length
+			for (int length = 0; length < encoded.length; length++) {
+				byte[] truncated = Arrays.copyOf(encoded, length);
+				assertThrows(JSONFormatException.class, () -> BinaryJsonDecoder.decode(truncated));
+			}
+			// an unknown tag where the first value belongs
+			byte[] corrupt = encoded.clone();
+			corrupt[4] = 99;
+			assertThrows(JSONFormatException.class, () -> BinaryJsonDecoder.decode(corrupt));
+			assertThrows(IllegalArgumentException.class, () -> BinaryJsonEncoder.encode("text"));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+}
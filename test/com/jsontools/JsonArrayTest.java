@@ -2,9 +2,24 @@ package com.jsontools;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -114,4 +129,445 @@ class JsonArrayTest {
 		}
 	}
 	
+	@Test
+	@DisplayName("indexed lookups")
+	void test005() {
+		try {
+			JsonArray indexed = new JsonArray();
+			for (int i = 0; i < 1000; i++) {
+				indexed.add(JsonParser.parseObjectString("{\"sku\":\"S" + (i % 100) + "\",\"meta\":{\"id\":" + i + "},\"n\":" + i + "}"));
+			}
+			indexed.createIndex("sku");
+			indexed.createIndex("meta.id");
+			indexed.createIndex("sku", "n");
+			JsonObject root = new JsonObject();
+			root.put("items", indexed);
+			
+			// compare indexed lookups with a plain scan after each modification
+			Random random = new Random(7);
+			for (int round = 0; round < 500; round++) {
+				int size = indexed.size();
+				int position = size == 0 ? 0 : random.nextInt(size);
+				JsonObject item = JsonParser.parseObjectString("{\"sku\":\"S" + random.nextInt(120) + "\",\"meta\":{\"id\":" + random.nextInt(1200) + "},\"n\":" + round + "}");
+				switch (random.nextInt(8)) {
+				case 0:
+					indexed.add(position, item);
+					break;
+				case 1:
+					if (size > 0) {
+						indexed.remove(position);
+					}
+					break;
+				case 2:
+					if (size > 0) {
+						indexed.remove(indexed.get(position));
+					}
+					break;
+				case 3:
+					if (size > 0) {
+						indexed.set(position, item);
+					}
+					break;
+				case 4:
+					if (size > 0) {
+						// replace with the same indexed values
+						JsonObject copy = JsonParser.parseObjectString(indexed.get(position).toString());
+						copy.put("n", -1L);
+						indexed.set(position, copy);
+					}
+					break;
+				case 5:
+					indexed.addAll(new JsonArray(indexed.subList(0, Math.min(size, 3))));
+					break;
+				default:
+					indexed.add(item);
+					break;
+				}
+				JsonArray plain = new JsonArray(indexed);
+				String[] specs = {
+						"{\"sku\":\"S" + random.nextInt(120) + "\"}",
+						"{\"meta\":{\"id\":" + random.nextInt(1200) + "}}",
+						"{\"sku\":\"S" + random.nextInt(120) + "\",\"n\":" + random.nextInt(1000) + "}",
+						"{\"n\":" + random.nextInt(1000) + "}",
+				};
+				for (String spec : specs) {
+					JsonObject specObject = JsonParser.parseObjectString(spec);
+					JsonArray expected = plain.findAll(specObject);
+					assertEquals(expected, indexed.findAll(specObject));
+					if (!expected.isEmpty()) {
+						assertTrue(expected.get(0) == root.seek("items[" + spec + "]"));
+					}
+				}
+			}
+			
+			// dropping an index falls back to scanning
+			assertTrue(indexed.dropIndex("sku"));
+			assertFalse(indexed.dropIndex("sku"));
+			assertEquals(new JsonArray(indexed).findAll(JsonParser.parseObjectString("{\"sku\":\"S5\"}")),
+					indexed.findAll(JsonParser.parseObjectString("{\"sku\":\"S5\"}")));
+			
+			// an element changed in place is found under its new value once reindexed
+			JsonObject changed = (JsonObject) indexed.get(0);
+			((JsonObject) changed.get("meta")).put("id", 5000L);
+			JsonObject changedSpec = JsonParser.parseObjectString("{\"meta\":{\"id\":5000}}");
+			assertTrue(indexed.findAll(changedSpec).isEmpty());
+			indexed.createIndex("meta.id");
+			assertFalse(indexed.findAll(changedSpec).isEmpty());
+			assertEquals(new JsonArray(indexed).findAll(changedSpec), indexed.findAll(changedSpec));
+			assertTrue(changed == root.seek("items[{\"meta\":{\"id\":5000}}]"));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("concurrent indexed lookups")
+	void test011() {
+		try {
+			JsonArray indexed = new JsonArray();
+			for (int i = 0; i < 20000; i++) {
+				indexed.add(JsonParser.parseObjectString("{\"sku\":\"S" + (i % 50) + "\",\"n\":" + i + "}"));
+			}
+			indexed.createIndex("sku");
+			JsonObject spec = JsonParser.parseObjectString("{\"sku\":\"S7\"}");
+			
+			// readers which find the index out of date rebuild it at the same time
+			AtomicInteger wrong = new AtomicInteger();
+			for (int round = 0; round < 20; round++) {
+				indexed.add(0, JsonParser.parseObjectString("{\"sku\":\"S7\",\"n\":-1}"));
+				int expected = new JsonArray(indexed).findAll(spec).size();
+				CountDownLatch start = new CountDownLatch(1);
+				List<Future<?>> readers = new ArrayList<Future<?>>();
+				ExecutorService executor = Executors.newFixedThreadPool(8);
+				for (int i = 0; i < 8; i++) {
+					readers.add(executor.submit(() -> {
+						start.await();
+						if (indexed.findAll(spec).size() != expected) {
+							wrong.incrementAndGet();
+						}
+						return null;
+					}));
+				}
+				start.countDown();
+				for (Future<?> reader : readers) {
+					reader.get();
+				}
+				executor.shutdown();
+			}
+			assertEquals(0, wrong.get());
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("toString of deeply nested arrays")
+	void test006() {
+		try {
+			int depth = 100000;
+			JsonArray jsonArray = new JsonArray();
+			JsonArray current = jsonArray;
+			for (int i = 0; i < depth; i++) {
+				JsonArray next = new JsonArray();
+				current.add(next);
+				current = next;
+			}
+			current.add(1L);
+			
+			String jsonString = jsonArray.toString();
+			assertEquals(2 * depth + 3, jsonString.length());
+			assertEquals("[[1]]", jsonString.substring(depth - 1, depth + 4));
+			assertEquals(jsonString, JsonParser.parseArrayString(jsonString).toString());
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("numeric arrays")
+	void test007() {
+		try {
+			JsonObject jsonData = JsonParser.parseObjectString(
+					"{\"series\":[3,1,2],\"vector\":[0.5,-1.5,2.0],\"mixed\":[1,2.5],\"empty\":[]}");
+			JsonArray series = (JsonArray) jsonData.get("series");
+			JsonArray vector = (JsonArray) jsonData.get("vector");
+			assertEquals(2L, series.getLong(2));
+			assertEquals(6L, series.longStream().sum());
+			assertEquals(-1.5, vector.getDouble(1));
+			assertTrue(Arrays.equals(new double[] { 3.0, 1.0, 2.0 }, series.toDoubleArray()));
+			assertTrue(Arrays.equals(new double[] { 0.5, -1.5, 2.0 }, vector.toDoubleArray()));
+			assertEquals(JsonArray.ofDoubles(0.5, -1.5, 2.0), vector);
+			assertEquals(Arrays.asList(0.5, -1.5, 2.0), vector);
+			assertEquals(Arrays.asList(1L, 2.5), jsonData.get("mixed"));
+			JsonObject wrapper = new JsonObject();
+			wrapper.put("series", series);
+			assertEquals("{\"series\":[3,1,2]}", wrapper.toString());
+			
+			// sorting and removing keep the primitives
+			series.sort(null);
+			assertEquals(JsonArray.ofLongs(1, 2, 3), series);
+			assertTrue(series.remove(2L));
+			assertEquals(Arrays.asList(1L, 3L), series);
+			
+			// a value of another type promotes the array in place
+			JsonArray list = JsonArray.ofLongs(1, 2, 3);
+			Iterator<Object> iterator = list.iterator();
+			iterator.next();
+			list.set(0, "one");
+			assertEquals(2L, iterator.next());
+			list.add(2.5);
+			list.add(JsonParser.parseObjectString("{\"id\":4}"));
+			assertEquals("[\"one\",2,3,2.5,{\"id\":4}]", list.toString());
+			assertEquals(2L, list.getLong(1));
+			assertThrows(ClassCastException.class, () -> list.toLongArray());
+			
+			// arrays of numbers split across chunks by the parallel parser
+			ForkJoinPool pool = new ForkJoinPool(4);
+			try {
+				StringBuilder numbers = new StringBuilder("[");
+				for (int i = 0; i < 200000; i++) {
+					numbers.append(i == 0 ? "" : ",").append(i);
+				}
+				numbers.append("]");
+				JsonArray parallel = JsonParser.parseArrayString(numbers.toString(), pool);
+				assertEquals(200000, parallel.size());
+				assertEquals(199999L * 200000L / 2, parallel.longStream().sum());
+				assertEquals(JsonParser.parseArrayString(numbers.toString()), parallel);
+			} finally {
+				pool.shutdown();
+			}
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("columnar arrays")
+	void test008() {
+		try {
+			StringBuilder stringBuilder = new StringBuilder("{\"rows\":[");
+			for (int i = 0; i < 1000; i++) {
+				if (i > 0) {
+					stringBuilder.append(',');
+				}
+				stringBuilder.append("{\"id\":").append(i).append(",\"price\":").append(i + 0.5)
+						.append(",\"tags\":[\"t").append(i % 3).append("\"],\"qty\":").append(i % 2 == 0 ? "2" : "2.5").append('}');
+			}
+			String jsonString = stringBuilder.append("],\"mixed\":[{\"a\":1},{\"b\":2}]}").toString();
+			JsonObject plain = JsonParser.parseObjectString(jsonString);
+			JsonParserContext context = new JsonParserContext();
+			assertFalse(context.isColumnarArrays());
+			context.setColumnarArrays(true);
+			assertTrue(context.isColumnarArrays());
+			JsonObject columnar = context.parseObjectString(jsonString);
+			assertTrue(columnar.get("rows") instanceof ColumnarJsonArray);
+			assertFalse(JsonParser.parseObjectString(jsonString).get("rows") instanceof ColumnarJsonArray);
+			JsonPushParser pushParser = new JsonPushParser();
+			pushParser.setColumnarArrays(true);
+			pushParser.feed(ByteBuffer.wrap(jsonString.getBytes(StandardCharsets.UTF_8)));
+			pushParser.endOfInput();
+			JsonObject pushed = (JsonObject) pushParser.nextValue();
+			assertTrue(pushed.get("rows") instanceof ColumnarJsonArray);
+			assertEquals(plain, pushed);
+			JsonParserContext pooled = JsonParserContext.acquire();
+			pooled.setColumnarArrays(true);
+			pooled.close();
+			try (JsonParserContext next = JsonParserContext.acquire()) {
+				assertFalse(next.isColumnarArrays());
+			}
+			
+			// rows read as the objects they were parsed from
+			JsonArray rows = (JsonArray) columnar.get("rows");
+			assertEquals(plain, columnar);
+			assertEquals(plain.toString(), columnar.toString());
+			assertEquals(plain.get("rows").hashCode(), rows.hashCode());
+			assertEquals(1000, rows.size());
+			JsonObject row = (JsonObject) rows.get(7);
+			assertEquals(7L, row.get("id"));
+			assertEquals(2.5, row.get("qty"));
+			assertEquals("t1", ((JsonArray) row.get("tags")).get(0));
+			assertEquals(4, row.size());
+			assertEquals(5L, columnar.seek("rows[5].id"));
+			assertTrue(plain.subsetOf(columnar));
+			assertTrue(columnar.subsetOf(plain));
+			
+			// numeric columns are read directly, and agree with plain arrays
+			JsonArray plainRows = (JsonArray) plain.get("rows");
+			assertEquals(plainRows.longColumn("id").sum(), rows.longColumn("id").sum());
+			assertEquals(plainRows.doubleColumn("price").sum(), rows.doubleColumn("price").sum());
+			assertEquals(plainRows.doubleColumn("id").sum(), rows.doubleColumn("id").sum());
+			assertEquals(plainRows.doubleColumn("qty").sum(), rows.doubleColumn("qty").sum());
+			assertThrows(ClassCastException.class, () -> rows.longColumn("tags").sum());
+			
+			// frozen and serialized copies hold the same rows
+			assertEquals(plain, columnar.freeze());
+			assertEquals(plain, BinaryJsonDecoder.decode(BinaryJsonEncoder.encode(columnar)));
+			
+			// writing to a row turns the rows into objects, and views stay valid
+			JsonObject first = (JsonObject) rows.get(0);
+			row.put("extra", "value");
+			assertEquals("value", row.get("extra"));
+			assertTrue(rows.get(7) == row);
+			assertEquals(0L, first.get("id"));
+			rows.remove(0);
+			assertEquals(0L, first.get("id"));
+			assertEquals(999, rows.size());
+			assertEquals(8L, ((JsonObject) rows.get(7)).get("id"));
+			
+			// objects of different shapes are held as usual
+			assertEquals(plain.get("mixed"), columnar.get("mixed"));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("subset of large arrays")
+	void test009() {
+		try {
+			JsonArray set = new JsonArray();
+			JsonArray subset = new JsonArray();
+			for (int i = 0; i < 50000; i++) {
+				JsonObject item = JsonParser.parseObjectString("{\"id\":" + i + ",\"name\":\"item" + (i % 100) + "\",\"tags\":[\"t" + (i % 7) + "\"]}");
+				set.add(item);
+				subset.add(0, item);
+			}
+			set.add(JsonParser.parseArrayString("[1,2]"));
+			set.add(7L);
+			subset.add(JsonParser.parseArrayString("[2]"));
+			subset.add(7L);
+			subset.add(7L);
+			assertTrue(subset.subsetOf(set));
+			
+			// each object or array is matched to a distinct element
+			subset.add(JsonParser.parseArrayString("[1]"));
+			assertFalse(subset.subsetOf(set));
+			subset.remove(subset.size() - 1);
+			subset.add(JsonParser.parseObjectString("{\"name\":\"item5\"}"));
+			assertFalse(subset.subsetOf(set));
+			
+			// an element is matched to the first unclaimed element it is a subset of
+			JsonArray spec = JsonParser.parseArrayString("[{\"id\":5},{\"name\":\"item5\"}]");
+			JsonArray partial = new JsonArray(set.subList(0, 200));
+			assertTrue(spec.subsetOf(partial));
+			partial.remove(105);
+			assertFalse(spec.subsetOf(partial));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("columnar rows")
+	void test010() {
+		try {
+			String jsonString = "[{\"id\":0,\"v\":\"a\"},{\"id\":1,\"v\":\"b\"},{\"id\":2,\"v\":\"c\"}]";
+			JsonParserContext context = new JsonParserContext();
+			context.setColumnarArrays(true);
+			
+			// a row read twice is the same object, before and after the rows become objects
+			JsonArray array = context.parseArrayString(jsonString);
+			assertTrue(array.get(1) == array.get(1));
+			JsonObject second = (JsonObject) array.get(1);
+			second.put("extra", true);
+			assertTrue(array.get(1) == second);
+			assertEquals(1, array.indexOf(second));
+			
+			// removing a row by value
+			array = context.parseArrayString(jsonString);
+			assertTrue(array.remove(array.get(0)));
+			assertEquals(2, array.size());
+			assertEquals(1L, ((JsonObject) array.get(0)).get("id"));
+			assertEquals(JsonParser.parseArrayString("[{\"id\":1,\"v\":\"b\"},{\"id\":2,\"v\":\"c\"}]"), JsonParser.parseArrayString(array.toString()));
+			
+			// replacing a row with another row of the array
+			array = context.parseArrayString(jsonString);
+			array.set(0, array.get(1));
+			assertTrue(array.get(0) == array.get(1));
+			assertEquals(JsonParser.parseArrayString("[{\"id\":1,\"v\":\"b\"},{\"id\":1,\"v\":\"b\"},{\"id\":2,\"v\":\"c\"}]"), JsonParser.parseArrayString(array.toString()));
+			
+			// a row stored in another object outlives changes to the array
+			array = context.parseArrayString(jsonString);
+			JsonObject keep = new JsonObject();
+			keep.put("first", array.get(0));
+			array.remove(2);
+			array.add(0, JsonParser.parseObjectString("{\"id\":9,\"v\":\"z\"}"));
+			array.sort((a, b) -> Long.compare((Long) ((JsonObject) a).get("id"), (Long) ((JsonObject) b).get("id")));
+			assertEquals(JsonParser.parseObjectString("{\"first\":{\"id\":0,\"v\":\"a\"}}"), JsonParser.parseObjectString(keep.toString()));
+			assertEquals(0L, keep.seek("first.id"));
+			assertTrue(array.get(0) == keep.get("first"));
+			((JsonObject) keep.get("first")).put("v", "changed");
+			assertEquals("changed", ((JsonObject) array.get(0)).get("v"));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("concurrent columnar reads")
+	void test012() {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			StringBuilder builder = new StringBuilder("[");
+			for (int i = 0; i < 1000; i++) {
+				builder.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"v\":\"item").append(i).append("\"}");
+			}
+			String jsonString = builder.append("]").toString();
+			JsonParserContext context = new JsonParserContext();
+			context.setColumnarArrays(true);
+			
+			for (int round = 0; round < 20; round++) {
+				JsonArray array = context.parseArrayString(jsonString);
+				CountDownLatch start = new CountDownLatch(1);
+				List<Future<Object[]>> futures = new ArrayList<>();
+				for (int t = 0; t < 8; t++) {
+					futures.add(executor.submit(() -> {
+						start.await();
+						Object[] views = new Object[array.size()];
+						for (int i = 0; i < views.length; i++) {
+							views[i] = array.get(i);
+						}
+						return views;
+					}));
+				}
+				start.countDown();
+				List<Object[]> results = new ArrayList<>();
+				for (Future<Object[]> future : futures) {
+					results.add(future.get());
+				}
+				// every reader got the one view of each row
+				for (int i = 0; i < 1000; i++) {
+					for (Object[] views : results) {
+						assertTrue(views[i] == array.get(i));
+					}
+				}
+				
+				// views handed out by iteration still read their row once the rows become objects
+				List<JsonObject> iterated = new ArrayList<>();
+				for (Object element : array) {
+					iterated.add((JsonObject) element);
+				}
+				array.add(new JsonObject());
+				for (int i = 0; i < 1000; i++) {
+					assertEquals((long) i, ((JsonObject) results.get(0)[i]).get("id"));
+					assertEquals("item" + i, iterated.get(i).get("v"));
+				}
+				iterated.get(3).put("v", "changed");
+				assertEquals("changed", ((JsonObject) array.get(3)).get("v"));
+			}
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
 }
@@ -2,6 +2,12 @@ package com.jsontools;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.stream.IntStream;
+
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -352,4 +358,300 @@ class JsonObjectTest {
 		}
 	}
 	
+	@Test
+	@DisplayName("Seek test (compiled keypath)")
+	void test023() {
+		try {
+			JsonObject data = JsonParser.parseObjectString("{\"key\":[{\"id\":1,\"tags\":[\"a\"]},{\"id\":2,\"tags\":[\"b\",\"c\"]}]}");
+			KeyPath byContent = KeyPath.compile("key[{\"id\":2}].tags[1]");
+			KeyPath byNestedContent = KeyPath.compile("key[{\"tags\":[\"a\"]}].id");
+			for (int i = 0; i < 3; i++) {
+				assertEquals("c", data.seek(byContent));
+				assertEquals(1L, data.seek(byNestedContent));
+			}
+			assertEquals(data.seek("key[{\"id\":2}].tags[1]"), data.seek(byContent));
+			assertEquals(data, data.seek(KeyPath.compile("")));
+			assertEquals("key[{\"id\":2}].tags[1]", byContent.toString());
+			assertEquals(KeyPath.compile("key[0]"), KeyPath.compile("key[0]"));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("Seek test (many distinct keypaths)")
+	void test024() {
+		try {
+			JsonObject data = new JsonObject();
+			for (int i = 0; i < 3 * KeyPath.CACHE_SIZE; i++) {
+				data.put("key" + i, (long) i);
+			}
+			for (int round = 0; round < 2; round++) {
+				for (int i = 0; i < 3 * KeyPath.CACHE_SIZE; i++) {
+					assertEquals((long) i, data.seek("key" + i));
+				}
+			}
+			// threads seeking at once share the cache without locking
+			long mismatches = IntStream.range(0, 20 * KeyPath.CACHE_SIZE).parallel().filter(i -> {
+				int key = i % (3 * KeyPath.CACHE_SIZE);
+				try {
+					return !Long.valueOf(key).equals(data.seek("key" + key));
+				} catch (JSONFormatException ex) {
+					return true;
+				}
+			}).count();
+			assertEquals(0L, mismatches);
+			boolean thrown = false;
+			try {
+				KeyPath.compile("key}.id");
+			} catch (JSONFormatException ex) {
+				thrown = true;
+			}
+			assertTrue(thrown);
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("writeTo tester")
+	void test025() {
+		try {
+			StringBuilder stringBuilder = new StringBuilder("{");
+			for (int i = 0; i < 1000; i++) {
+				if (i > 0) {
+					stringBuilder.append(',');
+				}
+				stringBuilder.append("\"key" + i + "\":[\"va\\\"lue\",{\"n\":" + i + ",\"b\":true,\"d\":1.5}]");
+			}
+			String jsonString = stringBuilder.append('}').toString();
+			JsonObject data = JsonParser.parseObjectString(jsonString);
+			
+			// the same text is written to every kind of destination
+			StringBuilder appendable = new StringBuilder();
+			data.writeTo(appendable);
+			StringWriter writer = new StringWriter();
+			data.writeTo(writer);
+			assertEquals(data.toString(), appendable.toString());
+			assertEquals(data.toString(), writer.toString());
+			assertEquals(jsonString.length(), writer.toString().length());
+			assertEquals(data, JsonParser.parseObjectString(writer.toString()));
+			
+			// a shared object can be written by several threads at once
+			JsonObject shared = data;
+			String expected = data.toString();
+			Thread[] threads = new Thread[4];
+			boolean[] same = new boolean[threads.length];
+			for (int i = 0; i < threads.length; i++) {
+				int index = i;
+				threads[i] = new Thread(() -> {
+					boolean result = true;
+					for (int j = 0; j < 20; j++) {
+						result &= expected.equals(shared.toString());
+					}
+					same[index] = result;
+				});
+				threads[i].start();
+			}
+			for (int i = 0; i < threads.length; i++) {
+				threads[i].join();
+				assertTrue(same[i]);
+			}
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("frozen objects")
+	void test026() {
+		try {
+			StringBuilder stringBuilder = new StringBuilder("{\"small\":{\"a\":1,\"b\":[1,2,3],\"c\":[{\"d\":true}]}");
+			for (int i = 0; i < 40; i++) {
+				stringBuilder.append(",\"key").append(i).append("\":").append(i % 2 == 0 ? "\"v" + i + "\"" : "" + i);
+			}
+			String jsonString = stringBuilder.append('}').toString();
+			JsonObject data = JsonParser.parseObjectString(jsonString);
+			JsonObject frozen = data.freeze();
+			
+			// equal in both directions, and read the same way
+			assertTrue(frozen.isFrozen());
+			assertFalse(data.isFrozen());
+			assertEquals(data, frozen);
+			assertEquals(frozen, data);
+			assertEquals(data.hashCode(), frozen.hashCode());
+			assertEquals(data.size(), frozen.size());
+			assertEquals(data, JsonParser.parseObjectString(frozen.toString()));
+			assertEquals(data.keySet(), frozen.keySet());
+			assertEquals("v38", frozen.get("key38"));
+			assertEquals(39L, frozen.get("key39"));
+			assertNull(frozen.get("key40"));
+			assertTrue(frozen.containsKey("small"));
+			assertEquals(3L, frozen.seek("small.b[2]"));
+			assertEquals(true, frozen.seek("small.c[0].d"));
+			assertTrue(frozen.subsetOf(data));
+			assertTrue(data.subsetOf(frozen));
+			assertEquals(20L, frozen.reduceValuesToLong(1, v -> v instanceof Long ? 1 : 0, 0, Long::sum));
+			assertTrue(frozen.freeze() == frozen);
+			
+			// deeply immutable, with numeric arrays kept as primitives
+			JsonObject small = (JsonObject) frozen.get("small");
+			JsonArray numbers = (JsonArray) small.get("b");
+			assertTrue(small.isFrozen());
+			assertTrue(numbers.isFrozen());
+			assertEquals(6L, numbers.longStream().sum());
+			assertThrows(UnsupportedOperationException.class, () -> frozen.put("x", "y"));
+			assertThrows(UnsupportedOperationException.class, () -> frozen.remove("small"));
+			assertThrows(UnsupportedOperationException.class, () -> small.computeIfAbsent("x", k -> "y"));
+			assertThrows(UnsupportedOperationException.class, () -> frozen.entrySet().iterator().next().setValue("x"));
+			assertThrows(UnsupportedOperationException.class, () -> frozen.keySet().remove("small"));
+			assertThrows(UnsupportedOperationException.class, () -> frozen.keySet().add("x"));
+			assertThrows(UnsupportedOperationException.class, () -> frozen.keySet().clear());
+			assertTrue(frozen.containsKey("small"));
+			assertThrows(UnsupportedOperationException.class, () -> numbers.add(4L));
+			assertThrows(UnsupportedOperationException.class, () -> numbers.iterator().remove());
+			assertThrows(UnsupportedOperationException.class, () -> numbers.subList(0, 1).clear());
+			assertThrows(UnsupportedOperationException.class, () -> ((JsonArray) small.get("c")).createIndex("d"));
+			
+			// the source is unaffected, and a clone of a frozen array is mutable
+			data.put("extra", "value");
+			((JsonArray) ((JsonObject) data.get("small")).get("b")).add(4L);
+			assertFalse(data.equals(frozen));
+			assertEquals(3, numbers.size());
+			JsonArray copy = (JsonArray) numbers.clone();
+			copy.add(4L);
+			assertEquals(4, copy.size());
+			
+			// a frozen object built from a map drops values which are not json values
+			java.util.LinkedHashMap<String, Object> map = new java.util.LinkedHashMap<String, Object>();
+			map.put("a", 1L);
+			map.put("b", new Object());
+			JsonObject built = JsonObject.frozen(map);
+			assertEquals(1, built.size());
+			assertTrue(built.isFrozen());
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("object storage")
+	void test027() {
+		try {
+			String jsonString = "{\"zeta\":1,\"alpha\":{\"y\":true,\"b\":\"x\"},\"mid\":[{\"q\":2.5,\"a\":false}]}";
+			JsonParserContext context = new JsonParserContext();
+			assertEquals(JsonStorage.CONCURRENT, context.getObjectStorage());
+			context.setObjectStorage(JsonStorage.ORDERED);
+			assertEquals(JsonStorage.ORDERED, context.getObjectStorage());
+			JsonObject ordered = context.parseObjectString(jsonString);
+			assertEquals(ordered.toString(), context.parseObjectBytes(jsonString.getBytes(StandardCharsets.UTF_8)).toString());
+			JsonPushParser pushParser = new JsonPushParser();
+			pushParser.setObjectStorage(JsonStorage.ORDERED);
+			pushParser.feed(ByteBuffer.wrap(jsonString.getBytes(StandardCharsets.UTF_8)));
+			pushParser.endOfInput();
+			assertEquals(ordered.toString(), pushParser.nextValue().toString());
+			// written back in the order parsed, at every level
+			assertEquals("{\"zeta\":1,\"alpha\":{\"y\":true,\"b\":\"x\"},\"mid\":[{\"q\":2.5,\"a\":false}]}", ordered.toString());
+			assertEquals(ordered, JsonParser.parseObjectString(jsonString));
+			assertEquals(JsonParser.parseObjectString(jsonString), ordered);
+			assertEquals("y", ((JsonObject) ordered.get("alpha")).keys().nextElement());
+			assertEquals(ordered.toString(), ordered.freeze().toString());
+			
+			// type checks are kept
+			for (JsonStorage storage : JsonStorage.values()) {
+				JsonObject jobj = JsonObject.create(storage);
+				assertNull(jobj.put("bad", new Object()));
+				jobj.put("b", 2L);
+				jobj.put("a", "one");
+				jobj.putIfAbsent("a", "two");
+				assertEquals(2, jobj.size());
+				assertEquals("one", jobj.get("a"));
+				assertNull(jobj.get(1));
+				assertTrue(jobj.containsKey("b"));
+				jobj.entrySet().iterator().next().setValue(new Object());
+				assertTrue(jobj.get("b") instanceof Long);
+				assertTrue(jobj.equals(JsonParser.parseObjectString("{\"a\":\"one\",\"b\":2}")));
+				assertEquals(jobj, JsonParser.parseObjectString(jobj.toString()));
+				assertEquals(jobj, BinaryJsonDecoder.decode(BinaryJsonEncoder.encode(jobj)));
+				jobj.remove("a");
+				assertEquals("{\"b\":2}", jobj.toString());
+			}
+			JsonObject orderedObject = JsonObject.create(JsonStorage.ORDERED);
+			orderedObject.put("z", 1L);
+			orderedObject.put("a", 2L);
+			assertEquals("{\"z\":1,\"a\":2}", orderedObject.toString());
+			
+			// joining keeps the order of the joined object, and the key copy is read-only
+			JsonObject joined = JsonObject.create(JsonStorage.ORDERED);
+			joined.join(ordered);
+			assertEquals(ordered.toString(), joined.toString());
+			assertTrue(joined.subsetOf(ordered));
+			assertThrows(UnsupportedOperationException.class, () -> joined.keySet().remove("zeta"));
+			assertThrows(UnsupportedOperationException.class, () -> joined.keySet("x").add("new"));
+			assertEquals(3, joined.keySet(Boolean.TRUE).size());
+			assertTrue(joined.containsKey("zeta"));
+			assertThrows(NullPointerException.class, () -> context.setObjectStorage(null));
+			
+			// a pooled context is returned to the default storage
+			JsonParserContext pooled = JsonParserContext.acquire();
+			pooled.setObjectStorage(JsonStorage.HASH);
+			pooled.close();
+			try (JsonParserContext next = JsonParserContext.acquire()) {
+				assertEquals(JsonStorage.CONCURRENT, next.getObjectStorage());
+			}
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("frozen hashes")
+	void test028() {
+		try {
+			String jsonString = "{\"id\":7,\"tags\":[\"a\",\"b\"],\"meta\":{\"n\":[1,2,3],\"x\":2.5}}";
+			JsonObject mutable = JsonParser.parseObjectString(jsonString);
+			JsonObject frozen = mutable.freeze();
+			
+			// the cached hash agrees with the hash of an equal mutable object
+			assertEquals(mutable.hashCode(), frozen.hashCode());
+			assertEquals(frozen.hashCode(), frozen.hashCode());
+			assertEquals(mutable.get("tags").hashCode(), frozen.get("tags").hashCode());
+			assertEquals(frozen, mutable);
+			assertEquals(mutable, frozen);
+			assertEquals(frozen, JsonParser.parseObjectString(jsonString).freeze());
+			
+			// frozen trees which differ anywhere are unequal
+			((JsonObject) mutable.get("meta")).put("x", 3.5);
+			JsonObject changed = mutable.freeze();
+			assertFalse(frozen.equals(changed));
+			assertFalse(changed.equals(frozen));
+			assertFalse(frozen.get("meta").equals(changed.get("meta")));
+			assertEquals(frozen.get("tags"), changed.get("tags"));
+			
+			// frozen trees deduplicate through hash maps
+			HashSet<JsonObject> distinct = new HashSet<JsonObject>();
+			for (int i = 0; i < 100; i++) {
+				distinct.add(JsonParser.parseObjectString("{\"k\":" + (i % 10) + ",\"v\":[" + (i % 10) + "]}").freeze());
+			}
+			assertEquals(10, distinct.size());
+			assertTrue(distinct.contains(JsonParser.parseObjectString("{\"v\":[3],\"k\":3}")));
+			
+			// shared subtrees are subsets of themselves
+			JsonObject spec = new JsonObject();
+			spec.put("meta", changed.get("meta"));
+			assertTrue(spec.subsetOf(changed));
+			JsonArray array = new JsonArray();
+			array.add(changed);
+			assertTrue(array.subsetOf(array.freeze()));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
 }
@@ -1,11 +1,34 @@
 package com.jsontools;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -259,4 +282,973 @@ class JsonParserTest {
 		}
 	}
 
+	@Test
+	@DisplayName("Parse object with whitespace and nested structures")
+	void test011() {
+		try {
+			// create reference string
+			String jsonString = "{\n\t\"key1\" : [ 1 , {\"key2\" : \"a, [b]\"} ] ,\r\n\t\"key3\" : { } ,\n\t\"key4\" : [ ]\n}";
+			
+			// parse data from string
+			JsonObject jdata = JsonParser.parseObjectString(jsonString);
+			
+			// assertions
+			assertEquals(3, jdata.keySet().size());
+			assertEquals(1L, jdata.seek("key1[0]"));
+			assertEquals("a, [b]", jdata.seek("key1[1].key2"));
+			assertEquals(0, ((JsonObject) jdata.get("key3")).size());
+			assertEquals(0, ((JsonArray) jdata.get("key4")).size());
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("Parse deeply nested array")
+	void test012() {
+		try {
+			// create reference string
+			int depth = 100000;
+			StringBuilder stringBuilder = new StringBuilder();
+			for (int i = 0; i < depth; i++) {
+				stringBuilder.append('[');
+			}
+			stringBuilder.append(1);
+			for (int i = 0; i < depth; i++) {
+				stringBuilder.append(']');
+			}
+			
+			// parse data from string
+			Object current = JsonParser.parseArrayString(stringBuilder.toString());
+			
+			// assertions
+			for (int i = 0; i < depth; i++) {
+				assertTrue(current instanceof JsonArray);
+				current = ((JsonArray) current).get(0);
+			}
+			assertEquals(1L, current);
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("Reject malformed json")
+	void test013() {
+		String[] malformed = {
+				"",
+				"[1,2,3]",
+				"{\"key\":1",
+				"{\"key\":1]",
+				"{\"key\" 1}",
+				"{\"key\":1,}",
+				"{\"key.subkey\":1}",
+				"{\"key\":nope}",
+				"{\"key\":1}}"
+		};
+		for (String jsonString : malformed) {
+			try {
+				JsonParser.parseObjectString(jsonString);
+				fail("Expected exception for " + jsonString);
+			} catch (JSONFormatException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Parse object from UTF-8 bytes")
+	void test014() {
+		try {
+			// create reference bytes
+			String jsonString = "{\"key\" : \"v\u00e4lue \u4e16\u754c\", \"n\" : [1, 2.5, false]}";
+			byte[] bytes = jsonString.getBytes(StandardCharsets.UTF_8);
+			
+			// parse data from bytes
+			JsonObject jdata = JsonParser.parseObjectBytes(bytes);
+			
+			// assertions
+			assertEquals(2, jdata.keySet().size());
+			assertEquals("v\u00e4lue \u4e16\u754c", jdata.get("key"));
+			assertEquals(2.5, jdata.seek("n[1]"));
+			assertEquals(false, jdata.seek("n[2]"));
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("Parse array from byte range and byte buffers")
+	void test015() {
+		try {
+			// create reference bytes surrounded by unrelated data
+			byte[] bytes = "xx[{\"k\u00e9y\":1},\"two\",3]yy".getBytes(StandardCharsets.UTF_8);
+			int length = bytes.length - 4;
+			
+			// parse data from byte range, heap buffer and direct buffer
+			JsonArray fromRange = JsonParser.parseArrayBytes(bytes, 2, length);
+			JsonArray fromHeap = JsonParser.parseArrayBytes(ByteBuffer.wrap(bytes, 2, length));
+			ByteBuffer direct = ByteBuffer.allocateDirect(length);
+			direct.put(bytes, 2, length).flip();
+			JsonArray fromDirect = JsonParser.parseArrayBytes(direct);
+			
+			// assertions
+			assertEquals("[{\"k\u00e9y\":1},\"two\",3]", fromRange.toString());
+			assertEquals(fromRange, fromHeap);
+			assertEquals(fromRange, fromDirect);
+			assertEquals(0, direct.position());
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("Parse pretty-printed file preserving newlines in strings")
+	void test016() {
+		try {
+			// create reference file
+			String filepath = "test.json";
+			PrintWriter writer = new PrintWriter(filepath, "UTF-8");
+			writer.println("[");
+			writer.println("\t{\"key\" : \"line1");
+			writer.println("line2 \u00e9\"},");
+			writer.println("\t2");
+			writer.println("]");
+			writer.close();
+			
+			// parse data from file
+			File file = new File(filepath);
+			JsonArray jdata = JsonParser.parseArrayFile(file);
+			
+			// assertions
+			assertEquals(2, jdata.size());
+			assertEquals("line1" + System.lineSeparator() + "line2 \u00e9", ((JsonObject) jdata.get(0)).get("key"));
+			assertEquals(2L, jdata.get(1));
+			
+			// delete reference file
+			file.delete();
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("Parse file across several mapped windows")
+	void test017() {
+		try {
+			// create reference file
+			String filepath = "test.json";
+			StringBuilder stringBuilder = new StringBuilder("{");
+			for (int i = 0; i < 200; i++) {
+				if (i > 0) {
+					stringBuilder.append(',');
+				}
+				stringBuilder.append("\"key").append(i).append("\":[\"value ").append(i).append("\",").append(i).append(']');
+			}
+			stringBuilder.append('}');
+			PrintWriter writer = new PrintWriter(filepath, "UTF-8");
+			writer.print(stringBuilder);
+			writer.close();
+			
+			// parse data from file with windows and chunks smaller than most tokens
+			File file = new File(filepath);
+			ByteJsonParser parser = new ByteJsonParser(new FileInputStream(file).getChannel(), 3, 7);
+			JsonObject jdata = parser.parseObject();
+			parser.close();
+			
+			// assertions
+			assertEquals(JsonParser.parseObjectString(stringBuilder.toString()), jdata);
+			assertEquals(jdata, JsonParser.parseObjectFile(file));
+			
+			// delete reference file
+			file.delete();
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("Parse batch of mixed inputs in order")
+	void test018() {
+		try {
+			// create reference file
+			String filepath = "test.json";
+			PrintWriter writer = new PrintWriter(filepath, "UTF-8");
+			writer.println("{\"source\":\"file\"}");
+			writer.close();
+			File file = new File(filepath);
+			
+			// parse a batch on the default executors and on a custom executor
+			List<Object> inputs = new ArrayList<Object>();
+			for (int i = 0; i < 100; i++) {
+				inputs.add("{\"index\":" + i + "}");
+			}
+			inputs.add("[1,2");
+			inputs.add(file.toPath());
+			inputs.add("[\"array\"]".getBytes(StandardCharsets.UTF_8));
+			inputs.add(new File("missing.json"));
+			inputs.add(new File("error.json") {
+				
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				public String getPath() {
+					throw new AssertionError("failed while opening");
+				}
+				
+			});
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			List<List<JsonParseResult>> batches = new ArrayList<List<JsonParseResult>>();
+			batches.add(JsonParser.parseAll(inputs));
+			batches.add(JsonParser.parseAll(inputs, executor));
+			executor.shutdown();
+			
+			// assertions
+			for (List<JsonParseResult> results : batches) {
+				assertEquals(inputs.size(), results.size());
+				for (int i = 0; i < 100; i++) {
+					assertTrue(results.get(i).isSuccess());
+					assertEquals((long) i, ((JsonObject) results.get(i).getValue()).get("index"));
+				}
+				assertFalse(results.get(100).isSuccess());
+				assertTrue(results.get(100).getError() instanceof JSONFormatException);
+				assertEquals("file", ((JsonObject) results.get(101).getValue()).get("source"));
+				assertEquals("[\"array\"]", results.get(102).getValue().toString());
+				assertTrue(results.get(103).getError() instanceof FileNotFoundException);
+				assertTrue(results.get(104).getError() instanceof AssertionError);
+			}
+			
+			// delete reference file
+			file.delete();
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("Stream JSON Lines from file, sequentially and in parallel")
+	void test019() {
+		try {
+			// create reference file large enough to be split
+			String filepath = "test.jsonl";
+			int count = 20000;
+			PrintWriter writer = new PrintWriter(filepath, "UTF-8");
+			for (int i = 0; i < count; i++) {
+				if (i % 1000 == 999) {
+					writer.println("{\"index\":" + i + ",broken}");
+				} else {
+					writer.println("{\"index\":" + i + ",\"padding\":\"some text to make the line longer\"}");
+				}
+				if (i % 100 == 0) {
+					writer.println();
+				}
+			}
+			writer.print("{\"index\":" + count + "}");
+			writer.close();
+			Path path = new File(filepath).toPath();
+			
+			// stream data from file
+			List<JsonParseResult> errors = Collections.synchronizedList(new ArrayList<JsonParseResult>());
+			List<Object> sequential;
+			List<Object> parallel;
+			try (Stream<JsonObject> lines = JsonParser.lines(path, errors::add)) {
+				sequential = lines.map(jobj -> jobj.get("index")).collect(Collectors.toList());
+			}
+			try (Stream<JsonObject> lines = JsonParser.lines(path, errors::add)) {
+				parallel = lines.parallel().map(jobj -> jobj.get("index")).collect(Collectors.toList());
+			}
+			
+			// assertions
+			assertEquals(count + 1 - count / 1000, sequential.size());
+			assertEquals(sequential, parallel);
+			assertEquals(0L, sequential.get(0));
+			assertEquals((long) count, sequential.get(sequential.size() - 1));
+			assertEquals(2 * count / 1000, errors.size());
+			assertFalse(errors.get(0).isSuccess());
+			assertTrue(((String) errors.get(0).getInput()).contains("broken"));
+			
+			// delete reference file
+			new File(filepath).delete();
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("Stream JSON Lines from input stream")
+	void test020() {
+		try {
+			// create reference data
+			StringBuilder stringBuilder = new StringBuilder();
+			for (int i = 0; i < 5000; i++) {
+				stringBuilder.append("{\"index\":").append(i).append("}\r\n");
+			}
+			stringBuilder.append("[\"not an object\"]\n");
+			byte[] bytes = stringBuilder.toString().getBytes(StandardCharsets.UTF_8);
+			
+			// stream data from input stream
+			List<JsonParseResult> errors = Collections.synchronizedList(new ArrayList<JsonParseResult>());
+			List<Object> parallel = JsonParser.lines(new ByteArrayInputStream(bytes), errors::add)
+					.parallel()
+					.map(jobj -> jobj.get("index"))
+					.collect(Collectors.toList());
+			long skipping = JsonParser.lines(new ByteArrayInputStream(bytes)).count();
+			
+			// assertions
+			assertEquals(5000, parallel.size());
+			for (int i = 0; i < 5000; i++) {
+				assertEquals((long) i, parallel.get(i));
+			}
+			assertEquals(5000L, skipping);
+			assertEquals(1, errors.size());
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("Parse large strings in parallel")
+	void test021() {
+		try {
+			// create reference data
+			StringBuilder objectBuilder = new StringBuilder("{");
+			StringBuilder arrayBuilder = new StringBuilder("[");
+			for (int i = 0; i < 20000; i++) {
+				if (i > 0) {
+					objectBuilder.append(",\n");
+					arrayBuilder.append(", ");
+				}
+				objectBuilder.append("\"key").append(i).append("\": {\"text\": \"a, b ] } \\\" c\", \"list\": [").append(i).append(", true, 1.5]}");
+				arrayBuilder.append("[\"x,]\", {\"n\": ").append(i).append("}]");
+			}
+			String objectString = objectBuilder.append("}").toString();
+			String arrayString = arrayBuilder.append("]").toString();
+			ForkJoinPool pool = new ForkJoinPool(4);
+			
+			// parse data
+			JsonObject sequentialObject = JsonParser.parseObjectString(objectString);
+			JsonObject parallelObject = JsonParser.parseObjectString(objectString, pool);
+			JsonArray sequentialArray = JsonParser.parseArrayString(arrayString);
+			JsonArray parallelArray = JsonParser.parseArrayString(arrayString, pool);
+			JsonObject smallObject = JsonParser.parseObjectString("{\"a\": 1, \"b\": [2]}", pool);
+			
+			// assertions
+			assertEquals(20000, parallelObject.size());
+			assertEquals(sequentialObject, parallelObject);
+			assertEquals(20000, parallelArray.size());
+			assertEquals(sequentialArray, parallelArray);
+			assertEquals(19999L, ((JsonObject) ((JsonArray) parallelArray.get(19999)).get(1)).get("n"));
+			assertEquals(1L, smallObject.get("a"));
+			
+			// malformed data is still rejected
+			String[] malformed = {
+					objectString.substring(0, objectString.length() - 1),
+					objectString.replace("\"key12345\": {", "\"key12345\": {{"),
+					arrayString.replace("{\"n\": 15000}", "{\"n\" 15000}"),
+					arrayString.replace("\"x,]\"", "\"x,]"),
+			};
+			for (int i = 0; i < malformed.length; i++) {
+				boolean thrown = false;
+				try {
+					if (i < 2) {
+						JsonParser.parseObjectString(malformed[i], pool);
+					} else {
+						JsonParser.parseArrayString(malformed[i], pool);
+					}
+				} catch (JSONFormatException ex) {
+					thrown = true;
+				}
+				assertTrue(thrown);
+			}
+			pool.shutdown();
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("Parse large files in parallel")
+	void test022() {
+		try {
+			// create reference files
+			String objectPath = "test_parallel_object.json";
+			String arrayPath = "test_parallel_array.json";
+			PrintWriter objectWriter = new PrintWriter(objectPath, "UTF-8");
+			PrintWriter arrayWriter = new PrintWriter(arrayPath, "UTF-8");
+			objectWriter.println("  {");
+			arrayWriter.println("[");
+			for (int i = 0; i < 20000; i++) {
+				String separator = i < 19999 ? "," : "";
+				objectWriter.println("\t\"key" + i + "\": [\"caf\u00e9, {\", " + i + "]" + separator);
+				arrayWriter.println("\t{\"index\": " + i + ", \"text\": \"\u00fc]\"}" + separator);
+			}
+			objectWriter.println("}  ");
+			arrayWriter.print("]");
+			objectWriter.close();
+			arrayWriter.close();
+			File objectFile = new File(objectPath);
+			File arrayFile = new File(arrayPath);
+			ForkJoinPool pool = new ForkJoinPool(4);
+			
+			// parse data
+			JsonObject parallelObject = JsonParser.parseObjectFile(objectFile, pool);
+			JsonArray parallelArray = JsonParser.parseArrayFile(arrayFile, pool);
+			
+			// assertions
+			assertEquals(JsonParser.parseObjectFile(objectFile), parallelObject);
+			assertEquals(JsonParser.parseArrayFile(arrayFile), parallelArray);
+			assertEquals("caf\u00e9, {", ((JsonArray) parallelObject.get("key7")).get(0));
+			assertEquals(12345L, ((JsonObject) parallelArray.get(12345)).get("index"));
+			boolean thrown = false;
+			try {
+				JsonParser.parseArrayFile(objectFile, pool);
+			} catch (JSONFormatException ex) {
+				thrown = true;
+			}
+			assertTrue(thrown);
+			pool.shutdown();
+			
+			// delete reference files
+			objectFile.delete();
+			arrayFile.delete();
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("Parse bytes with long Strings and indentation at every alignment")
+	void test023() {
+		try {
+			for (int length = 0; length < 24; length++) {
+				String text = "abcdefghijklmnopqrstuvwx".substring(0, length);
+				String indent = "\n" + " ".repeat(length);
+				
+				// keys and values which straddle eight-byte words
+				String data = "{" + indent + "\"k" + text + "\":" + indent + "[\"" + text + "\\\"" + text + "\", \"\u00e9" + text + "\"]" + indent + "}";
+				byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+				JsonObject expected = JsonParser.parseObjectString(data);
+				assertEquals(expected, JsonParser.parseObjectBytes(bytes));
+				assertEquals(expected.toString(), JsonParser.parseObjectBytes(bytes).toString());
+				assertEquals(text + "\\\"" + text, ((JsonArray) expected.get("k" + text)).get(0));
+				
+				// a period anywhere in a key is rejected
+				boolean thrown = false;
+				try {
+					JsonParser.parseObjectBytes(("{\"" + text + "." + text + "\": 1}").getBytes(StandardCharsets.UTF_8));
+				} catch (JSONFormatException ex) {
+					thrown = true;
+				}
+				assertTrue(thrown);
+			}
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("Parse objects lazily")
+	void test024() {
+		try {
+			// create reference data
+			String data = "{\"name\": \"caf\u00e9\", \"count\": 3, \"ratio\": 0.5, \"flag\": true,"
+					+ " \"inner\": {\"list\": [1, {\"a\": \"b\"}], \"deeper\": {\"x\": \"y\"}},"
+					+ " \"broken\": {\"key\" [1]}, \"empty\": {}}";
+			JsonObject fromString = JsonParser.parseObjectLazy(data);
+			JsonObject fromBytes = JsonParser.parseObjectLazy(data.getBytes(StandardCharsets.UTF_8));
+			
+			for (JsonObject jobj : new JsonObject[] {fromString, fromBytes}) {
+				// values are decoded on access
+				assertEquals(7, jobj.size());
+				assertEquals("caf\u00e9", jobj.get("name"));
+				assertEquals(3L, jobj.get("count"));
+				assertEquals(0.5, jobj.get("ratio"));
+				assertEquals(true, jobj.get("flag"));
+				assertEquals("y", jobj.seek("inner.deeper.x"));
+				assertEquals("b", jobj.seek("inner.list[1].a"));
+				assertEquals(0, ((JsonObject) jobj.get("empty")).size());
+				assertEquals(null, jobj.get("missing"));
+				
+				// malformed nested values fail when they are decoded
+				boolean thrown = false;
+				try {
+					jobj.get("broken");
+				} catch (IllegalStateException ex) {
+					thrown = ex.getCause() instanceof JSONFormatException;
+				}
+				assertTrue(thrown);
+				
+				// writes and removals replace undecoded values
+				assertEquals(3L, jobj.put("count", 4L));
+				assertEquals(4L, jobj.get("count"));
+				assertEquals("caf\u00e9", jobj.remove("name"));
+				assertFalse(jobj.containsKey("name"));
+			}
+			
+			// a lazy object equals the eagerly parsed object
+			String valid = data.replace("\"broken\": {\"key\" [1]}, ", "");
+			JsonObject eager = JsonParser.parseObjectString(valid);
+			JsonObject lazy = JsonParser.parseObjectLazy(valid);
+			assertEquals(eager, lazy);
+			assertEquals(lazy, eager);
+			assertEquals(eager.toString(), JsonParser.parseObjectLazy(valid).toString());
+			assertEquals(eager.size(), JsonParser.parseObjectLazy(valid).values().size());
+			assertTrue(eager.subsetOf(JsonParser.parseObjectLazy(valid)));
+			assertTrue(JsonParser.parseObjectLazy(valid).subsetOf(eager));
+			
+			// the top level is checked up front
+			String[] malformed = {"[1]", "{\"a\": 1", "{\"a\" 1}", "{\"a.b\": 1}", "{\"a\": 1} 2", "{\"a\": nope}"};
+			for (String text : malformed) {
+				boolean thrown = false;
+				try {
+					JsonParser.parseObjectLazy(text);
+				} catch (JSONFormatException ex) {
+					thrown = true;
+				}
+				assertTrue(thrown);
+			}
+			
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("numbers read without exceptions")
+	void test025() {
+		try {
+			String[] numbers = {
+					"0", "-0", "42", "-9223372036854775808", "9223372036854775807", "9223372036854775808",
+					"18446744073709551616", "1.5", "-0.0", "0.1", "0.3", "1e5", "1E-5", "-2.5e+3",
+					"4.9e-324", "2.4703282292062328e-324", "2.2250738585072011e-308", "1.7976931348623157e308",
+					"1.7976931348623159e308", "9007199254740993.0", "123456.789e-300", "1e400", "1e-400",
+					"3.14159265358979323846264338327950288", "7.2057594037927933e16", "NaN", "0x1p3",
+			};
+			for (String number : numbers) {
+				Object value = JsonParser.parseArrayString("[" + number + "]").get(0);
+				Object expected;
+				if (number.matches("-?[0-9]+") && new BigInteger(number).bitLength() < 64) {
+					expected = Long.parseLong(number);
+				} else {
+					expected = Double.parseDouble(number);
+				}
+				assertEquals(expected, value, number);
+			}
+			for (String invalid : new String[] { "1e", ".", "-", "1.2.3", "1e+", "e5", "--1" }) {
+				assertThrows(JSONFormatException.class, () -> JsonParser.parseArrayString("[" + invalid + "]"));
+			}
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("lossless numbers")
+	void test026() {
+		try {
+			String jsonString = "{\"amount\":12345678901234567890.000100,\"count\":42,\"rate\":-1.50E-3,"
+					+ "\"prices\":[0.10,0.20,9999999999999999999999],\"name\":\"fund\",\"open\":true}";
+			for (JsonObject jsonData : new JsonObject[] {
+					JsonParser.parseObjectLossless(jsonString),
+					JsonParser.parseObjectLossless(jsonString.getBytes(StandardCharsets.UTF_8)) }) {
+				// written back out exactly as read
+				assertEquals(jsonString.length(), jsonData.toString().length());
+				assertEquals(jsonData, JsonParser.parseObjectLossless(jsonData.toString()));
+				
+				JsonNumber amount = (JsonNumber) jsonData.get("amount");
+				assertEquals(new BigDecimal("12345678901234567890.000100"), amount.asBigDecimal());
+				assertEquals("12345678901234567890.000100", amount.toString());
+				assertThrows(ArithmeticException.class, () -> amount.asBigInteger());
+				assertThrows(ArithmeticException.class, () -> amount.asLong());
+				assertEquals(1.2345678901234567e19, amount.asDouble());
+				
+				JsonNumber count = (JsonNumber) jsonData.get("count");
+				assertEquals(42L, count.asLong());
+				assertEquals(BigInteger.valueOf(42), count.asBigInteger());
+				assertEquals(-0.0015, ((JsonNumber) jsonData.get("rate")).asDouble());
+				assertEquals(new JsonNumber("-0.0015"), jsonData.get("rate"));
+				
+				JsonArray prices = (JsonArray) jsonData.get("prices");
+				assertEquals(new BigInteger("9999999999999999999999"), ((JsonNumber) prices.get(2)).asBigInteger());
+				assertEquals(0.1, prices.getDouble(0));
+				assertEquals("fund", jsonData.get("name"));
+				assertEquals(true, jsonData.get("open"));
+				
+				// the binary encoding keeps the text as well
+				assertEquals(jsonData.toString(), BinaryJsonDecoder.decode(BinaryJsonEncoder.encode(jsonData)).toString());
+			}
+			// numbers read the usual way are never JsonNumbers
+			assertEquals(42L, JsonParser.parseObjectString(jsonString).get("count"));
+			assertThrows(NumberFormatException.class, () -> new JsonNumber("1e"));
+			assertThrows(JSONFormatException.class, () -> JsonParser.parseArrayLossless("[1, 2x]"));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("string table")
+	void test027() {
+		StringTable table = new StringTable(64, 8);
+		try {
+			JsonParserContext context = new JsonParserContext(table);
+			String jsonString = "{\"id\":\"open\",\"note\":\"a long description\",\"caf\u00e9\":\"open\",\"list\":[\"open\"]}";
+			JsonObject first = context.parseObjectString(jsonString);
+			JsonObject second = new JsonParserContext(table).parseObjectBytes(jsonString.getBytes(StandardCharsets.UTF_8));
+			assertEquals(first, second);
+			
+			// short keys and values are shared across documents and inputs
+			String id = first.keySet().stream().filter("id"::equals).findFirst().get();
+			assertTrue(id == second.keySet().stream().filter("id"::equals).findFirst().get());
+			assertTrue(first.get("id") == second.get("id"));
+			assertTrue(first.get("id") == ((JsonArray) second.get("list")).get(0));
+			assertTrue(table.canonicalize(new String("open")) == first.get("id"));
+			
+			// long values are not, and non-ASCII bytes are still decoded
+			assertFalse(first.get("note") == second.get("note"));
+			assertEquals("open", second.get("caf\u00e9"));
+			
+			// other parsers are unaffected by the table
+			assertFalse(JsonParser.parseObjectString(jsonString).get("id") == first.get("id"));
+			assertFalse(new JsonParserContext(null).parseObjectString(jsonString).get("id") == first.get("id"));
+			
+			table.clear();
+			assertFalse(first.get("id") == context.parseObjectString(jsonString).get("id"));
+			assertThrows(IllegalArgumentException.class, () -> new StringTable(0, 8));
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("parser contexts")
+	void test028() {
+		try {
+			String jsonString = "{\"id\":7,\"price\":1.5e2,\"ok\":true,\"nan\":NaN,\"name\":\"caf\u00e9\",\"items\":[{\"sku\":\"a\"},{\"sku\":\"b\"}]}";
+			byte[] bytes = jsonString.getBytes(StandardCharsets.UTF_8);
+			JsonObject expected = JsonParser.parseObjectString(jsonString);
+			
+			// a context gives the same trees as the static methods, document after document
+			JsonParserContext context = new JsonParserContext();
+			JsonObject first = context.parseObjectString(jsonString);
+			for (int i = 0; i < 100; i++) {
+				assertEquals(expected, context.parseObjectString(jsonString));
+				assertEquals(expected, context.parseObjectBytes(bytes));
+			}
+			ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+			assertEquals(expected, context.parseObjectBytes(direct));
+			assertEquals(0, direct.position());
+			assertEquals(JsonParser.parseArrayString("[1,[2,3],\"x\"]"), context.parseArrayBytes("[1,[2,3],\"x\"]".getBytes(StandardCharsets.UTF_8)));
+			
+			// keys are shared across the documents a context parses
+			String id = first.keySet().stream().filter("id"::equals).findFirst().get();
+			assertTrue(id == context.parseObjectBytes(bytes).keySet().stream().filter("id"::equals).findFirst().get());
+			
+			// a failed parse leaves the context usable
+			assertThrows(JSONFormatException.class, () -> context.parseObjectString("{\"a\":[1,{\"b\":"));
+			assertThrows(JSONFormatException.class, () -> context.parseArrayBytes("[1,2".getBytes(StandardCharsets.UTF_8)));
+			assertEquals(expected, context.parseObjectString(jsonString));
+			context.close();
+			assertThrows(IllegalStateException.class, () -> context.parseObjectString(jsonString));
+			
+			// pooled contexts are handed back out, and may be shared out across threads
+			JsonParserContext pooled = JsonParserContext.acquire();
+			pooled.close();
+			JsonParserContext again = JsonParserContext.acquire();
+			assertTrue(pooled == again);
+			assertEquals(expected, again.parseObjectBytes(bytes));
+			again.close();
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				List<Future<JsonObject>> futures = new ArrayList<>();
+				for (int i = 0; i < 200; i++) {
+					futures.add(executor.submit(() -> {
+						try (JsonParserContext borrowed = JsonParserContext.acquire()) {
+							return borrowed.parseObjectBytes(bytes);
+						}
+					}));
+				}
+				for (Future<JsonObject> future : futures) {
+					assertEquals(expected, future.get());
+				}
+			} finally {
+				executor.shutdown();
+			}
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("publishers")
+	void test029() {
+		try {
+			StringBuilder stringBuilder = new StringBuilder("[");
+			for (int i = 0; i < 5000; i++) {
+				stringBuilder.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"item").append(i).append("\"}");
+			}
+			byte[] array = stringBuilder.append("]").toString().getBytes(StandardCharsets.UTF_8);
+			
+			// elements arrive as requested, and input is read only as they are
+			int[] read = new int[1];
+			boolean[] closed = new boolean[1];
+			InputStream in = new ByteArrayInputStream(array) {
+				
+				@Override
+				public synchronized int read(byte[] b, int off, int len) {
+					int n = super.read(b, off, len);
+					read[0] += Math.max(n, 0);
+					return n;
+				}
+				
+				@Override
+				public void close() {
+					closed[0] = true;
+				}
+				
+			};
+			List<JsonObject> received = new ArrayList<>();
+			List<Object> signals = new ArrayList<>();
+			Flow.Subscription[] subscription = new Flow.Subscription[1];
+			JsonParser.publishObjects(in, Runnable::run).subscribe(new Flow.Subscriber<JsonObject>() {
+				
+				@Override
+				public void onSubscribe(Flow.Subscription s) {
+					subscription[0] = s;
+				}
+				
+				@Override
+				public void onNext(JsonObject item) {
+					received.add(item);
+				}
+				
+				@Override
+				public void onError(Throwable throwable) {
+					signals.add(throwable);
+				}
+				
+				@Override
+				public void onComplete() {
+					signals.add("complete");
+				}
+				
+			});
+			assertEquals(0, read[0]);
+			subscription[0].request(3);
+			assertEquals(3, received.size());
+			assertEquals(2L, received.get(2).get("id"));
+			assertTrue(read[0] <= 8192);
+			subscription[0].request(4000);
+			assertEquals(4003, received.size());
+			assertTrue(read[0] < array.length);
+			subscription[0].request(Long.MAX_VALUE);
+			assertEquals(5000, received.size());
+			assertEquals(Collections.singletonList("complete"), signals);
+			assertTrue(closed[0]);
+			assertEquals(JsonParser.parseArrayBytes(array), new JsonArray(received));
+			
+			// newline-delimited values, published on other threads
+			String lines = "{\"a\":1}\n[1,2]\n{\"b\":\"x\"}\n";
+			CompletableFuture<List<Object>> values = new CompletableFuture<>();
+			JsonParser.publishValues(new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8))).subscribe(new Flow.Subscriber<Object>() {
+				
+				private final List<Object> items = new ArrayList<>();
+				private Flow.Subscription s;
+				
+				@Override
+				public void onSubscribe(Flow.Subscription s) {
+					this.s = s;
+					s.request(1);
+				}
+				
+				@Override
+				public void onNext(Object item) {
+					items.add(item);
+					s.request(1);
+				}
+				
+				@Override
+				public void onError(Throwable throwable) {
+					values.completeExceptionally(throwable);
+				}
+				
+				@Override
+				public void onComplete() {
+					values.complete(items);
+				}
+				
+			});
+			List<Object> expected = List.of(JsonParser.parseObjectString("{\"a\":1}"), JsonParser.parseArrayString("[1,2]"), JsonParser.parseObjectString("{\"b\":\"x\"}"));
+			assertEquals(expected, values.get(10, TimeUnit.SECONDS));
+			
+			// an array is not an object, and malformed input is an error
+			List<Object> errors = new ArrayList<>();
+			Flow.Subscriber<JsonObject> failing = new Flow.Subscriber<JsonObject>() {
+				
+				@Override
+				public void onSubscribe(Flow.Subscription s) {
+					s.request(10);
+				}
+				
+				@Override
+				public void onNext(JsonObject item) {
+				}
+				
+				@Override
+				public void onError(Throwable throwable) {
+					errors.add(throwable);
+				}
+				
+				@Override
+				public void onComplete() {
+					errors.add("complete");
+				}
+				
+			};
+			JsonParser.publishObjects(new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)), Runnable::run).subscribe(failing);
+			JsonParser.publishObjects(new ByteArrayInputStream("[{\"a\":1},{\"a\"".getBytes(StandardCharsets.UTF_8)), Runnable::run).subscribe(failing);
+			assertEquals(2, errors.size());
+			assertTrue(errors.get(0) instanceof JSONFormatException);
+			assertTrue(errors.get(1) instanceof JSONFormatException);
+			
+			// nothing is signalled before onSubscribe returns, even on the calling thread
+			List<String> order = new ArrayList<>();
+			JsonParser.publishObjects(new ByteArrayInputStream(array), Runnable::run).subscribe(new Flow.Subscriber<JsonObject>() {
+				
+				@Override
+				public void onSubscribe(Flow.Subscription s) {
+					order.add("subscribe");
+					s.request(2);
+					order.add("subscribed");
+				}
+				
+				@Override
+				public void onNext(JsonObject item) {
+					order.add("next");
+				}
+				
+				@Override
+				public void onError(Throwable throwable) {
+					order.add("error");
+				}
+				
+				@Override
+				public void onComplete() {
+					order.add("complete");
+				}
+				
+			});
+			assertEquals(List.of("subscribe", "subscribed", "next", "next"), order);
+			
+			// an exception thrown by the subscriber ends the publication with onError
+			List<Object> thrown = new ArrayList<>();
+			boolean[] thrownClosed = new boolean[1];
+			InputStream thrownIn = new ByteArrayInputStream(array) {
+				
+				@Override
+				public void close() {
+					thrownClosed[0] = true;
+				}
+				
+			};
+			IllegalStateException failure = new IllegalStateException("subscriber failed");
+			JsonParser.publishObjects(thrownIn, Runnable::run).subscribe(new Flow.Subscriber<JsonObject>() {
+				
+				@Override
+				public void onSubscribe(Flow.Subscription s) {
+					s.request(Long.MAX_VALUE);
+				}
+				
+				@Override
+				public void onNext(JsonObject item) {
+					thrown.add(item);
+					throw failure;
+				}
+				
+				@Override
+				public void onError(Throwable throwable) {
+					thrown.add(throwable);
+				}
+				
+				@Override
+				public void onComplete() {
+					thrown.add("complete");
+				}
+				
+			});
+			assertEquals(2, thrown.size());
+			assertTrue(thrown.get(1) == failure);
+			assertTrue(thrownClosed[0]);
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
+	@Test
+	@DisplayName("number equality")
+	void test030() {
+		try {
+			// equal values are equal and hash alike, whatever their text
+			String[][] equal = {{"1.50", "1.5", "15e-1", "+0.015E2"}, {"0", "-0.0", "0e999"}, {"100", "1e2", "10E+1", "100.000"}};
+			for (String[] group : equal) {
+				for (String a : group) {
+					for (String b : group) {
+						assertEquals(new JsonNumber(a), new JsonNumber(b));
+						assertEquals(new JsonNumber(a).hashCode(), new JsonNumber(b).hashCode());
+					}
+				}
+			}
+			assertFalse(new JsonNumber("1.5").equals(new JsonNumber("-1.5")));
+			assertFalse(new JsonNumber("1e2").equals(new JsonNumber("1e3")));
+			assertFalse(new JsonNumber("1e99999999999999999999").equals(new JsonNumber("1e99999999999999999998")));
+			assertEquals(new JsonNumber("1e99999999999999999999"), new JsonNumber("10e99999999999999999998"));
+			
+			// extreme exponents are compared without being converted
+			JsonNumber tiny = new JsonNumber("1e-2147483648");
+			JsonNumber huge = new JsonNumber("1e999999999");
+			assertEquals(tiny, JsonParser.parseArrayLossless("[1e-2147483648]").get(0));
+			assertEquals(huge.hashCode(), new JsonNumber("0.1e1000000000").hashCode());
+			assertThrows(ArithmeticException.class, () -> tiny.asBigDecimal());
+			assertThrows(ArithmeticException.class, () -> tiny.asBigInteger());
+			assertThrows(ArithmeticException.class, () -> huge.asBigInteger());
+			assertThrows(ArithmeticException.class, () -> huge.asLong());
+			assertEquals(new BigDecimal("1E+999999999"), huge.asBigDecimal());
+			assertEquals(BigInteger.TEN.pow(500), new JsonNumber("1e500").asBigInteger());
+			assertEquals(new BigDecimal("1E-2147483647"), new JsonNumber("1000e-2147483650").asBigDecimal());
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+	
 }
@@ -0,0 +1,287 @@
+package com.jsontools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JsonReaderTest {
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterAll
+	static void tearDownAfterClass() throws Exception {
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+	}
+
+	@Test
+	@DisplayName("token sequence")
+	void test001() {
+		try {
+			String jsonString = "{\"key1\":[1,2.5,true],\"key2\":\"value\"}";
+			JsonReader reader = new JsonReader(new StringReader(jsonString));
+			JsonToken[] expected = {
+					JsonToken.BEGIN_OBJECT,
+					JsonToken.NAME,
+					JsonToken.BEGIN_ARRAY,
+					JsonToken.NUMBER,
+					JsonToken.NUMBER,
+					JsonToken.BOOLEAN,
+					JsonToken.END_ARRAY,
+					JsonToken.NAME,
+					JsonToken.STRING,
+					JsonToken.END_OBJECT,
+					JsonToken.END_DOCUMENT
+			};
+			Object[] values = { null, "key1", null, 1L, 2.5, true, null, "key2", "value", null, null };
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], reader.nextToken());
+				assertEquals(values[i], reader.getValue());
+			}
+			reader.close();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("typed accessors")
+	void test002() {
+		try {
+			String jsonString = "[ {\"id\" : 7, \"name\" : \"seven\"} , {\"id\" : 8, \"name\" : \"eight\"} ]";
+			JsonReader reader = new JsonReader(new StringReader(jsonString));
+			reader.beginArray();
+			long idSum = 0;
+			StringBuilder names = new StringBuilder();
+			while (reader.hasNext()) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if (reader.nextName().equals("id")) {
+						idSum += reader.nextLong();
+					} else {
+						names.append(reader.nextString());
+					}
+				}
+				reader.endObject();
+			}
+			reader.endArray();
+			assertEquals(15L, idSum);
+			assertEquals("seveneight", names.toString());
+			assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+			reader.close();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("skip values and build selected subtrees")
+	void test003() {
+		try {
+			String jsonString = "{\"skip1\":{\"a\":[1,{\"b\":\"}\"}]},\"keep\":{\"c\":[1,2]},\"skip2\":\"x\",\"last\":[3]}";
+			JsonReader reader = new JsonReader(new StringReader(jsonString));
+			reader.beginObject();
+			reader.skipValue();
+			assertEquals("keep", reader.nextName());
+			JsonObject keep = reader.nextObject();
+			assertEquals(2L, keep.seek("c[1]"));
+			reader.skipValue();
+			assertEquals("last", reader.nextName());
+			JsonArray last = reader.nextArray();
+			assertEquals(3L, last.get(0));
+			assertFalse(reader.hasNext());
+			reader.endObject();
+			reader.close();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("tokens spanning buffer refills")
+	void test004() {
+		try {
+			StringBuilder stringBuilder = new StringBuilder("[");
+			for (int i = 0; i < 100; i++) {
+				if (i > 0) {
+					stringBuilder.append(',');
+				}
+				stringBuilder.append("{\"key\":\"value \\\" number ").append(i).append("\",\"n\":").append(i * 1000003L).append('}');
+			}
+			stringBuilder.append(']');
+			JsonReader reader = new JsonReader(new StringReader(stringBuilder.toString()), 4);
+			reader.beginArray();
+			int i = 0;
+			while (reader.hasNext()) {
+				JsonObject jobj = reader.nextObject();
+				assertEquals("value \\\" number " + i, jobj.get("key"));
+				assertEquals(i * 1000003L, jobj.get("n"));
+				i++;
+			}
+			reader.endArray();
+			assertEquals(100, i);
+			reader.close();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("read from UTF-8 input stream")
+	void test005() {
+		try {
+			byte[] bytes = "{\"greeting\":\"h\u00e9llo \u4e16\u754c\"}".getBytes(StandardCharsets.UTF_8);
+			JsonReader reader = new JsonReader(new ByteArrayInputStream(bytes));
+			JsonObject jobj = (JsonObject) reader.nextValue();
+			assertEquals("h\u00e9llo \u4e16\u754c", jobj.get("greeting"));
+			assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+			reader.close();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("reject malformed json")
+	void test006() {
+		try {
+			JsonReader reader = new JsonReader(new StringReader("{\"key\" 1}"));
+			reader.beginObject();
+			reader.nextName();
+			reader.nextLong();
+			fail("Expected exception");
+		} catch (JSONFormatException ex) {
+			// expected
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("push parser")
+	void test007() {
+		try {
+			String jsonString = "{\"id\":7,\"name\":\"caf\u00e9 \\\"x\\\"\",\"list\":[1,2.5,true,[]],\"nested\":{\"a\":-12}}";
+			JsonObject expected = JsonParser.parseObjectString(jsonString);
+			byte[] bytes = (jsonString + "\n" + jsonString + "\n").getBytes(StandardCharsets.UTF_8);
+			
+			// values are complete at the same points whatever the fragments
+			for (int size = 1; size <= 16; size++) {
+				JsonPushParser parser = new JsonPushParser();
+				ByteBuffer chunk = ByteBuffer.allocate(size);
+				int values = 0;
+				for (int i = 0; i < bytes.length; i += size) {
+					chunk.clear();
+					chunk.put(bytes, i, Math.min(size, bytes.length - i)).flip();
+					parser.feed(chunk);
+					assertFalse(chunk.hasRemaining());
+					Object value;
+					while ((value = parser.nextValue()) != null) {
+						assertEquals(expected, value);
+						values++;
+					}
+				}
+				assertEquals(2, values);
+				assertEquals(JsonToken.NEED_MORE_INPUT, parser.peek());
+				parser.endOfInput();
+				assertEquals(JsonToken.END_DOCUMENT, parser.nextToken());
+			}
+			
+			// tokens are reported as they complete, a number only once it is delimited
+			JsonPushParser parser = new JsonPushParser();
+			parser.feed(ByteBuffer.wrap("[\"ab".getBytes(StandardCharsets.UTF_8)));
+			assertEquals(JsonToken.BEGIN_ARRAY, parser.nextToken());
+			assertEquals(JsonToken.NEED_MORE_INPUT, parser.nextToken());
+			parser.feed(ByteBuffer.wrap("c\",12".getBytes(StandardCharsets.UTF_8)));
+			assertEquals(JsonToken.STRING, parser.nextToken());
+			assertEquals("abc", parser.getValue());
+			assertEquals(JsonToken.NEED_MORE_INPUT, parser.nextToken());
+			parser.feed(ByteBuffer.wrap("3]".getBytes(StandardCharsets.UTF_8)));
+			assertEquals(JsonToken.NUMBER, parser.nextToken());
+			assertEquals(123L, parser.getValue());
+			assertEquals(JsonToken.END_ARRAY, parser.nextToken());
+			assertEquals(JsonToken.NEED_MORE_INPUT, parser.nextToken());
+			
+			// names and short values are shared through a table, tokens and values alike
+			StringTable table = new StringTable(64, 8);
+			JsonPushParser shared = new JsonPushParser(table);
+			shared.feed(ByteBuffer.wrap("{\"id\":\"open\",\"note\":\"a long description\"}[\"open\"]".getBytes(StandardCharsets.UTF_8)));
+			JsonObject object = (JsonObject) shared.nextValue();
+			assertTrue(table.canonicalize(new String("open")) == object.get("id"));
+			assertTrue(table.canonicalize(new String("id")) == object.keySet().stream().filter("id"::equals).findFirst().get());
+			assertFalse(table.canonicalize(new String("a long description")) == object.get("note"));
+			assertEquals(JsonToken.BEGIN_ARRAY, shared.nextToken());
+			assertEquals(JsonToken.STRING, shared.nextToken());
+			assertTrue(object.get("id") == shared.getValue());
+			JsonPushParser unshared = new JsonPushParser();
+			unshared.feed(ByteBuffer.wrap("[\"open\"]".getBytes(StandardCharsets.UTF_8)));
+			assertEquals(JsonToken.BEGIN_ARRAY, unshared.nextToken());
+			assertEquals(JsonToken.STRING, unshared.nextToken());
+			assertFalse(object.get("id") == unshared.getValue());
+			
+			// incomplete and malformed input
+			JsonPushParser truncated = new JsonPushParser();
+			truncated.feed(ByteBuffer.wrap("{\"a\":[1,".getBytes(StandardCharsets.UTF_8)));
+			assertEquals(null, truncated.nextValue());
+			truncated.endOfInput();
+			assertThrows(JSONFormatException.class, () -> truncated.nextValue());
+			assertThrows(IllegalStateException.class, () -> truncated.feed(ByteBuffer.allocate(1)));
+			JsonPushParser malformed = new JsonPushParser();
+			malformed.feed(ByteBuffer.wrap("{\"a\" 1}".getBytes(StandardCharsets.UTF_8)));
+			assertThrows(JSONFormatException.class, () -> malformed.nextValue());
+			assertThrows(JSONFormatException.class, () -> malformed.nextToken());
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	@DisplayName("mismatched reads")
+	void test008() {
+		try {
+			JsonReader reader = new JsonReader(new StringReader("[1.5,true,7]"));
+			reader.beginArray();
+			// a non-integral number is consumed before nextLong throws
+			assertThrows(JSONFormatException.class, () -> reader.nextLong());
+			// a token of another kind is left to be read
+			assertThrows(JSONFormatException.class, () -> reader.nextLong());
+			assertEquals(true, reader.nextBoolean());
+			assertThrows(JSONFormatException.class, () -> reader.nextBoolean());
+			assertEquals(7L, reader.nextLong());
+			reader.endArray();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+}